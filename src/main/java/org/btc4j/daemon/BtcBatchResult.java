@@ -0,0 +1,84 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.btc4j.core.BtcException;
+
+public class BtcBatchResult<T> extends AbstractList<T> {
+	private final List<T> results = new ArrayList<T>();
+	private final List<BtcException> errors = new ArrayList<BtcException>();
+	private int failures;
+
+	@Override
+	public T get(int index) {
+		return results.get(index);
+	}
+
+	@Override
+	public int size() {
+		return results.size();
+	}
+
+	public T getResult(int index) throws BtcException {
+		BtcException error = errors.get(index);
+		if (error != null) {
+			throw error;
+		}
+		return results.get(index);
+	}
+
+	public boolean isError(int index) {
+		return errors.get(index) != null;
+	}
+
+	public BtcException getError(int index) {
+		return errors.get(index);
+	}
+
+	public int getErrors() {
+		return failures;
+	}
+
+	void addResult(T result) {
+		results.add(result);
+		errors.add(null);
+	}
+
+	void addError(BtcException error) {
+		results.add(null);
+		errors.add(error);
+		failures++;
+	}
+
+	void addResults(BtcBatchResult<T> other) {
+		results.addAll(other.results);
+		errors.addAll(other.errors);
+		failures += other.failures;
+	}
+}
@@ -0,0 +1,375 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+import org.btc4j.core.BtcInput;
+import org.btc4j.core.BtcOutput;
+import org.btc4j.core.BtcRawTransaction;
+import org.btc4j.core.BtcScript;
+import org.btc4j.core.BtcTransaction;
+import org.btc4j.core.BtcTransactionDetail;
+
+final class BtcBinaryCodec {
+	private static final byte BTC4J_DAEMON_BLOCK = 1;
+	private static final byte BTC4J_DAEMON_RAW_TRANSACTION = 2;
+	private static final byte BTC4J_DAEMON_NULL = 0;
+	private static final byte BTC4J_DAEMON_HASH = 1;
+	private static final byte BTC4J_DAEMON_STRING = 2;
+	private static final byte BTC4J_DAEMON_HEX = 3;
+	private static final int BTC4J_DAEMON_HASH_BYTES = 32;
+	private static final char[] BTC4J_DAEMON_HEX_DIGITS = "0123456789abcdef"
+			.toCharArray();
+	private static final Charset BTC4J_DAEMON_UTF8 = Charset.forName("UTF-8");
+	private final static Logger LOG = Logger.getLogger(BtcBinaryCodec.class
+			.getName());
+
+	private BtcBinaryCodec() {
+	}
+
+	static byte[] encodeBlock(BtcBlock block) throws BtcException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(BTC4J_DAEMON_BLOCK);
+			writeHex(out, block.getHash());
+			out.writeLong(block.getHeight());
+			out.writeLong(block.getConfirmations());
+			writeHex(out, block.getPreviousBlockHash());
+			writeHex(out, block.getNextBlockHash());
+			writeHex(out, block.getMerkleRoot());
+			out.writeLong(block.getVersion());
+			out.writeLong(block.getTime());
+			out.writeLong(block.getNonce());
+			out.writeLong(block.getSize());
+			writeString(out, block.getBits());
+			writeDecimal(out, block.getDifficulty());
+			List<BtcTransaction> transactions = block.getTransactions();
+			out.writeInt((transactions == null) ? -1 : transactions.size());
+			if (transactions != null) {
+				for (BtcTransaction transaction : transactions) {
+					writeHex(out, (transaction == null) ? null : transaction
+							.getTransaction());
+				}
+			}
+			out.flush();
+		} catch (IOException e) {
+			throw codecError(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	static BtcBlock decodeBlock(ByteBuffer record) {
+		record.get();
+		BtcBlock block = new BtcBlock();
+		block.setHash(readHex(record));
+		block.setHeight(record.getLong());
+		block.setConfirmations(record.getLong());
+		block.setPreviousBlockHash(readHex(record));
+		block.setNextBlockHash(readHex(record));
+		block.setMerkleRoot(readHex(record));
+		block.setVersion(record.getLong());
+		block.setTime(record.getLong());
+		block.setNonce(record.getLong());
+		block.setSize(record.getLong());
+		block.setBits(readString(record));
+		block.setDifficulty(readDecimal(record));
+		int count = record.getInt();
+		if (count >= 0) {
+			List<BtcTransaction> transactions = new ArrayList<BtcTransaction>(
+					count);
+			for (int i = 0; i < count; i++) {
+				BtcTransaction transaction = new BtcTransaction();
+				transaction.setTransaction(readHex(record));
+				transactions.add(transaction);
+			}
+			block.setTransactions(transactions);
+		}
+		return block;
+	}
+
+	static byte[] encodeRawTransaction(BtcRawTransaction transaction)
+			throws BtcException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(BTC4J_DAEMON_RAW_TRANSACTION);
+			writeHex(out, transaction.getTransaction());
+			writeHex(out, transaction.getHex());
+			out.writeLong(transaction.getVersion());
+			out.writeLong(transaction.getLockTime());
+			writeHex(out, transaction.getBlockHash());
+			out.writeLong(transaction.getConfirmations());
+			out.writeLong(transaction.getTime());
+			out.writeLong(transaction.getBlockTime());
+			out.writeBoolean(transaction.isComplete());
+			List<BtcInput> inputs = transaction.getInputs();
+			out.writeInt((inputs == null) ? -1 : inputs.size());
+			if (inputs != null) {
+				for (BtcInput input : inputs) {
+					writeHex(out, input.getTransaction());
+					out.writeLong(input.getOutput());
+					writeScript(out, input.getScript());
+					out.writeLong(input.getSequence());
+				}
+			}
+			List<BtcOutput> outputs = transaction.getOutputs();
+			out.writeInt((outputs == null) ? -1 : outputs.size());
+			if (outputs != null) {
+				for (BtcOutput output : outputs) {
+					writeHex(out, output.getTransaction());
+					writeHex(out, output.getBestBlock());
+					out.writeLong(output.getConfirmations());
+					writeDecimal(out, output.getValue());
+					out.writeLong(output.getIndex());
+					out.writeLong(output.getOutput());
+					writeScript(out, output.getScript());
+					out.writeLong(output.getVersion());
+					out.writeBoolean(output.isCoinbase());
+					writeDetail(out, output.getDetail());
+				}
+			}
+			out.flush();
+		} catch (IOException e) {
+			throw codecError(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	static BtcRawTransaction decodeRawTransaction(ByteBuffer record) {
+		record.get();
+		BtcRawTransaction transaction = new BtcRawTransaction();
+		transaction.setTransaction(readHex(record));
+		transaction.setHex(readHex(record));
+		transaction.setVersion(record.getLong());
+		transaction.setLockTime(record.getLong());
+		transaction.setBlockHash(readHex(record));
+		transaction.setConfirmations(record.getLong());
+		transaction.setTime(record.getLong());
+		transaction.setBlockTime(record.getLong());
+		transaction.setComplete(record.get() != 0);
+		int count = record.getInt();
+		if (count >= 0) {
+			List<BtcInput> inputs = new ArrayList<BtcInput>(count);
+			for (int i = 0; i < count; i++) {
+				BtcInput input = new BtcInput();
+				input.setTransaction(readHex(record));
+				input.setOutput(record.getLong());
+				input.setScript(readScript(record));
+				input.setSequence(record.getLong());
+				inputs.add(input);
+			}
+			transaction.setInputs(inputs);
+		}
+		count = record.getInt();
+		if (count >= 0) {
+			List<BtcOutput> outputs = new ArrayList<BtcOutput>(count);
+			for (int i = 0; i < count; i++) {
+				BtcOutput output = new BtcOutput();
+				output.setTransaction(readHex(record));
+				output.setBestBlock(readHex(record));
+				output.setConfirmations(record.getLong());
+				output.setValue(readDecimal(record));
+				output.setIndex(record.getLong());
+				output.setOutput(record.getLong());
+				output.setScript(readScript(record));
+				output.setVersion(record.getLong());
+				output.setCoinbase(record.get() != 0);
+				output.setDetail(readDetail(record));
+				outputs.add(output);
+			}
+			transaction.setOutputs(outputs);
+		}
+		return transaction;
+	}
+
+	static void writeHex(DataOutputStream out, String hex) throws IOException {
+		if (hex == null) {
+			out.writeByte(BTC4J_DAEMON_NULL);
+		} else if (!isHex(hex)) {
+			out.writeByte(BTC4J_DAEMON_STRING);
+			writeString(out, hex);
+		} else {
+			if (hex.length() == (BTC4J_DAEMON_HASH_BYTES * 2)) {
+				out.writeByte(BTC4J_DAEMON_HASH);
+			} else {
+				out.writeByte(BTC4J_DAEMON_HEX);
+				out.writeInt(hex.length() / 2);
+			}
+			for (int i = 0; i < hex.length(); i += 2) {
+				out.writeByte((Character.digit(hex.charAt(i), 16) << 4)
+						| Character.digit(hex.charAt(i + 1), 16));
+			}
+		}
+	}
+
+	static String readHex(ByteBuffer record) {
+		byte type = record.get();
+		if (type == BTC4J_DAEMON_NULL) {
+			return null;
+		}
+		if (type == BTC4J_DAEMON_STRING) {
+			return readString(record);
+		}
+		int length = (type == BTC4J_DAEMON_HASH) ? BTC4J_DAEMON_HASH_BYTES
+				: record.getInt();
+		char[] hex = new char[length * 2];
+		for (int i = 0; i < length; i++) {
+			int b = record.get() & 0xff;
+			hex[2 * i] = BTC4J_DAEMON_HEX_DIGITS[b >> 4];
+			hex[(2 * i) + 1] = BTC4J_DAEMON_HEX_DIGITS[b & 0xf];
+		}
+		return new String(hex);
+	}
+
+	static void writeString(DataOutputStream out, String value)
+			throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(BTC4J_DAEMON_UTF8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	static String readString(ByteBuffer record) {
+		int length = record.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		record.get(bytes);
+		return new String(bytes, BTC4J_DAEMON_UTF8);
+	}
+
+	private static void writeDecimal(DataOutputStream out, BigDecimal value)
+			throws IOException {
+		writeString(out, (value == null) ? null : value.toString());
+	}
+
+	private static BigDecimal readDecimal(ByteBuffer record) {
+		String value = readString(record);
+		return (value == null) ? null : new BigDecimal(value);
+	}
+
+	private static void writeScript(DataOutputStream out, BtcScript script)
+			throws IOException {
+		out.writeBoolean(script != null);
+		if (script != null) {
+			writeString(out, script.getAsm());
+			writeHex(out, script.getPublicKey());
+			out.writeLong(script.getRequiredSignatures());
+			writeString(out, (script.getType() == null) ? null : script
+					.getType().name());
+			List<String> addresses = script.getAddresses();
+			out.writeInt((addresses == null) ? -1 : addresses.size());
+			if (addresses != null) {
+				for (String address : addresses) {
+					writeString(out, address);
+				}
+			}
+		}
+	}
+
+	private static BtcScript readScript(ByteBuffer record) {
+		if (record.get() == 0) {
+			return null;
+		}
+		BtcScript script = new BtcScript();
+		script.setAsm(readString(record));
+		script.setPublicKey(readHex(record));
+		script.setRequiredSignatures(record.getLong());
+		String type = readString(record);
+		script.setType((type == null) ? null : BtcScript.Type.valueOf(type));
+		int count = record.getInt();
+		if (count >= 0) {
+			List<String> addresses = new ArrayList<String>(count);
+			for (int i = 0; i < count; i++) {
+				addresses.add(readString(record));
+			}
+			script.setAddresses(addresses);
+		}
+		return script;
+	}
+
+	private static void writeDetail(DataOutputStream out,
+			BtcTransactionDetail detail) throws IOException {
+		out.writeBoolean(detail != null);
+		if (detail != null) {
+			writeString(out, detail.getAccount());
+			writeString(out, detail.getAddress());
+			writeString(out, (detail.getCategory() == null) ? null : detail
+					.getCategory().name());
+			writeDecimal(out, detail.getAmount());
+			writeDecimal(out, detail.getFee());
+		}
+	}
+
+	private static BtcTransactionDetail readDetail(ByteBuffer record) {
+		if (record.get() == 0) {
+			return null;
+		}
+		BtcTransactionDetail detail = new BtcTransactionDetail();
+		detail.setAccount(readString(record));
+		detail.setAddress(readString(record));
+		String category = readString(record);
+		detail.setCategory((category == null) ? null : BtcTransaction.Category
+				.valueOf(category));
+		detail.setAmount(readDecimal(record));
+		detail.setFee(readDecimal(record));
+		return detail;
+	}
+
+	private static boolean isHex(String value) {
+		if ((value.length() % 2) != 0) {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (((c < '0') || (c > '9')) && ((c < 'a') || (c > 'f'))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static BtcException codecError(Throwable cause) {
+		LOG.severe(String.valueOf(cause));
+		return new BtcException(BtcException.BTC4J_ERROR_CODE,
+				BtcException.BTC4J_ERROR_MESSAGE + ": " + cause.getMessage(),
+				cause);
+	}
+}
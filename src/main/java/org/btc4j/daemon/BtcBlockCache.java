@@ -0,0 +1,256 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.logging.Logger;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcTransaction;
+
+public class BtcBlockCache implements Observer {
+	private static final long BTC4J_DAEMON_BLOCK_WEIGHT = 640;
+	private static final long BTC4J_DAEMON_TRANSACTION_WEIGHT = 67;
+	private static final long BTC4J_DAEMON_HASH_WEIGHT = 66;
+	private static final long BTC4J_DAEMON_UNKNOWN_HEIGHT = -1;
+	private final static Logger LOG = Logger.getLogger(BtcBlockCache.class
+			.getName());
+	private final BtcCacheMap entries;
+	private final int minConfirmations;
+	private boolean nearTip;
+	private long tipHeight = BTC4J_DAEMON_UNKNOWN_HEIGHT;
+	private String tipHash;
+	private long epoch;
+	private BtcCompressedCache secondTier;
+
+	public BtcBlockCache(long maxWeight, int minConfirmations) {
+		this.entries = new BtcCacheMap(maxWeight) {
+			@Override
+			void evicted(Object key, Object value) {
+				if ((secondTier != null) && (value instanceof BtcBlock)) {
+					secondTier.putBlock((String) key, (BtcBlock) value);
+				}
+			}
+		};
+		this.minConfirmations = Math.max(minConfirmations, 1);
+	}
+
+	public synchronized BtcCompressedCache getSecondTier() {
+		return secondTier;
+	}
+
+	public synchronized void setSecondTier(BtcCompressedCache secondTier) {
+		this.secondTier = secondTier;
+	}
+
+	public long getMaxWeight() {
+		return entries.getMaxWeight();
+	}
+
+	public int getMinConfirmations() {
+		return minConfirmations;
+	}
+
+	public synchronized boolean isNearTip() {
+		return nearTip;
+	}
+
+	public synchronized void setNearTip(boolean nearTip) {
+		this.nearTip = nearTip;
+		if (!nearTip) {
+			invalidate();
+		}
+	}
+
+	public synchronized long getWeight() {
+		return entries.getWeight();
+	}
+
+	public synchronized int getSize() {
+		return entries.getSize();
+	}
+
+	public synchronized long getHits() {
+		return entries.getHits();
+	}
+
+	public synchronized long getMisses() {
+		return entries.getMisses();
+	}
+
+	public synchronized long getEvictions() {
+		return entries.getEvictions();
+	}
+
+	public synchronized long getInvalidations() {
+		return entries.getInvalidations();
+	}
+
+	public synchronized long getTipHeight() {
+		return tipHeight;
+	}
+
+	public synchronized long getEpoch() {
+		return epoch;
+	}
+
+	public synchronized BtcBlock getBlock(String hash) {
+		BtcBlock block = (BtcBlock) entries.get(hash);
+		if ((block == null) && (secondTier != null)) {
+			block = secondTier.getBlock(hash);
+			if (block != null) {
+				secondTier.remove(hash);
+				entries.put(hash, block, weigh(block), false);
+			}
+		}
+		if (block == null) {
+			return null;
+		}
+		BtcBlock copy = copy(block);
+		if (tipHeight >= block.getHeight()) {
+			copy.setConfirmations(Math.max(block.getConfirmations(),
+					tipHeight - block.getHeight() + 1));
+		}
+		return copy;
+	}
+
+	public synchronized String getBlockHash(long height) {
+		return (String) entries.get(height);
+	}
+
+	public synchronized void putBlock(String hash, BtcBlock block, long epoch) {
+		if ((block == null) || (block.getConfirmations() <= 0)) {
+			return;
+		}
+		boolean current = (epoch == this.epoch);
+		advance(block.getHeight() + block.getConfirmations() - 1,
+				(block.getConfirmations() == 1) ? block.getHash() : null);
+		boolean buried = block.getConfirmations() >= minConfirmations;
+		if (buried || (nearTip && current)) {
+			entries.put(hash, copy(block), weigh(block), !buried);
+		}
+	}
+
+	public synchronized void putBlockHash(long height, String hash, long epoch) {
+		if ((hash == null) || (tipHeight < height)) {
+			return;
+		}
+		boolean buried = (tipHeight - height + 1) >= minConfirmations;
+		if (buried || (nearTip && (epoch == this.epoch))) {
+			entries.put(height, hash, BTC4J_DAEMON_HASH_WEIGHT, !buried);
+		}
+	}
+
+	public synchronized void setTip(long height, String hash) {
+		advance(height, hash);
+	}
+
+	public synchronized void invalidate() {
+		epoch++;
+		entries.invalidate();
+	}
+
+	public synchronized void clear() {
+		epoch++;
+		entries.clear();
+		if (secondTier != null) {
+			secondTier.clear();
+		}
+	}
+
+	@Override
+	public void update(Observable observable, Object arg) {
+		if (arg instanceof BtcBlock) {
+			BtcBlock block = (BtcBlock) arg;
+			synchronized (this) {
+				if (block.getConfirmations() > 0) {
+					advance(block.getHeight() + block.getConfirmations() - 1,
+							(block.getConfirmations() == 1) ? block.getHash()
+									: null);
+				} else {
+					invalidate();
+				}
+			}
+		}
+	}
+
+	private static BtcBlock copy(BtcBlock block) {
+		BtcBlock copy = new BtcBlock();
+		copy.setHash(block.getHash());
+		copy.setHeight(block.getHeight());
+		copy.setConfirmations(block.getConfirmations());
+		copy.setPreviousBlockHash(block.getPreviousBlockHash());
+		copy.setNextBlockHash(block.getNextBlockHash());
+		copy.setMerkleRoot(block.getMerkleRoot());
+		copy.setVersion(block.getVersion());
+		copy.setTime(block.getTime());
+		copy.setNonce(block.getNonce());
+		copy.setSize(block.getSize());
+		copy.setBits(block.getBits());
+		copy.setDifficulty(block.getDifficulty());
+		List<BtcTransaction> transactions = block.getTransactions();
+		if (transactions != null) {
+			List<BtcTransaction> copies = new ArrayList<BtcTransaction>(
+					transactions.size());
+			for (BtcTransaction transaction : transactions) {
+				BtcTransaction id = null;
+				if (transaction != null) {
+					id = new BtcTransaction();
+					id.setTransaction(transaction.getTransaction());
+				}
+				copies.add(id);
+			}
+			copy.setTransactions(copies);
+		}
+		return copy;
+	}
+
+	private static long weigh(BtcBlock block) {
+		long size = BTC4J_DAEMON_BLOCK_WEIGHT;
+		if (block.getTransactions() != null) {
+			size += BTC4J_DAEMON_TRANSACTION_WEIGHT
+					* block.getTransactions().size();
+		}
+		return size;
+	}
+
+	private void advance(long height, String hash) {
+		boolean higher = height > tipHeight;
+		boolean replaced = (height == tipHeight) && (hash != null)
+				&& (tipHash != null) && !hash.equals(tipHash);
+		if (higher || replaced) {
+			if (replaced) {
+				LOG.info("chain tip replaced at height " + height);
+			}
+			tipHeight = height;
+			tipHash = hash;
+			invalidate();
+		} else if ((height == tipHeight) && (tipHash == null)) {
+			tipHash = hash;
+		}
+	}
+}
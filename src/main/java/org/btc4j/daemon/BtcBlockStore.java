@@ -0,0 +1,565 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+
+public class BtcBlockStore implements Closeable {
+	private static final int BTC4J_DAEMON_RECORD_MAGIC = 0x42346a42;
+	private static final int BTC4J_DAEMON_INDEX_MAGIC = 0x42346a49;
+	private static final int BTC4J_DAEMON_RECORD_HEADER = 12;
+	private static final int BTC4J_DAEMON_SEGMENT_SIZE = 64 * 1024 * 1024;
+	private static final double BTC4J_DAEMON_COMPACTION_RATIO = 0.5;
+	private static final int BTC4J_DAEMON_MIN_CONFIRMATIONS = 2;
+	private static final String BTC4J_DAEMON_SEGMENT_PREFIX = "blocks-";
+	private static final String BTC4J_DAEMON_SEGMENT_SUFFIX = ".dat";
+	private static final String BTC4J_DAEMON_INDEX = "index.dat";
+	private static final String BTC4J_DAEMON_INDEX_TEMP = "index.tmp";
+	private static final String BTC4J_DAEMON_DATA_DIRECTORY = "cannot create block store directory ";
+	private static final String BTC4J_DAEMON_DATA_CHECKPOINT = "ignoring unreadable block store index ";
+	private final static Logger LOG = Logger.getLogger(BtcBlockStore.class
+			.getName());
+	private final File directory;
+	private final int segmentSize;
+	private final int minConfirmations;
+	private final TreeMap<Integer, Segment> segments = new TreeMap<Integer, Segment>();
+	private final Map<String, Location> hashes = new HashMap<String, Location>();
+	private final Map<Long, String> heights = new HashMap<Long, String>();
+	private Segment active;
+	private long tip = -1;
+	private long hits;
+	private long misses;
+	private long appends;
+
+	public BtcBlockStore(File directory, int minConfirmations)
+			throws BtcException {
+		this(directory, BTC4J_DAEMON_SEGMENT_SIZE, minConfirmations);
+	}
+
+	public BtcBlockStore(File directory, int segmentSize, int minConfirmations)
+			throws BtcException {
+		this.directory = directory;
+		this.segmentSize = Math.max(segmentSize, 4096);
+		this.minConfirmations = Math.max(minConfirmations,
+				BTC4J_DAEMON_MIN_CONFIRMATIONS);
+		try {
+			open();
+		} catch (IOException e) {
+			close();
+			throw storeError(e);
+		}
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public int getSegmentSize() {
+		return segmentSize;
+	}
+
+	public int getMinConfirmations() {
+		return minConfirmations;
+	}
+
+	public synchronized long getTip() {
+		return tip;
+	}
+
+	public synchronized void setTip(long height) {
+		tip = Math.max(tip, height);
+	}
+
+	public synchronized int getBlocks() {
+		return hashes.size();
+	}
+
+	public synchronized int getSegments() {
+		return segments.size();
+	}
+
+	public synchronized long getUsedBytes() {
+		long used = 0;
+		for (Segment segment : segments.values()) {
+			used += segment.position;
+		}
+		return used;
+	}
+
+	public synchronized long getLiveBytes() {
+		long live = 0;
+		for (Segment segment : segments.values()) {
+			live += segment.live;
+		}
+		return live;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getAppends() {
+		return appends;
+	}
+
+	public synchronized boolean contains(String hash) {
+		return hashes.containsKey(hash);
+	}
+
+	public synchronized String getBlockHash(long height) {
+		String hash = heights.get(height);
+		if (hash == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return hash;
+	}
+
+	public BtcBlock getBlock(String hash) {
+		ByteBuffer record = getEncoded(hash);
+		if (record == null) {
+			return null;
+		}
+		BtcBlock block = BtcBinaryCodec.decodeBlock(record);
+		block.setConfirmations(Math.max(block.getConfirmations(), getTip()
+				- block.getHeight() + 1));
+		return block;
+	}
+
+	public ByteBuffer getEncoded(String hash) {
+		ByteBuffer buffer;
+		int offset;
+		int length;
+		synchronized (this) {
+			Location location = hashes.get(hash);
+			if (location == null) {
+				misses++;
+				return null;
+			}
+			hits++;
+			buffer = segments.get(location.segment).buffer.duplicate();
+			offset = location.offset;
+			length = location.length;
+		}
+		buffer.limit(offset + length);
+		buffer.position(offset + BTC4J_DAEMON_RECORD_HEADER);
+		return buffer.slice().asReadOnlyBuffer();
+	}
+
+	public boolean putBlock(BtcBlock block) throws BtcException {
+		if ((block == null) || (block.getHash() == null)
+				|| (block.getConfirmations() < minConfirmations)) {
+			return false;
+		}
+		synchronized (this) {
+			if (hashes.containsKey(block.getHash())) {
+				return false;
+			}
+		}
+		byte[] payload = BtcBinaryCodec.encodeBlock(block);
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		ByteBuffer record = ByteBuffer.allocate(BTC4J_DAEMON_RECORD_HEADER
+				+ payload.length);
+		record.putInt(BTC4J_DAEMON_RECORD_MAGIC).putInt(payload.length)
+				.putInt((int) crc.getValue()).put(payload).flip();
+		synchronized (this) {
+			if (hashes.containsKey(block.getHash())) {
+				return false;
+			}
+			try {
+				Location location = append(record);
+				location.height = block.getHeight();
+				index(block.getHash(), location);
+				tip = Math.max(tip,
+						block.getHeight() + block.getConfirmations() - 1);
+				appends++;
+				return true;
+			} catch (IOException e) {
+				throw storeError(e);
+			}
+		}
+	}
+
+	public synchronized boolean remove(String hash) {
+		Location location = hashes.remove(hash);
+		if (location == null) {
+			return false;
+		}
+		if (hash.equals(heights.get(location.height))) {
+			heights.remove(location.height);
+		}
+		segments.get(location.segment).live -= location.length;
+		return true;
+	}
+
+	public synchronized void checkpoint() throws BtcException {
+		try {
+			writeIndex();
+		} catch (IOException e) {
+			throw storeError(e);
+		}
+	}
+
+	public synchronized int compact() throws BtcException {
+		List<Segment> victims = new ArrayList<Segment>();
+		for (Segment segment : segments.values()) {
+			if ((segment != active)
+					&& (segment.live < (segment.position * BTC4J_DAEMON_COMPACTION_RATIO))) {
+				victims.add(segment);
+			}
+		}
+		if (victims.isEmpty()) {
+			return 0;
+		}
+		try {
+			for (Location location : hashes.values()) {
+				Segment segment = segments.get(location.segment);
+				if (victims.contains(segment)) {
+					ByteBuffer record = segment.buffer.duplicate();
+					record.limit(location.offset + location.length);
+					record.position(location.offset);
+					Location moved = append(record);
+					location.segment = moved.segment;
+					location.offset = moved.offset;
+					segment.live -= location.length;
+				}
+			}
+			for (Segment segment : victims) {
+				segments.remove(segment.id);
+			}
+			writeIndex();
+			for (Segment segment : victims) {
+				segment.close();
+				if (!segment.file.delete()) {
+					LOG.warning("cannot delete " + segment.file);
+				}
+			}
+			LOG.info("compacted " + victims.size() + " block store segments");
+			return victims.size();
+		} catch (IOException e) {
+			throw storeError(e);
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		try {
+			if (!segments.isEmpty()) {
+				writeIndex();
+			}
+		} catch (IOException e) {
+			LOG.warning(String.valueOf(e));
+		}
+		for (Segment segment : segments.values()) {
+			segment.close();
+		}
+		segments.clear();
+		hashes.clear();
+		heights.clear();
+		active = null;
+		tip = -1;
+	}
+
+	private void open() throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException(BTC4J_DAEMON_DATA_DIRECTORY + directory);
+		}
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				if (name.startsWith(BTC4J_DAEMON_SEGMENT_PREFIX)
+						&& name.endsWith(BTC4J_DAEMON_SEGMENT_SUFFIX)) {
+					int id = Integer.parseInt(name.substring(
+							BTC4J_DAEMON_SEGMENT_PREFIX.length(), name.length()
+									- BTC4J_DAEMON_SEGMENT_SUFFIX.length()));
+					segments.put(id, new Segment(id, file, file.length()));
+				}
+			}
+		}
+		Map<Integer, Integer> scanned = readIndex();
+		for (Segment segment : segments.values()) {
+			Integer start = scanned.get(segment.id);
+			scan(segment, (start == null) ? 0 : start);
+		}
+		for (Segment segment : segments.values()) {
+			segment.live = 0;
+		}
+		List<String> lost = new ArrayList<String>();
+		for (Map.Entry<String, Location> entry : hashes.entrySet()) {
+			Location location = entry.getValue();
+			Segment segment = segments.get(location.segment);
+			if ((segment == null)
+					|| ((location.offset + location.length) > segment.position)) {
+				lost.add(entry.getKey());
+			} else {
+				segment.live += location.length;
+			}
+		}
+		for (String hash : lost) {
+			Location location = hashes.remove(hash);
+			if (hash.equals(heights.get(location.height))) {
+				heights.remove(location.height);
+			}
+		}
+		for (Location location : hashes.values()) {
+			tip = Math.max(tip, location.height + minConfirmations - 1);
+		}
+		if (!segments.isEmpty()) {
+			active = segments.lastEntry().getValue();
+		}
+		LOG.info("opened block store " + directory + " with "
+				+ hashes.size() + " blocks in " + segments.size()
+				+ " segments");
+	}
+
+	private void scan(Segment segment, int start) {
+		ByteBuffer buffer = segment.buffer.duplicate();
+		int offset = start;
+		while ((offset + BTC4J_DAEMON_RECORD_HEADER) <= buffer.capacity()) {
+			if (buffer.getInt(offset) != BTC4J_DAEMON_RECORD_MAGIC) {
+				break;
+			}
+			int length = buffer.getInt(offset + 4);
+			if ((length <= 0)
+					|| (length > (buffer.capacity() - offset - BTC4J_DAEMON_RECORD_HEADER))) {
+				break;
+			}
+			byte[] payload = new byte[length];
+			buffer.position(offset + BTC4J_DAEMON_RECORD_HEADER);
+			buffer.get(payload);
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			if (buffer.getInt(offset + 8) != (int) crc.getValue()) {
+				break;
+			}
+			ByteBuffer record = ByteBuffer.wrap(payload);
+			record.get();
+			String hash = BtcBinaryCodec.readHex(record);
+			Location location = new Location(segment.id, offset,
+					BTC4J_DAEMON_RECORD_HEADER + length);
+			location.height = record.getLong();
+			if ((hash != null) && !hashes.containsKey(hash)) {
+				index(hash, location);
+			}
+			offset += BTC4J_DAEMON_RECORD_HEADER + length;
+		}
+		segment.position = offset;
+	}
+
+	private void index(String hash, Location location) {
+		hashes.put(hash, location);
+		String previous = heights.put(location.height, hash);
+		if ((previous != null) && !previous.equals(hash)) {
+			Location replaced = hashes.remove(previous);
+			if (replaced != null) {
+				Segment segment = segments.get(replaced.segment);
+				if (segment != null) {
+					segment.live -= replaced.length;
+				}
+			}
+		}
+	}
+
+	private Location append(ByteBuffer record) throws IOException {
+		int length = record.remaining();
+		if ((active == null)
+				|| ((active.position + length) > active.buffer.capacity())) {
+			int id = segments.isEmpty() ? 0 : (segments.lastKey() + 1);
+			File file = new File(directory, String.format("%s%08d%s",
+					BTC4J_DAEMON_SEGMENT_PREFIX, id,
+					BTC4J_DAEMON_SEGMENT_SUFFIX));
+			active = new Segment(id, file, Math.max(segmentSize, length));
+			segments.put(id, active);
+		}
+		int offset = active.position;
+		ByteBuffer target = active.buffer.duplicate();
+		target.position(offset + 4);
+		record.position(record.position() + 4);
+		target.put(record);
+		active.buffer.putInt(offset, BTC4J_DAEMON_RECORD_MAGIC);
+		active.position = offset + length;
+		active.live += length;
+		active.dirty = true;
+		return new Location(active.id, offset, length);
+	}
+
+	private Map<Integer, Integer> readIndex() {
+		Map<Integer, Integer> scanned = new HashMap<Integer, Integer>();
+		File file = new File(directory, BTC4J_DAEMON_INDEX);
+		if (!file.isFile()) {
+			return scanned;
+		}
+		try {
+			byte[] bytes = Files.readAllBytes(file.toPath());
+			CRC32 crc = new CRC32();
+			crc.update(bytes, 0, bytes.length - 8);
+			DataInputStream in = new DataInputStream(
+					new java.io.ByteArrayInputStream(bytes));
+			if ((bytes.length < 16)
+					|| (ByteBuffer.wrap(bytes, bytes.length - 8, 8).getLong() != crc
+							.getValue()) || (in.readInt() != BTC4J_DAEMON_INDEX_MAGIC)) {
+				throw new IOException(String.valueOf(file));
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				int id = in.readInt();
+				int position = in.readInt();
+				if (segments.containsKey(id)) {
+					scanned.put(id, position);
+				}
+			}
+			count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String hash = in.readUTF();
+				Location location = new Location(in.readInt(), in.readInt(),
+						in.readInt());
+				location.height = in.readLong();
+				hashes.put(hash, location);
+				heights.put(location.height, hash);
+			}
+		} catch (IOException | RuntimeException e) {
+			LOG.warning(BTC4J_DAEMON_DATA_CHECKPOINT + e);
+			scanned.clear();
+			hashes.clear();
+			heights.clear();
+		}
+		return scanned;
+	}
+
+	private void writeIndex() throws IOException {
+		for (Segment segment : segments.values()) {
+			if (segment.dirty) {
+				segment.buffer.force();
+				segment.dirty = false;
+			}
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(BTC4J_DAEMON_INDEX_MAGIC);
+		out.writeInt(segments.size());
+		for (Segment segment : segments.values()) {
+			out.writeInt(segment.id);
+			out.writeInt(segment.position);
+		}
+		out.writeInt(hashes.size());
+		for (Map.Entry<String, Location> entry : hashes.entrySet()) {
+			Location location = entry.getValue();
+			out.writeUTF(entry.getKey());
+			out.writeInt(location.segment);
+			out.writeInt(location.offset);
+			out.writeInt(location.length);
+			out.writeLong(location.height);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeLong(crc.getValue());
+		out.flush();
+		File temp = new File(directory, BTC4J_DAEMON_INDEX_TEMP);
+		try (FileOutputStream file = new FileOutputStream(temp);) {
+			bytes.writeTo(file);
+			file.getFD().sync();
+		}
+		Files.move(temp.toPath(), new File(directory, BTC4J_DAEMON_INDEX)
+				.toPath(), StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static BtcException storeError(Throwable cause) {
+		LOG.severe(String.valueOf(cause));
+		return new BtcException(BtcException.BTC4J_ERROR_CODE,
+				BtcException.BTC4J_ERROR_MESSAGE + ": " + cause.getMessage(),
+				cause);
+	}
+
+	private static class Location {
+		private int segment;
+		private int offset;
+		private final int length;
+		private long height;
+
+		private Location(int segment, int offset, int length) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	private static class Segment {
+		private final int id;
+		private final File file;
+		private final RandomAccessFile access;
+		private final MappedByteBuffer buffer;
+		private int position;
+		private long live;
+		private boolean dirty;
+
+		private Segment(int id, File file, long size) throws IOException {
+			this.id = id;
+			this.file = file;
+			access = new RandomAccessFile(file, "rw");
+			if (access.length() < size) {
+				access.setLength(size);
+			}
+			buffer = access.getChannel().map(FileChannel.MapMode.READ_WRITE,
+					0, access.length());
+		}
+
+		private void close() {
+			try {
+				access.close();
+			} catch (IOException e) {
+				LOG.warning(String.valueOf(e));
+			}
+		}
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.io.ObjectStreamException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+import org.btc4j.core.BtcTransaction;
+
+public class BtcBlockView extends BtcBlock {
+	private static final long serialVersionUID = 1L;
+	private static final String BTCOBJ_BLOCK_BITS = "bits";
+	private static final String BTCOBJ_BLOCK_CONFIRMATIONS = "confirmations";
+	private static final String BTCOBJ_BLOCK_DIFFICULTY = "difficulty";
+	private static final String BTCOBJ_BLOCK_HASH = "hash";
+	private static final String BTCOBJ_BLOCK_HEIGHT = "height";
+	private static final String BTCOBJ_BLOCK_MERKLE_ROOT = "merkleroot";
+	private static final String BTCOBJ_BLOCK_NEXT_BLOCK_HASH = "nextblockhash";
+	private static final String BTCOBJ_BLOCK_NONCE = "nonce";
+	private static final String BTCOBJ_BLOCK_PREVIOUS_BLOCK_HASH = "previousblockhash";
+	private static final String BTCOBJ_BLOCK_SIZE = "size";
+	private static final String BTCOBJ_BLOCK_TIME = "time";
+	private static final String BTCOBJ_BLOCK_TRANSACTIONS = "tx";
+	private static final String BTCOBJ_BLOCK_VERSION = "version";
+	private static final int BTC4J_VIEW_HASH = 1;
+	private static final int BTC4J_VIEW_CONFIRMATIONS = 1 << 1;
+	private static final int BTC4J_VIEW_MERKLE_ROOT = 1 << 2;
+	private static final int BTC4J_VIEW_TRANSACTIONS = 1 << 3;
+	private static final int BTC4J_VIEW_NONCE = 1 << 4;
+	private static final int BTC4J_VIEW_DIFFICULTY = 1 << 5;
+	private static final int BTC4J_VIEW_NEXT_BLOCK_HASH = 1 << 6;
+	private static final int BTC4J_VIEW_BITS = 1 << 7;
+	private static final int BTC4J_VIEW_TIME = 1 << 8;
+	private static final int BTC4J_VIEW_HEIGHT = 1 << 9;
+	private static final int BTC4J_VIEW_PREVIOUS_BLOCK_HASH = 1 << 10;
+	private static final int BTC4J_VIEW_SIZE = 1 << 11;
+	private static final int BTC4J_VIEW_VERSION = 1 << 12;
+	private transient BtcJsonIndex index;
+	private transient int decoded;
+
+	public BtcBlockView(BtcJsonIndex index) {
+		this.index = index;
+	}
+
+	public BtcJsonIndex getIndex() {
+		return index;
+	}
+
+	@Override
+	public synchronized String getHash() {
+		if (decode(BTC4J_VIEW_HASH)) {
+			super.setHash(index.string(BTCOBJ_BLOCK_HASH));
+		}
+		return super.getHash();
+	}
+
+	@Override
+	public synchronized void setHash(String hash) {
+		decoded |= BTC4J_VIEW_HASH;
+		super.setHash(hash);
+	}
+
+	@Override
+	public synchronized long getConfirmations() {
+		if (decode(BTC4J_VIEW_CONFIRMATIONS)) {
+			super.setConfirmations(index.number(BTCOBJ_BLOCK_CONFIRMATIONS));
+		}
+		return super.getConfirmations();
+	}
+
+	@Override
+	public synchronized void setConfirmations(long confirmations) {
+		decoded |= BTC4J_VIEW_CONFIRMATIONS;
+		super.setConfirmations(confirmations);
+	}
+
+	@Override
+	public synchronized String getMerkleRoot() {
+		if (decode(BTC4J_VIEW_MERKLE_ROOT)) {
+			super.setMerkleRoot(index.string(BTCOBJ_BLOCK_MERKLE_ROOT));
+		}
+		return super.getMerkleRoot();
+	}
+
+	@Override
+	public synchronized void setMerkleRoot(String merkleRoot) {
+		decoded |= BTC4J_VIEW_MERKLE_ROOT;
+		super.setMerkleRoot(merkleRoot);
+	}
+
+	@Override
+	public synchronized List<BtcTransaction> getTransactions() {
+		if (decode(BTC4J_VIEW_TRANSACTIONS)) {
+			List<BtcTransaction> transactions = new ArrayList<BtcTransaction>();
+			try {
+				for (String transactionId : index
+						.strings(BTCOBJ_BLOCK_TRANSACTIONS)) {
+					BtcTransaction transaction = new BtcTransaction();
+					transaction.setTransaction(transactionId);
+					transactions.add(transaction);
+				}
+			} catch (BtcException e) {
+				throw new IllegalStateException(e.getMessage(), e);
+			}
+			super.setTransactions(transactions);
+		}
+		return super.getTransactions();
+	}
+
+	@Override
+	public synchronized void setTransactions(List<BtcTransaction> transactions) {
+		decoded |= BTC4J_VIEW_TRANSACTIONS;
+		super.setTransactions(transactions);
+	}
+
+	@Override
+	public synchronized long getNonce() {
+		if (decode(BTC4J_VIEW_NONCE)) {
+			super.setNonce(index.number(BTCOBJ_BLOCK_NONCE));
+		}
+		return super.getNonce();
+	}
+
+	@Override
+	public synchronized void setNonce(long nonce) {
+		decoded |= BTC4J_VIEW_NONCE;
+		super.setNonce(nonce);
+	}
+
+	@Override
+	public synchronized BigDecimal getDifficulty() {
+		if (decode(BTC4J_VIEW_DIFFICULTY)) {
+			super.setDifficulty(index.decimal(BTCOBJ_BLOCK_DIFFICULTY));
+		}
+		return super.getDifficulty();
+	}
+
+	@Override
+	public synchronized void setDifficulty(BigDecimal difficulty) {
+		decoded |= BTC4J_VIEW_DIFFICULTY;
+		super.setDifficulty(difficulty);
+	}
+
+	@Override
+	public synchronized String getNextBlockHash() {
+		if (decode(BTC4J_VIEW_NEXT_BLOCK_HASH)) {
+			super.setNextBlockHash(index.string(BTCOBJ_BLOCK_NEXT_BLOCK_HASH));
+		}
+		return super.getNextBlockHash();
+	}
+
+	@Override
+	public synchronized void setNextBlockHash(String nextBlockHash) {
+		decoded |= BTC4J_VIEW_NEXT_BLOCK_HASH;
+		super.setNextBlockHash(nextBlockHash);
+	}
+
+	@Override
+	public synchronized String getBits() {
+		if (decode(BTC4J_VIEW_BITS)) {
+			super.setBits(index.string(BTCOBJ_BLOCK_BITS));
+		}
+		return super.getBits();
+	}
+
+	@Override
+	public synchronized void setBits(String bits) {
+		decoded |= BTC4J_VIEW_BITS;
+		super.setBits(bits);
+	}
+
+	@Override
+	public synchronized long getTime() {
+		if (decode(BTC4J_VIEW_TIME)) {
+			super.setTime(index.number(BTCOBJ_BLOCK_TIME));
+		}
+		return super.getTime();
+	}
+
+	@Override
+	public synchronized void setTime(long time) {
+		decoded |= BTC4J_VIEW_TIME;
+		super.setTime(time);
+	}
+
+	@Override
+	public synchronized long getHeight() {
+		if (decode(BTC4J_VIEW_HEIGHT)) {
+			super.setHeight(index.number(BTCOBJ_BLOCK_HEIGHT));
+		}
+		return super.getHeight();
+	}
+
+	@Override
+	public synchronized void setHeight(long height) {
+		decoded |= BTC4J_VIEW_HEIGHT;
+		super.setHeight(height);
+	}
+
+	@Override
+	public synchronized String getPreviousBlockHash() {
+		if (decode(BTC4J_VIEW_PREVIOUS_BLOCK_HASH)) {
+			super.setPreviousBlockHash(index
+					.string(BTCOBJ_BLOCK_PREVIOUS_BLOCK_HASH));
+		}
+		return super.getPreviousBlockHash();
+	}
+
+	@Override
+	public synchronized void setPreviousBlockHash(String previousBlockHash) {
+		decoded |= BTC4J_VIEW_PREVIOUS_BLOCK_HASH;
+		super.setPreviousBlockHash(previousBlockHash);
+	}
+
+	@Override
+	public synchronized long getSize() {
+		if (decode(BTC4J_VIEW_SIZE)) {
+			super.setSize(index.number(BTCOBJ_BLOCK_SIZE));
+		}
+		return super.getSize();
+	}
+
+	@Override
+	public synchronized void setSize(long size) {
+		decoded |= BTC4J_VIEW_SIZE;
+		super.setSize(size);
+	}
+
+	@Override
+	public synchronized long getVersion() {
+		if (decode(BTC4J_VIEW_VERSION)) {
+			super.setVersion(index.number(BTCOBJ_BLOCK_VERSION));
+		}
+		return super.getVersion();
+	}
+
+	@Override
+	public synchronized void setVersion(long version) {
+		decoded |= BTC4J_VIEW_VERSION;
+		super.setVersion(version);
+	}
+
+	@Override
+	public synchronized String toString() {
+		decodeAll();
+		return super.toString();
+	}
+
+	private boolean decode(int field) {
+		if ((index == null) || ((decoded & field) != 0)) {
+			return false;
+		}
+		decoded |= field;
+		return true;
+	}
+
+	private void decodeAll() {
+		getHash();
+		getConfirmations();
+		getMerkleRoot();
+		getTransactions();
+		getNonce();
+		getDifficulty();
+		getNextBlockHash();
+		getBits();
+		getTime();
+		getHeight();
+		getPreviousBlockHash();
+		getSize();
+		getVersion();
+	}
+
+	private synchronized Object writeReplace() throws ObjectStreamException {
+		BtcBlock block = new BtcBlock();
+		block.setHash(getHash());
+		block.setConfirmations(getConfirmations());
+		block.setMerkleRoot(getMerkleRoot());
+		block.setTransactions(getTransactions());
+		block.setNonce(getNonce());
+		block.setDifficulty(getDifficulty());
+		block.setNextBlockHash(getNextBlockHash());
+		block.setBits(getBits());
+		block.setTime(getTime());
+		block.setHeight(getHeight());
+		block.setPreviousBlockHash(getPreviousBlockHash());
+		block.setSize(getSize());
+		block.setVersion(getVersion());
+		return block;
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class BtcCacheMap {
+	private final long maxWeight;
+	private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<Object, Entry>(
+			16, 0.75f, true);
+	private long weight;
+	private long tentative;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+
+	BtcCacheMap(long maxWeight) {
+		this.maxWeight = Math.max(maxWeight, 0);
+	}
+
+	long getMaxWeight() {
+		return maxWeight;
+	}
+
+	long getWeight() {
+		return weight;
+	}
+
+	int getSize() {
+		return entries.size();
+	}
+
+	long getHits() {
+		return hits;
+	}
+
+	long getMisses() {
+		return misses;
+	}
+
+	long getEvictions() {
+		return evictions;
+	}
+
+	long getInvalidations() {
+		return invalidations;
+	}
+
+	Object get(Object key) {
+		return get(key, Object.class);
+	}
+
+	Object get(Object key, Class<?> type) {
+		Entry entry = entries.get(key);
+		if ((entry == null) || !type.isInstance(entry.value)) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.value;
+	}
+
+	Object peek(Object key) {
+		Entry entry = entries.get(key);
+		return (entry == null) ? null : entry.value;
+	}
+
+	void put(Object key, Object value, long size, boolean tentative) {
+		if (size > maxWeight) {
+			return;
+		}
+		remove(entries.put(key, new Entry(value, size, tentative)));
+		weight += size;
+		if (tentative) {
+			this.tentative++;
+		}
+		Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet()
+				.iterator();
+		while ((weight > maxWeight) && iterator.hasNext()) {
+			Map.Entry<Object, Entry> eldest = iterator.next();
+			iterator.remove();
+			remove(eldest.getValue());
+			evictions++;
+			if (!eldest.getValue().tentative) {
+				evicted(eldest.getKey(), eldest.getValue().value);
+			}
+		}
+	}
+
+	Object remove(Object key) {
+		Entry entry = entries.remove(key);
+		remove(entry);
+		return (entry == null) ? null : entry.value;
+	}
+
+	void evicted(Object key, Object value) {
+	}
+
+	void invalidate() {
+		if (tentative == 0) {
+			return;
+		}
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.tentative) {
+				iterator.remove();
+				remove(entry);
+				invalidations++;
+			}
+		}
+	}
+
+	void clear() {
+		entries.clear();
+		weight = 0;
+		tentative = 0;
+	}
+
+	private void remove(Entry entry) {
+		if (entry != null) {
+			weight -= entry.weight;
+			if (entry.tentative) {
+				tentative--;
+			}
+		}
+	}
+
+	private static class Entry {
+		private final Object value;
+		private final long weight;
+		private final boolean tentative;
+
+		private Entry(Object value, long weight, boolean tentative) {
+			this.value = value;
+			this.weight = weight;
+			this.tentative = tentative;
+		}
+	}
+}
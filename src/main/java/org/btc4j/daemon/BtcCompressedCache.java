@@ -0,0 +1,265 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+import org.btc4j.core.BtcRawTransaction;
+
+public class BtcCompressedCache {
+	private static final long BTC4J_DAEMON_ENTRY_WEIGHT = 96;
+	private static final int BTC4J_DAEMON_BUFFER_SIZE = 4096;
+	private final static Logger LOG = Logger.getLogger(BtcCompressedCache.class
+			.getName());
+	private static final ThreadLocal<Deflater> DEFLATER = new ThreadLocal<Deflater>() {
+		@Override
+		protected Deflater initialValue() {
+			return new Deflater(Deflater.BEST_SPEED, true);
+		}
+	};
+	private static final ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>() {
+		@Override
+		protected Inflater initialValue() {
+			return new Inflater(true);
+		}
+	};
+	private final BtcCacheMap entries;
+	private final boolean direct;
+	private long encodedBytes;
+	private long compressedBytes;
+	private long decodes;
+	private long decodeTime;
+	private long maxDecodeTime;
+
+	public BtcCompressedCache(long maxWeight, boolean direct) {
+		this.entries = new BtcCacheMap(maxWeight);
+		this.direct = direct;
+	}
+
+	public long getMaxWeight() {
+		return entries.getMaxWeight();
+	}
+
+	public boolean isDirect() {
+		return direct;
+	}
+
+	public synchronized long getWeight() {
+		return entries.getWeight();
+	}
+
+	public synchronized int getSize() {
+		return entries.getSize();
+	}
+
+	public synchronized long getHits() {
+		return entries.getHits();
+	}
+
+	public synchronized long getMisses() {
+		return entries.getMisses();
+	}
+
+	public synchronized long getEvictions() {
+		return entries.getEvictions();
+	}
+
+	public synchronized double getCompressionRatio() {
+		return (compressedBytes == 0) ? 0 : (double) encodedBytes
+				/ compressedBytes;
+	}
+
+	public synchronized long getDecodes() {
+		return decodes;
+	}
+
+	public synchronized long getDecodeTime() {
+		return (decodes == 0) ? 0 : decodeTime / decodes;
+	}
+
+	public synchronized long getMaxDecodeTime() {
+		return maxDecodeTime;
+	}
+
+	public BtcBlock getBlock(String hash) {
+		Compressed compressed = get(hash, true, false);
+		if (compressed == null) {
+			return null;
+		}
+		long start = System.nanoTime();
+		BtcBlock block = BtcBinaryCodec.decodeBlock(inflate(compressed));
+		decoded(System.nanoTime() - start);
+		return block;
+	}
+
+	public void putBlock(String hash, BtcBlock block) {
+		if ((hash != null) && (block != null)) {
+			try {
+				put(hash, BtcBinaryCodec.encodeBlock(block), true, false);
+			} catch (BtcException e) {
+				LOG.warning(String.valueOf(e));
+			}
+		}
+	}
+
+	public BtcRawTransaction getRawTransaction(String transactionId,
+			boolean verbose) {
+		Compressed compressed = get(transactionId, false, verbose);
+		if (compressed == null) {
+			return null;
+		}
+		long start = System.nanoTime();
+		BtcRawTransaction transaction = BtcBinaryCodec
+				.decodeRawTransaction(inflate(compressed));
+		decoded(System.nanoTime() - start);
+		if (verbose || !compressed.verbose) {
+			return transaction;
+		}
+		BtcRawTransaction hex = new BtcRawTransaction();
+		hex.setHex(transaction.getHex());
+		return hex;
+	}
+
+	public void putRawTransaction(String transactionId,
+			BtcRawTransaction transaction, boolean verbose) {
+		if ((transactionId != null) && (transaction != null)) {
+			try {
+				put(transactionId,
+						BtcBinaryCodec.encodeRawTransaction(transaction),
+						false, verbose);
+			} catch (BtcException e) {
+				LOG.warning(String.valueOf(e));
+			}
+		}
+	}
+
+	public synchronized void remove(String key) {
+		entries.remove(key);
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	private synchronized Compressed get(String key, boolean block,
+			boolean verbose) {
+		Compressed compressed = (Compressed) entries.get(key);
+		if ((compressed == null) || (compressed.block != block)
+				|| (verbose && !compressed.verbose)) {
+			return null;
+		}
+		return compressed;
+	}
+
+	private void put(String key, byte[] encoded, boolean block,
+			boolean verbose) {
+		Deflater deflater = DEFLATER.get();
+		deflater.reset();
+		deflater.setInput(encoded);
+		deflater.finish();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+				Math.max(encoded.length / 2, 64));
+		byte[] buffer = new byte[BTC4J_DAEMON_BUFFER_SIZE];
+		while (!deflater.finished()) {
+			bytes.write(buffer, 0, deflater.deflate(buffer));
+		}
+		byte[] deflated = bytes.toByteArray();
+		Object data = deflated;
+		if (direct) {
+			ByteBuffer off = ByteBuffer.allocateDirect(deflated.length);
+			off.put(deflated).flip();
+			data = off;
+		}
+		Compressed compressed = new Compressed(data, encoded.length, block,
+				verbose);
+		synchronized (this) {
+			Compressed previous = (Compressed) entries.peek(key);
+			if ((previous != null) && previous.verbose && !verbose) {
+				return;
+			}
+			entries.put(key, compressed, deflated.length
+					+ BTC4J_DAEMON_ENTRY_WEIGHT, false);
+			encodedBytes += encoded.length;
+			compressedBytes += deflated.length;
+		}
+	}
+
+	private ByteBuffer inflate(Compressed compressed) {
+		byte[] deflated;
+		if (compressed.data instanceof ByteBuffer) {
+			ByteBuffer off = ((ByteBuffer) compressed.data).duplicate();
+			deflated = new byte[off.remaining()];
+			off.get(deflated);
+		} else {
+			deflated = (byte[]) compressed.data;
+		}
+		Inflater inflater = INFLATER.get();
+		inflater.reset();
+		inflater.setInput(deflated);
+		byte[] encoded = new byte[compressed.length];
+		try {
+			int offset = 0;
+			while (offset < encoded.length) {
+				int inflated = inflater.inflate(encoded, offset,
+						encoded.length - offset);
+				if ((inflated == 0)
+						&& (inflater.finished() || inflater.needsInput())) {
+					break;
+				}
+				offset += inflated;
+			}
+		} catch (DataFormatException e) {
+			throw new IllegalStateException(e);
+		}
+		return ByteBuffer.wrap(encoded);
+	}
+
+	private synchronized void decoded(long time) {
+		decodes++;
+		decodeTime += time;
+		maxDecodeTime = Math.max(maxDecodeTime, time);
+	}
+
+	private static class Compressed {
+		private final Object data;
+		private final int length;
+		private final boolean block;
+		private final boolean verbose;
+
+		private Compressed(Object data, int length, boolean block,
+				boolean verbose) {
+			this.data = data;
+			this.length = length;
+			this.block = block;
+			this.verbose = verbose;
+		}
+	}
+}
@@ -31,6 +31,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
 
 import javax.json.Json;
 import javax.json.JsonArray;
@@ -41,6 +43,8 @@ import javax.json.JsonObjectBuilder;
 import javax.json.JsonString;
 import javax.json.JsonValue;
 
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
 import org.btc4j.core.BtcAccount;
 import org.btc4j.core.BtcAddedNode;
 import org.btc4j.core.BtcAddress;
@@ -127,52 +131,108 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 	private static final String BTCAPI_WALLET_PASSPHRASE_CHANGE = "walletpassphrasechange";
 	private static final String[] BTC4J_DAEMON_VERSIONS = { "0.8.6" };
 	private static final long BTCAPI_WALLET_TIMEOUT = 120;
+	private static final int BTC4J_DAEMON_BATCH_SIZE = 1000;
+	private static final String[] BTC4J_DAEMON_READ_METHODS = {
+			BTCAPI_GET_BLOCK, BTCAPI_GET_BLOCK_HASH,
+			BTCAPI_GET_RAW_TRANSACTION, BTCAPI_GET_INFORMATION,
+			BTCAPI_GET_TRANSACTION_OUTPUT };
+	private static final int BTC4J_DAEMON_READ_ATTEMPTS = 3;
+	private static final String[] BTC4J_DAEMON_INTERACTIVE_METHODS = {
+			BTCAPI_SEND_FROM, BTCAPI_SEND_MANY, BTCAPI_SEND_RAW_TRANSACTION,
+			BTCAPI_SEND_TO_ADDRESS, BTCAPI_SIGN_RAW_TRANSACTION,
+			BTCAPI_CREATE_RAW_TRANSACTION, BTCAPI_WALLET_PASSPHRASE };
+	private static final long BTC4J_DAEMON_READ_BACKOFF = 50;
+	private static final long BTC4J_DAEMON_READ_MAX_BACKOFF = 1000;
+	private static final long BTC4J_DAEMON_READ_MIN_HEDGE_DELAY = 10;
+	private static final String[] BTC4J_DAEMON_QUICK_METHODS = {
+			BTCAPI_GET_BLOCK_COUNT, BTCAPI_GET_BLOCK_HASH,
+			BTCAPI_GET_CONNECTION_COUNT, BTCAPI_GET_INFORMATION };
+	private static final long BTC4J_DAEMON_QUICK_TIMEOUT = 5000;
+	private static final String[] BTC4J_DAEMON_SLOW_METHODS = {
+			BTCAPI_LIST_SINCE_BLOCK, BTCAPI_LIST_TRANSACTIONS,
+			BTCAPI_LIST_UNSPENT };
+	private static final long BTC4J_DAEMON_SLOW_TIMEOUT = 180000;
+	private final static Logger LOG = Logger.getLogger(BtcDaemon.class
+			.getName());
 	private BtcAlertListener alertListener;
 	private Thread alertThread;
 	private BtcBlockListener blockListener;
 	private Thread blockThread;
 	private BtcWalletListener walletListener;
 	private Thread walletThread;
+	private BtcJsonRpcAsyncHttpClient asyncClient;
+	private volatile BtcBlockCache blockCache;
+	private volatile BtcTransactionCache transactionCache;
+	private volatile BtcBlockStore blockStore;
+	private volatile BtcStatusService statusService;
 
 	public BtcDaemon(URL url, String account, String password, int timeout) {
 		super(url, account, password, timeout);
+		setDefaultPolicies(timeout);
+		startWarmUp();
 	}
 
 	public BtcDaemon(URL url, String account, String password) {
 		super(url, account, password);
+		setDefaultPolicies(Long.MAX_VALUE);
+		startWarmUp();
 	}
 
 	public BtcDaemon(URL url, int timeout) {
 		super(url, timeout);
+		setDefaultPolicies(timeout);
+		startWarmUp();
 	}
 
 	public BtcDaemon(URL url) {
 		super(url);
+		setDefaultPolicies(Long.MAX_VALUE);
+		startWarmUp();
 	}
 
 	public BtcDaemon(URL url, String account, String password, int timeout,
 			int alertPort, int blockPort, int walletPort) {
-		super(url, account, password, timeout);
+		this(url, account, password, timeout);
 		startListening(alertPort, blockPort, walletPort);
 	}
 
 	public BtcDaemon(URL url, String account, String password, int alertPort,
 			int blockPort, int walletPort) {
-		super(url, account, password);
+		this(url, account, password);
 		startListening(alertPort, blockPort, walletPort);
 	}
 
 	public BtcDaemon(URL url, int timeout, int alertPort, int blockPort,
 			int walletPort) {
-		super(url, timeout);
+		this(url, timeout);
 		startListening(alertPort, blockPort, walletPort);
 	}
 
 	public BtcDaemon(URL url, int alertPort, int blockPort, int walletPort) {
-		super(url);
+		this(url);
 		startListening(alertPort, blockPort, walletPort);
 	}
 
+	private void setDefaultPolicies(long maxTimeout) {
+		for (String method : BTC4J_DAEMON_INTERACTIVE_METHODS) {
+			setPriority(method, BtcJsonRpcScheduler.Priority.INTERACTIVE);
+		}
+		for (String method : BTC4J_DAEMON_READ_METHODS) {
+			setRetryPolicy(method, new BtcJsonRpcRetryPolicy(
+					BTC4J_DAEMON_READ_ATTEMPTS, BTC4J_DAEMON_READ_BACKOFF,
+					BTC4J_DAEMON_READ_MAX_BACKOFF, true,
+					BTC4J_DAEMON_READ_MIN_HEDGE_DELAY));
+		}
+		for (String method : BTC4J_DAEMON_QUICK_METHODS) {
+			setTimeout(method,
+					Math.min(BTC4J_DAEMON_QUICK_TIMEOUT, maxTimeout));
+		}
+		for (String method : BTC4J_DAEMON_SLOW_METHODS) {
+			setTimeout(method,
+					Math.min(BTC4J_DAEMON_SLOW_TIMEOUT, maxTimeout));
+		}
+	}
+
 	private void startListening(int alertPort, int blockPort, int walletPort) {
 		alertListener = new BtcAlertListener(alertPort);
 		alertThread = new Thread(alertListener, "alertListener");
@@ -211,6 +271,167 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 		if ((walletListener != null) && (walletThread != null)) {
 			walletThread.interrupt();
 		}
+		BtcBlockCache currentCache = blockCache;
+		if (currentCache != null) {
+			currentCache.setNearTip(false);
+		}
+		BtcTransactionCache currentTransactionCache = transactionCache;
+		if (currentTransactionCache != null) {
+			currentTransactionCache.setOutputs(false);
+		}
+		BtcStatusService currentStatusService = statusService;
+		if ((currentStatusService != null) && (blockListener != null)) {
+			blockListener.deleteObserver(currentStatusService);
+		}
+	}
+
+	public synchronized void setBlockCache(BtcBlockCache cache) {
+		if ((blockCache != null) && (blockListener != null)) {
+			blockListener.deleteObserver(blockCache);
+		}
+		if ((cache != null) && (blockListener != null)
+				&& (blockThread != null) && blockThread.isAlive()) {
+			blockListener.addObserver(cache);
+			cache.setNearTip(true);
+		}
+		blockCache = cache;
+	}
+
+	public void setBlockCaching(long maxWeight, int minConfirmations) {
+		setBlockCache(new BtcBlockCache(maxWeight, minConfirmations));
+	}
+
+	public void disableBlockCaching() {
+		setBlockCache(null);
+	}
+
+	public boolean isBlockCaching() {
+		return blockCache != null;
+	}
+
+	public BtcBlockCache getBlockCache() {
+		return blockCache;
+	}
+
+	public void setBlockStore(BtcBlockStore store) {
+		blockStore = store;
+	}
+
+	public void disableBlockStoring() {
+		setBlockStore(null);
+	}
+
+	public boolean isBlockStoring() {
+		return blockStore != null;
+	}
+
+	public BtcBlockStore getBlockStore() {
+		return blockStore;
+	}
+
+	public synchronized void setTransactionCache(BtcTransactionCache cache) {
+		if ((transactionCache != null) && (blockListener != null)) {
+			blockListener.deleteObserver(transactionCache);
+		}
+		if ((cache != null) && (blockListener != null)
+				&& (blockThread != null) && blockThread.isAlive()) {
+			blockListener.addObserver(cache);
+			cache.setOutputs(true);
+		}
+		transactionCache = cache;
+	}
+
+	public void setTransactionCaching(long maxWeight, int minConfirmations) {
+		setTransactionCache(new BtcTransactionCache(maxWeight,
+				minConfirmations));
+	}
+
+	public void disableTransactionCaching() {
+		setTransactionCache(null);
+	}
+
+	public boolean isTransactionCaching() {
+		return transactionCache != null;
+	}
+
+	public BtcTransactionCache getTransactionCache() {
+		return transactionCache;
+	}
+
+	public synchronized void setStatusService(BtcStatusService service) {
+		if (statusService != null) {
+			if (blockListener != null) {
+				blockListener.deleteObserver(statusService);
+			}
+			statusService.stop();
+		}
+		if (service != null) {
+			if ((blockListener != null) && (blockThread != null)
+					&& blockThread.isAlive()) {
+				blockListener.addObserver(service);
+			}
+			service.start();
+		}
+		statusService = service;
+	}
+
+	public void setStatusRefreshing(long ttl) {
+		setStatusService(new BtcStatusService(this, ttl));
+	}
+
+	public void disableStatusRefreshing() {
+		setStatusService(null);
+	}
+
+	public boolean isStatusRefreshing() {
+		return statusService != null;
+	}
+
+	public BtcStatusService getStatusService() {
+		return statusService;
+	}
+
+	public BtcStatusSnapshot getStatus() throws BtcException {
+		BtcStatusService service = statusService;
+		return (service == null) ? fetchStatus() : service.getSnapshot();
+	}
+
+	BtcStatusSnapshot fetchStatus() throws BtcException {
+		BtcJsonRpcBatch batch = new BtcJsonRpcBatch();
+		int information = batch.add(BTCAPI_GET_INFORMATION);
+		int miningInformation = batch.add(BTCAPI_GET_MINING_INFORMATION);
+		int difficulty = batch.add(BTCAPI_GET_DIFFICULTY);
+		int connectionCount = batch.add(BTCAPI_GET_CONNECTION_COUNT);
+		int blockCount = batch.add(BTCAPI_GET_BLOCK_COUNT);
+		invokeBatch(batch);
+		long count = jsonLong(batch.get(blockCount));
+		setTip(count);
+		return new BtcStatusSnapshot(jsonInfo(batch.get(information)),
+				jsonMiningInfo(batch.get(miningInformation)),
+				jsonDouble(batch.get(difficulty)), jsonLong(batch
+						.get(connectionCount)), count,
+				System.currentTimeMillis());
+	}
+
+	public synchronized BtcJsonRpcAsyncHttpClient getAsyncClient()
+			throws BtcException {
+		if (asyncClient == null) {
+			asyncClient = new BtcJsonRpcAsyncHttpClient(this);
+		}
+		return asyncClient;
+	}
+
+	@Override
+	public void close() {
+		stopListening();
+		disableStatusRefreshing();
+		synchronized (this) {
+			if (asyncClient != null) {
+				asyncClient.close();
+				asyncClient = null;
+			}
+		}
+		super.close();
 	}
 
 	public String addMultiSignatureAddress(long required, List<String> keys)
@@ -315,8 +536,8 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 			throws BtcException {
 		JsonArray parameters = Json.createArrayBuilder()
 				.add(BtcUtil.notNull(encoded)).build();
-		return jsonRawTransaction(invoke(BTCAPI_DECODE_RAW_TRANSACTION,
-				parameters));
+		return invoke(BTCAPI_DECODE_RAW_TRANSACTION, parameters,
+				BtcJsonObjectBinder.RAW_TRANSACTION);
 	}
 
 	@Override
@@ -413,20 +634,135 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 	public BtcBlock getBlock(String hash) throws BtcException {
 		JsonArray parameters = Json.createArrayBuilder()
 				.add(BtcUtil.notNull(hash)).build();
-		return jsonBlock(invoke(BTCAPI_GET_BLOCK, parameters));
+		BtcBlockCache cache = blockCache;
+		BtcBlockStore store = blockStore;
+		BtcBlock block = (cache == null) ? null : cache.getBlock(hash);
+		if (block != null) {
+			return block;
+		}
+		long epoch = (cache == null) ? 0 : cache.getEpoch();
+		block = (store == null) ? null : store.getBlock(hash);
+		if (block == null) {
+			block = invoke(BTCAPI_GET_BLOCK, parameters,
+					BtcJsonObjectBinder.BLOCK);
+			if (store != null) {
+				try {
+					store.putBlock(block);
+				} catch (BtcException e) {
+					LOG.warning(String.valueOf(e));
+				}
+			}
+		}
+		if (cache != null) {
+			cache.putBlock(hash, block, epoch);
+		}
+		return block;
+	}
+
+	public BtcBlock getBlockView(String hash) throws BtcException {
+		JsonArray parameters = Json.createArrayBuilder()
+				.add(BtcUtil.notNull(hash)).build();
+		BtcJsonIndex index = invokeIndex(BTCAPI_GET_BLOCK, parameters);
+		return (index == null) ? null : new BtcBlockView(index);
+	}
+
+	public Future<BtcBlock> getBlockAsync(String hash) throws BtcException {
+		return getBlockAsync(hash, null);
+	}
+
+	public Future<BtcBlock> getBlockAsync(String hash,
+			FutureCallback<BtcBlock> callback) throws BtcException {
+		JsonArray parameters = Json.createArrayBuilder()
+				.add(BtcUtil.notNull(hash)).build();
+		BtcAsyncResult<BtcBlock> result = new BtcAsyncResult<BtcBlock>(
+				callback) {
+			@Override
+			BtcBlock convert(JsonValue value) throws BtcException {
+				return jsonBlock(value);
+			}
+		};
+		getAsyncClient().invokeAsync(BTCAPI_GET_BLOCK, parameters, result);
+		return result.getFuture();
+	}
+
+	public BtcBatchResult<BtcBlock> getBlocks(List<String> hashes)
+			throws BtcException {
+		List<JsonArray> parameters = new ArrayList<JsonArray>();
+		for (String hash : BtcUtil.notNull(hashes)) {
+			parameters.add(Json.createArrayBuilder()
+					.add(BtcUtil.notNull(hash)).build());
+		}
+		return invokeBatch(BTCAPI_GET_BLOCK, parameters,
+				new BtcBatchConverter<BtcBlock>() {
+					@Override
+					BtcBlock convert(JsonValue value) throws BtcException {
+						return jsonBlock(value);
+					}
+				});
 	}
 
 	@Override
 	public long getBlockCount() throws BtcException {
-		return jsonLong(invoke(BTCAPI_GET_BLOCK_COUNT));
+		BtcStatusService service = statusService;
+		if (service != null) {
+			return service.getSnapshot().getBlockCount();
+		}
+		long count = jsonLong(invoke(BTCAPI_GET_BLOCK_COUNT));
+		setTip(count);
+		return count;
+	}
+
+	private void setTip(long count) {
+		BtcBlockCache cache = blockCache;
+		if (cache != null) {
+			cache.setTip(count, null);
+		}
+		BtcTransactionCache currentTransactionCache = transactionCache;
+		if (currentTransactionCache != null) {
+			currentTransactionCache.setTip(count);
+		}
+		BtcBlockStore store = blockStore;
+		if (store != null) {
+			store.setTip(count);
+		}
 	}
 
 	@Override
 	public String getBlockHash(long index) throws BtcException {
 		JsonArray parameters = Json.createArrayBuilder()
 				.add(BtcUtil.atLeast(index, 0)).build();
-		return jsonString(invoke(BTCAPI_GET_BLOCK_HASH,
-				parameters));
+		BtcBlockCache cache = blockCache;
+		BtcBlockStore store = blockStore;
+		String hash = (cache == null) ? null : cache.getBlockHash(index);
+		if (hash != null) {
+			return hash;
+		}
+		long epoch = (cache == null) ? 0 : cache.getEpoch();
+		hash = (store == null) ? null : store.getBlockHash(index);
+		if (hash == null) {
+			hash = jsonString(invoke(BTCAPI_GET_BLOCK_HASH, parameters));
+		}
+		if (cache != null) {
+			cache.putBlockHash(index, hash, epoch);
+		}
+		return hash;
+	}
+
+	public BtcBatchResult<String> getBlockHashes(List<Long> indexes)
+			throws BtcException {
+		List<JsonArray> parameters = new ArrayList<JsonArray>();
+		for (Long index : BtcUtil.notNull(indexes)) {
+			parameters.add(Json.createArrayBuilder()
+					.add(BtcUtil.atLeast((index == null) ? 0 : index, 0))
+					.build());
+		}
+		return invokeBatch(BTCAPI_GET_BLOCK_HASH, parameters,
+				new BtcBatchConverter<String>() {
+					@Override
+					String convert(JsonValue value) throws BtcException {
+						return (value == null) ? null : jsonString(value);
+					}
+				});
 	}
 
 	public BtcBlockTemplate getBlockTemplate() throws BtcException {
@@ -463,11 +799,19 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 
 	@Override
 	public long getConnectionCount() throws BtcException {
+		BtcStatusService service = statusService;
+		if (service != null) {
+			return service.getSnapshot().getConnectionCount();
+		}
 		return jsonLong(invoke(BTCAPI_GET_CONNECTION_COUNT));
 	}
 
 	@Override
 	public BigDecimal getDifficulty() throws BtcException {
+		BtcStatusService service = statusService;
+		if (service != null) {
+			return service.getSnapshot().getDifficulty();
+		}
 		return jsonDouble(invoke(BTCAPI_GET_DIFFICULTY));
 	}
 
@@ -483,11 +827,19 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 
 	@Override
 	public BtcInfo getInformation() throws BtcException {
+		BtcStatusService service = statusService;
+		if (service != null) {
+			return service.getSnapshot().getInformation();
+		}
 		return jsonInfo(invoke(BTCAPI_GET_INFORMATION));
 	}
 
 	@Override
 	public BtcMiningInfo getMiningInformation() throws BtcException {
+		BtcStatusService service = statusService;
+		if (service != null) {
+			return service.getSnapshot().getMiningInformation();
+		}
 		return jsonMiningInfo(invoke(BTCAPI_GET_MINING_INFORMATION));
 	}
 
@@ -507,15 +859,8 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 
 	@Override
 	public List<BtcPeer> getPeerInformation() throws BtcException {
-		List<BtcPeer> peers = new ArrayList<BtcPeer>();
-		JsonValue results = invoke(BTCAPI_GET_PEER_INFORMATION);
-		if (results != null) {
-			JsonArray resultsArray = (JsonArray) results;
-			for (JsonValue result : resultsArray.getValuesAs(JsonValue.class)) {
-				peers.add(jsonPeer(result));
-			}
-		}
-		return peers;
+		return invoke(BTCAPI_GET_PEER_INFORMATION, null,
+				BtcJsonObjectBinder.list(BtcJsonObjectBinder.PEER));
 	}
 
 	@Override
@@ -539,11 +884,94 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 	@Override
 	public BtcRawTransaction getRawTransaction(String transactionId,
 			boolean verbose) throws BtcException {
+		BtcTransactionCache cache = transactionCache;
+		if (cache == null) {
+			return fetchRawTransaction(transactionId, verbose);
+		}
+		BtcRawTransaction transaction = cache.getRawTransaction(
+				transactionId, verbose);
+		if (transaction == null) {
+			if (verbose && (cache.getTipHeight() < 0)) {
+				try {
+					cache.setTip(getBlockCount());
+				} catch (BtcException e) {
+					LOG.warning(String.valueOf(e));
+				}
+			}
+			transaction = fetchRawTransaction(transactionId, verbose);
+			cache.putRawTransaction(transactionId, transaction, verbose);
+		}
+		return transaction;
+	}
+
+	private BtcRawTransaction fetchRawTransaction(String transactionId,
+			boolean verbose) throws BtcException {
 		JsonArray parameters = Json.createArrayBuilder()
 				.add(BtcUtil.notNull(transactionId)).add(BtcUtil.bool(verbose))
 				.build();
-		JsonValue results = invoke(
-				BTCAPI_GET_RAW_TRANSACTION, parameters);
+		if (verbose) {
+			return invoke(BTCAPI_GET_RAW_TRANSACTION, parameters,
+					BtcJsonObjectBinder.RAW_TRANSACTION);
+		}
+		return rawTransaction(invoke(BTCAPI_GET_RAW_TRANSACTION, parameters),
+				false);
+	}
+
+	public BtcRawTransaction getRawTransactionView(String transactionId)
+			throws BtcException {
+		JsonArray parameters = Json.createArrayBuilder()
+				.add(BtcUtil.notNull(transactionId)).add(BtcUtil.bool(true))
+				.build();
+		BtcJsonIndex index = invokeIndex(BTCAPI_GET_RAW_TRANSACTION,
+				parameters);
+		return (index == null) ? null : new BtcRawTransactionView(index);
+	}
+
+	public BtcBatchResult<BtcRawTransaction> getRawTransactions(
+			List<String> transactionIds, final boolean verbose)
+			throws BtcException {
+		List<JsonArray> parameters = new ArrayList<JsonArray>();
+		for (String transactionId : BtcUtil.notNull(transactionIds)) {
+			parameters.add(Json.createArrayBuilder()
+					.add(BtcUtil.notNull(transactionId))
+					.add(BtcUtil.bool(verbose)).build());
+		}
+		return invokeBatch(BTCAPI_GET_RAW_TRANSACTION, parameters,
+				new BtcBatchConverter<BtcRawTransaction>() {
+					@Override
+					BtcRawTransaction convert(JsonValue value)
+							throws BtcException {
+						return (value == null) ? null : rawTransaction(value,
+								verbose);
+					}
+				});
+	}
+
+	public Future<BtcRawTransaction> getRawTransactionAsync(
+			String transactionId, boolean verbose) throws BtcException {
+		return getRawTransactionAsync(transactionId, verbose, null);
+	}
+
+	public Future<BtcRawTransaction> getRawTransactionAsync(
+			String transactionId, final boolean verbose,
+			FutureCallback<BtcRawTransaction> callback) throws BtcException {
+		JsonArray parameters = Json.createArrayBuilder()
+				.add(BtcUtil.notNull(transactionId)).add(BtcUtil.bool(verbose))
+				.build();
+		BtcAsyncResult<BtcRawTransaction> result = new BtcAsyncResult<BtcRawTransaction>(
+				callback) {
+			@Override
+			BtcRawTransaction convert(JsonValue value) throws BtcException {
+				return rawTransaction(value, verbose);
+			}
+		};
+		getAsyncClient().invokeAsync(BTCAPI_GET_RAW_TRANSACTION, parameters,
+				result);
+		return result.getFuture();
+	}
+
+	private BtcRawTransaction rawTransaction(JsonValue results,
+			boolean verbose) throws BtcException {
 		if (verbose) {
 			return jsonRawTransaction(results);
 		}
@@ -589,8 +1017,66 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 			throws BtcException {
 		JsonArray parameters = Json.createArrayBuilder()
 				.add(BtcUtil.notNull(transactionId)).build();
-		return jsonTransaction(invoke(BTCAPI_GET_TRANSACTION,
-				parameters));
+		return invoke(BTCAPI_GET_TRANSACTION, parameters,
+				BtcJsonObjectBinder.TRANSACTION);
+	}
+
+	public BtcBatchResult<BtcTransaction> getTransactions(
+			List<String> transactionIds) throws BtcException {
+		List<JsonArray> parameters = new ArrayList<JsonArray>();
+		for (String transactionId : BtcUtil.notNull(transactionIds)) {
+			parameters.add(Json.createArrayBuilder()
+					.add(BtcUtil.notNull(transactionId)).build());
+		}
+		return invokeBatch(BTCAPI_GET_TRANSACTION, parameters,
+				new BtcBatchConverter<BtcTransaction>() {
+					@Override
+					BtcTransaction convert(JsonValue value)
+							throws BtcException {
+						return jsonTransaction(value);
+					}
+				});
+	}
+
+	private <T> BtcBatchResult<T> invokeBatch(String method,
+			List<JsonArray> parameters, BtcBatchConverter<T> converter)
+			throws BtcException {
+		BtcBatchResult<T> results = new BtcBatchResult<T>();
+		for (int from = 0; from < parameters.size(); from += BTC4J_DAEMON_BATCH_SIZE) {
+			BtcJsonRpcBatch batch = new BtcJsonRpcBatch();
+			for (JsonArray parameter : parameters.subList(from,
+					Math.min(from + BTC4J_DAEMON_BATCH_SIZE, parameters.size()))) {
+				batch.add(method, parameter);
+			}
+			BtcJsonRpcScheduler.Priority priority = getThreadPriority();
+			if (priority == null) {
+				setThreadPriority(BtcJsonRpcScheduler.Priority.BULK);
+			}
+			try {
+				if (isPipelining()) {
+					invokePipelined(batch);
+				} else {
+					invokeBatch(batch);
+				}
+			} finally {
+				setThreadPriority(priority);
+			}
+			for (int i = 0; i < batch.size(); i++) {
+				if (batch.isError(i)) {
+					LOG.warning(method + " " + batch.getParameters(i) + ": "
+							+ batch.getError(i));
+					results.addError(batch.getError(i));
+					continue;
+				}
+				try {
+					results.addResult(converter.convert(batch.get(i)));
+				} catch (BtcException e) {
+					LOG.warning(method + " " + batch.getParameters(i) + ": " + e);
+					results.addError(e);
+				}
+			}
+		}
+		return results;
 	}
 
 	public BtcOutput getTransactionOutput(String transactionId) throws BtcException {
@@ -611,7 +1097,23 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 			boolean includeMemoryPool) throws BtcException {
 		JsonArray parameters = Json.createArrayBuilder().add(BtcUtil.notNull(transactionId))
 				.add(BtcUtil.atLeast(index, 0)).add(includeMemoryPool).build();
-		return jsonOutput(invoke(BTCAPI_GET_TRANSACTION_OUTPUT, parameters));
+		BtcTransactionCache cache = transactionCache;
+		if ((cache == null) || includeMemoryPool) {
+			return invoke(BTCAPI_GET_TRANSACTION_OUTPUT, parameters,
+					BtcJsonObjectBinder.OUTPUT);
+		}
+		String outpoint = BtcUtil.notNull(transactionId);
+		BtcOutput output = cache.getTransactionOutput(outpoint, index);
+		if (output == BtcTransactionCache.BTC4J_DAEMON_NO_OUTPUT) {
+			return null;
+		}
+		if (output == null) {
+			long epoch = cache.getEpoch();
+			output = invoke(BTCAPI_GET_TRANSACTION_OUTPUT, parameters,
+					BtcJsonObjectBinder.OUTPUT);
+			cache.putTransactionOutput(outpoint, index, output, epoch);
+		}
+		return output;
 	}
 
 	@Override
@@ -816,16 +1318,8 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 		JsonArray parameters = Json.createArrayBuilder()
 				.add(BtcUtil.notNull(account)).add(count)
 				.add(BtcUtil.atLeast(from, 0)).build();
-		List<BtcTransaction> transactions = new ArrayList<BtcTransaction>();
-		JsonValue results = invoke(BTCAPI_LIST_TRANSACTIONS,
-				parameters);
-		if (results != null) {
-			JsonArray resultsArray = (JsonArray) results;
-			for (JsonValue result : resultsArray.getValuesAs(JsonValue.class)) {
-				transactions.add(jsonTransaction(result));
-			}
-		}
-		return transactions;
+		return invoke(BTCAPI_LIST_TRANSACTIONS, parameters,
+				BtcJsonObjectBinder.list(BtcJsonObjectBinder.TRANSACTION));
 	}
 
 	public List<BtcOutput> listUnspent() throws BtcException {
@@ -842,8 +1336,34 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 		JsonArray parameters = Json.createArrayBuilder()
 				.add(BtcUtil.atLeast(minConfirms, 1))
 				.add(BtcUtil.atLeast(maxConfirms, 1)).build();
+		return invoke(BTCAPI_LIST_UNSPENT, parameters,
+				BtcJsonObjectBinder.list(BtcJsonObjectBinder.OUTPUT));
+	}
+
+	public Future<List<BtcOutput>> listUnspentAsync(long minConfirms,
+			long maxConfirms) throws BtcException {
+		return listUnspentAsync(minConfirms, maxConfirms, null);
+	}
+
+	public Future<List<BtcOutput>> listUnspentAsync(long minConfirms,
+			long maxConfirms, FutureCallback<List<BtcOutput>> callback)
+			throws BtcException {
+		JsonArray parameters = Json.createArrayBuilder()
+				.add(BtcUtil.atLeast(minConfirms, 1))
+				.add(BtcUtil.atLeast(maxConfirms, 1)).build();
+		BtcAsyncResult<List<BtcOutput>> result = new BtcAsyncResult<List<BtcOutput>>(
+				callback) {
+			@Override
+			List<BtcOutput> convert(JsonValue value) throws BtcException {
+				return unspent(value);
+			}
+		};
+		getAsyncClient().invokeAsync(BTCAPI_LIST_UNSPENT, parameters, result);
+		return result.getFuture();
+	}
+
+	private List<BtcOutput> unspent(JsonValue results) throws BtcException {
 		List<BtcOutput> unspents = new ArrayList<BtcOutput>();
-		JsonValue results = invoke(BTCAPI_LIST_UNSPENT, parameters);
 		if (results != null) {
 			JsonArray resultsArray = (JsonArray) results;
 			for (JsonValue result : resultsArray.getValuesAs(JsonValue.class)) {
@@ -974,6 +1494,30 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 				parameters));
 	}
 
+	public Future<String> sendToAddressAsync(String address,
+			BigDecimal amount, String comment, String commentTo)
+			throws BtcException {
+		return sendToAddressAsync(address, amount, comment, commentTo, null);
+	}
+
+	public Future<String> sendToAddressAsync(String address,
+			BigDecimal amount, String comment, String commentTo,
+			FutureCallback<String> callback) throws BtcException {
+		JsonArray parameters = Json.createArrayBuilder()
+				.add(BtcUtil.notNull(address)).add(BtcUtil.notNull(amount))
+				.add(BtcUtil.notNull(comment)).add(BtcUtil.notNull(commentTo))
+				.build();
+		BtcAsyncResult<String> result = new BtcAsyncResult<String>(callback) {
+			@Override
+			String convert(JsonValue value) throws BtcException {
+				return jsonString(value);
+			}
+		};
+		getAsyncClient().invokeAsync(BTCAPI_SEND_TO_ADDRESS, parameters,
+				result);
+		return result.getFuture();
+	}
+
 	@Override
 	public void setAccount(String address, String account) throws BtcException {
 		JsonArray parameters = Json.createArrayBuilder()
@@ -1071,7 +1615,8 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 		if (BtcUtil.notNull(signatureHash) != BtcRawTransaction.SignatureHash.NULL) {
 			parameters.add(String.valueOf(signatureHash));
 		}
-		return jsonRawTransaction(invoke(BTCAPI_SIGN_RAW_TRANSACTION, parameters.build()));
+		return invoke(BTCAPI_SIGN_RAW_TRANSACTION, parameters.build(),
+				BtcJsonObjectBinder.RAW_TRANSACTION);
 	}
 
 	@Override
@@ -1170,4 +1715,44 @@ public class BtcDaemon extends BtcJsonRpcHttpClient implements BtcApi {
 				.add(BtcUtil.notNull(newPassphrase)).build();
 		invoke(BTCAPI_WALLET_PASSPHRASE_CHANGE, parameters);
 	}
-}
\ No newline at end of file
+
+	private abstract static class BtcBatchConverter<T> {
+		abstract T convert(JsonValue value) throws BtcException;
+	}
+
+	private abstract static class BtcAsyncResult<T> implements
+			FutureCallback<JsonValue> {
+		private final BasicFuture<T> future;
+
+		private BtcAsyncResult(FutureCallback<T> callback) {
+			future = new BasicFuture<T>(callback);
+		}
+
+		abstract T convert(JsonValue value) throws BtcException;
+
+		private Future<T> getFuture() {
+			return future;
+		}
+
+		@Override
+		public void completed(JsonValue value) {
+			try {
+				future.completed(convert(value));
+			} catch (BtcException e) {
+				future.failed(e);
+			} catch (RuntimeException e) {
+				future.failed(e);
+			}
+		}
+
+		@Override
+		public void failed(Exception e) {
+			future.failed(e);
+		}
+
+		@Override
+		public void cancelled() {
+			future.cancel();
+		}
+	}
+}
@@ -0,0 +1,992 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+import org.btc4j.core.BtcAccount;
+import org.btc4j.core.BtcAddedNode;
+import org.btc4j.core.BtcAddress;
+import org.btc4j.core.BtcApi;
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcBlockSubmission;
+import org.btc4j.core.BtcBlockTemplate;
+import org.btc4j.core.BtcException;
+import org.btc4j.core.BtcInfo;
+import org.btc4j.core.BtcLastBlock;
+import org.btc4j.core.BtcMiningInfo;
+import org.btc4j.core.BtcMultiSignatureAddress;
+import org.btc4j.core.BtcNode;
+import org.btc4j.core.BtcOutput;
+import org.btc4j.core.BtcOutputPart;
+import org.btc4j.core.BtcOutputSet;
+import org.btc4j.core.BtcPeer;
+import org.btc4j.core.BtcRawTransaction;
+import org.btc4j.core.BtcTransaction;
+import org.btc4j.core.BtcUtil;
+import org.btc4j.core.BtcWork;
+
+public class BtcDaemonCluster implements BtcApi, Closeable {
+	private static final String BTC4J_DAEMON_DATA_NO_NODES = "no daemon nodes";
+	private static final String BTC4J_DAEMON_DATA_INTERRUPTED = "interrupted while waiting for nodes";
+	private static final String BTC4J_DAEMON_DATA_BEHIND = "no node has reached height ";
+	private static final long BTC4J_DAEMON_HEIGHT_WAIT = 10000;
+	private static final long BTC4J_DAEMON_HEIGHT_POLL = 250;
+	private static final double BTC4J_DAEMON_LATENCY_WEIGHT = 0.2;
+	private static final long BTC4J_DAEMON_NODE_COOLDOWN = 5000;
+	private final static Logger LOG = Logger.getLogger(BtcDaemonCluster.class
+			.getName());
+	private final List<Node> nodes = new ArrayList<Node>();
+	private final int walletNode;
+	private volatile long heightWait = BTC4J_DAEMON_HEIGHT_WAIT;
+	private HeightTracker tracker;
+	private Thread trackerThread;
+	private ExecutorService readers;
+	private boolean refreshing;
+	private long refreshed;
+
+	public BtcDaemonCluster(List<BtcDaemon> daemons, int walletNode) {
+		for (BtcDaemon daemon : BtcUtil.notNull(daemons)) {
+			final Node node = new Node(daemon);
+			nodes.add(node);
+			if (daemon.getBlockListener() != null) {
+				daemon.getBlockListener().addObserver(new Observer() {
+					@Override
+					public void update(Observable listener, Object block) {
+						if (block instanceof BtcBlock) {
+							raiseHeight(node, ((BtcBlock) block).getHeight());
+						}
+					}
+				});
+			}
+		}
+		if (nodes.isEmpty()) {
+			LOG.severe(BTC4J_DAEMON_DATA_NO_NODES);
+			throw new IllegalArgumentException(BTC4J_DAEMON_DATA_NO_NODES);
+		}
+		this.walletNode = Math.min(Math.max(walletNode, 0), nodes.size() - 1);
+	}
+
+	public BtcDaemonCluster(List<URL> urls, String account, String password,
+			int timeout) {
+		this(daemons(urls, account, password, timeout), 0);
+	}
+
+	private static List<BtcDaemon> daemons(List<URL> urls, String account,
+			String password, int timeout) {
+		List<BtcDaemon> daemons = new ArrayList<BtcDaemon>();
+		for (URL url : BtcUtil.notNull(urls)) {
+			daemons.add(new BtcDaemon(url, account, password, timeout));
+		}
+		return daemons;
+	}
+
+	public List<BtcDaemon> getNodes() {
+		List<BtcDaemon> daemons = new ArrayList<BtcDaemon>();
+		for (Node node : nodes) {
+			daemons.add(node.daemon);
+		}
+		return Collections.unmodifiableList(daemons);
+	}
+
+	public int size() {
+		return nodes.size();
+	}
+
+	public BtcDaemon getWalletNode() {
+		return nodes.get(walletNode).daemon;
+	}
+
+	public int getInFlight(int node) {
+		synchronized (nodes) {
+			return nodes.get(node).inFlight;
+		}
+	}
+
+	public double getLatency(int node) {
+		synchronized (nodes) {
+			return nodes.get(node).latency / 1000000.0;
+		}
+	}
+
+	public boolean isHealthy(int node) {
+		synchronized (nodes) {
+			return nodes.get(node).isHealthy(System.currentTimeMillis());
+		}
+	}
+
+	public long getHeight(int node) {
+		synchronized (nodes) {
+			return nodes.get(node).height;
+		}
+	}
+
+	public long getTipHeight() {
+		synchronized (nodes) {
+			long tip = -1;
+			for (Node node : nodes) {
+				tip = Math.max(tip, node.height);
+			}
+			return tip;
+		}
+	}
+
+	public long getHeightWait() {
+		return heightWait;
+	}
+
+	public void setHeightWait(long heightWait) {
+		this.heightWait = Math.max(heightWait, 0);
+	}
+
+	public synchronized void setHeightTracking(long interval) {
+		disableHeightTracking();
+		tracker = new HeightTracker(Math.max(interval, 1));
+		trackerThread = new Thread(tracker, "clusterHeightTracker");
+		trackerThread.setDaemon(true);
+		trackerThread.start();
+	}
+
+	public synchronized void disableHeightTracking() {
+		if (trackerThread != null) {
+			trackerThread.interrupt();
+			trackerThread = null;
+			tracker = null;
+		}
+	}
+
+	public synchronized boolean isHeightTracking() {
+		return tracker != null;
+	}
+
+	public void refreshHeights() {
+		for (Node node : nodes) {
+			try {
+				setHeight(node, node.daemon.getBlockCount());
+			} catch (BtcException e) {
+				LOG.warning(node.daemon.getUrl() + ": " + e.getMessage());
+			}
+		}
+		synchronized (nodes) {
+			refreshed = System.currentTimeMillis();
+		}
+	}
+
+	@Override
+	public void close() {
+		disableHeightTracking();
+		synchronized (nodes) {
+			if (readers != null) {
+				readers.shutdown();
+			}
+		}
+		for (Node node : nodes) {
+			node.daemon.close();
+		}
+	}
+
+	private void setHeight(Node node, long height) {
+		synchronized (nodes) {
+			long previous = node.height;
+			node.height = height;
+			if (height > previous) {
+				nodes.notifyAll();
+			}
+		}
+	}
+
+	private void raiseHeight(Node node, long height) {
+		synchronized (nodes) {
+			if (height > node.height) {
+				node.height = height;
+				nodes.notifyAll();
+			}
+		}
+	}
+
+	private Node getNode(BtcDaemon daemon) {
+		for (Node node : nodes) {
+			if (node.daemon == daemon) {
+				return node;
+			}
+		}
+		return null;
+	}
+
+	private <T> T read(Call<T> call) throws BtcException {
+		return read(call, 0);
+	}
+
+	private <T> T read(Call<T> call, long minHeight) throws BtcException {
+		List<Node> tried = new ArrayList<Node>();
+		BtcException failure = null;
+		for (int attempt = 0; attempt < nodes.size(); attempt++) {
+			Node node = acquire(tried, minHeight);
+			if (node == null) {
+				break;
+			}
+			tried.add(node);
+			long start = System.nanoTime();
+			boolean failed = false;
+			try {
+				return call.call(node.daemon);
+			} catch (BtcException e) {
+				boolean unreachable = e.getCause() instanceof IOException;
+				if (!unreachable
+						&& (e.getCode() != BtcJsonRpcCircuitBreaker.BTC4J_DAEMON_CIRCUIT_OPEN_CODE)
+						&& (e.getCode() != BtcJsonRpcLimiter.BTC4J_DAEMON_OVERLOADED_CODE)) {
+					throw e;
+				}
+				LOG.warning(node.daemon.getUrl() + ": " + e.getMessage());
+				failed = unreachable;
+				failure = e;
+			} finally {
+				release(node, System.nanoTime() - start, failed);
+			}
+		}
+		throw failure;
+	}
+
+	private Node acquire(List<Node> tried, long minHeight) throws BtcException {
+		long deadline = System.currentTimeMillis() + heightWait;
+		boolean tracking = isHeightTracking();
+		try {
+			while (true) {
+				synchronized (nodes) {
+					Node node = select(tried, minHeight);
+					if ((node != null) || !tried.isEmpty()) {
+						return node;
+					}
+					long now = System.currentTimeMillis();
+					long remaining = deadline - now;
+					if (remaining <= 0) {
+						LOG.severe(BTC4J_DAEMON_DATA_BEHIND + minHeight);
+						throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+								BtcException.BTC4J_ERROR_MESSAGE + ": "
+										+ BTC4J_DAEMON_DATA_BEHIND + minHeight);
+					}
+					long next = refreshed + BTC4J_DAEMON_HEIGHT_POLL - now;
+					if (tracking || refreshing || (next > 0)) {
+						nodes.wait(Math.min(remaining,
+								(tracking || (next <= 0)) ? BTC4J_DAEMON_HEIGHT_POLL
+										: next));
+						continue;
+					}
+					refreshing = true;
+				}
+				try {
+					refreshHeights();
+				} finally {
+					synchronized (nodes) {
+						refreshing = false;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			LOG.severe(String.valueOf(e));
+			Thread.currentThread().interrupt();
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_INTERRUPTED, e);
+		}
+	}
+
+	private Node select(List<Node> tried, long minHeight) {
+		long now = System.currentTimeMillis();
+		synchronized (nodes) {
+			Node best = null;
+			boolean bestHealthy = false;
+			for (Node node : nodes) {
+				if (tried.contains(node)
+						|| ((minHeight > 0) && (node.height < minHeight))) {
+					continue;
+				}
+				boolean healthy = node.isHealthy(now);
+				if ((best == null) || (healthy && !bestHealthy)
+						|| ((healthy == bestHealthy) && (node.getLoad() < best
+								.getLoad()))) {
+					best = node;
+					bestHealthy = healthy;
+				}
+			}
+			if (best != null) {
+				best.inFlight++;
+			}
+			return best;
+		}
+	}
+
+	private void release(Node node, long latency, boolean failed) {
+		synchronized (nodes) {
+			node.inFlight--;
+			if (failed) {
+				node.downUntil = System.currentTimeMillis()
+						+ BTC4J_DAEMON_NODE_COOLDOWN;
+			} else {
+				node.latency = (node.latency == 0) ? latency : node.latency
+						+ (BTC4J_DAEMON_LATENCY_WEIGHT * (latency - node.latency));
+			}
+		}
+	}
+
+	private <T> BtcBatchResult<T> readAll(List<?> keys, final long minHeight,
+			final ListCall<T> call) throws BtcException {
+		final List<?> all = BtcUtil.notNull(keys);
+		int chunks = Math.min(nodes.size(), all.size());
+		if (chunks <= 1) {
+			return read(new Call<BtcBatchResult<T>>() {
+				@Override
+				public BtcBatchResult<T> call(BtcDaemon daemon)
+						throws BtcException {
+					return call.call(daemon, all);
+				}
+			}, minHeight);
+		}
+		int size = (all.size() + chunks - 1) / chunks;
+		List<Future<BtcBatchResult<T>>> results = new ArrayList<Future<BtcBatchResult<T>>>();
+		for (int from = 0; from < all.size(); from += size) {
+			final List<?> chunk = all.subList(from,
+					Math.min(from + size, all.size()));
+			results.add(getReaders().submit(new Callable<BtcBatchResult<T>>() {
+				@Override
+				public BtcBatchResult<T> call() throws BtcException {
+					return read(new Call<BtcBatchResult<T>>() {
+						@Override
+						public BtcBatchResult<T> call(BtcDaemon daemon)
+								throws BtcException {
+							return call.call(daemon, chunk);
+						}
+					}, minHeight);
+				}
+			}));
+		}
+		BtcBatchResult<T> combined = new BtcBatchResult<T>();
+		BtcException failure = null;
+		for (Future<BtcBatchResult<T>> result : results) {
+			try {
+				combined.addResults(result.get());
+			} catch (InterruptedException e) {
+				LOG.severe(String.valueOf(e));
+				Thread.currentThread().interrupt();
+				throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+						BtcException.BTC4J_ERROR_MESSAGE + ": "
+								+ BTC4J_DAEMON_DATA_INTERRUPTED, e);
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					failure = (e.getCause() instanceof BtcException) ? (BtcException) e
+							.getCause() : new BtcException(
+							BtcException.BTC4J_ERROR_CODE,
+							BtcException.BTC4J_ERROR_MESSAGE + ": "
+									+ e.getCause().getMessage(), e.getCause());
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return combined;
+	}
+
+	private ExecutorService getReaders() {
+		synchronized (nodes) {
+			if (readers == null) {
+				readers = Executors.newCachedThreadPool(new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "clusterRead");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+			}
+			return readers;
+		}
+	}
+
+	public BtcBatchResult<BtcBlock> getBlocks(List<String> hashes)
+			throws BtcException {
+		return getBlocks(hashes, 0);
+	}
+
+	public BtcBatchResult<BtcBlock> getBlocks(List<String> hashes,
+			long minHeight) throws BtcException {
+		return readAll(hashes, minHeight, new ListCall<BtcBlock>() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public BtcBatchResult<BtcBlock> call(BtcDaemon daemon,
+					List<?> keys) throws BtcException {
+				return daemon.getBlocks((List<String>) keys);
+			}
+		});
+	}
+
+	public BtcBatchResult<String> getBlockHashes(List<Long> indexes)
+			throws BtcException {
+		long minHeight = 0;
+		for (Long index : BtcUtil.notNull(indexes)) {
+			minHeight = Math.max(minHeight, (index == null) ? 0 : index);
+		}
+		return readAll(indexes, minHeight, new ListCall<String>() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public BtcBatchResult<String> call(BtcDaemon daemon,
+					List<?> keys) throws BtcException {
+				return daemon.getBlockHashes((List<Long>) keys);
+			}
+		});
+	}
+
+	public BtcBatchResult<BtcRawTransaction> getRawTransactions(
+			List<String> transactionIds, boolean verbose) throws BtcException {
+		return getRawTransactions(transactionIds, verbose, 0);
+	}
+
+	public BtcBatchResult<BtcRawTransaction> getRawTransactions(
+			List<String> transactionIds, final boolean verbose, long minHeight)
+			throws BtcException {
+		return readAll(transactionIds, minHeight,
+				new ListCall<BtcRawTransaction>() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public BtcBatchResult<BtcRawTransaction> call(BtcDaemon daemon,
+					List<?> keys) throws BtcException {
+				return daemon.getRawTransactions((List<String>) keys, verbose);
+			}
+		});
+	}
+
+	@Override
+	public String addMultiSignatureAddress(long required, List<String> keys,
+			String account) throws BtcException {
+		return getWalletNode().addMultiSignatureAddress(required, keys,
+				account);
+	}
+
+	@Override
+	public void addNode(String node, BtcNode.Operation operation)
+			throws BtcException {
+		getWalletNode().addNode(node, operation);
+	}
+
+	@Override
+	public void backupWallet(File destination) throws BtcException {
+		getWalletNode().backupWallet(destination);
+	}
+
+	@Override
+	public BtcMultiSignatureAddress createMultiSignatureAddress(
+			final long required, final List<String> keys) throws BtcException {
+		return read(new Call<BtcMultiSignatureAddress>() {
+			@Override
+			public BtcMultiSignatureAddress call(BtcDaemon daemon)
+					throws BtcException {
+				return daemon.createMultiSignatureAddress(required, keys);
+			}
+		});
+	}
+
+	@Override
+	public String createRawTransaction(final List<BtcOutputPart> inputs,
+			final Map<String, BigDecimal> amounts) throws BtcException {
+		return read(new Call<String>() {
+			@Override
+			public String call(BtcDaemon daemon) throws BtcException {
+				return daemon.createRawTransaction(inputs, amounts);
+			}
+		});
+	}
+
+	@Override
+	public BtcRawTransaction decodeRawTransaction(final String encoded)
+			throws BtcException {
+		return read(new Call<BtcRawTransaction>() {
+			@Override
+			public BtcRawTransaction call(BtcDaemon daemon)
+					throws BtcException {
+				return daemon.decodeRawTransaction(encoded);
+			}
+		});
+	}
+
+	@Override
+	public String dumpPrivateKey(String address) throws BtcException {
+		return getWalletNode().dumpPrivateKey(address);
+	}
+
+	@Override
+	public String getAccount(String address) throws BtcException {
+		return getWalletNode().getAccount(address);
+	}
+
+	@Override
+	public String getAccountAddress(String account) throws BtcException {
+		return getWalletNode().getAccountAddress(account);
+	}
+
+	@Override
+	public List<BtcAddedNode> getAddedNodeInformation(boolean dns, String node)
+			throws BtcException {
+		return getWalletNode().getAddedNodeInformation(dns, node);
+	}
+
+	@Override
+	public List<String> getAddressesByAccount(String account)
+			throws BtcException {
+		return getWalletNode().getAddressesByAccount(account);
+	}
+
+	@Override
+	public BigDecimal getBalance(String account, long minConfirms)
+			throws BtcException {
+		return getWalletNode().getBalance(account, minConfirms);
+	}
+
+	@Override
+	public BtcBlock getBlock(String hash) throws BtcException {
+		return getBlock(hash, 0);
+	}
+
+	public BtcBlock getBlock(final String hash, long minHeight)
+			throws BtcException {
+		return read(new Call<BtcBlock>() {
+			@Override
+			public BtcBlock call(BtcDaemon daemon) throws BtcException {
+				return daemon.getBlock(hash);
+			}
+		}, minHeight);
+	}
+
+	@Override
+	public long getBlockCount() throws BtcException {
+		return read(new Call<Long>() {
+			@Override
+			public Long call(BtcDaemon daemon) throws BtcException {
+				long height = daemon.getBlockCount();
+				setHeight(getNode(daemon), height);
+				return height;
+			}
+		});
+	}
+
+	@Override
+	public String getBlockHash(final long index) throws BtcException {
+		return read(new Call<String>() {
+			@Override
+			public String call(BtcDaemon daemon) throws BtcException {
+				return daemon.getBlockHash(index);
+			}
+		}, index);
+	}
+
+	@Override
+	public BtcBlockTemplate getBlockTemplate(
+			List<BtcBlockTemplate.Capability> capabilities,
+			BtcBlockTemplate.Mode mode) throws BtcException {
+		return getWalletNode().getBlockTemplate(capabilities, mode);
+	}
+
+	@Override
+	public long getConnectionCount() throws BtcException {
+		return getWalletNode().getConnectionCount();
+	}
+
+	@Override
+	public BigDecimal getDifficulty() throws BtcException {
+		return read(new Call<BigDecimal>() {
+			@Override
+			public BigDecimal call(BtcDaemon daemon) throws BtcException {
+				return daemon.getDifficulty();
+			}
+		});
+	}
+
+	@Override
+	public boolean getGenerate() throws BtcException {
+		return getWalletNode().getGenerate();
+	}
+
+	@Override
+	public long getHashesPerSecond() throws BtcException {
+		return getWalletNode().getHashesPerSecond();
+	}
+
+	@Override
+	public BtcInfo getInformation() throws BtcException {
+		return getWalletNode().getInformation();
+	}
+
+	@Override
+	public BtcMiningInfo getMiningInformation() throws BtcException {
+		return read(new Call<BtcMiningInfo>() {
+			@Override
+			public BtcMiningInfo call(BtcDaemon daemon) throws BtcException {
+				return daemon.getMiningInformation();
+			}
+		});
+	}
+
+	@Override
+	public String getNewAddress(String account) throws BtcException {
+		return getWalletNode().getNewAddress(account);
+	}
+
+	@Override
+	public List<BtcPeer> getPeerInformation() throws BtcException {
+		return getWalletNode().getPeerInformation();
+	}
+
+	@Override
+	public List<String> getRawMemoryPool() throws BtcException {
+		return read(new Call<List<String>>() {
+			@Override
+			public List<String> call(BtcDaemon daemon) throws BtcException {
+				return daemon.getRawMemoryPool();
+			}
+		});
+	}
+
+	@Override
+	public BtcRawTransaction getRawTransaction(String transactionId,
+			boolean verbose) throws BtcException {
+		return getRawTransaction(transactionId, verbose, 0);
+	}
+
+	public BtcRawTransaction getRawTransaction(final String transactionId,
+			final boolean verbose, long minHeight) throws BtcException {
+		return read(new Call<BtcRawTransaction>() {
+			@Override
+			public BtcRawTransaction call(BtcDaemon daemon)
+					throws BtcException {
+				return daemon.getRawTransaction(transactionId, verbose);
+			}
+		}, minHeight);
+	}
+
+	@Override
+	public BigDecimal getReceivedByAccount(String account, long minConfirms)
+			throws BtcException {
+		return getWalletNode().getReceivedByAccount(account, minConfirms);
+	}
+
+	@Override
+	public BigDecimal getReceivedByAddress(String address, long minConfirms)
+			throws BtcException {
+		return getWalletNode().getReceivedByAddress(address, minConfirms);
+	}
+
+	@Override
+	public BtcTransaction getTransaction(String transactionId)
+			throws BtcException {
+		return getWalletNode().getTransaction(transactionId);
+	}
+
+	@Override
+	public BtcOutput getTransactionOutput(String transactionId, long index,
+			boolean includeMemoryPool) throws BtcException {
+		return getTransactionOutput(transactionId, index, includeMemoryPool, 0);
+	}
+
+	public BtcOutput getTransactionOutput(final String transactionId,
+			final long index, final boolean includeMemoryPool, long minHeight)
+			throws BtcException {
+		return read(new Call<BtcOutput>() {
+			@Override
+			public BtcOutput call(BtcDaemon daemon) throws BtcException {
+				return daemon.getTransactionOutput(transactionId, index,
+						includeMemoryPool);
+			}
+		}, minHeight);
+	}
+
+	@Override
+	public BtcOutputSet getTransactionOutputSetInformation()
+			throws BtcException {
+		return read(new Call<BtcOutputSet>() {
+			@Override
+			public BtcOutputSet call(BtcDaemon daemon) throws BtcException {
+				return daemon.getTransactionOutputSetInformation();
+			}
+		});
+	}
+
+	@Override
+	public BtcWork getWork(String data) throws BtcException {
+		return getWalletNode().getWork(data);
+	}
+
+	@Override
+	public String help(final String command) throws BtcException {
+		return read(new Call<String>() {
+			@Override
+			public String call(BtcDaemon daemon) throws BtcException {
+				return daemon.help(command);
+			}
+		});
+	}
+
+	@Override
+	public void importPrivateKey(String privateKey, String label,
+			boolean rescan) throws BtcException {
+		getWalletNode().importPrivateKey(privateKey, label, rescan);
+	}
+
+	@Override
+	public void keyPoolRefill() throws BtcException {
+		getWalletNode().keyPoolRefill();
+	}
+
+	@Override
+	public Map<String, BtcAccount> listAccounts(long minConfirms)
+			throws BtcException {
+		return getWalletNode().listAccounts(minConfirms);
+	}
+
+	@Override
+	public List<BtcAddress> listAddressGroupings() throws BtcException {
+		return getWalletNode().listAddressGroupings();
+	}
+
+	@Override
+	public List<BtcOutputPart> listLockUnspent() throws BtcException {
+		return getWalletNode().listLockUnspent();
+	}
+
+	@Override
+	public List<BtcAccount> listReceivedByAccount(long minConfirms,
+			boolean includeEmpty) throws BtcException {
+		return getWalletNode().listReceivedByAccount(minConfirms,
+				includeEmpty);
+	}
+
+	@Override
+	public List<BtcAddress> listReceivedByAddress(long minConfirms,
+			boolean includeEmpty) throws BtcException {
+		return getWalletNode().listReceivedByAddress(minConfirms,
+				includeEmpty);
+	}
+
+	@Override
+	public BtcLastBlock listSinceBlock(String blockHash, long targetConfirms)
+			throws BtcException {
+		return getWalletNode().listSinceBlock(blockHash, targetConfirms);
+	}
+
+	@Override
+	public List<BtcTransaction> listTransactions(String account, long count,
+			long from) throws BtcException {
+		return getWalletNode().listTransactions(account, count, from);
+	}
+
+	@Override
+	public List<BtcOutput> listUnspent(long minConfirms, long maxConfirms)
+			throws BtcException {
+		return getWalletNode().listUnspent(minConfirms, maxConfirms);
+	}
+
+	@Override
+	public boolean lockUnspent(boolean unlock, List<BtcOutputPart> outputs)
+			throws BtcException {
+		return getWalletNode().lockUnspent(unlock, outputs);
+	}
+
+	@Override
+	public boolean move(String fromAccount, String toAccount,
+			BigDecimal amount, long minConfirms, String comment)
+			throws BtcException {
+		return getWalletNode().move(fromAccount, toAccount, amount,
+				minConfirms, comment);
+	}
+
+	@Override
+	public String sendFrom(String account, String address, BigDecimal amount,
+			long minConfirms, String comment, String commentTo)
+			throws BtcException {
+		return getWalletNode().sendFrom(account, address, amount, minConfirms,
+				comment, commentTo);
+	}
+
+	@Override
+	public String sendMany(String account, Map<String, BigDecimal> amounts,
+			long minConfirms, String comment) throws BtcException {
+		return getWalletNode().sendMany(account, amounts, minConfirms,
+				comment);
+	}
+
+	@Override
+	public BtcTransaction sendRawTransaction(String encoded)
+			throws BtcException {
+		return getWalletNode().sendRawTransaction(encoded);
+	}
+
+	@Override
+	public String sendToAddress(String address, BigDecimal amount,
+			String comment, String commentTo) throws BtcException {
+		return getWalletNode().sendToAddress(address, amount, comment,
+				commentTo);
+	}
+
+	@Override
+	public void setAccount(String address, String account)
+			throws BtcException {
+		getWalletNode().setAccount(address, account);
+	}
+
+	@Override
+	public void setGenerate(boolean generate, long processors)
+			throws BtcException {
+		getWalletNode().setGenerate(generate, processors);
+	}
+
+	@Override
+	public boolean setTransactionFee(BigDecimal amount) throws BtcException {
+		return getWalletNode().setTransactionFee(amount);
+	}
+
+	@Override
+	public String signMessage(String address, String message)
+			throws BtcException {
+		return getWalletNode().signMessage(address, message);
+	}
+
+	@Override
+	public BtcRawTransaction signRawTransaction(String encoded,
+			List<BtcOutputPart> outputs, List<String> privateKeys,
+			BtcRawTransaction.SignatureHash signatureHash) throws BtcException {
+		return getWalletNode().signRawTransaction(encoded, outputs,
+				privateKeys, signatureHash);
+	}
+
+	@Override
+	public String stop() throws BtcException {
+		return getWalletNode().stop();
+	}
+
+	@Override
+	public BtcBlockSubmission submitBlock(String data, String workId,
+			Map<String, String> parameters) throws BtcException {
+		return getWalletNode().submitBlock(data, workId, parameters);
+	}
+
+	@Override
+	public BtcAddress validateAddress(String address) throws BtcException {
+		return getWalletNode().validateAddress(address);
+	}
+
+	@Override
+	public boolean verifyMessage(final String address,
+			final String signature, final String message) throws BtcException {
+		return read(new Call<Boolean>() {
+			@Override
+			public Boolean call(BtcDaemon daemon) throws BtcException {
+				return daemon.verifyMessage(address, signature, message);
+			}
+		});
+	}
+
+	@Override
+	public void walletLock() throws BtcException {
+		getWalletNode().walletLock();
+	}
+
+	@Override
+	public void walletPassphrase(String passphrase, long timeout)
+			throws BtcException {
+		getWalletNode().walletPassphrase(passphrase, timeout);
+	}
+
+	@Override
+	public void walletPassphraseChange(String passphrase,
+			String newPassphrase) throws BtcException {
+		getWalletNode().walletPassphraseChange(passphrase, newPassphrase);
+	}
+
+	private interface Call<T> {
+		T call(BtcDaemon daemon) throws BtcException;
+	}
+
+	private interface ListCall<T> {
+		BtcBatchResult<T> call(BtcDaemon daemon, List<?> keys)
+				throws BtcException;
+	}
+
+	private class HeightTracker implements Runnable {
+		private final long interval;
+
+		private HeightTracker(long interval) {
+			this.interval = interval;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!Thread.currentThread().isInterrupted()) {
+					refreshHeights();
+					Thread.sleep(interval);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static class Node {
+		private final BtcDaemon daemon;
+		private int inFlight;
+		private double latency;
+		private long downUntil;
+		private long height = -1;
+
+		private Node(BtcDaemon daemon) {
+			this.daemon = daemon;
+		}
+
+		private boolean isHealthy(long now) {
+			BtcJsonRpcCircuitBreaker breaker = daemon.getCircuitBreaker();
+			return (now >= downUntil)
+					&& ((breaker == null) || (breaker.getState() == BtcJsonRpcCircuitBreaker.State.CLOSED));
+		}
+
+		private double getLoad() {
+			return (inFlight + 1) * Math.max(latency, 1.0);
+		}
+	}
+}
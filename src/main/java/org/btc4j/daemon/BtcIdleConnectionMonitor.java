@@ -0,0 +1,68 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+
+public class BtcIdleConnectionMonitor implements Runnable {
+	private static final Logger LOG = Logger
+			.getLogger(BtcIdleConnectionMonitor.class.getName());
+	private static final long BTC4J_DAEMON_MIN_SLEEP = 1000;
+	private HttpClientConnectionManager connectionManager;
+	private volatile long idleTimeout;
+
+	public BtcIdleConnectionMonitor(
+			HttpClientConnectionManager connectionManager, long idleTimeout) {
+		this.connectionManager = connectionManager;
+		this.idleTimeout = idleTimeout;
+	}
+
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = Math.max(idleTimeout, BTC4J_DAEMON_MIN_SLEEP);
+	}
+
+	@Override
+	public void run() {
+		Thread currentThread = Thread.currentThread();
+		LOG.info("thread " + currentThread.getName() + " started");
+		try {
+			while (!currentThread.isInterrupted()) {
+				Thread.sleep(Math.max(idleTimeout / 2, BTC4J_DAEMON_MIN_SLEEP));
+				connectionManager.closeExpiredConnections();
+				connectionManager.closeIdleConnections(idleTimeout,
+						TimeUnit.MILLISECONDS);
+			}
+		} catch (InterruptedException e) {
+			LOG.info("thread " + currentThread.getName() + " stopped");
+		}
+	}
+}
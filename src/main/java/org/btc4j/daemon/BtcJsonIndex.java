@@ -0,0 +1,423 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.io.ByteArrayInputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.stream.JsonParser;
+
+import org.btc4j.core.BtcException;
+
+public class BtcJsonIndex {
+	private static final String BTC4J_DAEMON_DATA_INVALID_JSON = "invalid json at offset ";
+	private static final Charset BTC4J_DAEMON_UTF8 = Charset.forName("UTF-8");
+	private static final Charset BTC4J_DAEMON_ASCII = Charset
+			.forName("US-ASCII");
+	private static final byte[] BTC4J_DAEMON_ARRAY_START = { '[' };
+	private static final byte[] BTC4J_DAEMON_ARRAY_END = { ']' };
+	private static final byte[] BTC4J_DAEMON_NULL = { 'n', 'u', 'l', 'l' };
+	private static final byte[] BTC4J_DAEMON_TRUE = { 't', 'r', 'u', 'e' };
+	private static final byte[] BTC4J_DAEMON_FALSE = { 'f', 'a', 'l', 's', 'e' };
+	private static final int BTC4J_DAEMON_INDEX_DEPTH = 16;
+	private static final int BTC4J_DAEMON_INDEX_FIELDS = 16;
+	private final static Logger LOG = Logger.getLogger(BtcJsonIndex.class
+			.getName());
+	private final byte[] data;
+	private final int start;
+	private int end;
+	private int[] fields;
+	private int size;
+
+	public BtcJsonIndex(byte[] data) throws BtcException {
+		this(data, skipSpace(data, 0));
+	}
+
+	public BtcJsonIndex(byte[] data, int start) throws BtcException {
+		this.data = data;
+		this.start = start;
+		this.fields = new int[BTC4J_DAEMON_INDEX_FIELDS * 4];
+		if ((start >= data.length) || (data[start] != '{')) {
+			throw invalid(start);
+		}
+		int i = skipSpace(data, start + 1);
+		if ((i < data.length) && (data[i] == '}')) {
+			end = i + 1;
+			return;
+		}
+		while (true) {
+			if ((i >= data.length) || (data[i] != '"')) {
+				throw invalid(i);
+			}
+			int keyEnd = skipString(data, i);
+			int valueStart = skipSpace(data, keyEnd);
+			if ((valueStart >= data.length) || (data[valueStart] != ':')) {
+				throw invalid(valueStart);
+			}
+			valueStart = skipSpace(data, valueStart + 1);
+			int valueEnd = skipValue(data, valueStart);
+			add(i + 1, keyEnd - 1, valueStart, valueEnd);
+			i = skipSpace(data, valueEnd);
+			if ((i < data.length) && (data[i] == ',')) {
+				i = skipSpace(data, i + 1);
+			} else if ((i < data.length) && (data[i] == '}')) {
+				end = i + 1;
+				return;
+			} else {
+				throw invalid(i);
+			}
+		}
+	}
+
+	public int getStart() {
+		return start;
+	}
+
+	public int getEnd() {
+		return end;
+	}
+
+	public int size() {
+		return size / 4;
+	}
+
+	public boolean contains(String key) {
+		return find(key) >= 0;
+	}
+
+	public boolean isNull(String key) {
+		int field = find(key);
+		return (field < 0) || (data[fields[field + 2]] == 'n');
+	}
+
+	public String string(String key) {
+		int field = find(key);
+		if ((field < 0) || (data[fields[field + 2]] != '"')) {
+			return "";
+		}
+		return decode(fields[field + 2], fields[field + 3]);
+	}
+
+	public List<String> strings(String key) throws BtcException {
+		List<String> strings = new ArrayList<String>();
+		int field = find(key);
+		if ((field < 0) || (data[fields[field + 2]] != '[')) {
+			return strings;
+		}
+		int i = skipSpace(data, fields[field + 2] + 1);
+		while ((i < data.length) && (data[i] != ']')) {
+			int valueEnd = skipValue(data, i);
+			strings.add((data[i] == '"') ? decode(i, valueEnd) : "");
+			i = skipSpace(data, valueEnd);
+			if ((i < data.length) && (data[i] == ',')) {
+				i = skipSpace(data, i + 1);
+			}
+		}
+		return strings;
+	}
+
+	public long number(String key) {
+		String number = numeric(key);
+		if (number == null) {
+			return 0;
+		}
+		try {
+			return Long.parseLong(number);
+		} catch (NumberFormatException e) {
+			return new BigDecimal(number).longValueExact();
+		}
+	}
+
+	public BigDecimal decimal(String key) {
+		String number = numeric(key);
+		return (number == null) ? BigDecimal.ZERO : new BigDecimal(number);
+	}
+
+	public boolean bool(String key, boolean defaultValue) {
+		int field = find(key);
+		if (field < 0) {
+			return defaultValue;
+		}
+		byte first = data[fields[field + 2]];
+		return (first == 't') ? true : ((first == 'f') ? false
+				: defaultValue);
+	}
+
+	public BtcJsonIndex object(String key) throws BtcException {
+		int field = find(key);
+		if ((field < 0) || (data[fields[field + 2]] != '{')) {
+			return null;
+		}
+		return new BtcJsonIndex(data, fields[field + 2]);
+	}
+
+	public <T> T bind(String key, BtcJsonBinder<T> binder) {
+		int field = find(key);
+		try (JsonParser parser = (field < 0) ? parser(BTC4J_DAEMON_NULL, 0,
+				BTC4J_DAEMON_NULL.length) : parser(data, fields[field + 2],
+				fields[field + 3])) {
+			return binder.bind(parser, parser.next());
+		} catch (BtcException | JsonException e) {
+			LOG.severe(String.valueOf(e));
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return new String(data, start, end - start, BTC4J_DAEMON_UTF8);
+	}
+
+	private String decode(int from, int to) {
+		for (int i = from + 1; i < to - 1; i++) {
+			if (data[i] == '\\') {
+				try (JsonParser parser = parser(data, from, to)) {
+					parser.next();
+					return parser.getString();
+				} catch (JsonException e) {
+					LOG.severe(String.valueOf(e));
+					throw new IllegalStateException(e.getMessage(), e);
+				}
+			}
+		}
+		return new String(data, from + 1, to - from - 2, BTC4J_DAEMON_UTF8);
+	}
+
+	private String numeric(String key) {
+		int field = find(key);
+		if (field < 0) {
+			return null;
+		}
+		byte first = data[fields[field + 2]];
+		if ((first != '-') && ((first < '0') || (first > '9'))) {
+			return null;
+		}
+		return new String(data, fields[field + 2], fields[field + 3]
+				- fields[field + 2], BTC4J_DAEMON_ASCII);
+	}
+
+	private int find(String key) {
+		int length = key.length();
+		for (int field = 0; field < size; field += 4) {
+			int from = fields[field];
+			if ((fields[field + 1] - from) != length) {
+				continue;
+			}
+			int i = 0;
+			while ((i < length) && (data[from + i] == key.charAt(i))) {
+				i++;
+			}
+			if (i == length) {
+				return field;
+			}
+		}
+		return -1;
+	}
+
+	private void add(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+		if (size + 4 > fields.length) {
+			fields = Arrays.copyOf(fields, fields.length * 2);
+		}
+		fields[size++] = keyStart;
+		fields[size++] = keyEnd;
+		fields[size++] = valueStart;
+		fields[size++] = valueEnd;
+	}
+
+	private static JsonParser parser(byte[] data, int from, int to) {
+		JsonParser parser = Json.createParser(new SequenceInputStream(
+				new SequenceInputStream(new ByteArrayInputStream(
+						BTC4J_DAEMON_ARRAY_START), new ByteArrayInputStream(
+						data, from, to - from)), new ByteArrayInputStream(
+						BTC4J_DAEMON_ARRAY_END)));
+		parser.next();
+		return parser;
+	}
+
+	private static int skipSpace(byte[] data, int i) {
+		while ((i < data.length)
+				&& ((data[i] == ' ') || (data[i] == '\n')
+						|| (data[i] == '\r') || (data[i] == '\t'))) {
+			i++;
+		}
+		return i;
+	}
+
+	private static int skipString(byte[] data, int i) throws BtcException {
+		for (i = i + 1; i < data.length; i++) {
+			if (data[i] == '"') {
+				return i + 1;
+			}
+			if ((data[i] >= 0) && (data[i] < ' ')) {
+				throw invalid(i);
+			}
+			if (data[i] == '\\') {
+				i = skipEscape(data, i + 1);
+			}
+		}
+		throw invalid(i);
+	}
+
+	private static int skipEscape(byte[] data, int i) throws BtcException {
+		if (i >= data.length) {
+			throw invalid(i);
+		}
+		switch (data[i]) {
+		case '"':
+		case '\\':
+		case '/':
+		case 'b':
+		case 'f':
+		case 'n':
+		case 'r':
+		case 't':
+			return i;
+		case 'u':
+			for (int j = i + 1; j <= i + 4; j++) {
+				if ((j >= data.length)
+						|| (Character.digit((char) data[j], 16) < 0)) {
+					throw invalid(j);
+				}
+			}
+			return i + 4;
+		default:
+			throw invalid(i);
+		}
+	}
+
+	private static int skipValue(byte[] data, int i) throws BtcException {
+		if (i >= data.length) {
+			throw invalid(i);
+		}
+		if (data[i] == '"') {
+			return skipString(data, i);
+		}
+		if ((data[i] == '{') || (data[i] == '[')) {
+			byte[] closers = new byte[BTC4J_DAEMON_INDEX_DEPTH];
+			int depth = 0;
+			while (i < data.length) {
+				byte b = data[i];
+				if (b == '"') {
+					i = skipString(data, i);
+					continue;
+				}
+				if ((b == '{') || (b == '[')) {
+					if (depth == closers.length) {
+						closers = Arrays.copyOf(closers, depth * 2);
+					}
+					closers[depth++] = (byte) ((b == '{') ? '}' : ']');
+				} else if ((b == '}') || (b == ']')) {
+					if (closers[--depth] != b) {
+						throw invalid(i);
+					}
+					if (depth == 0) {
+						return i + 1;
+					}
+				} else if ((b == ':') && (closers[depth - 1] != '}')) {
+					throw invalid(i);
+				} else if ((b != ',') && (b != ':') && (b != ' ')
+						&& (b != '\n') && (b != '\r') && (b != '\t')) {
+					i = skipScalar(data, i);
+					continue;
+				}
+				i++;
+			}
+			throw invalid(i);
+		}
+		return skipScalar(data, i);
+	}
+
+	private static int skipScalar(byte[] data, int i) throws BtcException {
+		switch (data[i]) {
+		case 'n':
+			return skipLiteral(data, i, BTC4J_DAEMON_NULL);
+		case 't':
+			return skipLiteral(data, i, BTC4J_DAEMON_TRUE);
+		case 'f':
+			return skipLiteral(data, i, BTC4J_DAEMON_FALSE);
+		default:
+			return skipNumber(data, i);
+		}
+	}
+
+	private static int skipLiteral(byte[] data, int i, byte[] literal)
+			throws BtcException {
+		for (byte b : literal) {
+			if ((i >= data.length) || (data[i] != b)) {
+				throw invalid(i);
+			}
+			i++;
+		}
+		return i;
+	}
+
+	private static int skipNumber(byte[] data, int i) throws BtcException {
+		if ((i < data.length) && (data[i] == '-')) {
+			i++;
+		}
+		if ((i < data.length) && (data[i] == '0')) {
+			i++;
+		} else {
+			i = skipDigits(data, i);
+		}
+		if ((i < data.length) && (data[i] == '.')) {
+			i = skipDigits(data, i + 1);
+		}
+		if ((i < data.length) && ((data[i] == 'e') || (data[i] == 'E'))) {
+			i++;
+			if ((i < data.length) && ((data[i] == '+') || (data[i] == '-'))) {
+				i++;
+			}
+			i = skipDigits(data, i);
+		}
+		return i;
+	}
+
+	private static int skipDigits(byte[] data, int i) throws BtcException {
+		int from = i;
+		while ((i < data.length) && (data[i] >= '0') && (data[i] <= '9')) {
+			i++;
+		}
+		if (i == from) {
+			throw invalid(i);
+		}
+		return i;
+	}
+
+	private static BtcException invalid(int offset) {
+		LOG.severe(BTC4J_DAEMON_DATA_INVALID_JSON + offset);
+		return new BtcException(BtcException.BTC4J_ERROR_CODE,
+				BtcException.BTC4J_ERROR_MESSAGE + ": "
+						+ BTC4J_DAEMON_DATA_INVALID_JSON + offset);
+	}
+}
@@ -0,0 +1,560 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+import org.btc4j.core.BtcInput;
+import org.btc4j.core.BtcOutput;
+import org.btc4j.core.BtcPeer;
+import org.btc4j.core.BtcRawTransaction;
+import org.btc4j.core.BtcScript;
+import org.btc4j.core.BtcTransaction;
+import org.btc4j.core.BtcTransactionDetail;
+
+public class BtcJsonObjectBinder {
+	private static final String BTC4J_DAEMON_DATA_INVALID_TYPE = "unexpected return type ";
+	private static final String BTCOBJ_BLOCK_BITS = "bits";
+	private static final String BTCOBJ_BLOCK_CONFIRMATIONS = "confirmations";
+	private static final String BTCOBJ_BLOCK_DIFFICULTY = "difficulty";
+	private static final String BTCOBJ_BLOCK_HASH = "hash";
+	private static final String BTCOBJ_BLOCK_HEIGHT = "height";
+	private static final String BTCOBJ_BLOCK_MERKLE_ROOT = "merkleroot";
+	private static final String BTCOBJ_BLOCK_NEXT_BLOCK_HASH = "nextblockhash";
+	private static final String BTCOBJ_BLOCK_NONCE = "nonce";
+	private static final String BTCOBJ_BLOCK_PREVIOUS_BLOCK_HASH = "previousblockhash";
+	private static final String BTCOBJ_BLOCK_SIZE = "size";
+	private static final String BTCOBJ_BLOCK_TIME = "time";
+	private static final String BTCOBJ_BLOCK_TRANSACTIONS = "tx";
+	private static final String BTCOBJ_BLOCK_VERSION = "version";
+	private static final String BTCOBJ_PEER_ADDRESS = "addr";
+	private static final String BTCOBJ_PEER_BAN_SCORE = "banscore";
+	private static final String BTCOBJ_PEER_BYTES_RECEIVED = "bytesrecv";
+	private static final String BTCOBJ_PEER_BYTES_SENT = "bytessent";
+	private static final String BTCOBJ_PEER_CONNECTION_TIME = "conntime";
+	private static final String BTCOBJ_PEER_INBOUND = "inbound";
+	private static final String BTCOBJ_PEER_LAST_RECEIVED = "lastrecv";
+	private static final String BTCOBJ_PEER_LAST_SEND = "lastsend";
+	private static final String BTCOBJ_PEER_SERVICES = "services";
+	private static final String BTCOBJ_PEER_START_HEIGHT = "startingheight";
+	private static final String BTCOBJ_PEER_SUBVERSION = "subver";
+	private static final String BTCOBJ_PEER_SYNC_NODE = "syncnode";
+	private static final String BTCOBJ_PEER_VERSION = "version";
+	private static final String BTCOBJ_SCRIPT_ASM = "asm";
+	private static final String BTCOBJ_SCRIPT_PUBLIC_KEY = "hex";
+	private static final String BTCOBJ_SCRIPT_REQUIRED_SIGNATURES = "reqSigs";
+	private static final String BTCOBJ_SCRIPT_TYPE = "type";
+	private static final String BTCOBJ_SCRIPT_ADDRESSES = "addresses";
+	private static final String BTCOBJ_TX_AMOUNT = "amount";
+	private static final String BTCOBJ_TX_FEE = "fee";
+	private static final String BTCOBJ_TX_BLOCK_HASH = "blockhash";
+	private static final String BTCOBJ_TX_BLOCK_INDEX = "blockindex";
+	private static final String BTCOBJ_TX_BLOCK_TIME = "blocktime";
+	private static final String BTCOBJ_TX_CONFIRMATIONS = "confirmations";
+	private static final String BTCOBJ_TX_DETAILS = "details";
+	private static final String BTCOBJ_TX_TIME = "time";
+	private static final String BTCOBJ_TX_TIME_RECEIVED = "timereceived";
+	private static final String BTCOBJ_TX_TRANSACTION = "txid";
+	private static final String BTCOBJ_TX_HEX = "hex";
+	private static final String BTCOBJ_TX_VERSION = "version";
+	private static final String BTCOBJ_TX_LOCK_TIME = "locktime";
+	private static final String BTCOBJ_TX_INPUTS = "vin";
+	private static final String BTCOBJ_TX_OUTPUTS = "vout";
+	private static final String BTCOBJ_TX_COMPLETE = "complete";
+	private static final String BTCOBJ_TX_DETAIL_ACCOUNT = "account";
+	private static final String BTCOBJ_TX_DETAIL_ADDRESS = "address";
+	private static final String BTCOBJ_TX_DETAIL_AMOUNT = "amount";
+	private static final String BTCOBJ_TX_DETAIL_CATEGORY = "category";
+	private static final String BTCOBJ_TX_DETAIL_FEE = "fee";
+	private static final String BTCOBJ_TX_INPUT_TRANSACTION = "txid";
+	private static final String BTCOBJ_TX_INPUT_OUTPUT = "vout";
+	private static final String BTCOBJ_TX_INPUT_SCRIPT_SIGNATURE = "scriptSig";
+	private static final String BTCOBJ_TX_INPUT_SEQUENCE = "sequence";
+	private static final String BTCOBJ_TX_OUTPUT_TRANSACTION = "txid";
+	private static final String BTCOBJ_TX_OUTPUT_BEST_BLOCK = "bestblock";
+	private static final String BTCOBJ_TX_OUTPUT_CONFIRMATIONS = "confirmations";
+	private static final String BTCOBJ_TX_OUTPUT_VALUE = "value";
+	private static final String BTCOBJ_TX_OUTPUT_INDEX = "n";
+	private static final String BTCOBJ_TX_OUTPUT_SCRIPT_PUBLIC_KEY = "scriptPubKey";
+	private static final String BTCOBJ_TX_OUTPUT_VERSION = "version";
+	private static final String BTCOBJ_TX_OUTPUT_COINBASE = "coinbase";
+	private static final String BTCOBJ_TX_OUTPUT_OUTPUT = "vout";
+	private final static Logger LOG = Logger
+			.getLogger(BtcJsonObjectBinder.class.getName());
+	public static final BtcJsonBinder<BtcBlock> BLOCK = new BtcJsonBinder<BtcBlock>() {
+		@Override
+		public BtcBlock bind(JsonParser parser, Event event)
+				throws BtcException {
+			return block(parser, event);
+		}
+	};
+	public static final BtcJsonBinder<BtcRawTransaction> RAW_TRANSACTION = new BtcJsonBinder<BtcRawTransaction>() {
+		@Override
+		public BtcRawTransaction bind(JsonParser parser, Event event)
+				throws BtcException {
+			return rawTransaction(parser, event);
+		}
+	};
+	public static final BtcJsonBinder<BtcTransaction> TRANSACTION = new BtcJsonBinder<BtcTransaction>() {
+		@Override
+		public BtcTransaction bind(JsonParser parser, Event event)
+				throws BtcException {
+			return transaction(parser, event);
+		}
+	};
+	public static final BtcJsonBinder<BtcInput> INPUT = new BtcJsonBinder<BtcInput>() {
+		@Override
+		public BtcInput bind(JsonParser parser, Event event)
+				throws BtcException {
+			return input(parser, event);
+		}
+	};
+	public static final BtcJsonBinder<BtcOutput> OUTPUT = new BtcJsonBinder<BtcOutput>() {
+		@Override
+		public BtcOutput bind(JsonParser parser, Event event)
+				throws BtcException {
+			return output(parser, event);
+		}
+	};
+	public static final BtcJsonBinder<BtcPeer> PEER = new BtcJsonBinder<BtcPeer>() {
+		@Override
+		public BtcPeer bind(JsonParser parser, Event event)
+				throws BtcException {
+			return peer(parser, event);
+		}
+	};
+
+	public static <T> BtcJsonBinder<List<T>> list(final BtcJsonBinder<T> binder) {
+		return new BtcJsonBinder<List<T>>() {
+			@Override
+			public List<T> bind(JsonParser parser, Event event)
+					throws BtcException {
+				List<T> list = new ArrayList<T>();
+				if (event == Event.VALUE_NULL) {
+					return list;
+				}
+				checkType(event, Event.START_ARRAY);
+				while ((event = parser.next()) != Event.END_ARRAY) {
+					list.add(binder.bind(parser, event));
+				}
+				return list;
+			}
+		};
+	}
+
+	public static BtcBlock block(JsonParser parser, Event event)
+			throws BtcException {
+		if (event == Event.VALUE_NULL) {
+			return null;
+		}
+		checkType(event, Event.START_OBJECT);
+		BtcBlock block = new BtcBlock();
+		List<BtcTransaction> transactions = new ArrayList<BtcTransaction>();
+		while ((event = parser.next()) != Event.END_OBJECT) {
+			String key = parser.getString();
+			event = parser.next();
+			if (BTCOBJ_BLOCK_HASH.equals(key)) {
+				block.setHash(string(parser, event));
+			} else if (BTCOBJ_BLOCK_CONFIRMATIONS.equals(key)) {
+				block.setConfirmations(number(parser, event));
+			} else if (BTCOBJ_BLOCK_SIZE.equals(key)) {
+				block.setSize(number(parser, event));
+			} else if (BTCOBJ_BLOCK_HEIGHT.equals(key)) {
+				block.setHeight(number(parser, event));
+			} else if (BTCOBJ_BLOCK_VERSION.equals(key)) {
+				block.setVersion(number(parser, event));
+			} else if (BTCOBJ_BLOCK_MERKLE_ROOT.equals(key)) {
+				block.setMerkleRoot(string(parser, event));
+			} else if ((BTCOBJ_BLOCK_TRANSACTIONS.equals(key))
+					&& (event == Event.START_ARRAY)) {
+				while ((event = parser.next()) != Event.END_ARRAY) {
+					BtcTransaction transaction = new BtcTransaction();
+					transaction.setTransaction(string(parser, event));
+					transactions.add(transaction);
+				}
+			} else if (BTCOBJ_BLOCK_TIME.equals(key)) {
+				block.setTime(number(parser, event));
+			} else if (BTCOBJ_BLOCK_NONCE.equals(key)) {
+				block.setNonce(number(parser, event));
+			} else if (BTCOBJ_BLOCK_BITS.equals(key)) {
+				block.setBits(string(parser, event));
+			} else if (BTCOBJ_BLOCK_DIFFICULTY.equals(key)) {
+				block.setDifficulty(decimal(parser, event));
+			} else if (BTCOBJ_BLOCK_PREVIOUS_BLOCK_HASH.equals(key)) {
+				block.setPreviousBlockHash(string(parser, event));
+			} else if (BTCOBJ_BLOCK_NEXT_BLOCK_HASH.equals(key)) {
+				block.setNextBlockHash(string(parser, event));
+			} else {
+				BtcJsonValueBinder.skip(parser, event);
+			}
+		}
+		block.setTransactions(transactions);
+		return block;
+	}
+
+	public static BtcRawTransaction rawTransaction(JsonParser parser,
+			Event event) throws BtcException {
+		if (event == Event.VALUE_NULL) {
+			return null;
+		}
+		checkType(event, Event.START_OBJECT);
+		BtcRawTransaction transaction = new BtcRawTransaction();
+		List<BtcInput> inputs = new ArrayList<BtcInput>();
+		List<BtcOutput> outputs = new ArrayList<BtcOutput>();
+		transaction.setComplete(true);
+		while ((event = parser.next()) != Event.END_OBJECT) {
+			String key = parser.getString();
+			event = parser.next();
+			if (BTCOBJ_TX_HEX.equals(key)) {
+				transaction.setHex(string(parser, event));
+			} else if (BTCOBJ_TX_TRANSACTION.equals(key)) {
+				transaction.setTransaction(string(parser, event));
+			} else if (BTCOBJ_TX_VERSION.equals(key)) {
+				transaction.setVersion(number(parser, event));
+			} else if (BTCOBJ_TX_LOCK_TIME.equals(key)) {
+				transaction.setLockTime(number(parser, event));
+			} else if ((BTCOBJ_TX_INPUTS.equals(key))
+					&& (event == Event.START_ARRAY)) {
+				while ((event = parser.next()) != Event.END_ARRAY) {
+					inputs.add(input(parser, event));
+				}
+			} else if ((BTCOBJ_TX_OUTPUTS.equals(key))
+					&& (event == Event.START_ARRAY)) {
+				while ((event = parser.next()) != Event.END_ARRAY) {
+					outputs.add(output(parser, event));
+				}
+			} else if (BTCOBJ_TX_BLOCK_HASH.equals(key)) {
+				transaction.setBlockHash(string(parser, event));
+			} else if (BTCOBJ_TX_CONFIRMATIONS.equals(key)) {
+				transaction.setConfirmations(number(parser, event));
+			} else if (BTCOBJ_TX_TIME.equals(key)) {
+				transaction.setTime(number(parser, event));
+			} else if (BTCOBJ_TX_BLOCK_TIME.equals(key)) {
+				transaction.setBlockTime(number(parser, event));
+			} else if (BTCOBJ_TX_COMPLETE.equals(key)) {
+				transaction.setComplete(bool(parser, event, true));
+			} else {
+				BtcJsonValueBinder.skip(parser, event);
+			}
+		}
+		transaction.setInputs(inputs);
+		transaction.setOutputs(outputs);
+		return transaction;
+	}
+
+	public static BtcTransaction transaction(JsonParser parser, Event event)
+			throws BtcException {
+		if (event == Event.VALUE_NULL) {
+			return null;
+		}
+		checkType(event, Event.START_OBJECT);
+		BtcTransaction transaction = new BtcTransaction();
+		BtcTransactionDetail detail = new BtcTransactionDetail();
+		List<BtcTransactionDetail> details = null;
+		while ((event = parser.next()) != Event.END_OBJECT) {
+			String key = parser.getString();
+			event = parser.next();
+			if (BTCOBJ_TX_TRANSACTION.equals(key)) {
+				transaction.setTransaction(string(parser, event));
+			} else if (BTCOBJ_TX_AMOUNT.equals(key)) {
+				transaction.setAmount(decimal(parser, event));
+				detail.setAmount(transaction.getAmount());
+			} else if (BTCOBJ_TX_FEE.equals(key)) {
+				transaction.setFee(decimal(parser, event));
+				detail.setFee(transaction.getFee());
+			} else if (BTCOBJ_TX_CONFIRMATIONS.equals(key)) {
+				transaction.setConfirmations(number(parser, event));
+			} else if (BTCOBJ_TX_TIME.equals(key)) {
+				transaction.setTime(number(parser, event));
+			} else if (BTCOBJ_TX_TIME_RECEIVED.equals(key)) {
+				transaction.setTimeReceived(number(parser, event));
+			} else if (BTCOBJ_TX_BLOCK_HASH.equals(key)) {
+				transaction.setBlockHash(string(parser, event));
+			} else if (BTCOBJ_TX_BLOCK_INDEX.equals(key)) {
+				transaction.setBlockIndex(number(parser, event));
+			} else if (BTCOBJ_TX_BLOCK_TIME.equals(key)) {
+				transaction.setBlockTime(number(parser, event));
+			} else if ((BTCOBJ_TX_DETAILS.equals(key))
+					&& (event == Event.START_ARRAY)) {
+				details = new ArrayList<BtcTransactionDetail>();
+				while ((event = parser.next()) != Event.END_ARRAY) {
+					details.add(transactionDetail(parser, event));
+				}
+			} else if (!detail(detail, key, parser, event)) {
+				BtcJsonValueBinder.skip(parser, event);
+			}
+		}
+		if (details == null) {
+			details = new ArrayList<BtcTransactionDetail>();
+			details.add(detail);
+		}
+		transaction.setDetails(details);
+		return transaction;
+	}
+
+	public static BtcTransactionDetail transactionDetail(JsonParser parser,
+			Event event) throws BtcException {
+		if (event == Event.VALUE_NULL) {
+			return null;
+		}
+		checkType(event, Event.START_OBJECT);
+		BtcTransactionDetail detail = new BtcTransactionDetail();
+		while ((event = parser.next()) != Event.END_OBJECT) {
+			String key = parser.getString();
+			event = parser.next();
+			if (BTCOBJ_TX_DETAIL_AMOUNT.equals(key)) {
+				detail.setAmount(decimal(parser, event));
+			} else if (BTCOBJ_TX_DETAIL_FEE.equals(key)) {
+				detail.setFee(decimal(parser, event));
+			} else if (!detail(detail, key, parser, event)) {
+				BtcJsonValueBinder.skip(parser, event);
+			}
+		}
+		return detail;
+	}
+
+	public static BtcInput input(JsonParser parser, Event event)
+			throws BtcException {
+		if (event == Event.VALUE_NULL) {
+			return null;
+		}
+		checkType(event, Event.START_OBJECT);
+		BtcInput input = new BtcInput();
+		while ((event = parser.next()) != Event.END_OBJECT) {
+			String key = parser.getString();
+			event = parser.next();
+			if (BTCOBJ_TX_INPUT_TRANSACTION.equals(key)) {
+				input.setTransaction(string(parser, event));
+			} else if (BTCOBJ_TX_INPUT_OUTPUT.equals(key)) {
+				input.setOutput(number(parser, event));
+			} else if ((BTCOBJ_TX_INPUT_SCRIPT_SIGNATURE.equals(key))
+					&& (event == Event.START_OBJECT)) {
+				input.setScript(script(parser, event));
+			} else if (BTCOBJ_TX_INPUT_SEQUENCE.equals(key)) {
+				input.setSequence(number(parser, event));
+			} else {
+				BtcJsonValueBinder.skip(parser, event);
+			}
+		}
+		return input;
+	}
+
+	public static BtcOutput output(JsonParser parser, Event event)
+			throws BtcException {
+		if (event == Event.VALUE_NULL) {
+			return null;
+		}
+		checkType(event, Event.START_OBJECT);
+		BtcOutput output = new BtcOutput();
+		BtcTransactionDetail detail = new BtcTransactionDetail();
+		while ((event = parser.next()) != Event.END_OBJECT) {
+			String key = parser.getString();
+			event = parser.next();
+			if (BTCOBJ_TX_OUTPUT_TRANSACTION.equals(key)) {
+				output.setTransaction(string(parser, event));
+			} else if (BTCOBJ_TX_OUTPUT_BEST_BLOCK.equals(key)) {
+				output.setBestBlock(string(parser, event));
+			} else if (BTCOBJ_TX_OUTPUT_CONFIRMATIONS.equals(key)) {
+				output.setConfirmations(number(parser, event));
+			} else if (BTCOBJ_TX_OUTPUT_VALUE.equals(key)) {
+				output.setValue(decimal(parser, event));
+			} else if (BTCOBJ_TX_OUTPUT_INDEX.equals(key)) {
+				output.setIndex(number(parser, event));
+			} else if (BTCOBJ_TX_OUTPUT_OUTPUT.equals(key)) {
+				output.setOutput(number(parser, event));
+			} else if ((BTCOBJ_TX_OUTPUT_SCRIPT_PUBLIC_KEY.equals(key))
+					&& (event == Event.START_OBJECT)) {
+				output.setScript(script(parser, event));
+			} else if ((BTCOBJ_TX_OUTPUT_SCRIPT_PUBLIC_KEY.equals(key))
+					&& (event == Event.VALUE_STRING)) {
+				BtcScript script = new BtcScript();
+				script.setPublicKey(parser.getString());
+				output.setScript(script);
+			} else if (BTCOBJ_TX_OUTPUT_VERSION.equals(key)) {
+				output.setVersion(number(parser, event));
+			} else if (BTCOBJ_TX_OUTPUT_COINBASE.equals(key)) {
+				output.setCoinbase(bool(parser, event, false));
+			} else if (BTCOBJ_TX_DETAIL_AMOUNT.equals(key)) {
+				detail.setAmount(decimal(parser, event));
+			} else if (BTCOBJ_TX_DETAIL_FEE.equals(key)) {
+				detail.setFee(decimal(parser, event));
+			} else if (!detail(detail, key, parser, event)) {
+				BtcJsonValueBinder.skip(parser, event);
+			}
+		}
+		output.setDetail(detail);
+		return output;
+	}
+
+	public static BtcScript script(JsonParser parser, Event event)
+			throws BtcException {
+		if (event == Event.VALUE_NULL) {
+			return null;
+		}
+		checkType(event, Event.START_OBJECT);
+		BtcScript script = new BtcScript();
+		List<String> addresses = new ArrayList<String>();
+		script.setType(BtcScript.Type.getValue(""));
+		while ((event = parser.next()) != Event.END_OBJECT) {
+			String key = parser.getString();
+			event = parser.next();
+			if (BTCOBJ_SCRIPT_ASM.equals(key)) {
+				script.setAsm(string(parser, event));
+			} else if (BTCOBJ_SCRIPT_PUBLIC_KEY.equals(key)) {
+				script.setPublicKey(string(parser, event));
+			} else if (BTCOBJ_SCRIPT_REQUIRED_SIGNATURES.equals(key)) {
+				script.setRequiredSignatures(number(parser, event));
+			} else if (BTCOBJ_SCRIPT_TYPE.equals(key)) {
+				script.setType(BtcScript.Type.getValue(string(parser, event)));
+			} else if ((BTCOBJ_SCRIPT_ADDRESSES.equals(key))
+					&& (event == Event.START_ARRAY)) {
+				while ((event = parser.next()) != Event.END_ARRAY) {
+					addresses.add(string(parser, event));
+				}
+			} else {
+				BtcJsonValueBinder.skip(parser, event);
+			}
+		}
+		script.setAddresses(addresses);
+		return script;
+	}
+
+	public static BtcPeer peer(JsonParser parser, Event event)
+			throws BtcException {
+		if (event == Event.VALUE_NULL) {
+			return null;
+		}
+		checkType(event, Event.START_OBJECT);
+		BtcPeer peer = new BtcPeer();
+		while ((event = parser.next()) != Event.END_OBJECT) {
+			String key = parser.getString();
+			event = parser.next();
+			if (BTCOBJ_PEER_ADDRESS.equals(key)) {
+				peer.setNetworkAddress(string(parser, event));
+			} else if (BTCOBJ_PEER_SERVICES.equals(key)) {
+				peer.setServices(string(parser, event));
+			} else if (BTCOBJ_PEER_LAST_SEND.equals(key)) {
+				peer.setLastSend(number(parser, event));
+			} else if (BTCOBJ_PEER_LAST_RECEIVED.equals(key)) {
+				peer.setLastReceived(number(parser, event));
+			} else if (BTCOBJ_PEER_BYTES_SENT.equals(key)) {
+				peer.setBytesSent(number(parser, event));
+			} else if (BTCOBJ_PEER_BYTES_RECEIVED.equals(key)) {
+				peer.setBytesReceived(number(parser, event));
+			} else if (BTCOBJ_PEER_CONNECTION_TIME.equals(key)) {
+				peer.setConnectionTime(number(parser, event));
+			} else if (BTCOBJ_PEER_VERSION.equals(key)) {
+				peer.setVersion(number(parser, event));
+			} else if (BTCOBJ_PEER_SUBVERSION.equals(key)) {
+				peer.setSubVersion(string(parser, event));
+			} else if (BTCOBJ_PEER_INBOUND.equals(key)) {
+				peer.setInbound(bool(parser, event, false));
+			} else if (BTCOBJ_PEER_START_HEIGHT.equals(key)) {
+				peer.setStartingHeight(number(parser, event));
+			} else if (BTCOBJ_PEER_BAN_SCORE.equals(key)) {
+				peer.setBanScore(number(parser, event));
+			} else if (BTCOBJ_PEER_SYNC_NODE.equals(key)) {
+				peer.setSyncNode(bool(parser, event, false));
+			} else {
+				BtcJsonValueBinder.skip(parser, event);
+			}
+		}
+		return peer;
+	}
+
+	private static boolean detail(BtcTransactionDetail detail, String key,
+			JsonParser parser, Event event) throws BtcException {
+		if (BTCOBJ_TX_DETAIL_ACCOUNT.equals(key)) {
+			detail.setAccount(string(parser, event));
+		} else if (BTCOBJ_TX_DETAIL_ADDRESS.equals(key)) {
+			detail.setAddress(string(parser, event));
+		} else if (BTCOBJ_TX_DETAIL_CATEGORY.equals(key)) {
+			detail.setCategory(BtcTransaction.Category.getValue(string(
+					parser, event)));
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	private static String string(JsonParser parser, Event event) {
+		if (event == Event.VALUE_STRING) {
+			return parser.getString();
+		}
+		BtcJsonValueBinder.skip(parser, event);
+		return "";
+	}
+
+	private static long number(JsonParser parser, Event event)
+			throws BtcException {
+		if (event == Event.VALUE_NULL) {
+			return 0;
+		}
+		checkType(event, Event.VALUE_NUMBER);
+		if (parser.isIntegralNumber()) {
+			return parser.getLong();
+		}
+		return parser.getBigDecimal().longValueExact();
+	}
+
+	private static BigDecimal decimal(JsonParser parser, Event event)
+			throws BtcException {
+		if (event == Event.VALUE_NULL) {
+			return BigDecimal.ZERO;
+		}
+		checkType(event, Event.VALUE_NUMBER);
+		return parser.getBigDecimal();
+	}
+
+	private static boolean bool(JsonParser parser, Event event,
+			boolean defaultValue) {
+		if (event == Event.VALUE_TRUE) {
+			return true;
+		}
+		if (event == Event.VALUE_FALSE) {
+			return false;
+		}
+		BtcJsonValueBinder.skip(parser, event);
+		return defaultValue;
+	}
+
+	private static void checkType(Event event, Event expected)
+			throws BtcException {
+		if (event != expected) {
+			LOG.severe(BTC4J_DAEMON_DATA_INVALID_TYPE + event);
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_INVALID_TYPE + event);
+		}
+	}
+}
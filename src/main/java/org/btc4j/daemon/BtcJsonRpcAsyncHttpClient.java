@@ -0,0 +1,175 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.json.JsonArray;
+import javax.json.JsonValue;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.btc4j.core.BtcException;
+
+public class BtcJsonRpcAsyncHttpClient implements Closeable {
+	private static final int BTC4J_DAEMON_MAX_CONNECTIONS = 20;
+	private static final String BTC4J_DAEMON_CLOSED = "client closed";
+	private final static Logger LOG = Logger
+			.getLogger(BtcJsonRpcAsyncHttpClient.class.getName());
+	private BtcJsonRpcHttpClient client;
+	private PoolingNHttpClientConnectionManager connectionManager;
+	private CloseableHttpAsyncClient asyncClient;
+	private BtcJsonRpcInFlight<BasicFuture<JsonValue>> inFlight = new BtcJsonRpcInFlight<BasicFuture<JsonValue>>();
+
+	public BtcJsonRpcAsyncHttpClient(BtcJsonRpcHttpClient client)
+			throws BtcException {
+		this(client, Runtime.getRuntime().availableProcessors());
+	}
+
+	public BtcJsonRpcAsyncHttpClient(BtcJsonRpcHttpClient client,
+			int ioThreads) throws BtcException {
+		this.client = client;
+		try {
+			IOReactorConfig reactorConfig = IOReactorConfig.custom()
+					.setIoThreadCount(Math.max(ioThreads, 1))
+					.setConnectTimeout(
+							client.getRequestConfig().getConnectTimeout())
+					.setSoTimeout(client.getRequestConfig().getSocketTimeout())
+					.build();
+			connectionManager = new PoolingNHttpClientConnectionManager(
+					new DefaultConnectingIOReactor(reactorConfig));
+		} catch (IOReactorException e) {
+			LOG.severe(String.valueOf(e));
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": " + e.getMessage(), e);
+		}
+		connectionManager.setMaxTotal(BTC4J_DAEMON_MAX_CONNECTIONS);
+		connectionManager.setDefaultMaxPerRoute(BTC4J_DAEMON_MAX_CONNECTIONS);
+		asyncClient = HttpAsyncClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultCredentialsProvider(client.getCredentialsProvider())
+				.setDefaultRequestConfig(client.getRequestConfig()).build();
+		asyncClient.start();
+	}
+
+	public void setMaxConnections(int maxTotal, int maxPerRoute) {
+		connectionManager.setMaxTotal(Math.max(maxTotal, 1));
+		connectionManager.setDefaultMaxPerRoute(Math.max(maxPerRoute, 1));
+	}
+
+	public int getMaxConnections() {
+		return connectionManager.getMaxTotal();
+	}
+
+	public Future<JsonValue> invokeAsync(String method) {
+		return invokeAsync(method, null, null);
+	}
+
+	public Future<JsonValue> invokeAsync(String method, JsonArray parameters) {
+		return invokeAsync(method, parameters, null);
+	}
+
+	public Future<JsonValue> invokeAsync(String method, JsonArray parameters,
+			FutureCallback<JsonValue> callback) {
+		final BasicFuture<JsonValue> future = new BasicFuture<JsonValue>(
+				callback);
+		final String id = client.nextId();
+		BtcJsonRpcRequestWriter request = new BtcJsonRpcRequestWriter()
+				.writeRequest(method, parameters, id);
+		if (LOG.isLoggable(Level.INFO)) {
+			LOG.info("request: " + request);
+		}
+		HttpPost post = client.jsonPost(request.toEntity());
+		inFlight.register(id, future);
+		asyncClient.execute(post, new FutureCallback<HttpResponse>() {
+			@Override
+			public void completed(HttpResponse response) {
+				if (inFlight.complete(id) == null) {
+					return;
+				}
+				try {
+					future.completed(client.jsonRead(response,
+							client.jsonReader(id, BtcJsonValueBinder.VALUE)));
+				} catch (BtcException e) {
+					future.failed(e);
+				} catch (IOException e) {
+					LOG.severe(String.valueOf(e));
+					future.failed(new BtcException(
+							BtcException.BTC4J_ERROR_CODE,
+							BtcException.BTC4J_ERROR_MESSAGE + ": "
+									+ e.getMessage(), e));
+				}
+			}
+
+			@Override
+			public void failed(Exception e) {
+				if (inFlight.complete(id) == null) {
+					return;
+				}
+				LOG.severe(String.valueOf(e));
+				future.failed(new BtcException(BtcException.BTC4J_ERROR_CODE,
+						BtcException.BTC4J_ERROR_MESSAGE + ": "
+								+ e.getMessage(), e));
+			}
+
+			@Override
+			public void cancelled() {
+				inFlight.complete(id);
+				future.cancel();
+			}
+		});
+		return future;
+	}
+
+	public int getInFlight() {
+		return inFlight.size();
+	}
+
+	@Override
+	public void close() {
+		try {
+			asyncClient.close();
+		} catch (IOException e) {
+			LOG.warning(String.valueOf(e));
+		}
+		for (BasicFuture<JsonValue> future : inFlight.drain()) {
+			future.failed(new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_CLOSED));
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.json.JsonArray;
+import javax.json.JsonValue;
+
+import org.btc4j.core.BtcException;
+
+public class BtcJsonRpcBatch {
+	private List<String> methods = new ArrayList<String>();
+	private List<JsonArray> parameters = new ArrayList<JsonArray>();
+	private List<JsonValue> results = new ArrayList<JsonValue>();
+	private List<BtcException> errors = new ArrayList<BtcException>();
+
+	public int add(String method) {
+		return add(method, null);
+	}
+
+	public int add(String method, JsonArray parameters) {
+		methods.add(method);
+		this.parameters.add(parameters);
+		results.add(null);
+		errors.add(null);
+		return methods.size() - 1;
+	}
+
+	public int size() {
+		return methods.size();
+	}
+
+	public String getMethod(int index) {
+		return methods.get(index);
+	}
+
+	public JsonArray getParameters(int index) {
+		return parameters.get(index);
+	}
+
+	public JsonValue get(int index) throws BtcException {
+		BtcException error = errors.get(index);
+		if (error != null) {
+			throw error;
+		}
+		return results.get(index);
+	}
+
+	public boolean isError(int index) {
+		return errors.get(index) != null;
+	}
+
+	public BtcException getError(int index) {
+		return errors.get(index);
+	}
+
+	void setResult(int index, JsonValue result) {
+		results.set(index, result);
+		errors.set(index, null);
+	}
+
+	void setError(int index, BtcException error) {
+		errors.set(index, error);
+	}
+}
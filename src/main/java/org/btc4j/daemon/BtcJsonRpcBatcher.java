@@ -0,0 +1,176 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+
+import javax.json.JsonArray;
+import javax.json.JsonValue;
+
+import org.btc4j.core.BtcException;
+
+public class BtcJsonRpcBatcher {
+	private static final String BTC4J_DAEMON_DATA_INTERRUPTED = "interrupted while waiting for batch";
+	private final static Logger LOG = Logger.getLogger(BtcJsonRpcBatcher.class
+			.getName());
+	private final Object lock = new Object();
+	private BtcJsonRpcHttpClient client;
+	private long window;
+	private int maxBatchSize;
+	private List<Call> pending = new ArrayList<Call>();
+
+	public BtcJsonRpcBatcher(BtcJsonRpcHttpClient client, long window,
+			int maxBatchSize) {
+		this.client = client;
+		this.window = Math.max(window, 0);
+		this.maxBatchSize = Math.max(maxBatchSize, 1);
+	}
+
+	public long getWindow() {
+		return window;
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public JsonValue invoke(String method, JsonArray parameters)
+			throws BtcException {
+		Call call = new Call(method, parameters);
+		List<Call> batch = null;
+		synchronized (lock) {
+			pending.add(call);
+			if (pending.size() >= maxBatchSize) {
+				batch = take();
+				lock.notifyAll();
+			} else if (pending.size() == 1) {
+				long deadline = System.currentTimeMillis() + window;
+				long remaining = window;
+				try {
+					while (!call.dispatched && (remaining > 0)) {
+						lock.wait(remaining);
+						remaining = deadline - System.currentTimeMillis();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				if (!call.dispatched) {
+					batch = take();
+				}
+			}
+		}
+		if (batch != null) {
+			dispatch(batch);
+		}
+		return call.get();
+	}
+
+	private List<Call> take() {
+		List<Call> batch = pending;
+		pending = new ArrayList<Call>();
+		for (Call call : batch) {
+			call.dispatched = true;
+		}
+		return batch;
+	}
+
+	private void dispatch(List<Call> calls) {
+		if (calls.size() == 1) {
+			Call call = calls.get(0);
+			try {
+				call.complete(client.invokeSingle(call.method, call.parameters),
+						null);
+			} catch (BtcException e) {
+				call.complete(null, e);
+			}
+			return;
+		}
+		BtcJsonRpcBatch batch = new BtcJsonRpcBatch();
+		for (Call call : calls) {
+			batch.add(call.method, call.parameters);
+		}
+		try {
+			client.invokeBatch(batch);
+			for (int i = 0; i < calls.size(); i++) {
+				if (batch.isError(i)) {
+					calls.get(i).complete(null, batch.getError(i));
+				} else {
+					calls.get(i).complete(batch.get(i), null);
+				}
+			}
+		} catch (BtcException e) {
+			LOG.warning(String.valueOf(e));
+			for (Call call : calls) {
+				call.complete(null, e);
+			}
+		} catch (RuntimeException e) {
+			LOG.severe(String.valueOf(e));
+			for (Call call : calls) {
+				call.complete(null, new BtcException(
+						BtcException.BTC4J_ERROR_CODE,
+						BtcException.BTC4J_ERROR_MESSAGE + ": "
+								+ e.getMessage(), e));
+			}
+		}
+	}
+
+	private static class Call {
+		private final CountDownLatch done = new CountDownLatch(1);
+		private final String method;
+		private final JsonArray parameters;
+		private boolean dispatched;
+		private JsonValue result;
+		private BtcException error;
+
+		private Call(String method, JsonArray parameters) {
+			this.method = method;
+			this.parameters = parameters;
+		}
+
+		private void complete(JsonValue result, BtcException error) {
+			this.result = result;
+			this.error = error;
+			done.countDown();
+		}
+
+		private JsonValue get() throws BtcException {
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+						BtcException.BTC4J_ERROR_MESSAGE + ": "
+								+ BTC4J_DAEMON_DATA_INTERRUPTED, e);
+			}
+			if (error != null) {
+				throw error;
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.Observable;
+import java.util.logging.Logger;
+
+import org.btc4j.core.BtcException;
+
+public class BtcJsonRpcCircuitBreaker extends Observable implements Runnable {
+	public static final int BTC4J_DAEMON_CIRCUIT_OPEN_CODE = -32079;
+	public static final String BTC4J_DAEMON_CIRCUIT_OPEN_MESSAGE = "btc4j circuit open";
+	private static final byte BTC4J_DAEMON_SUCCESS = 0;
+	private static final byte BTC4J_DAEMON_ERROR = 1;
+	private static final byte BTC4J_DAEMON_TIMEOUT = 2;
+	private final static Logger LOG = Logger
+			.getLogger(BtcJsonRpcCircuitBreaker.class.getName());
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final BtcJsonRpcHttpClient client;
+	private final byte[] outcomes;
+	private final int minCalls;
+	private final double errorRate;
+	private final double timeoutRate;
+	private final long openTime;
+	private final long maxOpenTime;
+	private State state = State.CLOSED;
+	private int calls;
+	private int errors;
+	private int timeouts;
+	private int next;
+	private long opened;
+	private Thread probeThread;
+	private boolean closed;
+
+	public BtcJsonRpcCircuitBreaker(BtcJsonRpcHttpClient client, int window,
+			int minCalls, double errorRate, double timeoutRate, long openTime,
+			long maxOpenTime) {
+		this.client = client;
+		this.outcomes = new byte[Math.max(window, 1)];
+		this.minCalls = Math.min(Math.max(minCalls, 1), outcomes.length);
+		this.errorRate = errorRate;
+		this.timeoutRate = timeoutRate;
+		this.openTime = Math.max(openTime, 1);
+		this.maxOpenTime = Math.max(maxOpenTime, this.openTime);
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	public synchronized double getErrorRate() {
+		return (calls == 0) ? 0 : (double) errors / calls;
+	}
+
+	public synchronized double getTimeoutRate() {
+		return (calls == 0) ? 0 : (double) timeouts / calls;
+	}
+
+	public synchronized long getOpened() {
+		return opened;
+	}
+
+	public int getWindow() {
+		return outcomes.length;
+	}
+
+	public int getMinCalls() {
+		return minCalls;
+	}
+
+	public long getOpenTime() {
+		return openTime;
+	}
+
+	public void check(String method) throws BtcException {
+		synchronized (this) {
+			if ((state == State.CLOSED)
+					|| (Thread.currentThread() == probeThread)) {
+				return;
+			}
+		}
+		LOG.warning(BTC4J_DAEMON_CIRCUIT_OPEN_MESSAGE + ": " + method);
+		throw new BtcException(BTC4J_DAEMON_CIRCUIT_OPEN_CODE,
+				BTC4J_DAEMON_CIRCUIT_OPEN_MESSAGE + ": " + method);
+	}
+
+	public void record(boolean error, boolean timeout) {
+		State previous;
+		synchronized (this) {
+			if ((state != State.CLOSED)
+					|| (Thread.currentThread() == probeThread)) {
+				return;
+			}
+			if (calls == outcomes.length) {
+				byte evicted = outcomes[next];
+				calls--;
+				if (evicted == BTC4J_DAEMON_ERROR) {
+					errors--;
+				} else if (evicted == BTC4J_DAEMON_TIMEOUT) {
+					timeouts--;
+				}
+			}
+			byte outcome = timeout ? BTC4J_DAEMON_TIMEOUT
+					: (error ? BTC4J_DAEMON_ERROR : BTC4J_DAEMON_SUCCESS);
+			outcomes[next] = outcome;
+			next = (next + 1) % outcomes.length;
+			calls++;
+			if (outcome == BTC4J_DAEMON_ERROR) {
+				errors++;
+			} else if (outcome == BTC4J_DAEMON_TIMEOUT) {
+				timeouts++;
+			}
+			if ((calls < minCalls)
+					|| ((errors + timeouts < calls * errorRate) && (timeouts < calls
+							* timeoutRate))) {
+				return;
+			}
+			LOG.severe("opening circuit: errors=" + errors + " timeouts="
+					+ timeouts + " calls=" + calls);
+			previous = state;
+			state = State.OPEN;
+			opened = System.currentTimeMillis();
+			if (!closed) {
+				probeThread = new Thread(this, "circuitBreakerProbe");
+				probeThread.setDaemon(true);
+				probeThread.start();
+			}
+		}
+		changed(previous, State.OPEN);
+	}
+
+	public void reset() {
+		State previous;
+		synchronized (this) {
+			previous = state;
+			state = State.CLOSED;
+			calls = 0;
+			errors = 0;
+			timeouts = 0;
+			next = 0;
+			if (probeThread != null) {
+				probeThread.interrupt();
+				probeThread = null;
+			}
+		}
+		changed(previous, State.CLOSED);
+	}
+
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			if (probeThread != null) {
+				probeThread.interrupt();
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		long delay = openTime;
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				Thread.sleep(delay);
+				if (!transition(State.OPEN, State.HALF_OPEN)) {
+					return;
+				}
+				try {
+					client.jsonProbe();
+					LOG.info("closing circuit");
+					synchronized (this) {
+						if (probeThread == Thread.currentThread()) {
+							probeThread = null;
+						}
+					}
+					reset();
+					return;
+				} catch (BtcException e) {
+					LOG.warning("circuit probe failed: " + e.getMessage());
+					if (!transition(State.HALF_OPEN, State.OPEN)) {
+						return;
+					}
+					delay = Math.min(delay * 2, maxOpenTime);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private boolean transition(State from, State to) {
+		synchronized (this) {
+			if ((state != from) || (probeThread != Thread.currentThread())) {
+				return false;
+			}
+			state = to;
+			if (to == State.OPEN) {
+				opened = System.currentTimeMillis();
+			}
+		}
+		changed(from, to);
+		return true;
+	}
+
+	private void changed(State previous, State current) {
+		if (previous != current) {
+			setChanged();
+			notifyObservers(current);
+		}
+	}
+}
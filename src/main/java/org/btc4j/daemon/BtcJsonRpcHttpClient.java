@@ -24,19 +24,41 @@
 
 package org.btc4j.daemon;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.StringReader;
 import java.math.BigDecimal;
 import java.net.URL;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.json.Json;
 import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonException;
 import javax.json.JsonNumber;
 import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
@@ -44,11 +66,21 @@ import javax.json.JsonReader;
 import javax.json.JsonString;
 import javax.json.JsonValue;
 import javax.json.JsonValue.ValueType;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParserFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.Consts;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
+import org.apache.http.auth.AUTH;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.ClientProtocolException;
@@ -56,11 +88,21 @@ import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLContexts;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.btc4j.core.BtcAccount;
 import org.btc4j.core.BtcAddedNode;
@@ -87,16 +129,50 @@ import org.btc4j.core.BtcOutputSet;
 import org.btc4j.core.BtcTransactionTemplate;
 import org.btc4j.core.BtcWork;
 
-public class BtcJsonRpcHttpClient {
+public class BtcJsonRpcHttpClient implements Closeable {
 	private static final String BTC4J_DAEMON_DATA_INVALID_ID = "invalid json id";
 	private static final String BTC4J_DAEMON_DATA_NULL_JSON = "json value is empty";
 	private static final String BTC4J_DAEMON_DATA_NULL_URL = "server URL is null";
+	private static final String BTC4J_DAEMON_DATA_NOT_READ_ONLY = "retries are only allowed for read-only methods, not ";
+	private static final String BTC4J_DAEMON_DATA_INTERRUPTED = "interrupted while waiting for ";
+	private static final String BTC4J_DAEMON_DATA_NOT_SHARED = "calls can only be shared for read-only methods, not ";
+	public static final int BTC4J_DAEMON_DEADLINE_CODE = -32080;
+	public static final String BTC4J_DAEMON_DEADLINE_MESSAGE = "btc4j deadline exceeded";
+	private static final long BTC4J_DAEMON_NO_DEADLINE = Long.MAX_VALUE;
+	private static final String BTC4J_DAEMON_PROBE_METHOD = "getblockcount";
+	private static final int BTC4J_DAEMON_CIRCUIT_WINDOW = 100;
+	private static final long BTC4J_DAEMON_CIRCUIT_MAX_OPEN_TIME = 60000;
+	private static final Set<String> BTC4J_DAEMON_READ_ONLY = new HashSet<String>(
+			Arrays.asList("createmultisig", "decoderawtransaction",
+					"getaccount", "getaddednodeinfo", "getaddressesbyaccount",
+					"getbalance", "getbestblockhash", "getblock",
+					"getblockcount", "getblockhash", "getconnectioncount",
+					"getdifficulty", "getgenerate", "gethashespersec",
+					"getinfo", "getmininginfo", "getpeerinfo",
+					"getrawmempool", "getrawtransaction",
+					"getreceivedbyaccount", "getreceivedbyaddress",
+					"gettransaction", "gettxout", "gettxoutsetinfo", "help",
+					"listaccounts", "listaddressgroupings", "listlockunspent",
+					"listreceivedbyaccount", "listreceivedbyaddress",
+					"listsinceblock", "listtransactions", "listunspent",
+					"validateaddress", "verifymessage"));
 	private static final String BTC4J_DAEMON_DATA_INVALID_TYPE = "unexpected return type ";
 	private static final String BTC4J_DAEMON_HTTP_HEADER = "Content-Type";
 	private static final String BTC4J_DAEMON_JSON_CONTENT_TYPE = "application/json";
 	private static final String BTC4J_DAEMON_JSONRPC_CONTENT_TYPE = "application/json-rpc";
 	private static final String BTC4J_DAEMON_CHARSET = "UTF-8";
+	private static final String BTC4J_DAEMON_BASIC_AUTH = "Basic ";
 	private static final int BTC4J_DAEMON_TIMEOUT = 60000;
+	private static final int BTC4J_DAEMON_MAX_CONNECTIONS = 20;
+	private static final int BTC4J_DAEMON_PIPELINE_ATTEMPTS = 2;
+	private static final String BTC4J_DAEMON_PIPELINED = "pipelined ";
+	private static final long BTC4J_DAEMON_IDLE_TIMEOUT = 30000;
+	private static final int BTC4J_DAEMON_MIN_CONNECTIONS = 2;
+	private static final int BTC4J_DAEMON_SESSION_CACHE_SIZE = 64;
+	private static final int BTC4J_DAEMON_SESSION_TIMEOUT = 86400;
+	private static final String BTC4J_DAEMON_HTTP = "http";
+	private static final String BTC4J_DAEMON_HTTPS = "https";
+	private static final String BTC4J_DAEMON_DATA_WARM_UP_INTERRUPTED = "interrupted while warming up connections";
 	private static final String BTCOBJ_ACCOUNT_ACCOUNT = "account";
 	private static final String BTCOBJ_ACCOUNT_AMOUNT = "amount";
 	private static final String BTCOBJ_ACCOUNT_CONFIRMATIONS = "confirmations";
@@ -234,9 +310,39 @@ public class BtcJsonRpcHttpClient {
 	private static final String JSONRPC_VERSION = "2.0";
 	private final static Logger LOG = Logger
 			.getLogger(BtcJsonRpcHttpClient.class.getName());
+	private static final JsonParserFactory PARSER_FACTORY = Json
+			.createParserFactory(null);
 	private CredentialsProvider credentialsProvider;
+	private String authorization;
+	private boolean preemptiveAuthentication = true;
 	private RequestConfig requestConfig;
 	private URL url;
+	private SSLContext sslContext;
+	private PoolingHttpClientConnectionManager connectionManager;
+	private volatile int minConnections = BTC4J_DAEMON_MIN_CONNECTIONS;
+	private CloseableHttpClient client;
+	private BtcIdleConnectionMonitor idleMonitor;
+	private Thread idleThread;
+	private volatile BtcJsonRpcBatcher batcher;
+	private volatile BtcJsonRpcLimiter limiter;
+	private volatile BtcJsonRpcCircuitBreaker breaker;
+	private volatile BtcJsonRpcScheduler scheduler;
+	private final Map<String, BtcJsonRpcScheduler.Priority> priorities = new ConcurrentHashMap<String, BtcJsonRpcScheduler.Priority>();
+	private final ThreadLocal<BtcJsonRpcScheduler.Priority> threadPriority = new ThreadLocal<BtcJsonRpcScheduler.Priority>();
+	private final Map<String, Long> timeouts = new ConcurrentHashMap<String, Long>();
+	private final ThreadLocal<Long> threadDeadline = new ThreadLocal<Long>();
+	private ScheduledExecutorService deadlines;
+	private final Map<String, BtcJsonRpcRetryPolicy> retryPolicies = new ConcurrentHashMap<String, BtcJsonRpcRetryPolicy>();
+	private ExecutorService hedges;
+	private ExecutorService pipelineWorkers;
+	private final Set<String> singleFlightMethods = Collections
+			.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private final BtcJsonRpcSingleFlight singleFlight = new BtcJsonRpcSingleFlight();
+	private final AtomicLong requestIds = new AtomicLong();
+	private final BtcJsonRpcInFlight<String> inFlight = new BtcJsonRpcInFlight<String>();
+	private final Deque<BtcJsonRpcPipeline> pipelines = new ArrayDeque<BtcJsonRpcPipeline>();
+	private volatile int pipelineConnections;
+	private volatile int pipelineWindow;
 
 	public BtcJsonRpcHttpClient(URL url, int timeout) {
 		this.url = url;
@@ -244,6 +350,31 @@ public class BtcJsonRpcHttpClient {
 				.setConnectionRequestTimeout(timeout)
 				.setConnectTimeout(timeout).setSocketTimeout(timeout)
 				.setStaleConnectionCheckEnabled(true).build();
+		credentialsProvider = new BasicCredentialsProvider();
+		sslContext = SSLContexts.createDefault();
+		setSessionCache(BTC4J_DAEMON_SESSION_CACHE_SIZE,
+				BTC4J_DAEMON_SESSION_TIMEOUT);
+		Registry<ConnectionSocketFactory> registry = RegistryBuilder
+				.<ConnectionSocketFactory> create()
+				.register(BTC4J_DAEMON_HTTP,
+						PlainConnectionSocketFactory.getSocketFactory())
+				.register(
+						BTC4J_DAEMON_HTTPS,
+						new SSLConnectionSocketFactory(sslContext,
+								SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER))
+				.build();
+		connectionManager = new PoolingHttpClientConnectionManager(registry);
+		connectionManager.setMaxTotal(BTC4J_DAEMON_MAX_CONNECTIONS);
+		connectionManager.setDefaultMaxPerRoute(BTC4J_DAEMON_MAX_CONNECTIONS);
+		client = HttpClients.custom().setConnectionManager(connectionManager)
+				.setDefaultCredentialsProvider(credentialsProvider)
+				.setDefaultRequestConfig(requestConfig)
+				.disableAutomaticRetries().build();
+		idleMonitor = new BtcIdleConnectionMonitor(connectionManager,
+				BTC4J_DAEMON_IDLE_TIMEOUT);
+		idleThread = new Thread(idleMonitor, "idleConnectionMonitor");
+		idleThread.setDaemon(true);
+		idleThread.start();
 	}
 
 	public BtcJsonRpcHttpClient(URL url) {
@@ -261,10 +392,378 @@ public class BtcJsonRpcHttpClient {
 	}
 
 	public void setCredentials(String account, String password) {
-		credentialsProvider = new BasicCredentialsProvider();
+		credentialsProvider.clear();
 		credentialsProvider.setCredentials(
 				new AuthScope(url.getHost(), url.getPort(), JSONRPC_REALM),
 				new UsernamePasswordCredentials(account, password));
+		authorization = BTC4J_DAEMON_BASIC_AUTH
+				+ new String(Base64.encodeBase64((account + ":" + password)
+						.getBytes(Consts.UTF_8)), Consts.ASCII);
+	}
+
+	public URL getUrl() {
+		return url;
+	}
+
+	CredentialsProvider getCredentialsProvider() {
+		return credentialsProvider;
+	}
+
+	RequestConfig getRequestConfig() {
+		return requestConfig;
+	}
+
+	public boolean isPreemptiveAuthentication() {
+		return preemptiveAuthentication;
+	}
+
+	public void setPreemptiveAuthentication(boolean preemptiveAuthentication) {
+		this.preemptiveAuthentication = preemptiveAuthentication;
+	}
+
+	public void setMaxConnections(int maxTotal, int maxPerRoute) {
+		connectionManager.setMaxTotal(Math.max(maxTotal, 1));
+		connectionManager.setDefaultMaxPerRoute(Math.max(maxPerRoute, 1));
+	}
+
+	public int getMaxConnections() {
+		return connectionManager.getMaxTotal();
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return connectionManager.getDefaultMaxPerRoute();
+	}
+
+	public void setMinConnections(int minConnections) {
+		this.minConnections = Math.max(minConnections, 0);
+	}
+
+	public int getMinConnections() {
+		return minConnections;
+	}
+
+	public void setSessionCache(int size, int timeout) {
+		SSLSessionContext sessions = sslContext.getClientSessionContext();
+		sessions.setSessionCacheSize(Math.max(size, 0));
+		sessions.setSessionTimeout(Math.max(timeout, 0));
+	}
+
+	public int getSessionCacheSize() {
+		return sslContext.getClientSessionContext().getSessionCacheSize();
+	}
+
+	public int getSessionTimeout() {
+		return sslContext.getClientSessionContext().getSessionTimeout();
+	}
+
+	public int warmUp() throws BtcException {
+		if (url == null) {
+			LOG.severe(BTC4J_DAEMON_DATA_NULL_URL);
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_NULL_URL);
+		}
+		int port = (url.getPort() < 0) ? url.getDefaultPort() : url.getPort();
+		HttpRoute route = new HttpRoute(new HttpHost(url.getHost(), port,
+				url.getProtocol()), null,
+				BTC4J_DAEMON_HTTPS.equalsIgnoreCase(url.getProtocol()));
+		HttpClientContext context = HttpClientContext.create();
+		int count = Math.min(minConnections, getMaxConnectionsPerRoute());
+		List<HttpClientConnection> leased = new ArrayList<HttpClientConnection>();
+		int opened = 0;
+		try {
+			for (int i = 0; i < count; i++) {
+				ConnectionRequest request = connectionManager
+						.requestConnection(route, null);
+				HttpClientConnection connection = request.get(
+						requestConfig.getConnectionRequestTimeout(),
+						TimeUnit.MILLISECONDS);
+				leased.add(connection);
+				if (!connection.isOpen()) {
+					connectionManager.connect(connection, route,
+							requestConfig.getConnectTimeout(), context);
+					connectionManager.routeComplete(connection, route, context);
+					connection.flush();
+					opened++;
+				}
+			}
+			LOG.fine("warmed up " + opened + " connections");
+			return opened;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOG.severe(BTC4J_DAEMON_DATA_WARM_UP_INTERRUPTED);
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_WARM_UP_INTERRUPTED, e);
+		} catch (ExecutionException | IOException | IllegalStateException e) {
+			LOG.severe(String.valueOf(e));
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": " + e.getMessage(), e);
+		} finally {
+			for (HttpClientConnection connection : leased) {
+				connectionManager.releaseConnection(connection, null,
+						getIdleTimeout(), TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	void startWarmUp() {
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					warmUp();
+				} catch (BtcException e) {
+					LOG.warning(String.valueOf(e));
+				}
+			}
+		}, "connectionWarmUp");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void setIdleTimeout(long idleTimeout) {
+		idleMonitor.setIdleTimeout(idleTimeout);
+	}
+
+	public long getIdleTimeout() {
+		return idleMonitor.getIdleTimeout();
+	}
+
+	public void setAutoBatching(long window, int maxBatchSize) {
+		batcher = new BtcJsonRpcBatcher(this, window, maxBatchSize);
+	}
+
+	public void disableAutoBatching() {
+		batcher = null;
+	}
+
+	public boolean isAutoBatching() {
+		return batcher != null;
+	}
+
+	public void setConcurrencyLimiter(BtcJsonRpcLimiter limiter) {
+		this.limiter = limiter;
+	}
+
+	public void setAdaptiveConcurrency(int initialLimit, int maxQueue,
+			long maxWait) {
+		limiter = new BtcJsonRpcLimiter(initialLimit, 1,
+				getMaxConnectionsPerRoute(), maxQueue, maxWait);
+	}
+
+	public void disableAdaptiveConcurrency() {
+		limiter = null;
+	}
+
+	public boolean isAdaptiveConcurrency() {
+		return limiter != null;
+	}
+
+	public BtcJsonRpcLimiter getConcurrencyLimiter() {
+		return limiter;
+	}
+
+	public int getConcurrencyLimit() {
+		BtcJsonRpcLimiter currentLimiter = limiter;
+		return (currentLimiter != null) ? currentLimiter.getLimit()
+				: getMaxConnectionsPerRoute();
+	}
+
+	public void setCircuitBreaker(BtcJsonRpcCircuitBreaker breaker) {
+		BtcJsonRpcCircuitBreaker previous = this.breaker;
+		this.breaker = breaker;
+		if ((previous != null) && (previous != breaker)) {
+			previous.close();
+		}
+	}
+
+	public BtcJsonRpcCircuitBreaker setCircuitBreaking(int minCalls,
+			double errorRate, double timeoutRate, long openTime) {
+		BtcJsonRpcCircuitBreaker circuitBreaker = new BtcJsonRpcCircuitBreaker(
+				this, BTC4J_DAEMON_CIRCUIT_WINDOW, minCalls, errorRate,
+				timeoutRate, openTime, BTC4J_DAEMON_CIRCUIT_MAX_OPEN_TIME);
+		setCircuitBreaker(circuitBreaker);
+		return circuitBreaker;
+	}
+
+	public void disableCircuitBreaking() {
+		setCircuitBreaker(null);
+	}
+
+	public boolean isCircuitBreaking() {
+		return breaker != null;
+	}
+
+	public BtcJsonRpcCircuitBreaker getCircuitBreaker() {
+		return breaker;
+	}
+
+	public void setScheduler(BtcJsonRpcScheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	public void enableScheduling() {
+		scheduler = new BtcJsonRpcScheduler();
+	}
+
+	public void disableScheduling() {
+		scheduler = null;
+	}
+
+	public boolean isScheduling() {
+		return scheduler != null;
+	}
+
+	public BtcJsonRpcScheduler getScheduler() {
+		return scheduler;
+	}
+
+	public void setPriority(String method, BtcJsonRpcScheduler.Priority priority) {
+		if (priority == null) {
+			priorities.remove(method);
+		} else {
+			priorities.put(method, priority);
+		}
+	}
+
+	public BtcJsonRpcScheduler.Priority getPriority(String method) {
+		BtcJsonRpcScheduler.Priority priority = threadPriority.get();
+		if (priority == null) {
+			priority = priorities.get(method);
+		}
+		return (priority == null) ? BtcJsonRpcScheduler.Priority.NORMAL
+				: priority;
+	}
+
+	public void setThreadPriority(BtcJsonRpcScheduler.Priority priority) {
+		if (priority == null) {
+			threadPriority.remove();
+		} else {
+			threadPriority.set(priority);
+		}
+	}
+
+	public BtcJsonRpcScheduler.Priority getThreadPriority() {
+		return threadPriority.get();
+	}
+
+	public void setTimeout(String method, long timeout) {
+		timeouts.put(method, Math.max(timeout, 1));
+	}
+
+	public void removeTimeout(String method) {
+		timeouts.remove(method);
+	}
+
+	public long getTimeout(String method) {
+		Long timeout = timeouts.get(method);
+		return (timeout != null) ? timeout : requestConfig.getSocketTimeout();
+	}
+
+	public void setThreadDeadline(long timeout) {
+		threadDeadline.set(System.nanoTime()
+				+ TimeUnit.MILLISECONDS.toNanos(Math.max(timeout, 0)));
+	}
+
+	public void clearThreadDeadline() {
+		threadDeadline.remove();
+	}
+
+	public long getThreadDeadline() {
+		Long deadline = threadDeadline.get();
+		if (deadline == null) {
+			return -1;
+		}
+		return Math.max(TimeUnit.NANOSECONDS.toMillis(deadline
+				- System.nanoTime()), 0);
+	}
+
+	public void setRetryPolicy(String method, BtcJsonRpcRetryPolicy policy) {
+		if (!BTC4J_DAEMON_READ_ONLY.contains(method)) {
+			LOG.warning(BTC4J_DAEMON_DATA_NOT_READ_ONLY + method);
+			return;
+		}
+		if (policy == null) {
+			retryPolicies.remove(method);
+		} else {
+			retryPolicies.put(method, policy);
+		}
+	}
+
+	public void removeRetryPolicy(String method) {
+		retryPolicies.remove(method);
+	}
+
+	public BtcJsonRpcRetryPolicy getRetryPolicy(String method) {
+		return retryPolicies.get(method);
+	}
+
+	public void addSingleFlight(String method) {
+		if (!BTC4J_DAEMON_READ_ONLY.contains(method)) {
+			LOG.warning(BTC4J_DAEMON_DATA_NOT_SHARED + method);
+			return;
+		}
+		singleFlightMethods.add(method);
+	}
+
+	public void removeSingleFlight(String method) {
+		singleFlightMethods.remove(method);
+	}
+
+	public boolean isSingleFlight(String method) {
+		return singleFlightMethods.contains(method);
+	}
+
+	public BtcJsonRpcSingleFlight getSingleFlight() {
+		return singleFlight;
+	}
+
+	public void setPipelining(int connections, int window) {
+		pipelineConnections = Math.max(connections, 1);
+		pipelineWindow = Math.max(window, 1);
+	}
+
+	public void disablePipelining() {
+		pipelineConnections = 0;
+		closePipelines();
+	}
+
+	public boolean isPipelining() {
+		return pipelineConnections > 0;
+	}
+
+	public int getPipelineConnections() {
+		return pipelineConnections;
+	}
+
+	public int getPipelineWindow() {
+		return pipelineWindow;
+	}
+
+	@Override
+	public void close() {
+		if (idleThread != null) {
+			idleThread.interrupt();
+		}
+		closePipelines();
+		disableCircuitBreaking();
+		synchronized (retryPolicies) {
+			if (hedges != null) {
+				hedges.shutdown();
+			}
+			if (pipelineWorkers != null) {
+				pipelineWorkers.shutdown();
+			}
+			if (deadlines != null) {
+				deadlines.shutdown();
+			}
+		}
+		try {
+			client.close();
+		} catch (IOException e) {
+			LOG.warning(String.valueOf(e));
+		}
 	}
 
 	public String jsonInvoke(String request) throws BtcException {
@@ -276,35 +775,20 @@ public class BtcJsonRpcHttpClient {
 					BtcException.BTC4J_ERROR_MESSAGE + ": "
 							+ BTC4J_DAEMON_DATA_NULL_URL);
 		}
-		try (CloseableHttpClient client = HttpClients.custom()
-				.setDefaultCredentialsProvider(credentialsProvider)
-				.setDefaultRequestConfig(requestConfig)
-				.disableAutomaticRetries().build();) {
-			HttpPost post = new HttpPost(url.toString());
-			post.addHeader(BTC4J_DAEMON_HTTP_HEADER,
-					BTC4J_DAEMON_JSONRPC_CONTENT_TYPE);
-			post.setEntity(new StringEntity(request, ContentType
-					.create(BTC4J_DAEMON_JSON_CONTENT_TYPE,
-							BTC4J_DAEMON_CHARSET)));
+		try {
+			HttpPost post = jsonPost(request);
 			ResponseHandler<String> handler = new ResponseHandler<String>() {
 				@Override
 				public String handleResponse(HttpResponse response)
 						throws ClientProtocolException, IOException {
-					StatusLine status = response.getStatusLine();
-					int code = status.getStatusCode();
-					String phrase = status.getReasonPhrase();
 					HttpEntity entity = response.getEntity();
 					String results = (entity != null) ? EntityUtils
 							.toString(entity) : "";
-					if ((code != HttpStatus.SC_OK)
-							&& (code != HttpStatus.SC_INTERNAL_SERVER_ERROR)) {
-						LOG.severe(code + " " + phrase);
-						throw new ClientProtocolException(code + " " + phrase);
-					}
+					jsonStatus(response);
 					return results;
 				}
 			};
-			reply = client.execute(post, handler);
+			reply = jsonExecute("", post, handler);
 		} catch (IOException e) {
 			LOG.severe(String.valueOf(e));
 			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
@@ -313,51 +797,988 @@ public class BtcJsonRpcHttpClient {
 		LOG.info("response: " + reply);	
 		return reply;
 	}
+
+	HttpPost jsonPost(String request) {
+		return jsonPost(new StringEntity(request, ContentType.create(
+				BTC4J_DAEMON_JSON_CONTENT_TYPE, BTC4J_DAEMON_CHARSET)));
+	}
+
+	HttpPost jsonPost(HttpEntity request) {
+		HttpPost post = new HttpPost(url.toString());
+		post.addHeader(BTC4J_DAEMON_HTTP_HEADER,
+				BTC4J_DAEMON_JSONRPC_CONTENT_TYPE);
+		if (preemptiveAuthentication && (authorization != null)) {
+			post.addHeader(AUTH.WWW_AUTH_RESP, authorization);
+		}
+		post.setEntity(request);
+		return post;
+	}
+
+	void jsonStatus(HttpResponse response) throws ClientProtocolException {
+		StatusLine status = response.getStatusLine();
+		int code = status.getStatusCode();
+		if ((code != HttpStatus.SC_OK)
+				&& (code != HttpStatus.SC_INTERNAL_SERVER_ERROR)) {
+			String phrase = status.getReasonPhrase();
+			LOG.severe(code + " " + phrase);
+			throw new ClientProtocolException(code + " " + phrase);
+		}
+	}
 	
-	public JsonValue invoke(String method) throws BtcException {
-		return invoke(method, null);
+	<T> T jsonInvoke(BtcJsonRpcRequestWriter request,
+			final BtcJsonBinder<T> reader)
+			throws BtcException {
+		return jsonExecute(request, new ResponseHandler<T>() {
+			@Override
+			public T handleResponse(HttpResponse response)
+					throws ClientProtocolException, IOException {
+				try {
+					return jsonRead(response, reader);
+				} catch (BtcException e) {
+					throw new BtcJsonRpcException(e);
+				}
+			}
+		});
 	}
 
-	public JsonValue invoke(String method, JsonArray parameters)
+	BtcJsonIndex jsonInvokeIndex(BtcJsonRpcRequestWriter request,
+			final String id)
 			throws BtcException {
-			JsonObjectBuilder builder = Json.createObjectBuilder();
-			builder.add(JSONRPC_REALM, JSONRPC_VERSION).add(JSONRPC_METHOD,
-					method);
-			if (parameters != null) {
-				builder.add(JSONRPC_PARAMS, parameters);
+		return jsonExecute(request, new ResponseHandler<BtcJsonIndex>() {
+			@Override
+			public BtcJsonIndex handleResponse(HttpResponse response)
+					throws ClientProtocolException, IOException {
+				jsonStatus(response);
+				HttpEntity entity = response.getEntity();
+				try {
+					if (entity == null) {
+						LOG.severe(BTC4J_DAEMON_DATA_NULL_JSON);
+						throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+								BtcException.BTC4J_ERROR_MESSAGE + ": "
+										+ BTC4J_DAEMON_DATA_NULL_JSON);
+					}
+					return jsonIndex(jsonBytes(entity), id);
+				} catch (BtcException e) {
+					throw new BtcJsonRpcException(e);
+				}
+			}
+		});
+	}
+
+	byte[] jsonBytes(HttpEntity entity) throws IOException {
+		long length = entity.getContentLength();
+		if ((length < 0) || (length > Integer.MAX_VALUE)) {
+			return EntityUtils.toByteArray(entity);
+		}
+		byte[] data = new byte[(int) length];
+		try (InputStream in = entity.getContent()) {
+			int read = 0;
+			while (read < data.length) {
+				int count = in.read(data, read, data.length - read);
+				if (count < 0) {
+					throw new EOFException();
+				}
+				read += count;
+			}
+		}
+		return data;
+	}
+
+	BtcJsonIndex jsonIndex(byte[] response, String id) throws BtcException {
+		BtcJsonIndex envelope = new BtcJsonIndex(response);
+		if (!(id.equals(envelope.string(JSONRPC_ID)))) {
+			LOG.severe(BTC4J_DAEMON_DATA_INVALID_ID);
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_INVALID_ID);
+		}
+		if (!envelope.isNull(JSONRPC_ERROR)) {
+			try {
+				jsonCheckError(envelope.bind(JSONRPC_ERROR,
+						BtcJsonValueBinder.VALUE));
+			} catch (IllegalStateException e) {
+				throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+						BtcException.BTC4J_ERROR_MESSAGE + ": "
+								+ e.getMessage(), e);
+			}
+		}
+		return envelope.object(JSONRPC_RESULT);
+	}
+
+	private <T> T jsonExecute(BtcJsonRpcRequestWriter request,
+			ResponseHandler<T> handler) throws BtcException {
+		if (LOG.isLoggable(Level.INFO)) {
+			LOG.info("request: " + request);
+		}
+		if (url == null) {
+			LOG.severe(BTC4J_DAEMON_DATA_NULL_URL);
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_NULL_URL);
+		}
+		try {
+			return jsonExecute(request.getMethod(),
+					jsonPost(request.toEntity()), handler);
+		} catch (BtcJsonRpcException e) {
+			throw e.getException();
+		} catch (IOException e) {
+			LOG.severe(String.valueOf(e));
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": " + e.getMessage(), e);
+		}
+	}
+
+	private <T> T jsonExecute(String method, HttpPost post,
+			ResponseHandler<T> handler) throws BtcException, IOException {
+		BtcJsonRpcCircuitBreaker currentBreaker = breaker;
+		BtcJsonRpcScheduler currentScheduler = scheduler;
+		BtcJsonRpcLimiter currentLimiter = limiter;
+		long deadline = getDeadline(method);
+		if ((currentBreaker == null) && (currentScheduler == null)
+				&& (currentLimiter == null)
+				&& (deadline == BTC4J_DAEMON_NO_DEADLINE)) {
+			return client.execute(post, handler);
+		}
+		if (currentBreaker != null) {
+			currentBreaker.check(method);
+		}
+		if (currentScheduler != null) {
+			currentScheduler.acquire(getPriority(method),
+					getConcurrencyLimit(), (deadline == BTC4J_DAEMON_NO_DEADLINE) ? requestConfig
+							.getConnectionRequestTimeout() : getRemaining(method,
+							deadline));
+		}
+		try {
+			return jsonExecute(method, post, handler, currentBreaker,
+					currentLimiter, deadline);
+		} finally {
+			if (currentScheduler != null) {
+				currentScheduler.release();
+			}
+		}
+	}
+
+	private <T> T jsonExecute(String method, HttpPost post,
+			ResponseHandler<T> handler,
+			BtcJsonRpcCircuitBreaker currentBreaker,
+			BtcJsonRpcLimiter currentLimiter, long deadline)
+			throws BtcException, IOException {
+		if (currentLimiter != null) {
+			if (deadline == BTC4J_DAEMON_NO_DEADLINE) {
+				currentLimiter.acquire();
 			} else {
-				builder.addNull(JSONRPC_PARAMS);
+				currentLimiter.acquire(getRemaining(method, deadline));
+			}
+		}
+		Future<?> abort = null;
+		long start = System.nanoTime();
+		boolean dropped = true;
+		boolean timeout = false;
+		boolean expired = false;
+		boolean sent = false;
+		try {
+			if (deadline != BTC4J_DAEMON_NO_DEADLINE) {
+				int remaining = (int) Math.min(getRemaining(method, deadline),
+						Integer.MAX_VALUE);
+				post.setConfig(RequestConfig.copy(requestConfig)
+						.setConnectionRequestTimeout(remaining)
+						.setConnectTimeout(remaining)
+						.setSocketTimeout(remaining).build());
+				abort = getDeadlines().schedule(new Abort(post), remaining,
+						TimeUnit.MILLISECONDS);
+			}
+			sent = true;
+			T result = client.execute(post, handler);
+			dropped = false;
+			return result;
+		} catch (BtcJsonRpcException e) {
+			dropped = (e.getException().getCode() == BtcException.BTC4J_ERROR_CODE);
+			if (dropped && isExpired(deadline, abort)) {
+				expired = true;
+				throw deadlineExceeded(method, e.getException());
+			}
+			throw e;
+		} catch (IOException e) {
+			if ((e instanceof InterruptedIOException) && (abort != null)) {
+				expired = true;
+				throw deadlineExceeded(method, e);
+			}
+			if (isExpired(deadline, abort)) {
+				expired = true;
+				throw deadlineExceeded(method, e);
+			}
+			timeout = e instanceof InterruptedIOException;
+			throw e;
+		} catch (IllegalStateException e) {
+			if (isExpired(deadline, abort)) {
+				expired = true;
+				throw deadlineExceeded(method, e);
+			}
+			throw e;
+		} finally {
+			if (abort != null) {
+				abort.cancel(false);
+			}
+			if (!sent) {
+				if (currentLimiter != null) {
+					currentLimiter.release();
+				}
+			} else {
+				if (currentLimiter != null) {
+					currentLimiter.release(method, System.nanoTime() - start,
+							dropped || expired);
+				}
+				if (currentBreaker != null) {
+					currentBreaker.record(dropped || expired, timeout
+							|| expired);
+				}
+			}
+		}
+	}
+
+	private long getDeadline(String method) {
+		long deadline = BTC4J_DAEMON_NO_DEADLINE;
+		Long timeout = timeouts.get(method);
+		if (timeout != null) {
+			deadline = System.nanoTime()
+					+ TimeUnit.MILLISECONDS.toNanos(timeout);
+		}
+		Long callDeadline = threadDeadline.get();
+		if (callDeadline != null) {
+			deadline = Math.min(deadline, callDeadline);
+		}
+		return deadline;
+	}
+
+	private boolean isExpired(long deadline, Future<?> abort) {
+		return (abort != null)
+				&& (abort.isDone() || (TimeUnit.NANOSECONDS.toMillis(deadline
+						- System.nanoTime()) <= 0));
+	}
+
+	private long getRemaining(String method, long deadline)
+			throws BtcException {
+		long remaining = TimeUnit.NANOSECONDS.toMillis(deadline
+				- System.nanoTime());
+		if (remaining <= 0) {
+			throw deadlineExceeded(method, null);
+		}
+		return remaining;
+	}
+
+	private BtcException deadlineExceeded(String method, Throwable cause) {
+		LOG.warning(BTC4J_DAEMON_DEADLINE_MESSAGE + ": " + method);
+		return new BtcException(BTC4J_DAEMON_DEADLINE_CODE,
+				BTC4J_DAEMON_DEADLINE_MESSAGE + ": " + method, cause);
+	}
+
+	private ScheduledExecutorService getDeadlines() {
+		synchronized (retryPolicies) {
+			if (deadlines == null) {
+				deadlines = Executors
+						.newSingleThreadScheduledExecutor(new ThreadFactory() {
+							@Override
+							public Thread newThread(Runnable runnable) {
+								Thread thread = new Thread(runnable,
+										"deadlineMonitor");
+								thread.setDaemon(true);
+								return thread;
+							}
+						});
 			}
-			String guid = UUID.randomUUID().toString();
-			builder.add(JSONRPC_ID, guid);
-			JsonObject request = builder.build();
-			JsonObject response = jsonObject(jsonValue(jsonInvoke(String.valueOf(request))));
-			if (response == null) {
+			return deadlines;
+		}
+	}
+
+	void jsonProbe() throws BtcException {
+		invokeOnce(BTC4J_DAEMON_PROBE_METHOD, null, BtcJsonValueBinder.VALUE);
+	}
+
+	<T> T jsonRead(HttpResponse response, BtcJsonBinder<T> reader)
+			throws BtcException, IOException {
+		jsonStatus(response);
+		HttpEntity entity = response.getEntity();
+		if (entity == null) {
+			LOG.severe(BTC4J_DAEMON_DATA_NULL_JSON);
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_NULL_JSON);
+		}
+		try (InputStream in = entity.getContent();
+				JsonParser parser = Json.createParser(in);) {
+			if (!parser.hasNext()) {
 				LOG.severe(BTC4J_DAEMON_DATA_NULL_JSON);
 				throw new BtcException(BtcException.BTC4J_ERROR_CODE,
 						BtcException.BTC4J_ERROR_MESSAGE + ": "
 								+ BTC4J_DAEMON_DATA_NULL_JSON);
 			}
-			if (!(guid.equals(jsonId(response)))) {
-				LOG.severe(BTC4J_DAEMON_DATA_INVALID_ID);
-				throw new BtcException(BtcException.BTC4J_ERROR_CODE,
-						BtcException.BTC4J_ERROR_MESSAGE + ": "
-								+ BTC4J_DAEMON_DATA_INVALID_ID);
+			return reader.bind(parser, parser.next());
+		} catch (JsonException e) {
+			LOG.severe(String.valueOf(e));
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": " + e.getMessage(), e);
+		}
+	}
+
+	<T> BtcJsonBinder<T> jsonReader(final String id,
+			final BtcJsonBinder<T> binder) {
+		return new BtcJsonBinder<T>() {
+			@Override
+			public T bind(JsonParser parser, Event event) throws BtcException {
+				if (event != Event.START_OBJECT) {
+					LOG.severe(BTC4J_DAEMON_DATA_NULL_JSON);
+					throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+							BtcException.BTC4J_ERROR_MESSAGE + ": "
+									+ BTC4J_DAEMON_DATA_NULL_JSON);
+				}
+				Envelope<T> envelope = jsonEnvelope(parser, binder);
+				if (!(id.equals(envelope.id))) {
+					LOG.severe(BTC4J_DAEMON_DATA_INVALID_ID);
+					throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+							BtcException.BTC4J_ERROR_MESSAGE + ": "
+									+ BTC4J_DAEMON_DATA_INVALID_ID);
+				}
+				jsonCheckError(envelope.error);
+				return envelope.result;
+			}
+		};
+	}
+
+	private <T> Envelope<T> jsonEnvelope(JsonParser parser,
+			BtcJsonBinder<T> binder) throws BtcException {
+		Envelope<T> envelope = new Envelope<T>();
+		Event event;
+		while ((event = parser.next()) != Event.END_OBJECT) {
+			String key = parser.getString();
+			event = parser.next();
+			if (JSONRPC_RESULT.equals(key)) {
+				envelope.result = binder.bind(parser, event);
+			} else if (JSONRPC_ERROR.equals(key)) {
+				envelope.error = BtcJsonValueBinder.VALUE.bind(parser, event);
+			} else if (JSONRPC_ID.equals(key)) {
+				envelope.id = ((event == Event.VALUE_STRING) || (event == Event.VALUE_NUMBER)) ? parser
+						.getString() : "";
+			} else {
+				BtcJsonValueBinder.skip(parser, event);
+			}
+		}
+		return envelope;
+	}
+
+	public int getInFlight() {
+		return inFlight.size();
+	}
+
+	String nextId() {
+		return Long.toString(requestIds.incrementAndGet());
+	}
+
+	public JsonValue invoke(String method) throws BtcException {
+		return invoke(method, null);
+	}
+
+	public JsonValue invoke(String method, JsonArray parameters)
+			throws BtcException {
+		if (singleFlightMethods.contains(method)) {
+			return invoke(method, parameters, BtcJsonValueBinder.VALUE);
+		}
+		BtcJsonRpcBatcher currentBatcher = batcher;
+		if (currentBatcher != null) {
+			return currentBatcher.invoke(method, parameters);
+		}
+		return invokeSingle(method, parameters);
+	}
+
+	JsonValue invokeSingle(String method, JsonArray parameters)
+			throws BtcException {
+		return invokeDirect(method, parameters, BtcJsonValueBinder.VALUE);
+	}
+
+	public <T> T invoke(final String method, final JsonArray parameters,
+			final BtcJsonBinder<T> binder) throws BtcException {
+		if (singleFlightMethods.contains(method)) {
+			JsonValue value = singleFlight.invoke(method + ':' + parameters,
+					getThreadDeadline(),
+					new BtcJsonRpcSingleFlight.Call<JsonValue>() {
+						@Override
+						public JsonValue call() throws BtcException {
+							return invokeShared(method, parameters,
+									BtcJsonValueBinder.VALUE);
+						}
+					});
+			if (binder == BtcJsonValueBinder.VALUE) {
+				@SuppressWarnings("unchecked")
+				T result = (T) value;
+				return result;
+			}
+			return jsonBind(value, binder);
+		}
+		return invokeShared(method, parameters, binder);
+	}
+
+	public <T> T invoke(String method, JsonArray parameters,
+			BtcJsonBinder<T> binder, BtcJsonRpcScheduler.Priority priority)
+			throws BtcException {
+		BtcJsonRpcScheduler.Priority previous = threadPriority.get();
+		setThreadPriority(priority);
+		try {
+			return invoke(method, parameters, binder);
+		} finally {
+			setThreadPriority(previous);
+		}
+	}
+
+	public <T> T invoke(String method, JsonArray parameters,
+			BtcJsonBinder<T> binder, long timeout) throws BtcException {
+		Long previous = threadDeadline.get();
+		long deadline = System.nanoTime()
+				+ TimeUnit.MILLISECONDS.toNanos(Math.max(timeout, 0));
+		threadDeadline.set((previous == null) ? deadline : Math.min(previous,
+				deadline));
+		try {
+			return invoke(method, parameters, binder);
+		} finally {
+			if (previous == null) {
+				threadDeadline.remove();
+			} else {
+				threadDeadline.set(previous);
+			}
+		}
+	}
+
+	private <T> T invokeShared(String method, JsonArray parameters,
+			BtcJsonBinder<T> binder) throws BtcException {
+		BtcJsonRpcBatcher currentBatcher = batcher;
+		if (currentBatcher != null) {
+			return jsonBind(currentBatcher.invoke(method, parameters), binder);
+		}
+		return invokeDirect(method, parameters, binder);
+	}
+
+	private <T> T invokeDirect(String method, JsonArray parameters,
+			BtcJsonBinder<T> binder) throws BtcException {
+		BtcJsonRpcRetryPolicy policy = retryPolicies.get(method);
+		if (policy != null) {
+			return invokeRetrying(method, parameters, binder, policy);
+		}
+		return invokeOnce(method, parameters, binder);
+	}
+
+	private <T> T invokeOnce(String method, JsonArray parameters,
+			BtcJsonBinder<T> binder) throws BtcException {
+		String id = nextId();
+		BtcJsonRpcRequestWriter request = BtcJsonRpcRequestWriter.get();
+		inFlight.register(id, method);
+		try {
+			return jsonInvoke(request.writeRequest(method, parameters, id),
+					jsonReader(id, binder));
+		} finally {
+			inFlight.complete(id);
+			request.release();
+		}
+	}
+
+	private <T> T invokeRetrying(String method, JsonArray parameters,
+			BtcJsonBinder<T> binder, BtcJsonRpcRetryPolicy policy)
+			throws BtcException {
+		for (int attempt = 1;; attempt++) {
+			long start = System.nanoTime();
+			try {
+				T result = policy.isHedging() ? invokeHedged(method,
+						parameters, binder, policy) : invokeOnce(method,
+						parameters, binder);
+				policy.record(System.nanoTime() - start);
+				return result;
+			} catch (BtcException e) {
+				if ((attempt >= policy.getMaxAttempts())
+						|| (e.getCode() != BtcException.BTC4J_ERROR_CODE)
+						|| !(e.getCause() instanceof IOException)) {
+					throw e;
+				}
+				long backoff = policy.getBackoff(attempt);
+				long remaining = getThreadDeadline();
+				if ((remaining >= 0) && (backoff >= remaining)) {
+					throw e;
+				}
+				LOG.warning(method + " attempt " + attempt + " failed, retrying in "
+						+ backoff + " ms: " + e.getMessage());
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+			}
+		}
+	}
+
+	private <T> T invokeHedged(final String method,
+			final JsonArray parameters, final BtcJsonBinder<T> binder,
+			BtcJsonRpcRetryPolicy policy) throws BtcException {
+		final Hedge<T> hedge = new Hedge<T>();
+		final BtcJsonRpcScheduler.Priority priority = threadPriority.get();
+		final Long deadline = threadDeadline.get();
+		Runnable attempt = new Runnable() {
+			@Override
+			public void run() {
+				setThreadPriority(priority);
+				if (deadline == null) {
+					threadDeadline.remove();
+				} else {
+					threadDeadline.set(deadline);
+				}
+				try {
+					hedge.succeed(invokeOnce(method, parameters, binder));
+				} catch (BtcException e) {
+					hedge.fail(e);
+				} catch (RuntimeException e) {
+					hedge.fail(new BtcException(BtcException.BTC4J_ERROR_CODE,
+							BtcException.BTC4J_ERROR_MESSAGE + ": "
+									+ e.getMessage(), e));
+				}
+			}
+		};
+		ExecutorService executor = getHedges();
+		try {
+			hedge.launch();
+			executor.execute(attempt);
+			long delay = policy.getHedgeDelayNanos();
+			if ((delay >= 0) && !hedge.await(delay)) {
+				LOG.fine(method + " hedged after " + delay + " ns");
+				hedge.launch();
+				executor.execute(attempt);
+			}
+			hedge.await(Long.MAX_VALUE);
+		} catch (InterruptedException e) {
+			LOG.severe(String.valueOf(e));
+			Thread.currentThread().interrupt();
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_INTERRUPTED + method, e);
+		}
+		return hedge.get();
+	}
+
+	private ExecutorService getHedges() {
+		synchronized (retryPolicies) {
+			if (hedges == null) {
+				hedges = Executors.newCachedThreadPool(new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "hedgedRequests");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+			}
+			return hedges;
+		}
+	}
+
+	private ExecutorService getPipelineWorkers() {
+		synchronized (retryPolicies) {
+			if (pipelineWorkers == null) {
+				pipelineWorkers = Executors
+						.newCachedThreadPool(new ThreadFactory() {
+							@Override
+							public Thread newThread(Runnable runnable) {
+								Thread thread = new Thread(runnable,
+										"pipelinedRequests");
+								thread.setDaemon(true);
+								return thread;
+							}
+						});
+			}
+			return pipelineWorkers;
+		}
+	}
+
+	public BtcJsonIndex invokeIndex(String method, JsonArray parameters)
+			throws BtcException {
+		String id = nextId();
+		BtcJsonRpcRequestWriter request = BtcJsonRpcRequestWriter.get();
+		inFlight.register(id, method);
+		try {
+			return jsonInvokeIndex(
+					request.writeRequest(method, parameters, id), id);
+		} finally {
+			inFlight.complete(id);
+			request.release();
+		}
+	}
+
+	public BtcJsonRpcBatch invokeBatch(final BtcJsonRpcBatch batch)
+			throws BtcException {
+		if ((batch == null) || (batch.size() == 0)) {
+			return batch;
+		}
+		BtcJsonRpcRequestWriter request = BtcJsonRpcRequestWriter.get();
+		final BtcJsonRpcInFlight<Integer> ids = new BtcJsonRpcInFlight<Integer>();
+		List<String> registered = new ArrayList<String>(batch.size());
+		request.writeByte('[');
+		for (int i = 0; i < batch.size(); i++) {
+			String id = nextId();
+			ids.register(id, i);
+			registered.add(id);
+			inFlight.register(id, batch.getMethod(i));
+			if (i > 0) {
+				request.writeByte(',');
+			}
+			request.writeRequest(batch.getMethod(i), batch.getParameters(i),
+					id);
+		}
+		request.writeByte(']');
+		try {
+			jsonInvoke(request, new BtcJsonBinder<Void>() {
+				@Override
+				public Void bind(JsonParser parser, Event event)
+						throws BtcException {
+					if (event == Event.START_OBJECT) {
+						jsonCheckError(jsonEnvelope(parser,
+								BtcJsonValueBinder.VALUE).error);
+					}
+					if (event != Event.START_ARRAY) {
+						LOG.severe(BTC4J_DAEMON_DATA_NULL_JSON);
+						throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+								BtcException.BTC4J_ERROR_MESSAGE + ": "
+										+ BTC4J_DAEMON_DATA_NULL_JSON);
+					}
+					while ((event = parser.next()) != Event.END_ARRAY) {
+						if (event != Event.START_OBJECT) {
+							LOG.warning(BTC4J_DAEMON_DATA_INVALID_TYPE + event);
+							BtcJsonValueBinder.skip(parser, event);
+							continue;
+						}
+						Envelope<JsonValue> envelope = jsonEnvelope(parser,
+								BtcJsonValueBinder.VALUE);
+						Integer index = ids.complete(envelope.id);
+						if (index == null) {
+							LOG.warning(BTC4J_DAEMON_DATA_INVALID_ID + " "
+									+ envelope.id);
+							continue;
+						}
+						try {
+							jsonCheckError(envelope.error);
+							batch.setResult(index, envelope.result);
+						} catch (BtcException e) {
+							batch.setError(index, e);
+						}
+					}
+					return null;
+				}
+			});
+		} finally {
+			for (String id : registered) {
+				inFlight.complete(id);
+			}
+			request.release();
+		}
+		for (Integer index : ids.drain()) {
+			LOG.severe(BTC4J_DAEMON_DATA_INVALID_ID);
+			batch.setError(index, new BtcException(
+					BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_INVALID_ID));
+		}
+		return batch;
+	}
+
+	public BtcJsonRpcBatch invokePipelined(final BtcJsonRpcBatch batch)
+			throws BtcException {
+		if ((batch == null) || (batch.size() == 0)) {
+			return batch;
+		}
+		if (url == null) {
+			LOG.severe(BTC4J_DAEMON_DATA_NULL_URL);
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_NULL_URL);
+		}
+		String method = batch.getMethod(0);
+		final BtcJsonRpcScheduler.Priority priority = getPriority(method);
+		final long deadline = getDeadline(method);
+		int connections = Math.min(Math.max(pipelineConnections, 1),
+				batch.size());
+		int chunk = (batch.size() + connections - 1) / connections;
+		List<Future<?>> workers = new ArrayList<Future<?>>();
+		Runnable first = null;
+		for (int start = 0; start < batch.size(); start += chunk) {
+			final List<Integer> indexes = new ArrayList<Integer>();
+			for (int i = start; i < Math.min(start + chunk, batch.size()); i++) {
+				indexes.add(i);
+			}
+			Runnable pipelined = new Runnable() {
+				@Override
+				public void run() {
+					invokePipelined(batch, indexes, priority, deadline);
+				}
+			};
+			if (first == null) {
+				first = pipelined;
+			} else {
+				workers.add(getPipelineWorkers().submit(pipelined));
+			}
+		}
+		first.run();
+		try {
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+		} catch (InterruptedException e) {
+			LOG.severe(String.valueOf(e));
+			Thread.currentThread().interrupt();
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": " + e.getMessage(), e);
+		} catch (ExecutionException e) {
+			LOG.severe(String.valueOf(e.getCause()));
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ e.getCause().getMessage(), e.getCause());
+		}
+		return batch;
+	}
+
+	private void invokePipelined(BtcJsonRpcBatch batch, List<Integer> indexes,
+			BtcJsonRpcScheduler.Priority priority, long deadline) {
+		String method = batch.getMethod(indexes.get(0));
+		BtcJsonRpcCircuitBreaker currentBreaker = breaker;
+		BtcJsonRpcScheduler currentScheduler = scheduler;
+		BtcJsonRpcLimiter currentLimiter = limiter;
+		try {
+			if (currentBreaker != null) {
+				currentBreaker.check(method);
+			}
+			if (currentScheduler != null) {
+				currentScheduler.acquire(priority, getConcurrencyLimit(),
+						(deadline == BTC4J_DAEMON_NO_DEADLINE) ? requestConfig
+								.getConnectionRequestTimeout() : getRemaining(
+								method, deadline));
+			}
+			try {
+				if (currentLimiter != null) {
+					if (deadline == BTC4J_DAEMON_NO_DEADLINE) {
+						currentLimiter.acquire();
+					} else {
+						currentLimiter.acquire(getRemaining(method, deadline));
+					}
+				}
+				long start = System.nanoTime();
+				boolean dropped = true;
+				try {
+					dropped = invokePipelined(batch, indexes, method,
+							currentBreaker, deadline);
+				} finally {
+					if (currentLimiter != null) {
+						currentLimiter.release(BTC4J_DAEMON_PIPELINED + method,
+								(System.nanoTime() - start) / indexes.size(),
+								dropped);
+					}
+				}
+			} finally {
+				if (currentScheduler != null) {
+					currentScheduler.release();
+				}
+			}
+		} catch (BtcException e) {
+			for (Integer index : indexes) {
+				batch.setError(index, e);
+			}
+		}
+	}
+
+	private boolean invokePipelined(BtcJsonRpcBatch batch,
+			List<Integer> indexes, String method,
+			BtcJsonRpcCircuitBreaker currentBreaker, long deadline) {
+		int window = Math.max(pipelineWindow, 1);
+		int failures = 0;
+		boolean dropped = false;
+		String error = "";
+		try {
+			while (!indexes.isEmpty()
+					&& (failures < BTC4J_DAEMON_PIPELINE_ATTEMPTS)) {
+				if ((failures > 0) && (currentBreaker != null)) {
+					currentBreaker.check(method);
+				}
+				int timeout = (deadline == BTC4J_DAEMON_NO_DEADLINE) ? requestConfig
+						.getSocketTimeout() : (int) Math.min(
+						getRemaining(method, deadline), Integer.MAX_VALUE);
+				BtcJsonRpcPipeline pipeline = null;
+				boolean failed = true;
+				boolean expired = false;
+				try {
+					pipeline = takePipeline();
+					pipeline.setTimeout(timeout);
+					int pending = indexes.size();
+					indexes = pipeline.invoke(this, batch, indexes, window);
+					failures = (indexes.size() < pending) ? 0 : failures + 1;
+					error = pipeline.getError();
+					failed = error.length() > 0;
+					expired = pipeline.isTimeout();
+				} catch (IOException e) {
+					LOG.warning(String.valueOf(e));
+					failures++;
+					error = BtcJsonRpcPipeline.describe(e);
+				} finally {
+					if (pipeline != null) {
+						releasePipeline(pipeline);
+					}
+					dropped = dropped || failed;
+					if (currentBreaker != null) {
+						currentBreaker.record(failed, expired);
+					}
+				}
+			}
+			if (!indexes.isEmpty() && (deadline != BTC4J_DAEMON_NO_DEADLINE)) {
+				getRemaining(method, deadline);
 			}
-			JsonValue error = response.get(JSONRPC_ERROR);
-			if ((error != null)
-					&& (error.getValueType().equals(ValueType.OBJECT))) {
-				JsonObject errorObj = (JsonObject) error;
-				int code = errorObj.getInt(JSONRPC_CODE);
-				String message = errorObj.getString(JSONRPC_MESSAGE);
-				JsonObject data = (JsonObject) errorObj.get(JSONRPC_DATA);
-				String dataStr = (data == null) ? "" : (" " + String
-						.valueOf(data));
-				LOG.severe("error: " + code + " " + message + dataStr);
-				throw new BtcException(code, message + dataStr);
+		} catch (BtcException e) {
+			for (Integer index : indexes) {
+				batch.setError(index, e);
 			}
-			return response.get(JSONRPC_RESULT);
-		
+			return true;
+		}
+		for (Integer index : indexes) {
+			LOG.severe(error);
+			jsonPipelinedError(batch, index, error);
+		}
+		return dropped;
+	}
+
+	private BtcJsonRpcPipeline takePipeline() throws IOException {
+		synchronized (pipelines) {
+			BtcJsonRpcPipeline pipeline;
+			while ((pipeline = pipelines.poll()) != null) {
+				if (!pipeline.isStale()) {
+					return pipeline;
+				}
+				pipeline.close();
+			}
+		}
+		return new BtcJsonRpcPipeline(url, authorization,
+				sslContext.getSocketFactory(),
+				requestConfig.getConnectTimeout(),
+				requestConfig.getSocketTimeout());
+	}
+
+	private void releasePipeline(BtcJsonRpcPipeline pipeline) {
+		synchronized (pipelines) {
+			if (pipeline.isOpen() && (pipelines.size() < pipelineConnections)) {
+				pipelines.push(pipeline);
+				return;
+			}
+		}
+		pipeline.close();
+	}
+
+	private void closePipelines() {
+		synchronized (pipelines) {
+			BtcJsonRpcPipeline pipeline;
+			while ((pipeline = pipelines.poll()) != null) {
+				pipeline.close();
+			}
+		}
+	}
+
+	void jsonPipelined(byte[] response, String id, int index,
+			BtcJsonRpcBatch batch) {
+		try (JsonParser parser = PARSER_FACTORY
+				.createParser(new ByteArrayInputStream(response))) {
+			if (!parser.hasNext() || (parser.next() != Event.START_OBJECT)) {
+				LOG.severe(BTC4J_DAEMON_DATA_NULL_JSON);
+				jsonPipelinedError(batch, index, BTC4J_DAEMON_DATA_NULL_JSON);
+				return;
+			}
+			Envelope<JsonValue> envelope = jsonEnvelope(parser,
+					BtcJsonValueBinder.VALUE);
+			if (!id.equals(envelope.id)) {
+				LOG.severe(BTC4J_DAEMON_DATA_INVALID_ID);
+				jsonPipelinedError(batch, index, BTC4J_DAEMON_DATA_INVALID_ID);
+				return;
+			}
+			jsonCheckError(envelope.error);
+			batch.setResult(index, envelope.result);
+		} catch (BtcException e) {
+			batch.setError(index, e);
+		} catch (JsonException e) {
+			LOG.severe(String.valueOf(e));
+			jsonPipelinedError(batch, index, e.getMessage());
+		}
+	}
+
+	void jsonPipelinedError(BtcJsonRpcBatch batch, int index, String message) {
+		batch.setError(index, new BtcException(BtcException.BTC4J_ERROR_CODE,
+				BtcException.BTC4J_ERROR_MESSAGE + ": " + message));
+	}
+
+	public <T> T jsonBind(JsonValue value, BtcJsonBinder<T> binder)
+			throws BtcException {
+		JsonArray array = Json.createArrayBuilder()
+				.add((value == null) ? JsonValue.NULL : value).build();
+		try (JsonParser parser = PARSER_FACTORY.createParser(array)) {
+			parser.next();
+			return binder.bind(parser, parser.next());
+		} catch (JsonException e) {
+			LOG.severe(String.valueOf(e));
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": " + e.getMessage(), e);
+		}
+	}
+
+	public JsonObject jsonRequest(String method, JsonArray parameters,
+			String id) {
+		JsonObjectBuilder builder = Json.createObjectBuilder();
+		builder.add(JSONRPC_REALM, JSONRPC_VERSION).add(JSONRPC_METHOD,
+				method);
+		if (parameters != null) {
+			builder.add(JSONRPC_PARAMS, parameters);
+		} else {
+			builder.addNull(JSONRPC_PARAMS);
+		}
+		builder.add(JSONRPC_ID, id);
+		return builder.build();
+	}
+
+	public JsonValue jsonResponse(JsonValue value, String id)
+			throws BtcException {
+		JsonObject response = jsonObject(value);
+		if (response == null) {
+			LOG.severe(BTC4J_DAEMON_DATA_NULL_JSON);
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_NULL_JSON);
+		}
+		if (!(id.equals(jsonId(response)))) {
+			LOG.severe(BTC4J_DAEMON_DATA_INVALID_ID);
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_INVALID_ID);
+		}
+		return jsonResult(response);
+	}
+
+	public JsonValue jsonResult(JsonObject response) throws BtcException {
+		if (response == null) {
+			LOG.severe(BTC4J_DAEMON_DATA_NULL_JSON);
+			throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_NULL_JSON);
+		}
+		jsonCheckError(response.get(JSONRPC_ERROR));
+		return response.get(JSONRPC_RESULT);
+	}
+
+	public void jsonCheckError(JsonValue error) throws BtcException {
+		if ((error != null)
+				&& (error.getValueType().equals(ValueType.OBJECT))) {
+			JsonObject errorObj = (JsonObject) error;
+			int code = errorObj.getInt(JSONRPC_CODE);
+			String message = errorObj.getString(JSONRPC_MESSAGE);
+			JsonObject data = (JsonObject) errorObj.get(JSONRPC_DATA);
+			String dataStr = (data == null) ? "" : (" " + String
+					.valueOf(data));
+			LOG.severe("error: " + code + " " + message + dataStr);
+			throw new BtcException(code, message + dataStr);
+		}
 	}
 
 	public BtcAccount jsonAccount(JsonValue value) throws BtcException {
@@ -868,13 +2289,13 @@ public class BtcJsonRpcHttpClient {
 	}
 
 	public long jsonLong(JsonObject object, String key) throws BtcException {
-		JsonNumber number = object.getJsonNumber(key);
+		JsonNumber number = jsonNumber(object, key);
 		return (number == null) ? 0 : number.longValueExact();
 	}
 
 	public long jsonLong(JsonObject object, String key, long defaultValue)
 			throws BtcException {
-		JsonNumber number = object.getJsonNumber(key);
+		JsonNumber number = jsonNumber(object, key);
 		return (number == null) ? defaultValue : number.longValueExact();
 	}
 
@@ -892,9 +2313,17 @@ public class BtcJsonRpcHttpClient {
 	
 	public BigDecimal jsonDouble(JsonObject object, String key)
 			throws BtcException {
-		JsonNumber number = object.getJsonNumber(key);
+		JsonNumber number = jsonNumber(object, key);
 		return (number == null) ? BigDecimal.ZERO : number.bigDecimalValue();
 	}
+
+	private JsonNumber jsonNumber(JsonObject object, String key) {
+		JsonValue value = object.get(key);
+		if ((value == null) || (value.getValueType() == JsonValue.ValueType.NULL)) {
+			return null;
+		}
+		return object.getJsonNumber(key);
+	}
 	
 	public BigDecimal jsonDouble(JsonValue value) throws BtcException {
 		if ((value == null) || (value.getValueType() == JsonValue.ValueType.NULL)) {
@@ -960,4 +2389,95 @@ public class BtcJsonRpcHttpClient {
 		builder.add(JSONRPC_ERROR, error).add(JSONRPC_ID, id);
 		return String.valueOf(builder.build());
 	}
-}
\ No newline at end of file
+
+	private static class Abort implements Runnable {
+		private final HttpPost post;
+
+		private Abort(HttpPost post) {
+			this.post = post;
+		}
+
+		@Override
+		public void run() {
+			post.abort();
+		}
+	}
+
+	private static class Hedge<T> {
+		private int launched;
+		private int failed;
+		private boolean done;
+		private boolean succeeded;
+		private T result;
+		private BtcException error;
+
+		private synchronized void launch() {
+			launched++;
+		}
+
+		private synchronized void succeed(T result) {
+			if (!done) {
+				done = true;
+				succeeded = true;
+				this.result = result;
+				notifyAll();
+			}
+		}
+
+		private synchronized void fail(BtcException error) {
+			failed++;
+			if (this.error == null) {
+				this.error = error;
+			}
+			if (!done && (failed >= launched)) {
+				done = true;
+				notifyAll();
+			}
+		}
+
+		private synchronized boolean await(long timeout)
+				throws InterruptedException {
+			long deadline = System.nanoTime() + timeout;
+			while (!done) {
+				long remaining = (timeout == Long.MAX_VALUE) ? Long.MAX_VALUE
+						: deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				if (remaining == Long.MAX_VALUE) {
+					wait();
+				} else {
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+			}
+			return true;
+		}
+
+		private synchronized T get() throws BtcException {
+			if (!succeeded) {
+				throw error;
+			}
+			return result;
+		}
+	}
+
+	private static class Envelope<T> {
+		private String id = "";
+		private JsonValue error;
+		private T result;
+	}
+
+	private static class BtcJsonRpcException extends ClientProtocolException {
+		private static final long serialVersionUID = 1L;
+		private BtcException exception;
+
+		private BtcJsonRpcException(BtcException exception) {
+			super(exception.getMessage(), exception);
+			this.exception = exception;
+		}
+
+		private BtcException getException() {
+			return exception;
+		}
+	}
+}
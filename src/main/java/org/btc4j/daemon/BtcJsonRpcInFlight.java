@@ -0,0 +1,69 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class BtcJsonRpcInFlight<T> {
+	private Map<String, T> calls = new ConcurrentHashMap<String, T>();
+
+	public void register(String id, T call) {
+		calls.put(id, call);
+	}
+
+	public T get(String id) {
+		return calls.get(id);
+	}
+
+	public T complete(String id) {
+		return (id == null) ? null : calls.remove(id);
+	}
+
+	public boolean isEmpty() {
+		return calls.isEmpty();
+	}
+
+	public int size() {
+		return calls.size();
+	}
+
+	public List<String> getIds() {
+		return new ArrayList<String>(calls.keySet());
+	}
+
+	public List<T> drain() {
+		List<T> drained = new ArrayList<T>();
+		for (String id : getIds()) {
+			T call = calls.remove(id);
+			if (call != null) {
+				drained.add(call);
+			}
+		}
+		return drained;
+	}
+}
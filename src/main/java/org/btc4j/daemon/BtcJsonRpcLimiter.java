@@ -0,0 +1,172 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.btc4j.core.BtcException;
+
+public class BtcJsonRpcLimiter {
+	public static final int BTC4J_DAEMON_OVERLOADED_CODE = -32078;
+	public static final String BTC4J_DAEMON_OVERLOADED_MESSAGE = "btc4j overloaded";
+	private static final String BTC4J_DAEMON_DATA_QUEUE_FULL = "too many calls waiting for the daemon";
+	private static final String BTC4J_DAEMON_DATA_QUEUE_TIMEOUT = "timed out waiting for the daemon";
+	private static final String BTC4J_DAEMON_DATA_INTERRUPTED = "interrupted while waiting for the daemon";
+	private static final double BTC4J_DAEMON_BACKOFF = 0.75;
+	private static final double BTC4J_DAEMON_TOLERANCE = 2.0;
+	private static final double BTC4J_DAEMON_LATENCY_DRIFT = 0.01;
+	private final static Logger LOG = Logger.getLogger(BtcJsonRpcLimiter.class
+			.getName());
+	private final int minLimit;
+	private final int maxLimit;
+	private final int maxQueue;
+	private final long maxWait;
+	private final Map<String, Double> minLatencies = new HashMap<String, Double>();
+	private double limit;
+	private int inFlight;
+	private int queued;
+	private long shed;
+	private long holdUntil;
+
+	public BtcJsonRpcLimiter(int initialLimit, int minLimit, int maxLimit,
+			int maxQueue, long maxWait) {
+		this.minLimit = Math.max(minLimit, 1);
+		this.maxLimit = Math.max(maxLimit, this.minLimit);
+		this.maxQueue = Math.max(maxQueue, 0);
+		this.maxWait = Math.max(maxWait, 0);
+		this.limit = Math.min(Math.max(initialLimit, this.minLimit),
+				this.maxLimit);
+	}
+
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	public int getMinLimit() {
+		return minLimit;
+	}
+
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	public int getMaxQueue() {
+		return maxQueue;
+	}
+
+	public long getMaxWait() {
+		return maxWait;
+	}
+
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	public synchronized int getQueued() {
+		return queued;
+	}
+
+	public synchronized long getShed() {
+		return shed;
+	}
+
+	public void acquire() throws BtcException {
+		acquire(maxWait);
+	}
+
+	public synchronized void acquire(long maxWait) throws BtcException {
+		if (inFlight < (int) limit) {
+			inFlight++;
+			return;
+		}
+		if (queued >= maxQueue) {
+			throw overloaded(BTC4J_DAEMON_DATA_QUEUE_FULL);
+		}
+		queued++;
+		try {
+			long deadline = System.nanoTime()
+					+ TimeUnit.MILLISECONDS.toNanos(Math.min(maxWait,
+							this.maxWait));
+			while (inFlight >= (int) limit) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					throw overloaded(BTC4J_DAEMON_DATA_QUEUE_TIMEOUT);
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+			inFlight++;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw overloaded(BTC4J_DAEMON_DATA_INTERRUPTED);
+		} finally {
+			queued--;
+		}
+	}
+
+	public synchronized void release() {
+		inFlight--;
+		notifyAll();
+	}
+
+	public synchronized void release(String method, long latency,
+			boolean dropped) {
+		inFlight--;
+		long now = System.nanoTime();
+		if (dropped) {
+			decrease(now, latency);
+		} else {
+			Double minLatency = minLatencies.get(method);
+			if ((minLatency == null) || (latency < minLatency)) {
+				minLatencies.put(method, (double) latency);
+			} else if (latency > (minLatency * BTC4J_DAEMON_TOLERANCE)) {
+				minLatencies.put(method, minLatency
+						+ ((latency - minLatency) * BTC4J_DAEMON_LATENCY_DRIFT));
+				decrease(now, latency);
+			} else if ((inFlight + 1) >= ((int) limit / 2)) {
+				limit = Math.min(maxLimit, limit + (1.0 / limit));
+			}
+		}
+		notifyAll();
+	}
+
+	private void decrease(long now, long latency) {
+		if (now < holdUntil) {
+			return;
+		}
+		limit = Math.max(minLimit, limit * BTC4J_DAEMON_BACKOFF);
+		holdUntil = now + latency;
+		LOG.fine("concurrency limit " + (int) limit);
+	}
+
+	private BtcException overloaded(String reason) {
+		shed++;
+		LOG.warning(reason);
+		return new BtcException(BTC4J_DAEMON_OVERLOADED_CODE,
+				BTC4J_DAEMON_OVERLOADED_MESSAGE + ": " + reason);
+	}
+}
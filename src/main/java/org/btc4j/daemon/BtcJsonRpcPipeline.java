@@ -0,0 +1,336 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.json.JsonArray;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+
+public class BtcJsonRpcPipeline implements Closeable {
+	private static final Charset BTC4J_DAEMON_ASCII = Charset
+			.forName("US-ASCII");
+	private static final String BTC4J_DAEMON_HTTPS = "https";
+	private static final String BTC4J_DAEMON_CRLF = "\r\n";
+	private static final String BTC4J_DAEMON_CONTENT_LENGTH = "content-length";
+	private static final String BTC4J_DAEMON_TRANSFER_ENCODING = "transfer-encoding";
+	private static final String BTC4J_DAEMON_CONNECTION = "connection";
+	private static final String BTC4J_DAEMON_CHUNKED = "chunked";
+	private static final String BTC4J_DAEMON_CLOSE = "close";
+	private static final int BTC4J_DAEMON_STATUS_OK = 200;
+	private static final int BTC4J_DAEMON_STATUS_ERROR = 500;
+	private static final int BTC4J_DAEMON_STATUS_UNAUTHORIZED = 401;
+	private final static Logger LOG = Logger
+			.getLogger(BtcJsonRpcPipeline.class.getName());
+	private Socket socket;
+	private InputStream in;
+	private OutputStream out;
+	private byte[] head;
+	private BtcJsonRpcRequestWriter writer = new BtcJsonRpcRequestWriter();
+	private boolean open;
+	private String error = "";
+	private boolean timeout;
+
+	public BtcJsonRpcPipeline(URL url, String authorization,
+			SSLSocketFactory sslSocketFactory, int connectTimeout,
+			int socketTimeout) throws IOException {
+		int port = (url.getPort() < 0) ? url.getDefaultPort() : url.getPort();
+		socket = new Socket();
+		socket.setTcpNoDelay(true);
+		socket.setKeepAlive(true);
+		socket.connect(new InetSocketAddress(url.getHost(), port),
+				connectTimeout);
+		if (BTC4J_DAEMON_HTTPS.equalsIgnoreCase(url.getProtocol())) {
+			SSLSocket sslSocket = (SSLSocket) sslSocketFactory.createSocket(
+					socket, url.getHost(), port, true);
+			socket = sslSocket;
+			try {
+				SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER
+						.verify(url.getHost(), sslSocket);
+			} catch (IOException e) {
+				socket.close();
+				throw e;
+			}
+		}
+		socket.setSoTimeout(socketTimeout);
+		in = new BufferedInputStream(socket.getInputStream());
+		out = new BufferedOutputStream(socket.getOutputStream());
+		String path = (url.getFile().length() == 0) ? "/" : url.getFile();
+		StringBuilder builder = new StringBuilder();
+		builder.append("POST ").append(path).append(" HTTP/1.1")
+				.append(BTC4J_DAEMON_CRLF);
+		builder.append("Host: ").append(url.getHost()).append(':')
+				.append(port).append(BTC4J_DAEMON_CRLF);
+		builder.append("Content-Type: application/json-rpc").append(
+				BTC4J_DAEMON_CRLF);
+		if (authorization != null) {
+			builder.append("Authorization: ").append(authorization)
+					.append(BTC4J_DAEMON_CRLF);
+		}
+		builder.append("Content-Length: ");
+		head = builder.toString().getBytes(BTC4J_DAEMON_ASCII);
+		open = true;
+	}
+
+	public boolean isOpen() {
+		return open;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public boolean isTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(int timeout) throws IOException {
+		socket.setSoTimeout(timeout);
+	}
+
+	public boolean isStale() {
+		if (!open) {
+			return true;
+		}
+		try {
+			if (in.available() > 0) {
+				return true;
+			}
+			int timeout = socket.getSoTimeout();
+			socket.setSoTimeout(1);
+			try {
+				in.mark(1);
+				if (in.read() < 0) {
+					return true;
+				}
+				in.reset();
+				return true;
+			} catch (SocketTimeoutException e) {
+				return false;
+			} finally {
+				socket.setSoTimeout(timeout);
+			}
+		} catch (IOException e) {
+			return true;
+		}
+	}
+
+	public List<Integer> invoke(BtcJsonRpcHttpClient client,
+			BtcJsonRpcBatch batch, List<Integer> indexes, int window) {
+		Deque<String> outstanding = new ArrayDeque<String>();
+		BtcJsonRpcInFlight<Integer> ids = new BtcJsonRpcInFlight<Integer>();
+		List<Integer> remaining = new ArrayList<Integer>();
+		Integer current = null;
+		int next = 0;
+		error = "";
+		timeout = false;
+		try {
+			while ((next < indexes.size()) || !outstanding.isEmpty()) {
+				while ((next < indexes.size())
+						&& (outstanding.size() < window)) {
+					int index = indexes.get(next++);
+					String id = client.nextId();
+					ids.register(id, index);
+					outstanding.add(id);
+					send(batch.getMethod(index), batch.getParameters(index), id);
+				}
+				out.flush();
+				String id = outstanding.poll();
+				current = ids.complete(id);
+				boolean close = receive(client, batch, current, id);
+				current = null;
+				if (close) {
+					close();
+					break;
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			LOG.warning(String.valueOf(e));
+			error = describe(e);
+			timeout = e instanceof InterruptedIOException;
+			close();
+			if (current != null) {
+				remaining.add(current);
+			}
+		}
+		for (String id : outstanding) {
+			remaining.add(ids.complete(id));
+		}
+		remaining.addAll(indexes.subList(next, indexes.size()));
+		return remaining;
+	}
+
+	static String describe(Exception e) {
+		return (e.getMessage() == null) ? e.getClass().getName() : e
+				.getMessage();
+	}
+
+	@Override
+	public void close() {
+		open = false;
+		try {
+			socket.close();
+		} catch (IOException e) {
+			LOG.warning(String.valueOf(e));
+		}
+	}
+
+	private void send(String method, JsonArray parameters,
+			String id) throws IOException {
+		writer.release();
+		writer.writeRequest(method, parameters, id);
+		out.write(head);
+		out.write(Integer.toString(writer.size()).getBytes(BTC4J_DAEMON_ASCII));
+		out.write('\r');
+		out.write('\n');
+		out.write('\r');
+		out.write('\n');
+		writer.writeTo(out);
+	}
+
+	private boolean receive(BtcJsonRpcHttpClient client,
+			BtcJsonRpcBatch batch, int index, String id) throws IOException {
+		String status = readLine();
+		String[] parts = status.split(" ", 3);
+		if ((parts.length < 2) || !parts[0].startsWith("HTTP/")) {
+			throw new IOException("invalid status line " + status);
+		}
+		int code = Integer.parseInt(parts[1]);
+		long length = -1;
+		boolean chunked = false;
+		boolean close = parts[0].equals("HTTP/1.0");
+		String line;
+		while ((line = readLine()).length() > 0) {
+			int colon = line.indexOf(':');
+			if (colon < 0) {
+				continue;
+			}
+			String name = line.substring(0, colon).trim().toLowerCase();
+			String value = line.substring(colon + 1).trim();
+			if (BTC4J_DAEMON_CONTENT_LENGTH.equals(name)) {
+				length = Long.parseLong(value);
+			} else if (BTC4J_DAEMON_TRANSFER_ENCODING.equals(name)) {
+				chunked = value.toLowerCase().contains(BTC4J_DAEMON_CHUNKED);
+			} else if (BTC4J_DAEMON_CONNECTION.equals(name)) {
+				close = close || BTC4J_DAEMON_CLOSE.equalsIgnoreCase(value);
+			}
+		}
+		byte[] body;
+		if (chunked) {
+			body = readChunked();
+		} else if (length >= 0) {
+			body = readFully((int) length);
+		} else {
+			body = readToEnd();
+			close = true;
+		}
+		if (code == BTC4J_DAEMON_STATUS_UNAUTHORIZED) {
+			throw new IOException(status);
+		}
+		if ((code != BTC4J_DAEMON_STATUS_OK)
+				&& (code != BTC4J_DAEMON_STATUS_ERROR)) {
+			LOG.severe(status);
+			client.jsonPipelinedError(batch, index, status);
+		} else {
+			client.jsonPipelined(body, id, index, batch);
+		}
+		return close;
+	}
+
+	private String readLine() throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+		int b;
+		while ((b = in.read()) != '\n') {
+			if (b < 0) {
+				throw new EOFException();
+			}
+			if (b != '\r') {
+				line.write(b);
+			}
+		}
+		return new String(line.toByteArray(), BTC4J_DAEMON_ASCII);
+	}
+
+	private byte[] readFully(int length) throws IOException {
+		byte[] data = new byte[length];
+		int read = 0;
+		while (read < length) {
+			int count = in.read(data, read, length - read);
+			if (count < 0) {
+				throw new EOFException();
+			}
+			read += count;
+		}
+		return data;
+	}
+
+	private byte[] readChunked() throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		while (true) {
+			String size = readLine();
+			int extension = size.indexOf(';');
+			int length = Integer.parseInt(((extension < 0) ? size : size
+					.substring(0, extension)).trim(), 16);
+			if (length == 0) {
+				while (readLine().length() > 0) {
+				}
+				return body.toByteArray();
+			}
+			body.write(readFully(length));
+			readLine();
+		}
+	}
+
+	private byte[] readToEnd() throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int count;
+		while ((count = in.read(buffer)) >= 0) {
+			body.write(buffer, 0, count);
+		}
+		return body.toByteArray();
+	}
+}
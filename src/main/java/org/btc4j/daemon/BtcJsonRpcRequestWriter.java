@@ -0,0 +1,255 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+public class BtcJsonRpcRequestWriter extends ByteArrayOutputStream {
+	private static final Charset BTC4J_DAEMON_UTF8 = Charset.forName("UTF-8");
+	private static final ContentType BTC4J_DAEMON_CONTENT_TYPE = ContentType
+			.create("application/json", BTC4J_DAEMON_UTF8);
+	private static final int BTC4J_DAEMON_BUFFER_SIZE = 512;
+	private static final int BTC4J_DAEMON_MAX_BUFFER_SIZE = 64 * 1024;
+	private static final int BTC4J_DAEMON_MAX_FRAGMENTS = 256;
+	private static final String BTC4J_DAEMON_BATCH_METHOD = "batch";
+	private static final byte[] BTC4J_DAEMON_METHOD_FRAGMENT = ascii("{\"jsonrpc\":\"2.0\",\"method\":");
+	private static final byte[] BTC4J_DAEMON_PARAMS_FRAGMENT = ascii(",\"params\":");
+	private static final byte[] BTC4J_DAEMON_ID_FRAGMENT = ascii(",\"id\":");
+	private static final byte[] BTC4J_DAEMON_NULL = ascii("null");
+	private static final byte[] BTC4J_DAEMON_TRUE = ascii("true");
+	private static final byte[] BTC4J_DAEMON_FALSE = ascii("false");
+	private static final byte[] BTC4J_DAEMON_HEX = ascii("0123456789abcdef");
+	private static final Map<String, byte[]> FRAGMENTS = new ConcurrentHashMap<String, byte[]>();
+	private static final ThreadLocal<BtcJsonRpcRequestWriter> WRITERS = new ThreadLocal<BtcJsonRpcRequestWriter>() {
+		@Override
+		protected BtcJsonRpcRequestWriter initialValue() {
+			return new BtcJsonRpcRequestWriter();
+		}
+	};
+
+	private String method;
+
+	public BtcJsonRpcRequestWriter() {
+		super(BTC4J_DAEMON_BUFFER_SIZE);
+	}
+
+	public static BtcJsonRpcRequestWriter get() {
+		BtcJsonRpcRequestWriter writer = WRITERS.get();
+		writer.reset();
+		return writer;
+	}
+
+	public void release() {
+		reset();
+		if (buf.length > BTC4J_DAEMON_MAX_BUFFER_SIZE) {
+			buf = new byte[BTC4J_DAEMON_BUFFER_SIZE];
+		}
+	}
+
+	public static byte[] fragment(String method) {
+		byte[] fragment = FRAGMENTS.get(method);
+		if (fragment == null) {
+			BtcJsonRpcRequestWriter writer = new BtcJsonRpcRequestWriter();
+			writer.writeFragment(BTC4J_DAEMON_METHOD_FRAGMENT);
+			writer.writeString(method);
+			writer.writeFragment(BTC4J_DAEMON_PARAMS_FRAGMENT);
+			fragment = writer.toByteArray();
+			if (FRAGMENTS.size() < BTC4J_DAEMON_MAX_FRAGMENTS) {
+				FRAGMENTS.put(method, fragment);
+			}
+		}
+		return fragment;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	@Override
+	public synchronized void reset() {
+		super.reset();
+		method = null;
+	}
+
+	public BtcJsonRpcRequestWriter writeRequest(String method,
+			JsonArray parameters, String id) {
+		if (this.method == null) {
+			this.method = (count == 0) ? method : BTC4J_DAEMON_BATCH_METHOD;
+		}
+		writeFragment(fragment(method));
+		writeValue(parameters);
+		writeFragment(BTC4J_DAEMON_ID_FRAGMENT);
+		writeString(id);
+		writeByte('}');
+		return this;
+	}
+
+	public void writeValue(JsonValue value) {
+		if (value == null) {
+			writeFragment(BTC4J_DAEMON_NULL);
+			return;
+		}
+		switch (value.getValueType()) {
+		case ARRAY:
+			writeByte('[');
+			boolean first = true;
+			for (JsonValue element : (JsonArray) value) {
+				if (!first) {
+					writeByte(',');
+				}
+				writeValue(element);
+				first = false;
+			}
+			writeByte(']');
+			break;
+		case OBJECT:
+			writeByte('{');
+			first = true;
+			for (Map.Entry<String, JsonValue> entry : ((JsonObject) value)
+					.entrySet()) {
+				if (!first) {
+					writeByte(',');
+				}
+				writeString(entry.getKey());
+				writeByte(':');
+				writeValue(entry.getValue());
+				first = false;
+			}
+			writeByte('}');
+			break;
+		case STRING:
+			writeString(((JsonString) value).getString());
+			break;
+		case NUMBER:
+			writeAscii(((JsonNumber) value).toString());
+			break;
+		case TRUE:
+			writeFragment(BTC4J_DAEMON_TRUE);
+			break;
+		case FALSE:
+			writeFragment(BTC4J_DAEMON_FALSE);
+			break;
+		default:
+			writeFragment(BTC4J_DAEMON_NULL);
+			break;
+		}
+	}
+
+	public void writeString(String value) {
+		int length = value.length();
+		ensure(length + 2);
+		buf[count++] = '"';
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if ((c >= 0x20) && (c < 0x80) && (c != '"') && (c != '\\')) {
+				ensure(1);
+				buf[count++] = (byte) c;
+			} else if ((c == '"') || (c == '\\')) {
+				ensure(2);
+				buf[count++] = '\\';
+				buf[count++] = (byte) c;
+			} else if (c < 0x20) {
+				ensure(6);
+				buf[count++] = '\\';
+				buf[count++] = 'u';
+				buf[count++] = '0';
+				buf[count++] = '0';
+				buf[count++] = BTC4J_DAEMON_HEX[c >> 4];
+				buf[count++] = BTC4J_DAEMON_HEX[c & 0xf];
+			} else if (c < 0x800) {
+				ensure(2);
+				buf[count++] = (byte) (0xc0 | (c >> 6));
+				buf[count++] = (byte) (0x80 | (c & 0x3f));
+			} else if (Character.isHighSurrogate(c) && (i + 1 < length)
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				ensure(4);
+				buf[count++] = (byte) (0xf0 | (codePoint >> 18));
+				buf[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+				buf[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+				buf[count++] = (byte) (0x80 | (codePoint & 0x3f));
+			} else {
+				ensure(3);
+				buf[count++] = (byte) (0xe0 | (c >> 12));
+				buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				buf[count++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+		ensure(1);
+		buf[count++] = '"';
+	}
+
+	public void writeByte(int b) {
+		ensure(1);
+		buf[count++] = (byte) b;
+	}
+
+	public void writeFragment(byte[] bytes) {
+		ensure(bytes.length);
+		System.arraycopy(bytes, 0, buf, count, bytes.length);
+		count += bytes.length;
+	}
+
+	public ByteArrayEntity toEntity() {
+		return new ByteArrayEntity(buf, 0, count, BTC4J_DAEMON_CONTENT_TYPE);
+	}
+
+	@Override
+	public String toString() {
+		return new String(buf, 0, count, BTC4J_DAEMON_UTF8);
+	}
+
+	private void writeAscii(String value) {
+		int length = value.length();
+		ensure(length);
+		for (int i = 0; i < length; i++) {
+			buf[count++] = (byte) value.charAt(i);
+		}
+	}
+
+	private void ensure(int length) {
+		if (count + length > buf.length) {
+			byte[] grown = new byte[Math.max(buf.length * 2, count + length)];
+			System.arraycopy(buf, 0, grown, 0, count);
+			buf = grown;
+		}
+	}
+
+	private static byte[] ascii(String value) {
+		return value.getBytes(Charset.forName("US-ASCII"));
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class BtcJsonRpcRetryPolicy {
+	private static final int BTC4J_DAEMON_LATENCY_SAMPLES = 128;
+	private static final int BTC4J_DAEMON_MIN_LATENCY_SAMPLES = 20;
+	private static final int BTC4J_DAEMON_HEDGE_REFRESH = 16;
+	private static final double BTC4J_DAEMON_HEDGE_PERCENTILE = 0.95;
+	private final Random random = new Random();
+	private final int maxAttempts;
+	private final long backoff;
+	private final long maxBackoff;
+	private final boolean hedging;
+	private final long minHedgeDelay;
+	private final long[] latencies = new long[BTC4J_DAEMON_LATENCY_SAMPLES];
+	private int samples;
+	private long hedgeDelay = -1;
+
+	public BtcJsonRpcRetryPolicy(int maxAttempts, long backoff,
+			long maxBackoff, boolean hedging, long minHedgeDelay) {
+		this.maxAttempts = Math.max(maxAttempts, 1);
+		this.backoff = Math.max(backoff, 0);
+		this.maxBackoff = Math.max(maxBackoff, this.backoff);
+		this.hedging = hedging;
+		this.minHedgeDelay = Math.max(minHedgeDelay, 0);
+	}
+
+	public BtcJsonRpcRetryPolicy(int maxAttempts, long backoff, long maxBackoff) {
+		this(maxAttempts, backoff, maxBackoff, false, 0);
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public long getBackoff() {
+		return backoff;
+	}
+
+	public long getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	public boolean isHedging() {
+		return hedging;
+	}
+
+	public long getMinHedgeDelay() {
+		return minHedgeDelay;
+	}
+
+	public long getBackoff(int attempt) {
+		long ceiling = backoff << Math.min(Math.max(attempt - 1, 0), 20);
+		ceiling = Math.min(Math.max(ceiling, backoff), maxBackoff);
+		synchronized (random) {
+			return (ceiling > 0) ? (long) (random.nextDouble() * ceiling) : 0;
+		}
+	}
+
+	public synchronized void record(long latency) {
+		latencies[samples % BTC4J_DAEMON_LATENCY_SAMPLES] = latency;
+		samples++;
+		if ((samples >= BTC4J_DAEMON_MIN_LATENCY_SAMPLES)
+				&& ((samples % BTC4J_DAEMON_HEDGE_REFRESH) == 0)) {
+			long[] sorted = Arrays.copyOf(latencies,
+					Math.min(samples, BTC4J_DAEMON_LATENCY_SAMPLES));
+			Arrays.sort(sorted);
+			hedgeDelay = Math.max(
+					TimeUnit.MILLISECONDS.toNanos(minHedgeDelay),
+					sorted[(int) ((sorted.length - 1) * BTC4J_DAEMON_HEDGE_PERCENTILE)]);
+		}
+	}
+
+	public synchronized long getHedgeDelayNanos() {
+		return hedgeDelay;
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.btc4j.core.BtcException;
+
+public class BtcJsonRpcScheduler {
+	private static final String BTC4J_DAEMON_DATA_SCHEDULER_TIMEOUT = "timed out waiting for a transport slot";
+	private static final String BTC4J_DAEMON_DATA_INTERRUPTED = "interrupted while waiting for a transport slot";
+	private static final int[] BTC4J_DAEMON_WEIGHTS = { 8, 3, 1 };
+	private static final double BTC4J_DAEMON_BULK_SHARE = 0.75;
+	private final static Logger LOG = Logger.getLogger(BtcJsonRpcScheduler.class
+			.getName());
+
+	public enum Priority {
+		INTERACTIVE, NORMAL, BULK
+	}
+
+	private final int[] weights;
+	private final double bulkShare;
+	private final double[] passes = new double[Priority.values().length];
+	private final long[] admitted = new long[Priority.values().length];
+	private final List<Deque<Ticket>> queues = new ArrayList<Deque<Ticket>>();
+	private int inFlight;
+	private int capacity = 1;
+	private double virtualTime;
+
+	public BtcJsonRpcScheduler(int[] weights, double bulkShare) {
+		this.weights = new int[Priority.values().length];
+		for (int i = 0; i < this.weights.length; i++) {
+			this.weights[i] = ((weights != null) && (i < weights.length)) ? Math
+					.max(weights[i], 1) : 1;
+			queues.add(new ArrayDeque<Ticket>());
+		}
+		this.bulkShare = Math.min(Math.max(bulkShare, 0), 1);
+	}
+
+	public BtcJsonRpcScheduler() {
+		this(BTC4J_DAEMON_WEIGHTS, BTC4J_DAEMON_BULK_SHARE);
+	}
+
+	public int getWeight(Priority priority) {
+		return weights[priority.ordinal()];
+	}
+
+	public double getBulkShare() {
+		return bulkShare;
+	}
+
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	public synchronized int getQueued(Priority priority) {
+		return queues.get(priority.ordinal()).size();
+	}
+
+	public synchronized long getAdmitted(Priority priority) {
+		return admitted[priority.ordinal()];
+	}
+
+	public void acquire(Priority priority, int capacity, long maxWait)
+			throws BtcException {
+		Ticket ticket;
+		synchronized (this) {
+			this.capacity = Math.max(capacity, 1);
+			int index = priority.ordinal();
+			if (queues.get(index).isEmpty() && (inFlight < limit(priority))) {
+				admit(index);
+				return;
+			}
+			if (queues.get(index).isEmpty()) {
+				passes[index] = Math.max(passes[index], virtualTime);
+			}
+			ticket = new Ticket();
+			queues.get(index).add(ticket);
+		}
+		try {
+			if (!ticket.await(maxWait)) {
+				synchronized (this) {
+					if (!ticket.admitted) {
+						queues.get(priority.ordinal()).remove(ticket);
+						LOG.warning(BTC4J_DAEMON_DATA_SCHEDULER_TIMEOUT);
+						throw new BtcException(
+								BtcJsonRpcLimiter.BTC4J_DAEMON_OVERLOADED_CODE,
+								BtcJsonRpcLimiter.BTC4J_DAEMON_OVERLOADED_MESSAGE
+										+ ": " + BTC4J_DAEMON_DATA_SCHEDULER_TIMEOUT);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			synchronized (this) {
+				if (ticket.admitted) {
+					release();
+				} else {
+					queues.get(priority.ordinal()).remove(ticket);
+				}
+			}
+			throw new BtcException(
+					BtcJsonRpcLimiter.BTC4J_DAEMON_OVERLOADED_CODE,
+					BtcJsonRpcLimiter.BTC4J_DAEMON_OVERLOADED_MESSAGE + ": "
+							+ BTC4J_DAEMON_DATA_INTERRUPTED, e);
+		}
+	}
+
+	public synchronized void release() {
+		inFlight--;
+		dispatch();
+	}
+
+	private void dispatch() {
+		while (true) {
+			int next = -1;
+			for (Priority priority : Priority.values()) {
+				int index = priority.ordinal();
+				if (!queues.get(index).isEmpty() && (inFlight < limit(priority))
+						&& ((next < 0) || (passes[index] < passes[next]))) {
+					next = index;
+				}
+			}
+			if (next < 0) {
+				return;
+			}
+			Ticket ticket = queues.get(next).poll();
+			admit(next);
+			ticket.admit();
+		}
+	}
+
+	private void admit(int index) {
+		inFlight++;
+		admitted[index]++;
+		virtualTime = passes[index];
+		passes[index] += 1.0 / weights[index];
+	}
+
+	private int limit(Priority priority) {
+		if (priority == Priority.BULK) {
+			return Math.max((int) (capacity * bulkShare), 1);
+		}
+		return capacity;
+	}
+
+	private static class Ticket {
+		private boolean admitted;
+
+		private synchronized void admit() {
+			admitted = true;
+			notifyAll();
+		}
+
+		private synchronized boolean await(long maxWait)
+				throws InterruptedException {
+			long deadline = System.nanoTime()
+					+ TimeUnit.MILLISECONDS.toNanos(maxWait);
+			while (!admitted) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import org.btc4j.core.BtcException;
+
+public class BtcJsonRpcSingleFlight {
+	private static final String BTC4J_DAEMON_DATA_INTERRUPTED = "interrupted while waiting for shared call";
+	private final static Logger LOG = Logger
+			.getLogger(BtcJsonRpcSingleFlight.class.getName());
+	private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<String, Flight>();
+	private final AtomicLong leaders = new AtomicLong();
+	private final AtomicLong followers = new AtomicLong();
+
+	public interface Call<T> {
+		T call() throws BtcException;
+	}
+
+	public int getInFlight() {
+		return flights.size();
+	}
+
+	public long getCalls() {
+		return leaders.get();
+	}
+
+	public long getCoalesced() {
+		return followers.get();
+	}
+
+	public <T> T invoke(String key, Call<T> call) throws BtcException {
+		return invoke(key, -1, call);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T invoke(String key, long timeout, Call<T> call)
+			throws BtcException {
+		Flight flight = new Flight();
+		Flight current = flights.putIfAbsent(key, flight);
+		if (current != null) {
+			followers.incrementAndGet();
+			return (T) current.await(key, timeout);
+		}
+		leaders.incrementAndGet();
+		T result = null;
+		BtcException error = null;
+		try {
+			result = call.call();
+			return result;
+		} catch (BtcException e) {
+			error = e;
+			throw e;
+		} catch (RuntimeException e) {
+			error = new BtcException(BtcException.BTC4J_ERROR_CODE,
+					BtcException.BTC4J_ERROR_MESSAGE + ": " + e.getMessage(), e);
+			throw e;
+		} finally {
+			flights.remove(key, flight);
+			flight.complete(result, error);
+		}
+	}
+
+	private static class Flight {
+		private boolean done;
+		private Object result;
+		private BtcException error;
+
+		private synchronized void complete(Object result, BtcException error) {
+			this.result = result;
+			this.error = error;
+			done = true;
+			notifyAll();
+		}
+
+		private synchronized Object await(String key, long timeout)
+				throws BtcException {
+			long deadline = System.nanoTime()
+					+ TimeUnit.MILLISECONDS.toNanos(timeout);
+			try {
+				while (!done) {
+					if (timeout < 0) {
+						wait();
+						continue;
+					}
+					long remaining = TimeUnit.NANOSECONDS.toMillis(deadline
+							- System.nanoTime());
+					if (remaining <= 0) {
+						LOG.warning(BtcJsonRpcHttpClient.BTC4J_DAEMON_DEADLINE_MESSAGE
+								+ ": " + key);
+						throw new BtcException(
+								BtcJsonRpcHttpClient.BTC4J_DAEMON_DEADLINE_CODE,
+								BtcJsonRpcHttpClient.BTC4J_DAEMON_DEADLINE_MESSAGE
+										+ ": " + key);
+					}
+					wait(remaining);
+				}
+			} catch (InterruptedException e) {
+				LOG.severe(String.valueOf(e));
+				Thread.currentThread().interrupt();
+				throw new BtcException(BtcException.BTC4J_ERROR_CODE,
+						BtcException.BTC4J_ERROR_MESSAGE + ": "
+								+ BTC4J_DAEMON_DATA_INTERRUPTED, e);
+			}
+			if (error != null) {
+				throw error;
+			}
+			return result;
+		}
+	}
+}
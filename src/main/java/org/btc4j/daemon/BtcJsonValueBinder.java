@@ -0,0 +1,146 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+import org.btc4j.core.BtcException;
+
+public class BtcJsonValueBinder implements BtcJsonBinder<JsonValue> {
+	public static final BtcJsonValueBinder VALUE = new BtcJsonValueBinder();
+
+	@Override
+	public JsonValue bind(JsonParser parser, Event event) throws BtcException {
+		switch (event) {
+		case START_OBJECT:
+			return bindObject(parser);
+		case START_ARRAY:
+			return bindArray(parser);
+		case VALUE_NULL:
+			return JsonValue.NULL;
+		case VALUE_TRUE:
+			return JsonValue.TRUE;
+		case VALUE_FALSE:
+			return JsonValue.FALSE;
+		default:
+			JsonArrayBuilder builder = Json.createArrayBuilder();
+			add(builder, parser, event);
+			return builder.build().get(0);
+		}
+	}
+
+	public static void skip(JsonParser parser, Event event) {
+		if ((event == Event.START_OBJECT) || (event == Event.START_ARRAY)) {
+			int depth = 1;
+			while (depth > 0) {
+				switch (parser.next()) {
+				case START_OBJECT:
+				case START_ARRAY:
+					depth++;
+					break;
+				case END_OBJECT:
+				case END_ARRAY:
+					depth--;
+					break;
+				default:
+					break;
+				}
+			}
+		}
+	}
+
+	private JsonValue bindObject(JsonParser parser) {
+		JsonObjectBuilder builder = Json.createObjectBuilder();
+		Event event;
+		while ((event = parser.next()) != Event.END_OBJECT) {
+			String key = parser.getString();
+			event = parser.next();
+			switch (event) {
+			case START_OBJECT:
+				builder.add(key, bindObject(parser));
+				break;
+			case START_ARRAY:
+				builder.add(key, bindArray(parser));
+				break;
+			case VALUE_STRING:
+				builder.add(key, parser.getString());
+				break;
+			case VALUE_NUMBER:
+				builder.add(key, parser.getBigDecimal());
+				break;
+			case VALUE_TRUE:
+				builder.add(key, true);
+				break;
+			case VALUE_FALSE:
+				builder.add(key, false);
+				break;
+			default:
+				builder.addNull(key);
+				break;
+			}
+		}
+		return builder.build();
+	}
+
+	private JsonValue bindArray(JsonParser parser) {
+		JsonArrayBuilder builder = Json.createArrayBuilder();
+		Event event;
+		while ((event = parser.next()) != Event.END_ARRAY) {
+			add(builder, parser, event);
+		}
+		return builder.build();
+	}
+
+	private void add(JsonArrayBuilder builder, JsonParser parser, Event event) {
+		switch (event) {
+		case START_OBJECT:
+			builder.add(bindObject(parser));
+			break;
+		case START_ARRAY:
+			builder.add(bindArray(parser));
+			break;
+		case VALUE_STRING:
+			builder.add(parser.getString());
+			break;
+		case VALUE_NUMBER:
+			builder.add(parser.getBigDecimal());
+			break;
+		case VALUE_TRUE:
+			builder.add(true);
+			break;
+		case VALUE_FALSE:
+			builder.add(false);
+			break;
+		default:
+			builder.addNull();
+			break;
+		}
+	}
+}
@@ -0,0 +1,268 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.io.ObjectStreamException;
+import java.util.List;
+
+import org.btc4j.core.BtcInput;
+import org.btc4j.core.BtcOutput;
+import org.btc4j.core.BtcRawTransaction;
+
+public class BtcRawTransactionView extends BtcRawTransaction {
+	private static final long serialVersionUID = 1L;
+	private static final String BTCOBJ_TX_BLOCK_HASH = "blockhash";
+	private static final String BTCOBJ_TX_BLOCK_TIME = "blocktime";
+	private static final String BTCOBJ_TX_COMPLETE = "complete";
+	private static final String BTCOBJ_TX_CONFIRMATIONS = "confirmations";
+	private static final String BTCOBJ_TX_HEX = "hex";
+	private static final String BTCOBJ_TX_INPUTS = "vin";
+	private static final String BTCOBJ_TX_LOCK_TIME = "locktime";
+	private static final String BTCOBJ_TX_OUTPUTS = "vout";
+	private static final String BTCOBJ_TX_TIME = "time";
+	private static final String BTCOBJ_TX_TRANSACTION = "txid";
+	private static final String BTCOBJ_TX_VERSION = "version";
+	private static final int BTC4J_VIEW_HEX = 1;
+	private static final int BTC4J_VIEW_VERSION = 1 << 1;
+	private static final int BTC4J_VIEW_LOCK_TIME = 1 << 2;
+	private static final int BTC4J_VIEW_INPUTS = 1 << 3;
+	private static final int BTC4J_VIEW_OUTPUTS = 1 << 4;
+	private static final int BTC4J_VIEW_COMPLETE = 1 << 5;
+	private static final int BTC4J_VIEW_TRANSACTION = 1 << 6;
+	private static final int BTC4J_VIEW_CONFIRMATIONS = 1 << 7;
+	private static final int BTC4J_VIEW_TIME = 1 << 8;
+	private static final int BTC4J_VIEW_BLOCK_HASH = 1 << 9;
+	private static final int BTC4J_VIEW_BLOCK_TIME = 1 << 10;
+	private transient BtcJsonIndex index;
+	private transient int decoded;
+
+	public BtcRawTransactionView(BtcJsonIndex index) {
+		this.index = index;
+	}
+
+	public BtcJsonIndex getIndex() {
+		return index;
+	}
+
+	@Override
+	public synchronized String getHex() {
+		if (decode(BTC4J_VIEW_HEX)) {
+			super.setHex(index.string(BTCOBJ_TX_HEX));
+		}
+		return super.getHex();
+	}
+
+	@Override
+	public synchronized void setHex(String hex) {
+		decoded |= BTC4J_VIEW_HEX;
+		super.setHex(hex);
+	}
+
+	@Override
+	public synchronized long getVersion() {
+		if (decode(BTC4J_VIEW_VERSION)) {
+			super.setVersion(index.number(BTCOBJ_TX_VERSION));
+		}
+		return super.getVersion();
+	}
+
+	@Override
+	public synchronized void setVersion(long version) {
+		decoded |= BTC4J_VIEW_VERSION;
+		super.setVersion(version);
+	}
+
+	@Override
+	public synchronized long getLockTime() {
+		if (decode(BTC4J_VIEW_LOCK_TIME)) {
+			super.setLockTime(index.number(BTCOBJ_TX_LOCK_TIME));
+		}
+		return super.getLockTime();
+	}
+
+	@Override
+	public synchronized void setLockTime(long lockTime) {
+		decoded |= BTC4J_VIEW_LOCK_TIME;
+		super.setLockTime(lockTime);
+	}
+
+	@Override
+	public synchronized List<BtcInput> getInputs() {
+		if (decode(BTC4J_VIEW_INPUTS)) {
+			super.setInputs(index.bind(BTCOBJ_TX_INPUTS,
+					BtcJsonObjectBinder.list(BtcJsonObjectBinder.INPUT)));
+		}
+		return super.getInputs();
+	}
+
+	@Override
+	public synchronized void setInputs(List<BtcInput> inputs) {
+		decoded |= BTC4J_VIEW_INPUTS;
+		super.setInputs(inputs);
+	}
+
+	@Override
+	public synchronized List<BtcOutput> getOutputs() {
+		if (decode(BTC4J_VIEW_OUTPUTS)) {
+			super.setOutputs(index.bind(BTCOBJ_TX_OUTPUTS,
+					BtcJsonObjectBinder.list(BtcJsonObjectBinder.OUTPUT)));
+		}
+		return super.getOutputs();
+	}
+
+	@Override
+	public synchronized void setOutputs(List<BtcOutput> outputs) {
+		decoded |= BTC4J_VIEW_OUTPUTS;
+		super.setOutputs(outputs);
+	}
+
+	@Override
+	public synchronized boolean isComplete() {
+		if (decode(BTC4J_VIEW_COMPLETE)) {
+			super.setComplete(index.bool(BTCOBJ_TX_COMPLETE, true));
+		}
+		return super.isComplete();
+	}
+
+	@Override
+	public synchronized void setComplete(boolean complete) {
+		decoded |= BTC4J_VIEW_COMPLETE;
+		super.setComplete(complete);
+	}
+
+	@Override
+	public synchronized String getTransaction() {
+		if (decode(BTC4J_VIEW_TRANSACTION)) {
+			super.setTransaction(index.string(BTCOBJ_TX_TRANSACTION));
+		}
+		return super.getTransaction();
+	}
+
+	@Override
+	public synchronized void setTransaction(String transaction) {
+		decoded |= BTC4J_VIEW_TRANSACTION;
+		super.setTransaction(transaction);
+	}
+
+	@Override
+	public synchronized long getConfirmations() {
+		if (decode(BTC4J_VIEW_CONFIRMATIONS)) {
+			super.setConfirmations(index.number(BTCOBJ_TX_CONFIRMATIONS));
+		}
+		return super.getConfirmations();
+	}
+
+	@Override
+	public synchronized void setConfirmations(long confirmations) {
+		decoded |= BTC4J_VIEW_CONFIRMATIONS;
+		super.setConfirmations(confirmations);
+	}
+
+	@Override
+	public synchronized long getTime() {
+		if (decode(BTC4J_VIEW_TIME)) {
+			super.setTime(index.number(BTCOBJ_TX_TIME));
+		}
+		return super.getTime();
+	}
+
+	@Override
+	public synchronized void setTime(long time) {
+		decoded |= BTC4J_VIEW_TIME;
+		super.setTime(time);
+	}
+
+	@Override
+	public synchronized String getBlockHash() {
+		if (decode(BTC4J_VIEW_BLOCK_HASH)) {
+			super.setBlockHash(index.string(BTCOBJ_TX_BLOCK_HASH));
+		}
+		return super.getBlockHash();
+	}
+
+	@Override
+	public synchronized void setBlockHash(String blockHash) {
+		decoded |= BTC4J_VIEW_BLOCK_HASH;
+		super.setBlockHash(blockHash);
+	}
+
+	@Override
+	public synchronized long getBlockTime() {
+		if (decode(BTC4J_VIEW_BLOCK_TIME)) {
+			super.setBlockTime(index.number(BTCOBJ_TX_BLOCK_TIME));
+		}
+		return super.getBlockTime();
+	}
+
+	@Override
+	public synchronized void setBlockTime(long blockTime) {
+		decoded |= BTC4J_VIEW_BLOCK_TIME;
+		super.setBlockTime(blockTime);
+	}
+
+	@Override
+	public synchronized String toString() {
+		decodeAll();
+		return super.toString();
+	}
+
+	private boolean decode(int field) {
+		if ((index == null) || ((decoded & field) != 0)) {
+			return false;
+		}
+		decoded |= field;
+		return true;
+	}
+
+	private void decodeAll() {
+		getHex();
+		getVersion();
+		getLockTime();
+		getInputs();
+		getOutputs();
+		isComplete();
+		getTransaction();
+		getConfirmations();
+		getTime();
+		getBlockHash();
+		getBlockTime();
+	}
+
+	private synchronized Object writeReplace() throws ObjectStreamException {
+		BtcRawTransaction transaction = new BtcRawTransaction();
+		transaction.setHex(getHex());
+		transaction.setVersion(getVersion());
+		transaction.setLockTime(getLockTime());
+		transaction.setInputs(getInputs());
+		transaction.setOutputs(getOutputs());
+		transaction.setComplete(isComplete());
+		transaction.setTransaction(getTransaction());
+		transaction.setConfirmations(getConfirmations());
+		transaction.setTime(getTime());
+		transaction.setBlockHash(getBlockHash());
+		transaction.setBlockTime(getBlockTime());
+		return transaction;
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.util.Observable;
+import java.util.Observer;
+import java.util.logging.Logger;
+
+import org.btc4j.core.BtcException;
+
+public class BtcStatusService implements Observer, Runnable {
+	private static final int BTC4J_DAEMON_MAX_AGE_TTLS = 3;
+	private final static Logger LOG = Logger.getLogger(BtcStatusService.class
+			.getName());
+	private final BtcDaemon daemon;
+	private final long ttl;
+	private final Object signal = new Object();
+	private volatile BtcStatusSnapshot snapshot;
+	private BtcException failure;
+	private long failed;
+	private long refreshes;
+	private long failures;
+	private long notifications;
+	private boolean pending;
+	private Thread refreshThread;
+
+	public BtcStatusService(BtcDaemon daemon, long ttl) {
+		this.daemon = daemon;
+		this.ttl = Math.max(ttl, 1);
+	}
+
+	public long getTtl() {
+		return ttl;
+	}
+
+	public long getMaxAge() {
+		return BTC4J_DAEMON_MAX_AGE_TTLS * ttl;
+	}
+
+	public synchronized long getRefreshes() {
+		return refreshes;
+	}
+
+	public synchronized long getFailures() {
+		return failures;
+	}
+
+	public synchronized long getNotifications() {
+		return notifications;
+	}
+
+	public BtcStatusSnapshot getSnapshot() throws BtcException {
+		BtcStatusSnapshot current = snapshot;
+		if ((current != null) && (current.getAge() <= getMaxAge())) {
+			return current;
+		}
+		return refresh(current);
+	}
+
+	public synchronized BtcStatusSnapshot refresh() throws BtcException {
+		try {
+			BtcStatusSnapshot current = daemon.fetchStatus();
+			snapshot = current;
+			failure = null;
+			refreshes++;
+			return current;
+		} catch (BtcException e) {
+			failure = e;
+			failed = System.currentTimeMillis();
+			failures++;
+			throw e;
+		}
+	}
+
+	public synchronized void start() {
+		if (refreshThread == null) {
+			refreshThread = new Thread(this, "statusRefresh");
+			refreshThread.setDaemon(true);
+			refreshThread.start();
+		}
+	}
+
+	public synchronized void stop() {
+		if (refreshThread != null) {
+			refreshThread.interrupt();
+			refreshThread = null;
+		}
+	}
+
+	@Override
+	public void update(Observable o, Object arg) {
+		synchronized (this) {
+			notifications++;
+		}
+		synchronized (signal) {
+			pending = true;
+			signal.notifyAll();
+		}
+	}
+
+	@Override
+	public void run() {
+		boolean notified = false;
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				try {
+					synchronized (this) {
+						if (notified || (snapshot == null)
+								|| (snapshot.getAge() >= ttl)) {
+							refresh();
+						}
+					}
+				} catch (BtcException e) {
+					LOG.warning("status refresh failed: " + e.getMessage());
+				}
+				synchronized (signal) {
+					long until = System.currentTimeMillis() + ttl;
+					long wait;
+					while (!pending
+							&& ((wait = until - System.currentTimeMillis()) > 0)) {
+						signal.wait(wait);
+					}
+					notified = pending;
+					pending = false;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private synchronized BtcStatusSnapshot refresh(BtcStatusSnapshot seen)
+			throws BtcException {
+		if ((snapshot != seen) && (snapshot.getAge() <= getMaxAge())) {
+			return snapshot;
+		}
+		if ((failure != null)
+				&& ((System.currentTimeMillis() - failed) < ttl)) {
+			throw failure;
+		}
+		return refresh();
+	}
+}
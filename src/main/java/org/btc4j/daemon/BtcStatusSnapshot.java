@@ -0,0 +1,125 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.math.BigDecimal;
+
+import org.btc4j.core.BtcInfo;
+import org.btc4j.core.BtcMiningInfo;
+
+public class BtcStatusSnapshot {
+	private final BtcInfo information;
+	private final BtcMiningInfo miningInformation;
+	private final BigDecimal difficulty;
+	private final long connectionCount;
+	private final long blockCount;
+	private final long time;
+
+	public BtcStatusSnapshot(BtcInfo information,
+			BtcMiningInfo miningInformation, BigDecimal difficulty,
+			long connectionCount, long blockCount, long time) {
+		this.information = copy(information);
+		this.miningInformation = copy(miningInformation);
+		this.difficulty = difficulty;
+		this.connectionCount = connectionCount;
+		this.blockCount = blockCount;
+		this.time = time;
+	}
+
+	public BtcInfo getInformation() {
+		return copy(information);
+	}
+
+	public BtcMiningInfo getMiningInformation() {
+		return copy(miningInformation);
+	}
+
+	public BigDecimal getDifficulty() {
+		return difficulty;
+	}
+
+	public long getConnectionCount() {
+		return connectionCount;
+	}
+
+	public long getBlockCount() {
+		return blockCount;
+	}
+
+	public long getTime() {
+		return time;
+	}
+
+	public long getAge() {
+		return System.currentTimeMillis() - time;
+	}
+
+	@Override
+	public String toString() {
+		return "BtcStatusSnapshot [blockCount=" + blockCount
+				+ ", connectionCount=" + connectionCount + ", difficulty="
+				+ difficulty + ", time=" + time + "]";
+	}
+
+	private static BtcInfo copy(BtcInfo information) {
+		if (information == null) {
+			return null;
+		}
+		BtcInfo copy = new BtcInfo();
+		copy.setBlocks(information.getBlocks());
+		copy.setDifficulty(information.getDifficulty());
+		copy.setTestnet(information.isTestnet());
+		copy.setErrors(information.getErrors());
+		copy.setVersion(information.getVersion());
+		copy.setProtocolVersion(information.getProtocolVersion());
+		copy.setWalletVersion(information.getWalletVersion());
+		copy.setBalance(information.getBalance());
+		copy.setTimeOffset(information.getTimeOffset());
+		copy.setConnections(information.getConnections());
+		copy.setProxy(information.getProxy());
+		copy.setKeyPoolOldest(information.getKeyPoolOldest());
+		copy.setKeyPoolSize(information.getKeyPoolSize());
+		copy.setTransactionFee(information.getTransactionFee());
+		return copy;
+	}
+
+	private static BtcMiningInfo copy(BtcMiningInfo miningInformation) {
+		if (miningInformation == null) {
+			return null;
+		}
+		BtcMiningInfo copy = new BtcMiningInfo();
+		copy.setBlocks(miningInformation.getBlocks());
+		copy.setDifficulty(miningInformation.getDifficulty());
+		copy.setTestnet(miningInformation.isTestnet());
+		copy.setErrors(miningInformation.getErrors());
+		copy.setCurrentBlockSize(miningInformation.getCurrentBlockSize());
+		copy.setCurrentBlockTransactions(miningInformation
+				.getCurrentBlockTransactions());
+		copy.setGenerate(miningInformation.isGenerate());
+		copy.setGenProcessorLimit(miningInformation.getGenProcessorLimit());
+		copy.setHashesPerSecond(miningInformation.getHashesPerSecond());
+		copy.setPooledTransactions(miningInformation.getPooledTransactions());
+		return copy;
+	}
+}
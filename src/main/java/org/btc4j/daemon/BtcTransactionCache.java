@@ -0,0 +1,298 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.nio.ByteBuffer;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.logging.Logger;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+import org.btc4j.core.BtcOutput;
+import org.btc4j.core.BtcRawTransaction;
+
+public class BtcTransactionCache implements Observer {
+	static final BtcOutput BTC4J_DAEMON_NO_OUTPUT = new BtcOutput();
+	private static final long BTC4J_DAEMON_TRANSACTION_WEIGHT = 256;
+	private static final long BTC4J_DAEMON_SCRIPT_WEIGHT = 3;
+	private static final long BTC4J_DAEMON_PART_WEIGHT = 128;
+	private static final long BTC4J_DAEMON_HEX_WEIGHT = 2;
+	private static final long BTC4J_DAEMON_OUTPUT_WEIGHT = 384;
+	private static final long BTC4J_DAEMON_UNKNOWN_HEIGHT = -1;
+	private final static Logger LOG = Logger
+			.getLogger(BtcTransactionCache.class.getName());
+	private final BtcCacheMap entries;
+	private final int minConfirmations;
+	private boolean outputs;
+	private long tipHeight = BTC4J_DAEMON_UNKNOWN_HEIGHT;
+	private long epoch;
+	private BtcCompressedCache secondTier;
+
+	public BtcTransactionCache(long maxWeight, int minConfirmations) {
+		this.entries = new BtcCacheMap(maxWeight) {
+			@Override
+			void evicted(Object key, Object value) {
+				spill(key, value);
+			}
+		};
+		this.minConfirmations = Math.max(minConfirmations, 1);
+	}
+
+	public synchronized BtcCompressedCache getSecondTier() {
+		return secondTier;
+	}
+
+	public synchronized void setSecondTier(BtcCompressedCache secondTier) {
+		this.secondTier = secondTier;
+	}
+
+	public long getMaxWeight() {
+		return entries.getMaxWeight();
+	}
+
+	public int getMinConfirmations() {
+		return minConfirmations;
+	}
+
+	public synchronized boolean isOutputs() {
+		return outputs;
+	}
+
+	public synchronized void setOutputs(boolean outputs) {
+		this.outputs = outputs;
+		if (!outputs) {
+			invalidate();
+		}
+	}
+
+	public synchronized long getWeight() {
+		return entries.getWeight();
+	}
+
+	public synchronized int getSize() {
+		return entries.getSize();
+	}
+
+	public synchronized long getHits() {
+		return entries.getHits();
+	}
+
+	public synchronized long getMisses() {
+		return entries.getMisses();
+	}
+
+	public synchronized long getEvictions() {
+		return entries.getEvictions();
+	}
+
+	public synchronized long getInvalidations() {
+		return entries.getInvalidations();
+	}
+
+	public synchronized long getTipHeight() {
+		return tipHeight;
+	}
+
+	public synchronized long getEpoch() {
+		return epoch;
+	}
+
+	public synchronized BtcRawTransaction getRawTransaction(
+			String transactionId, boolean verbose) {
+		Object value = entries.get(transactionId, verbose ? Transaction.class
+				: Object.class);
+		if (value instanceof Transaction) {
+			Transaction cached = (Transaction) value;
+			if (verbose) {
+				return decode(cached);
+			}
+			value = cached.hex;
+		}
+		if ((value == null) && (secondTier != null)) {
+			BtcRawTransaction transaction = secondTier.getRawTransaction(
+					transactionId, verbose);
+			if ((transaction != null) && verbose) {
+				secondTier.remove(transactionId);
+				putRawTransaction(transactionId, transaction, true);
+			}
+			return transaction;
+		}
+		if (value == null) {
+			return null;
+		}
+		BtcRawTransaction transaction = new BtcRawTransaction();
+		transaction.setHex((String) value);
+		return transaction;
+	}
+
+	public synchronized void putRawTransaction(String transactionId,
+			BtcRawTransaction transaction, boolean verbose) {
+		if ((transaction == null) || (transaction.getHex() == null)) {
+			return;
+		}
+		String hex = transaction.getHex();
+		if (!verbose) {
+			entries.put(transactionId, hex, hex.length()
+					+ BTC4J_DAEMON_HEX_WEIGHT, false);
+		} else if (transaction.getConfirmations() >= minConfirmations) {
+			long parts = 0;
+			if (transaction.getInputs() != null) {
+				parts += transaction.getInputs().size();
+			}
+			if (transaction.getOutputs() != null) {
+				parts += transaction.getOutputs().size();
+			}
+			byte[] encoded;
+			try {
+				encoded = BtcBinaryCodec.encodeRawTransaction(transaction);
+			} catch (BtcException e) {
+				LOG.warning(String.valueOf(e));
+				return;
+			}
+			entries.put(transactionId, new Transaction(transaction, encoded,
+					tipHeight),
+					BTC4J_DAEMON_TRANSACTION_WEIGHT
+							+ (BTC4J_DAEMON_SCRIPT_WEIGHT * hex.length())
+							+ (BTC4J_DAEMON_PART_WEIGHT * parts), false);
+		}
+	}
+
+	public synchronized BtcOutput getTransactionOutput(String transactionId,
+			long index) {
+		return (BtcOutput) entries.get(new Outpoint(transactionId, index));
+	}
+
+	public synchronized void putTransactionOutput(String transactionId,
+			long index, BtcOutput output, long epoch) {
+		if (outputs && (epoch == this.epoch)) {
+			entries.put(new Outpoint(transactionId, index),
+					(output == null) ? BTC4J_DAEMON_NO_OUTPUT : output,
+					BTC4J_DAEMON_OUTPUT_WEIGHT, true);
+		}
+	}
+
+	public synchronized void setTip(long height) {
+		if (height != tipHeight) {
+			tipHeight = height;
+			invalidate();
+		}
+	}
+
+	public synchronized void invalidate() {
+		epoch++;
+		entries.invalidate();
+	}
+
+	public synchronized void clear() {
+		epoch++;
+		entries.clear();
+		if (secondTier != null) {
+			secondTier.clear();
+		}
+	}
+
+	@Override
+	public void update(Observable observable, Object arg) {
+		if (arg instanceof BtcBlock) {
+			BtcBlock block = (BtcBlock) arg;
+			synchronized (this) {
+				if (block.getConfirmations() > 0) {
+					tipHeight = Math.max(tipHeight, block.getHeight()
+							+ block.getConfirmations() - 1);
+				}
+				invalidate();
+			}
+		}
+	}
+
+	private void spill(Object key, Object value) {
+		if (secondTier == null) {
+			return;
+		}
+		if (value instanceof Transaction) {
+			secondTier.putRawTransaction((String) key,
+					decode((Transaction) value), true);
+		} else if (value instanceof String) {
+			BtcRawTransaction transaction = new BtcRawTransaction();
+			transaction.setHex((String) value);
+			secondTier.putRawTransaction((String) key, transaction, false);
+		}
+	}
+
+	private BtcRawTransaction decode(Transaction cached) {
+		BtcRawTransaction transaction = cached.decode();
+		if ((cached.tipHeight != BTC4J_DAEMON_UNKNOWN_HEIGHT)
+				&& (tipHeight > cached.tipHeight)) {
+			transaction.setConfirmations(cached.confirmations + tipHeight
+					- cached.tipHeight);
+		}
+		return transaction;
+	}
+
+	private static class Transaction {
+		private final byte[] encoded;
+		private final String hex;
+		private final long confirmations;
+		private final long tipHeight;
+
+		private Transaction(BtcRawTransaction transaction, byte[] encoded,
+				long tipHeight) {
+			this.encoded = encoded;
+			this.hex = transaction.getHex();
+			this.confirmations = transaction.getConfirmations();
+			this.tipHeight = tipHeight;
+		}
+
+		private BtcRawTransaction decode() {
+			return BtcBinaryCodec.decodeRawTransaction(ByteBuffer
+					.wrap(encoded));
+		}
+	}
+
+	private static class Outpoint {
+		private final String transactionId;
+		private final long index;
+
+		private Outpoint(String transactionId, long index) {
+			this.transactionId = transactionId;
+			this.index = index;
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * transactionId.hashCode()) + (int) (index ^ (index >>> 32));
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Outpoint)) {
+				return false;
+			}
+			Outpoint outpoint = (Outpoint) object;
+			return (index == outpoint.index)
+					&& transactionId.equals(outpoint.transactionId);
+		}
+	}
+}
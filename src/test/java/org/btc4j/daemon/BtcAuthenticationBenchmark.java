@@ -0,0 +1,76 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.Arrays;
+
+public class BtcAuthenticationBenchmark {
+	private static final int BENCHMARK_WARMUP = 200;
+	private static final int BENCHMARK_CALLS = 2000;
+	private static final long BENCHMARK_DELAY = 1;
+
+	public static void main(String[] args) {
+		try {
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY);
+			standIn.setResult("getblockcount", "277316");
+			try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+					"password");) {
+				run(daemon, standIn, false);
+				run(daemon, standIn, true);
+			} finally {
+				standIn.stop();
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static void run(BtcDaemon daemon, BtcDaemonStandIn standIn,
+			boolean preemptive) throws Exception {
+		daemon.setPreemptiveAuthentication(preemptive);
+		for (int i = 0; i < BENCHMARK_WARMUP; i++) {
+			daemon.getBlockCount();
+		}
+		standIn.reset();
+		long[] latencies = new long[BENCHMARK_CALLS];
+		for (int i = 0; i < BENCHMARK_CALLS; i++) {
+			long start = System.nanoTime();
+			daemon.getBlockCount();
+			latencies[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(latencies);
+		long total = 0;
+		for (long latency : latencies) {
+			total += latency;
+		}
+		System.out.println("preemptive=" + preemptive + " calls="
+				+ BENCHMARK_CALLS + " http requests=" + standIn.getRequests()
+				+ " 401 challenges=" + standIn.getChallenges() + " mean="
+				+ (total / BENCHMARK_CALLS / 1000) + "us p50="
+				+ (latencies[BENCHMARK_CALLS / 2] / 1000) + "us p99="
+				+ (latencies[BENCHMARK_CALLS * 99 / 100] / 1000) + "us");
+	}
+}
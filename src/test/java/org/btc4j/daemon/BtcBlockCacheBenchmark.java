@@ -0,0 +1,139 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.btc4j.core.BtcException;
+
+public class BtcBlockCacheBenchmark {
+	private static final int BENCHMARK_THREADS = 8;
+	private static final int BENCHMARK_READS = 2000;
+	private static final int BENCHMARK_BLOCKS = 2000;
+	private static final int BENCHMARK_HOT_BLOCKS = 200;
+	private static final double BENCHMARK_HOT_FRACTION = 0.8;
+	private static final int BENCHMARK_TRANSACTIONS = 20;
+	private static final long BENCHMARK_CACHE_BYTES = 1024 * 1024;
+	private static final int BENCHMARK_CONFIRMATIONS = 6;
+	private static final long BENCHMARK_TIP = 300000;
+	private static final long BENCHMARK_DELAY = 2;
+	private static final String BENCHMARK_UNCACHED = "uncached";
+	private static final String BENCHMARK_CACHED = "cached";
+
+	public static void main(String[] args) {
+		try {
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY);
+			StringBuilder block = new StringBuilder();
+			block.append("{\"hash\":\"").append(hash(0))
+					.append("\",\"height\":").append(BENCHMARK_TIP - 1000)
+					.append(",\"confirmations\":1001,\"size\":9000,\"tx\":[");
+			for (int i = 0; i < BENCHMARK_TRANSACTIONS; i++) {
+				block.append((i == 0) ? "\"" : ",\"").append(hash(i))
+						.append('"');
+			}
+			block.append("]}");
+			standIn.setResult("getblock", block.toString());
+			standIn.setResult("getblockhash", "\"" + hash(0) + "\"");
+			standIn.setResult("getblockcount", String.valueOf(BENCHMARK_TIP));
+			try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+					"password");) {
+				for (int round = 0; round < 2; round++) {
+					run(daemon, BENCHMARK_UNCACHED);
+					run(daemon, BENCHMARK_CACHED);
+				}
+			} finally {
+				standIn.stop();
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static void run(final BtcDaemon daemon, String mode)
+			throws Exception {
+		if (BENCHMARK_CACHED.equals(mode)) {
+			daemon.setBlockCaching(BENCHMARK_CACHE_BYTES,
+					BENCHMARK_CONFIRMATIONS);
+		} else {
+			daemon.disableBlockCaching();
+		}
+		daemon.getBlockCount();
+		final AtomicLong errors = new AtomicLong();
+		List<Thread> threads = new ArrayList<Thread>();
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_THREADS; i++) {
+			final Random random = new Random(i);
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < BENCHMARK_READS; j++) {
+						int index = (random.nextDouble() < BENCHMARK_HOT_FRACTION) ? random
+								.nextInt(BENCHMARK_HOT_BLOCKS) : random
+								.nextInt(BENCHMARK_BLOCKS);
+						try {
+							daemon.getBlockHash(BENCHMARK_TIP - 1000 - index);
+							daemon.getBlock(hash(index));
+						} catch (BtcException e) {
+							errors.incrementAndGet();
+						}
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long elapsed = System.nanoTime() - start;
+		long reads = 2L * BENCHMARK_THREADS * BENCHMARK_READS;
+		StringBuilder line = new StringBuilder();
+		line.append(mode).append(": ").append(reads).append(" reads in ")
+				.append(elapsed / 1000000).append(" ms, ")
+				.append(reads * 1000000000L / elapsed).append(" reads/s");
+		BtcBlockCache cache = daemon.getBlockCache();
+		if (cache != null) {
+			line.append(", hits=").append(cache.getHits()).append(" misses=")
+					.append(cache.getMisses()).append(" evictions=")
+					.append(cache.getEvictions()).append(" entries=")
+					.append(cache.getSize()).append(" bytes=")
+					.append(cache.getWeight());
+		}
+		line.append(", errors=").append(errors.get());
+		System.out.println(line);
+	}
+
+	private static String hash(int index) {
+		String hex = Integer.toHexString(index);
+		StringBuilder hash = new StringBuilder();
+		for (int i = hex.length(); i < 64; i++) {
+			hash.append('0');
+		}
+		return hash.append(hex).toString();
+	}
+}
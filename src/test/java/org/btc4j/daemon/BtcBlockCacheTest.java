@@ -0,0 +1,140 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcTransaction;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BtcBlockCacheTest {
+	private BtcBlockCache cache;
+
+	@Before
+	public void setUp() {
+		cache = new BtcBlockCache(1024 * 1024, 6);
+	}
+
+	@Test
+	public void copies() {
+		BtcBlock block = block("a", 100, 10);
+		cache.putBlock("a", block, cache.getEpoch());
+		block.setConfirmations(0);
+		block.getTransactions().clear();
+		BtcBlock cached = cache.getBlock("a");
+		assertNotSame(block, cached);
+		assertEquals(10, cached.getConfirmations());
+		assertEquals(2, cached.getTransactions().size());
+		cached.setHeight(5);
+		cached.getTransactions().get(0).setTransaction("changed");
+		cached.getTransactions().clear();
+		cached = cache.getBlock("a");
+		assertEquals(100, cached.getHeight());
+		assertEquals(2, cached.getTransactions().size());
+		assertEquals("a-0", cached.getTransactions().get(0).getTransaction());
+		assertNotSame(cached, cache.getBlock("a"));
+	}
+
+	@Test
+	public void confirmationsFollowTip() {
+		cache.putBlock("a", block("a", 100, 10), cache.getEpoch());
+		assertEquals(109, cache.getTipHeight());
+		cache.setTip(120, null);
+		assertEquals(21, cache.getBlock("a").getConfirmations());
+		cache.setTip(110, null);
+		assertEquals(21, cache.getBlock("a").getConfirmations());
+	}
+
+	@Test
+	public void shallowBlocks() {
+		cache.putBlock("a", block("a", 100, 1), cache.getEpoch());
+		assertNull(cache.getBlock("a"));
+		cache.setNearTip(true);
+		cache.putBlock("a", block("a", 100, 1), cache.getEpoch());
+		assertNotNull(cache.getBlock("a"));
+		cache.setNearTip(false);
+		assertNull(cache.getBlock("a"));
+	}
+
+	@Test
+	public void reorgInvalidation() {
+		cache.setNearTip(true);
+		cache.putBlock("buried", block("buried", 50, 51), cache.getEpoch());
+		cache.putBlock("a", block("a", 100, 1), cache.getEpoch());
+		cache.putBlockHash(100, "a", cache.getEpoch());
+		cache.putBlockHash(50, "buried", cache.getEpoch());
+		assertNotNull(cache.getBlock("a"));
+		assertEquals("a", cache.getBlockHash(100));
+		long invalidations = cache.getInvalidations();
+		cache.setTip(100, "b");
+		assertNull(cache.getBlock("a"));
+		assertNull(cache.getBlockHash(100));
+		assertNotNull(cache.getBlock("buried"));
+		assertEquals("buried", cache.getBlockHash(50));
+		assertEquals(invalidations + 2, cache.getInvalidations());
+	}
+
+	@Test
+	public void notifiedReorg() {
+		cache.setNearTip(true);
+		cache.putBlock("a", block("a", 100, 1), cache.getEpoch());
+		cache.update(null, block("b", 100, 1));
+		assertNull(cache.getBlock("a"));
+		cache.putBlock("b", block("b", 100, 1), cache.getEpoch());
+		cache.update(null, block("c", 99, 0));
+		assertNull(cache.getBlock("b"));
+	}
+
+	@Test
+	public void staleEpoch() {
+		cache.setNearTip(true);
+		long epoch = cache.getEpoch();
+		cache.invalidate();
+		cache.putBlock("a", block("a", 100, 1), epoch);
+		assertNull(cache.getBlock("a"));
+		cache.putBlock("buried", block("buried", 50, 51), epoch);
+		assertNotNull(cache.getBlock("buried"));
+	}
+
+	private static BtcBlock block(String hash, long height, long confirmations) {
+		BtcBlock block = new BtcBlock();
+		block.setHash(hash);
+		block.setHeight(height);
+		block.setConfirmations(confirmations);
+		List<BtcTransaction> transactions = new ArrayList<BtcTransaction>();
+		for (int i = 0; i < 2; i++) {
+			BtcTransaction transaction = new BtcTransaction();
+			transaction.setTransaction(hash + "-" + i);
+			transactions.add(transaction);
+		}
+		block.setTransactions(transactions);
+		return block;
+	}
+}
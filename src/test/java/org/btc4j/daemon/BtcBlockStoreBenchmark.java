@@ -0,0 +1,170 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.btc4j.core.BtcBlock;
+
+public class BtcBlockStoreBenchmark {
+	private static final int BENCHMARK_BLOCKS = 2000;
+	private static final int BENCHMARK_TRANSACTIONS = 200;
+	private static final int BENCHMARK_SEGMENT_SIZE = 4 * 1024 * 1024;
+	private static final int BENCHMARK_CONFIRMATIONS = 6;
+	private static final long BENCHMARK_TIP = 300000;
+	private static final long BENCHMARK_DELAY = 1;
+
+	public static void main(String[] args) {
+		File directory = null;
+		try {
+			directory = Files.createTempDirectory("btc4j-blocks").toFile();
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY);
+			int replyBytes = 0;
+			for (int i = 0; i < BENCHMARK_BLOCKS; i++) {
+				String block = block(i);
+				replyBytes += block.length();
+				standIn.setResult("getblock", hash(i), block);
+				standIn.setResult("getblockhash",
+						String.valueOf(BENCHMARK_TIP - 1000 - i), "\"" + hash(i)
+								+ "\"");
+			}
+			try {
+				System.out.println("replies: " + BENCHMARK_BLOCKS
+						+ " blocks, " + replyBytes + " bytes of JSON");
+				run(standIn, directory, "cold");
+				run(standIn, directory, "warm");
+				if (!new File(directory, "index.dat").delete()) {
+					throw new IllegalStateException("no index");
+				}
+				run(standIn, directory, "rebuilt");
+				long start = System.nanoTime();
+				try (BtcBlockStore store = new BtcBlockStore(directory,
+						BENCHMARK_SEGMENT_SIZE, BENCHMARK_CONFIRMATIONS);) {
+					for (int i = 0; i < BENCHMARK_BLOCKS; i++) {
+						if ((i % 4) != 0) {
+							store.remove(hash(i));
+						}
+					}
+					long used = store.getUsedBytes();
+					int segments = store.getSegments();
+					int compacted = store.compact();
+					System.out.println("compact: " + compacted + " of "
+							+ segments + " segments in "
+							+ (System.nanoTime() - start) / 1000000
+							+ " ms, used " + used + " -> "
+							+ store.getUsedBytes() + " bytes, live "
+							+ store.getLiveBytes() + " bytes, "
+							+ store.getBlocks() + " blocks");
+				}
+				try (BtcBlockStore store = new BtcBlockStore(directory,
+						BENCHMARK_SEGMENT_SIZE, BENCHMARK_CONFIRMATIONS);) {
+					int found = 0;
+					for (int i = 0; i < BENCHMARK_BLOCKS; i += 4) {
+						BtcBlock block = store.getBlock(hash(i));
+						if ((block != null)
+								&& (block.getTransactions().size() == BENCHMARK_TRANSACTIONS)) {
+							found++;
+						}
+					}
+					System.out.println("reopened: " + found
+							+ " blocks intact of " + store.getBlocks());
+				}
+			} finally {
+				standIn.stop();
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		} finally {
+			if (directory != null) {
+				File[] files = directory.listFiles();
+				if (files != null) {
+					for (File file : files) {
+						file.delete();
+					}
+				}
+				directory.delete();
+			}
+		}
+	}
+
+	private static void run(BtcDaemonStandIn standIn, File directory,
+			String mode) throws Exception {
+		standIn.reset();
+		long start = System.nanoTime();
+		try (BtcBlockStore store = new BtcBlockStore(directory,
+				BENCHMARK_SEGMENT_SIZE, BENCHMARK_CONFIRMATIONS);
+				BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+						"password");) {
+			long opened = System.nanoTime() - start;
+			daemon.setBlockStore(store);
+			start = System.nanoTime();
+			long transactions = 0;
+			for (int i = 0; i < BENCHMARK_BLOCKS; i++) {
+				String hash = daemon.getBlockHash(BENCHMARK_TIP - 1000 - i);
+				transactions += daemon.getBlock(hash).getTransactions()
+						.size();
+			}
+			long elapsed = System.nanoTime() - start;
+			System.out.println(mode + ": open " + opened / 1000000 + " ms, "
+					+ 2 * BENCHMARK_BLOCKS + " reads in " + elapsed / 1000000
+					+ " ms, " + (2L * BENCHMARK_BLOCKS * 1000000000L / elapsed)
+					+ " reads/s, transactions=" + transactions + ", rpc="
+					+ standIn.getRequests() + ", store hits="
+					+ store.getHits() + " misses=" + store.getMisses()
+					+ " blocks=" + store.getBlocks() + " segments="
+					+ store.getSegments() + " bytes=" + store.getUsedBytes());
+		}
+	}
+
+	private static String block(int index) {
+		StringBuilder block = new StringBuilder();
+		block.append("{\"hash\":\"").append(hash(index))
+				.append("\",\"height\":").append(BENCHMARK_TIP - 1000 - index)
+				.append(",\"confirmations\":").append(1001 + index)
+				.append(",\"size\":90000,\"version\":2,\"time\":1390000000")
+				.append(",\"nonce\":").append(index)
+				.append(",\"bits\":\"1903a30c\",\"difficulty\":1418481395.26")
+				.append(",\"previousblockhash\":\"").append(hash(index + 1))
+				.append("\",\"nextblockhash\":\"").append(hash(index - 1))
+				.append("\",\"merkleroot\":\"").append(hash(index + 7))
+				.append("\",\"tx\":[");
+		for (int i = 0; i < BENCHMARK_TRANSACTIONS; i++) {
+			block.append((i == 0) ? "\"" : ",\"")
+					.append(hash(index * BENCHMARK_TRANSACTIONS + i))
+					.append('"');
+		}
+		return block.append("]}").toString();
+	}
+
+	private static String hash(int index) {
+		String hex = Integer.toHexString(index);
+		StringBuilder hash = new StringBuilder();
+		for (int i = hex.length(); i < 64; i++) {
+			hash.append('0');
+		}
+		return hash.append(hex).toString();
+	}
+}
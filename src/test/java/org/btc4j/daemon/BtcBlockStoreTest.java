@@ -0,0 +1,308 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+import org.btc4j.core.BtcTransaction;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BtcBlockStoreTest {
+	private static final int SEGMENT_SIZE = 4096;
+	private static final long TIP = 1000;
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = folder.newFolder("blocks");
+	}
+
+	@Test
+	public void minConfirmations() throws Exception {
+		try (BtcBlockStore store = new BtcBlockStore(directory, SEGMENT_SIZE,
+				1);) {
+			assertEquals(2, store.getMinConfirmations());
+			assertFalse(store.putBlock(block(0, TIP, 1)));
+			assertTrue(store.putBlock(block(1, TIP - 1, 2)));
+			assertFalse(store.putBlock(block(1, TIP - 1, 2)));
+			assertEquals(1, store.getBlocks());
+		}
+	}
+
+	@Test
+	public void confirmationsFollowTip() throws Exception {
+		try (BtcBlockStore store = new BtcBlockStore(directory, SEGMENT_SIZE,
+				6);) {
+			assertTrue(store.putBlock(block(0, 900, 101)));
+			assertEquals(TIP, store.getTip());
+			assertEquals(101, store.getBlock(hash(0)).getConfirmations());
+			store.setTip(TIP + 10);
+			assertEquals(111, store.getBlock(hash(0)).getConfirmations());
+			store.setTip(TIP);
+			assertEquals(111, store.getBlock(hash(0)).getConfirmations());
+		}
+	}
+
+	@Test
+	public void reopen() throws Exception {
+		try (BtcBlockStore store = new BtcBlockStore(directory, SEGMENT_SIZE,
+				6);) {
+			for (int i = 0; i < 50; i++) {
+				assertTrue(store.putBlock(block(i, 900 - i, 101 + i)));
+			}
+			assertTrue(store.getSegments() > 1);
+		}
+		try (BtcBlockStore store = new BtcBlockStore(directory, SEGMENT_SIZE,
+				6);) {
+			assertIntact(store, 50, 1);
+			assertEquals(905, store.getTip());
+			store.setTip(TIP);
+			assertEquals(101, store.getBlock(hash(0)).getConfirmations());
+		}
+	}
+
+	@Test
+	public void rebuildIndex() throws Exception {
+		try (BtcBlockStore store = new BtcBlockStore(directory, SEGMENT_SIZE,
+				6);) {
+			for (int i = 0; i < 50; i++) {
+				assertTrue(store.putBlock(block(i, 900 - i, 101 + i)));
+			}
+		}
+		assertTrue(new File(directory, "index.dat").delete());
+		try (BtcBlockStore store = new BtcBlockStore(directory, SEGMENT_SIZE,
+				6);) {
+			assertIntact(store, 50, 1);
+		}
+	}
+
+	@Test
+	public void compact() throws Exception {
+		try (BtcBlockStore store = new BtcBlockStore(directory, SEGMENT_SIZE,
+				6);) {
+			for (int i = 0; i < 100; i++) {
+				assertTrue(store.putBlock(block(i, 900 - i, 101 + i)));
+			}
+			for (int i = 0; i < 100; i++) {
+				if ((i % 4) != 0) {
+					assertTrue(store.remove(hash(i)));
+				}
+			}
+			assertFalse(store.remove(hash(1)));
+			long used = store.getUsedBytes();
+			int segments = store.getSegments();
+			assertTrue(store.compact() > 0);
+			assertTrue(store.getUsedBytes() < used);
+			assertTrue(store.getSegments() < segments);
+			assertTrue(store.getLiveBytes() <= store.getUsedBytes());
+			assertIntact(store, 100, 4);
+		}
+		try (BtcBlockStore store = new BtcBlockStore(directory, SEGMENT_SIZE,
+				6);) {
+			assertIntact(store, 100, 4);
+			assertNull(store.getBlock(hash(1)));
+			assertNull(store.getBlockHash(899));
+		}
+	}
+
+	@Test
+	public void readDuringCompaction() throws Exception {
+		try (final BtcBlockStore store = new BtcBlockStore(directory,
+				SEGMENT_SIZE, 6);) {
+			for (int i = 0; i < 100; i++) {
+				assertTrue(store.putBlock(block(i, 900 - i, 101 + i)));
+			}
+			final AtomicBoolean done = new AtomicBoolean();
+			final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+			List<Thread> readers = new ArrayList<Thread>();
+			for (int r = 0; r < 4; r++) {
+				Thread reader = new Thread() {
+					@Override
+					public void run() {
+						try {
+							while (!done.get()) {
+								for (int i = 0; i < 100; i += 4) {
+									BtcBlock block = store.getBlock(hash(i));
+									assertEquals(hash(i), block.getHash());
+									assertEquals(900 - i, block.getHeight());
+								}
+							}
+						} catch (Throwable t) {
+							failure.compareAndSet(null, t);
+						}
+					}
+				};
+				reader.start();
+				readers.add(reader);
+			}
+			for (int round = 1; round <= 20; round++) {
+				for (int i = round * 100; i < (round + 1) * 100; i++) {
+					assertTrue(store.putBlock(block(i, 900 - i, 101)));
+				}
+				for (int i = round * 100; i < (round + 1) * 100; i++) {
+					assertTrue(store.remove(hash(i)));
+				}
+				for (int i = 0; (round == 1) && (i < 100); i++) {
+					if ((i % 4) != 0) {
+						assertTrue(store.remove(hash(i)));
+					}
+				}
+				store.compact();
+			}
+			done.set(true);
+			for (Thread reader : readers) {
+				reader.join();
+			}
+			if (failure.get() != null) {
+				throw new AssertionError(failure.get());
+			}
+			assertIntact(store, 100, 4);
+		}
+	}
+
+	@Test
+	public void daemon() throws Exception {
+		BtcDaemonStandIn standIn = new BtcDaemonStandIn("user", "password", 0);
+		try (BtcBlockStore store = new BtcBlockStore(directory, SEGMENT_SIZE,
+				2);
+				BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+						"password");) {
+			daemon.setBlockStore(store);
+			standIn.setResult("getblock", hash(0), json(0, TIP, 1));
+			standIn.setResult("getblock", hash(1), json(1, TIP - 1, 2));
+			standIn.setResult("getblockcount", String.valueOf(TIP + 5));
+			assertEquals(1, daemon.getBlock(hash(0)).getConfirmations());
+			assertEquals(2, daemon.getBlock(hash(1)).getConfirmations());
+			assertFalse(store.contains(hash(0)));
+			assertTrue(store.contains(hash(1)));
+			assertEquals(TIP + 5, daemon.getBlockCount());
+			assertEquals(7, daemon.getBlock(hash(1)).getConfirmations());
+			assertEquals(hash(0), daemon.getBlock(hash(1)).getNextBlockHash());
+			assertEquals(2, standIn.getCalls("getblock"));
+		} finally {
+			standIn.stop();
+		}
+	}
+
+	@Test
+	public void storeFailure() throws Exception {
+		BtcDaemonStandIn standIn = new BtcDaemonStandIn("user", "password", 0);
+		try (BtcBlockStore store = new BtcBlockStore(directory, SEGMENT_SIZE,
+				2);
+				BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+						"password");) {
+			daemon.setBlockStore(store);
+			standIn.setResult("getblock", hash(1), json(1, TIP - 1, 2));
+			assertTrue(directory.delete());
+			try {
+				store.putBlock(block(2, TIP - 2, 3));
+				fail("store write did not fail");
+			} catch (BtcException e) {
+				assertEquals(BtcException.BTC4J_ERROR_CODE, e.getCode());
+			}
+			BtcBlock block = daemon.getBlock(hash(1));
+			assertEquals(hash(1), block.getHash());
+			assertEquals(2, block.getConfirmations());
+			assertFalse(store.contains(hash(1)));
+		} finally {
+			standIn.stop();
+		}
+	}
+
+	private static void assertIntact(BtcBlockStore store, int count, int step) {
+		assertEquals((count + step - 1) / step, store.getBlocks());
+		for (int i = 0; i < count; i += step) {
+			BtcBlock block = store.getBlock(hash(i));
+			assertNotNull(block);
+			assertEquals(hash(i), block.getHash());
+			assertEquals(900 - i, block.getHeight());
+			assertEquals(hash(i + 1), block.getPreviousBlockHash());
+			assertEquals(3, block.getTransactions().size());
+			assertEquals(hash(i * 3 + 2), block.getTransactions().get(2)
+					.getTransaction());
+			assertEquals(hash(i), store.getBlockHash(900 - i));
+		}
+	}
+
+	private static BtcBlock block(int index, long height, long confirmations) {
+		BtcBlock block = new BtcBlock();
+		block.setHash(hash(index));
+		block.setHeight(height);
+		block.setConfirmations(confirmations);
+		block.setPreviousBlockHash(hash(index + 1));
+		if (confirmations > 1) {
+			block.setNextBlockHash(hash(index - 1));
+		}
+		block.setMerkleRoot(hash(index + 7));
+		block.setBits("1903a30c");
+		List<BtcTransaction> transactions = new ArrayList<BtcTransaction>();
+		for (int i = 0; i < 3; i++) {
+			BtcTransaction transaction = new BtcTransaction();
+			transaction.setTransaction(hash(index * 3 + i));
+			transactions.add(transaction);
+		}
+		block.setTransactions(transactions);
+		return block;
+	}
+
+	private static String json(int index, long height, long confirmations) {
+		StringBuilder block = new StringBuilder();
+		block.append("{\"hash\":\"").append(hash(index))
+				.append("\",\"height\":").append(height)
+				.append(",\"confirmations\":").append(confirmations)
+				.append(",\"size\":90000,\"version\":2,\"time\":1390000000")
+				.append(",\"nonce\":").append(index)
+				.append(",\"bits\":\"1903a30c\",\"difficulty\":1418481395.26")
+				.append(",\"previousblockhash\":\"").append(hash(index + 1));
+		if (confirmations > 1) {
+			block.append("\",\"nextblockhash\":\"").append(hash(index - 1));
+		}
+		return block.append("\",\"merkleroot\":\"").append(hash(index + 7))
+				.append("\",\"tx\":[\"").append(hash(index * 3))
+				.append("\"]}").toString();
+	}
+
+	private static String hash(int index) {
+		String hex = Integer.toHexString(index);
+		StringBuilder hash = new StringBuilder();
+		for (int i = hex.length(); i < 64; i++) {
+			hash.append('0');
+		}
+		return hash.append(hex).toString();
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.btc4j.core.BtcException;
+
+public class BtcCircuitBreakerBenchmark {
+	private static final int BENCHMARK_THREADS = 16;
+	private static final int BENCHMARK_TIMEOUT = 500;
+	private static final long BENCHMARK_DELAY = 2;
+	private static final long BENCHMARK_STALL = 3000;
+	private static final long BENCHMARK_DURATION = 8000;
+	private static final long BENCHMARK_OPEN_TIME = 500;
+	private static final String BENCHMARK_METHOD = "getblockcount";
+	private static final String BENCHMARK_PLAIN = "plain";
+	private static final String BENCHMARK_BREAKER = "breaker";
+
+	public static void main(String[] args) {
+		try {
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY);
+			standIn.setResult(BENCHMARK_METHOD, "277316");
+			try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+					"password", BENCHMARK_TIMEOUT);) {
+				daemon.setMaxConnections(BENCHMARK_THREADS, BENCHMARK_THREADS);
+				run(daemon, standIn, BENCHMARK_PLAIN);
+				run(daemon, standIn, BENCHMARK_BREAKER);
+			} finally {
+				standIn.stop();
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static void run(final BtcDaemon daemon, BtcDaemonStandIn standIn,
+			String mode) throws Exception {
+		final long begin = System.currentTimeMillis();
+		if (BENCHMARK_BREAKER.equals(mode)) {
+			daemon.setCircuitBreaking(10, 0.5, 0.2, BENCHMARK_OPEN_TIME)
+					.addObserver(new Observer() {
+						@Override
+						public void update(Observable breaker, Object state) {
+							System.out.println("  "
+									+ (System.currentTimeMillis() - begin)
+									+ " ms: " + state);
+						}
+					});
+		} else {
+			daemon.disableCircuitBreaking();
+		}
+		standIn.setSlowReplies(0, 0);
+		final long deadline = begin + BENCHMARK_DURATION;
+		final AtomicLong ok = new AtomicLong();
+		final AtomicLong failed = new AtomicLong();
+		final AtomicLong failedFast = new AtomicLong();
+		final AtomicLong waited = new AtomicLong();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < BENCHMARK_THREADS; i++) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					while (System.currentTimeMillis() < deadline) {
+						long start = System.nanoTime();
+						try {
+							daemon.getBlockCount();
+							ok.incrementAndGet();
+						} catch (BtcException e) {
+							if (e.getCode() == BtcJsonRpcCircuitBreaker.BTC4J_DAEMON_CIRCUIT_OPEN_CODE) {
+								failedFast.incrementAndGet();
+								try {
+									Thread.sleep(1);
+								} catch (InterruptedException ie) {
+									return;
+								}
+							} else {
+								failed.incrementAndGet();
+								waited.addAndGet(System.nanoTime() - start);
+							}
+						}
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		Thread.sleep(1000);
+		standIn.setSlowReplies(1, BENCHMARK_STALL * 10);
+		Thread.sleep(BENCHMARK_STALL);
+		standIn.setSlowReplies(0, 0);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		System.out.println(mode + ": ok=" + ok + " failed=" + failed
+				+ " failedFast=" + failedFast + " thread time blocked on failures="
+				+ (waited.get() / 1000000) + " ms");
+	}
+}
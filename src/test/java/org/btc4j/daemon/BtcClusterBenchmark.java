@@ -0,0 +1,112 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.btc4j.core.BtcException;
+
+public class BtcClusterBenchmark {
+	private static final int BENCHMARK_NODES = 4;
+	private static final int BENCHMARK_THREADS = 32;
+	private static final long BENCHMARK_DURATION = 3000;
+	private static final long BENCHMARK_DELAY = 5;
+	private static final int BENCHMARK_WORKERS = 2;
+	private static final int BENCHMARK_WORK_QUEUE = 64;
+	private static final String BENCHMARK_METHOD = "getblockhash";
+	private static final String BENCHMARK_HASH = "\"000000000000000000000000000000000000000000000000000000000000abcd\"";
+
+	public static void main(String[] args) {
+		List<BtcDaemonStandIn> standIns = new ArrayList<BtcDaemonStandIn>();
+		try {
+			for (int i = 0; i < BENCHMARK_NODES; i++) {
+				BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+						"password", BENCHMARK_DELAY);
+				standIn.setResult(BENCHMARK_METHOD, BENCHMARK_HASH);
+				standIn.setWorkQueue(BENCHMARK_WORKERS, BENCHMARK_WORK_QUEUE);
+				standIns.add(standIn);
+			}
+			for (int nodes = 1; nodes <= BENCHMARK_NODES; nodes *= 2) {
+				List<BtcDaemon> daemons = new ArrayList<BtcDaemon>();
+				for (BtcDaemonStandIn standIn : standIns.subList(0, nodes)) {
+					BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+							"password");
+					daemon.setMaxConnections(BENCHMARK_THREADS,
+							BENCHMARK_THREADS);
+					daemons.add(daemon);
+					standIn.reset();
+				}
+				try (BtcDaemonCluster cluster = new BtcDaemonCluster(daemons,
+						0);) {
+					run(cluster, standIns.subList(0, nodes));
+				}
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		} finally {
+			for (BtcDaemonStandIn standIn : standIns) {
+				standIn.stop();
+			}
+		}
+	}
+
+	private static void run(final BtcDaemonCluster cluster,
+			List<BtcDaemonStandIn> standIns) throws Exception {
+		final long deadline = System.currentTimeMillis() + BENCHMARK_DURATION;
+		final AtomicLong ok = new AtomicLong();
+		final AtomicLong failed = new AtomicLong();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < BENCHMARK_THREADS; i++) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					long index = 0;
+					while (System.currentTimeMillis() < deadline) {
+						try {
+							cluster.getBlockHash(index++);
+							ok.incrementAndGet();
+						} catch (BtcException e) {
+							failed.incrementAndGet();
+						}
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		StringBuilder spread = new StringBuilder();
+		for (BtcDaemonStandIn standIn : standIns) {
+			spread.append(' ').append(standIn.getRequests());
+		}
+		System.out.println("nodes=" + cluster.size() + ": "
+				+ (ok.get() * 1000 / BENCHMARK_DURATION) + " calls/s failed="
+				+ failed + " requests per node:" + spread);
+	}
+}
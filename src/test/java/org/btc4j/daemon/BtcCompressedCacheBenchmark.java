@@ -0,0 +1,280 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.json.Json;
+import javax.json.JsonReader;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+import org.btc4j.core.BtcRawTransaction;
+
+public class BtcCompressedCacheBenchmark {
+	private static final int BENCHMARK_TRANSACTIONS = 4000;
+	private static final int BENCHMARK_BLOCKS = 100;
+	private static final int BENCHMARK_BLOCK_TRANSACTIONS = 500;
+	private static final int BENCHMARK_THREADS = 8;
+	private static final int BENCHMARK_READS = 2000;
+	private static final long BENCHMARK_CACHE_BYTES = 2 * 1024 * 1024;
+	private static final long BENCHMARK_DELAY = 2;
+	private static final String BENCHMARK_ADDRESS = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+
+	public static void main(String[] args) {
+		try {
+			Random random = new Random(42);
+			String[] ids = new String[BENCHMARK_TRANSACTIONS];
+			String[] replies = new String[BENCHMARK_TRANSACTIONS];
+			long replyBytes = 0;
+			for (int i = 0; i < BENCHMARK_TRANSACTIONS; i++) {
+				ids[i] = hex(random, 32);
+				replies[i] = transaction(random, ids[i]);
+				replyBytes += replies[i].length();
+			}
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY);
+			for (int i = 0; i < BENCHMARK_TRANSACTIONS; i++) {
+				standIn.setResult("getrawtransaction", ids[i], replies[i]);
+			}
+			try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+					"password");) {
+				footprint(daemon, random, replies, replyBytes);
+				for (int round = 0; round < 2; round++) {
+					run(daemon, standIn, ids, 0, false);
+					run(daemon, standIn, ids, BENCHMARK_CACHE_BYTES * 7 / 8, false);
+					run(daemon, standIn, ids, BENCHMARK_CACHE_BYTES * 7 / 8, true);
+				}
+			} finally {
+				standIn.stop();
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static void footprint(BtcDaemon daemon, Random random,
+			String[] replies, long replyBytes) throws Exception {
+		long before = used();
+		List<Object> objects = new ArrayList<Object>();
+		for (String reply : replies) {
+			objects.add(parse(daemon, reply));
+		}
+		long blockBytes = 0;
+		for (int i = 0; i < BENCHMARK_BLOCKS; i++) {
+			BtcBlock block = daemon.jsonBlock(read(block(random, i)));
+			blockBytes += block(random, i).length();
+			objects.add(block);
+		}
+		long heap = used() - before;
+		BtcCompressedCache cache = new BtcCompressedCache(Long.MAX_VALUE,
+				false);
+		for (int i = 0; i < objects.size(); i++) {
+			Object object = objects.get(i);
+			if (object instanceof BtcBlock) {
+				cache.putBlock(((BtcBlock) object).getHash(), (BtcBlock) object);
+			} else {
+				cache.putRawTransaction(
+						((BtcRawTransaction) object).getTransaction(),
+						(BtcRawTransaction) object, true);
+			}
+		}
+		for (Object object : objects) {
+			if (object instanceof BtcBlock) {
+				cache.getBlock(((BtcBlock) object).getHash());
+			} else {
+				cache.getRawTransaction(
+						((BtcRawTransaction) object).getTransaction(), true);
+			}
+		}
+		objects.clear();
+		System.out.println("footprint: " + BENCHMARK_TRANSACTIONS
+				+ " transactions and " + BENCHMARK_BLOCKS + " blocks, json "
+				+ (replyBytes + blockBytes) + " bytes, objects " + heap
+				+ " bytes, compressed " + cache.getWeight() + " bytes ("
+				+ String.format("%.1f", (double) heap / cache.getWeight())
+				+ "x smaller than objects), compression ratio "
+				+ String.format("%.2f", cache.getCompressionRatio())
+				+ ", decode avg " + cache.getDecodeTime() / 1000 + " us max "
+				+ cache.getMaxDecodeTime() / 1000 + " us");
+	}
+
+	private static void run(final BtcDaemon daemon, BtcDaemonStandIn standIn,
+			final String[] ids, long compressedBytes, boolean direct)
+			throws Exception {
+		long primaryBytes = BENCHMARK_CACHE_BYTES - compressedBytes;
+		daemon.setTransactionCaching(primaryBytes, 1);
+		BtcCompressedCache secondTier = null;
+		if (compressedBytes > 0) {
+			secondTier = new BtcCompressedCache(compressedBytes, direct);
+			daemon.getTransactionCache().setSecondTier(secondTier);
+		}
+		standIn.reset();
+		final AtomicLong errors = new AtomicLong();
+		List<Thread> threads = new ArrayList<Thread>();
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_THREADS; i++) {
+			final Random random = new Random(i);
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < BENCHMARK_READS; j++) {
+						try {
+							daemon.getRawTransaction(
+									ids[random.nextInt(ids.length)], true);
+						} catch (BtcException e) {
+							errors.incrementAndGet();
+						}
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long elapsed = System.nanoTime() - start;
+		long reads = (long) BENCHMARK_THREADS * BENCHMARK_READS;
+		BtcTransactionCache cache = daemon.getTransactionCache();
+		StringBuilder line = new StringBuilder();
+		line.append((secondTier == null) ? "heap only" : (direct ? "tiered direct"
+				: "tiered heap"));
+		line.append(": ").append(reads * 1000000000L / elapsed)
+				.append(" reads/s, rpc=").append(standIn.getRequests())
+				.append(", cached ").append(cache.getSize());
+		if (secondTier != null) {
+			line.append(" + ").append(secondTier.getSize())
+					.append(" compressed, ratio ")
+					.append(String.format("%.2f",
+							secondTier.getCompressionRatio()))
+					.append(", decode avg ")
+					.append(secondTier.getDecodeTime() / 1000).append(" us");
+		}
+		line.append(", errors=").append(errors.get());
+		System.out.println(line);
+	}
+
+	private static BtcRawTransaction parse(BtcDaemon daemon, String reply)
+			throws BtcException {
+		return daemon.jsonRawTransaction(read(reply));
+	}
+
+	private static javax.json.JsonValue read(String json) {
+		try (JsonReader reader = Json.createReader(new StringReader(json));) {
+			return reader.read();
+		}
+	}
+
+	private static long used() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static String transaction(Random random, String id) {
+		StringBuilder hex = new StringBuilder();
+		StringBuilder json = new StringBuilder();
+		json.append("{\"txid\":\"").append(id)
+				.append("\",\"version\":1,\"locktime\":0,\"vin\":[");
+		for (int i = 0; i < 2; i++) {
+			String signature = hex(random, 72);
+			String key = hex(random, 33);
+			hex.append(signature).append(key);
+			json.append((i == 0) ? "" : ",").append("{\"txid\":\"")
+					.append(hex(random, 32)).append("\",\"vout\":")
+					.append(random.nextInt(4))
+					.append(",\"scriptSig\":{\"asm\":\"").append(signature)
+					.append(' ').append(key).append("\",\"hex\":\"48")
+					.append(signature).append("21").append(key)
+					.append("\"},\"sequence\":4294967295}");
+		}
+		json.append("],\"vout\":[");
+		for (int i = 0; i < 2; i++) {
+			String keyHash = hex(random, 20);
+			hex.append(keyHash);
+			json.append((i == 0) ? "" : ",").append("{\"value\":")
+					.append(random.nextInt(100000)).append(".")
+					.append(random.nextInt(100000000)).append(",\"n\":")
+					.append(i)
+					.append(",\"scriptPubKey\":{\"asm\":\"OP_DUP OP_HASH160 ")
+					.append(keyHash)
+					.append(" OP_EQUALVERIFY OP_CHECKSIG\",\"hex\":\"76a914")
+					.append(keyHash)
+					.append("88ac\",\"reqSigs\":1,\"type\":\"pubkeyhash\",\"addresses\":[\"")
+					.append(address(random)).append("\"]}}");
+		}
+		json.append("],\"hex\":\"01000000").append(hex)
+				.append("00000000\",\"blockhash\":\"").append(hex(random, 32))
+				.append("\",\"confirmations\":").append(10 + random.nextInt(1000))
+				.append(",\"time\":1398000000,\"blocktime\":1398000000}");
+		return json.toString();
+	}
+
+	private static String block(Random random, int index) {
+		StringBuilder block = new StringBuilder();
+		block.append("{\"hash\":\"").append(hex(random, 32))
+				.append("\",\"height\":").append(300000 - index)
+				.append(",\"confirmations\":").append(100 + index)
+				.append(",\"size\":250000,\"version\":2,\"time\":1398000000,\"nonce\":")
+				.append(random.nextInt(Integer.MAX_VALUE))
+				.append(",\"bits\":\"1903a30c\",\"difficulty\":6119726089.12814713")
+				.append(",\"previousblockhash\":\"").append(hex(random, 32))
+				.append("\",\"nextblockhash\":\"").append(hex(random, 32))
+				.append("\",\"merkleroot\":\"").append(hex(random, 32))
+				.append("\",\"tx\":[");
+		for (int i = 0; i < BENCHMARK_BLOCK_TRANSACTIONS; i++) {
+			block.append((i == 0) ? "\"" : ",\"").append(hex(random, 32))
+					.append('"');
+		}
+		return block.append("]}").toString();
+	}
+
+	private static String address(Random random) {
+		StringBuilder address = new StringBuilder("1");
+		for (int i = 1; i < 34; i++) {
+			address.append(BENCHMARK_ADDRESS.charAt(random
+					.nextInt(BENCHMARK_ADDRESS.length())));
+		}
+		return address.toString();
+	}
+
+	private static String hex(Random random, int bytes) {
+		byte[] value = new byte[bytes];
+		random.nextBytes(value);
+		StringBuilder hex = new StringBuilder();
+		for (byte b : value) {
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(
+					Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+}
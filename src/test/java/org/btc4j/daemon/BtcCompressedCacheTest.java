@@ -0,0 +1,211 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcInput;
+import org.btc4j.core.BtcOutput;
+import org.btc4j.core.BtcRawTransaction;
+import org.btc4j.core.BtcScript;
+import org.btc4j.core.BtcTransaction;
+import org.junit.Test;
+
+public class BtcCompressedCacheTest {
+	private static final String HASH = "00000000000000000001a2b3c4d5e6f708192a3b4c5d6e7f8091a2b3c4d5e6f7";
+	private static final String HEX = "0100000001abcdef0000ffffffff";
+	private static final boolean[] DIRECT = { false, true };
+
+	@Test
+	public void blockRoundTrip() {
+		for (boolean direct : DIRECT) {
+			BtcCompressedCache cache = new BtcCompressedCache(1024 * 1024,
+					direct);
+			assertEquals(direct, cache.isDirect());
+			assertNull(cache.getBlock(HASH));
+			cache.putBlock(HASH, block(HASH, 300000, 12, 50));
+			BtcBlock cached = cache.getBlock(HASH);
+			assertEquals(HASH, cached.getHash());
+			assertEquals(300000, cached.getHeight());
+			assertEquals(12, cached.getConfirmations());
+			assertEquals(HASH.replace('0', 'f'), cached.getPreviousBlockHash());
+			assertEquals("", cached.getNextBlockHash());
+			assertEquals("abcd", cached.getMerkleRoot());
+			assertEquals(2, cached.getVersion());
+			assertEquals(1400000000, cached.getTime());
+			assertEquals(4294967295L, cached.getNonce());
+			assertEquals(250000, cached.getSize());
+			assertEquals("1903a30c", cached.getBits());
+			assertEquals(new BigDecimal("4250217919.86953540"),
+					cached.getDifficulty());
+			assertEquals(50, cached.getTransactions().size());
+			for (int i = 0; i < 50; i++) {
+				assertEquals(transactionId(i), cached.getTransactions().get(i)
+						.getTransaction());
+			}
+			assertNotSame(cached, cache.getBlock(HASH));
+			assertTrue(cache.getCompressionRatio() > 1);
+			assertEquals(2, cache.getDecodes());
+			assertEquals(2, cache.getHits());
+			assertEquals(1, cache.getMisses());
+			assertNull(cache.getRawTransaction(HASH, false));
+		}
+	}
+
+	@Test
+	public void rawTransactionRoundTrip() {
+		for (boolean direct : DIRECT) {
+			BtcCompressedCache cache = new BtcCompressedCache(1024 * 1024,
+					direct);
+			cache.putRawTransaction("a", transaction("a", 7), true);
+			BtcRawTransaction cached = cache.getRawTransaction("a", true);
+			assertEquals("a", cached.getTransaction());
+			assertEquals(HEX, cached.getHex());
+			assertEquals(1, cached.getVersion());
+			assertEquals(7, cached.getConfirmations());
+			assertEquals(1, cached.getInputs().size());
+			BtcInput input = cached.getInputs().get(0);
+			assertEquals("a-in", input.getTransaction());
+			assertEquals(3, input.getOutput());
+			assertEquals(4294967295L, input.getSequence());
+			assertEquals(1, cached.getOutputs().size());
+			BtcOutput output = cached.getOutputs().get(0);
+			assertEquals(new BigDecimal("0.5"), output.getValue());
+			assertEquals(0, output.getIndex());
+			assertEquals("OP_DUP OP_HASH160", output.getScript().getAsm());
+			assertEquals(1, output.getScript().getRequiredSignatures());
+			assertEquals(Arrays.asList("1address"), output.getScript()
+					.getAddresses());
+			BtcRawTransaction hex = cache.getRawTransaction("a", false);
+			assertEquals(HEX, hex.getHex());
+			assertEquals("", hex.getTransaction());
+			assertTrue(hex.getOutputs().isEmpty());
+			assertNull(cache.getBlock("a"));
+		}
+	}
+
+	@Test
+	public void verboseEntriesKept() {
+		for (boolean direct : DIRECT) {
+			BtcCompressedCache cache = new BtcCompressedCache(1024 * 1024,
+					direct);
+			cache.putRawTransaction("a", transaction("a", 1), false);
+			assertNull(cache.getRawTransaction("a", true));
+			assertEquals(HEX, cache.getRawTransaction("a", false).getHex());
+			cache.putRawTransaction("a", transaction("a", 2), true);
+			assertEquals(2, cache.getRawTransaction("a", true)
+					.getConfirmations());
+			cache.putRawTransaction("a", transaction("a", 3), false);
+			assertEquals(2, cache.getRawTransaction("a", true)
+					.getConfirmations());
+			cache.remove("a");
+			assertNull(cache.getRawTransaction("a", false));
+			assertEquals(0, cache.getSize());
+		}
+	}
+
+	@Test
+	public void evictionByCompressedWeight() {
+		for (boolean direct : DIRECT) {
+			BtcCompressedCache cache = new BtcCompressedCache(2048, direct);
+			for (int i = 0; i < 40; i++) {
+				cache.putBlock(blockHash(i), block(blockHash(i), i, 1, 20));
+			}
+			assertTrue(cache.getEvictions() > 0);
+			assertTrue(cache.getWeight() <= cache.getMaxWeight());
+			assertNull(cache.getBlock(blockHash(0)));
+			assertEquals(39, cache.getBlock(blockHash(39)).getHeight());
+			cache.clear();
+			assertEquals(0, cache.getSize());
+			assertNull(cache.getBlock(blockHash(39)));
+		}
+	}
+
+	private static String blockHash(int i) {
+		return HASH.substring(0, HASH.length() - 4)
+				+ String.format("%04x", i);
+	}
+
+	private static String transactionId(int i) {
+		return String.format("%064x", i * 7919L);
+	}
+
+	private static BtcBlock block(String hash, long height,
+			long confirmations, int size) {
+		BtcBlock block = new BtcBlock();
+		block.setHash(hash);
+		block.setHeight(height);
+		block.setConfirmations(confirmations);
+		block.setPreviousBlockHash(hash.replace('0', 'f'));
+		block.setMerkleRoot("abcd");
+		block.setVersion(2);
+		block.setTime(1400000000);
+		block.setNonce(4294967295L);
+		block.setSize(250000);
+		block.setBits("1903a30c");
+		block.setDifficulty(new BigDecimal("4250217919.86953540"));
+		List<BtcTransaction> transactions = new ArrayList<BtcTransaction>();
+		for (int i = 0; i < size; i++) {
+			BtcTransaction transaction = new BtcTransaction();
+			transaction.setTransaction(transactionId(i));
+			transactions.add(transaction);
+		}
+		block.setTransactions(transactions);
+		return block;
+	}
+
+	private static BtcRawTransaction transaction(String id, long confirmations) {
+		BtcRawTransaction transaction = new BtcRawTransaction();
+		transaction.setTransaction(id);
+		transaction.setHex(HEX);
+		transaction.setVersion(1);
+		transaction.setConfirmations(confirmations);
+		List<BtcInput> inputs = new ArrayList<BtcInput>();
+		BtcInput input = new BtcInput();
+		input.setTransaction(id + "-in");
+		input.setOutput(3);
+		input.setSequence(4294967295L);
+		inputs.add(input);
+		transaction.setInputs(inputs);
+		List<BtcOutput> outputs = new ArrayList<BtcOutput>();
+		BtcOutput output = new BtcOutput();
+		output.setValue(new BigDecimal("0.5"));
+		output.setIndex(0);
+		BtcScript script = new BtcScript();
+		script.setAsm("OP_DUP OP_HASH160");
+		script.setRequiredSignatures(1);
+		script.setAddresses(new ArrayList<String>(Arrays.asList("1address")));
+		output.setScript(script);
+		outputs.add(output);
+		transaction.setOutputs(outputs);
+		return transaction;
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.btc4j.core.BtcException;
+
+public class BtcConcurrencyBenchmark {
+	private static final int BENCHMARK_THREADS = 48;
+	private static final long BENCHMARK_DURATION = 5000;
+	private static final long BENCHMARK_DELAY = 5;
+	private static final int BENCHMARK_WORKERS = 4;
+	private static final int BENCHMARK_WORK_QUEUE = 16;
+	private static final int BENCHMARK_QUEUE = 256;
+	private static final long BENCHMARK_WAIT = 2000;
+	private static final String BENCHMARK_METHOD = "getblockcount";
+	private static final String BENCHMARK_UNLIMITED = "unlimited";
+	private static final String BENCHMARK_ADAPTIVE = "adaptive";
+
+	public static void main(String[] args) {
+		try {
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY);
+			standIn.setResult(BENCHMARK_METHOD, "277316");
+			standIn.setWorkQueue(BENCHMARK_WORKERS, BENCHMARK_WORK_QUEUE);
+			try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+					"password");) {
+				daemon.setMaxConnections(BENCHMARK_THREADS, BENCHMARK_THREADS);
+				for (int round = 0; round < 2; round++) {
+					run(daemon, standIn, BENCHMARK_UNLIMITED);
+					run(daemon, standIn, BENCHMARK_ADAPTIVE);
+				}
+			} finally {
+				standIn.stop();
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static void run(final BtcDaemon daemon, BtcDaemonStandIn standIn,
+			String mode) throws Exception {
+		if (BENCHMARK_ADAPTIVE.equals(mode)) {
+			daemon.setAdaptiveConcurrency(BENCHMARK_WORKERS, BENCHMARK_QUEUE,
+					BENCHMARK_WAIT);
+		} else {
+			daemon.disableAdaptiveConcurrency();
+		}
+		standIn.reset();
+		final long deadline = System.currentTimeMillis() + BENCHMARK_DURATION;
+		final AtomicLong errors = new AtomicLong();
+		final AtomicLong shed = new AtomicLong();
+		final List<Long> latencies = Collections
+				.synchronizedList(new ArrayList<Long>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < BENCHMARK_THREADS; i++) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					while (System.currentTimeMillis() < deadline) {
+						long start = System.nanoTime();
+						try {
+							daemon.getBlockCount();
+							latencies.add(System.nanoTime() - start);
+						} catch (BtcException e) {
+							if (e.getCode() == BtcJsonRpcLimiter.BTC4J_DAEMON_OVERLOADED_CODE) {
+								shed.incrementAndGet();
+							} else {
+								errors.incrementAndGet();
+							}
+						}
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Collections.sort(latencies);
+		int calls = latencies.size();
+		System.out.println(mode + ": ok=" + (calls * 1000L / BENCHMARK_DURATION)
+				+ " calls/s errors=" + errors + " shed=" + shed
+				+ " rejected=" + standIn.getRejections() + " p50="
+				+ (percentile(latencies, 0.50) / 1000000) + " ms p99="
+				+ (percentile(latencies, 0.99) / 1000000) + " ms limit="
+				+ daemon.getConcurrencyLimit());
+	}
+
+	private static long percentile(List<Long> latencies, double percentile) {
+		if (latencies.isEmpty()) {
+			return 0;
+		}
+		return latencies.get((int) ((latencies.size() - 1) * percentile));
+	}
+}
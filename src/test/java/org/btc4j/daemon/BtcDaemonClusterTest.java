@@ -0,0 +1,170 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BtcDaemonClusterTest {
+	private static final String HASH = "0000000000000000000000000000000000000000000000000000000000000078";
+	private List<BtcDaemonStandIn> standIns = new ArrayList<BtcDaemonStandIn>();
+	private BtcDaemonCluster cluster;
+
+	@Before
+	public void setUp() throws Exception {
+		List<BtcDaemon> daemons = new ArrayList<BtcDaemon>();
+		for (int i = 0; i < 2; i++) {
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", 0);
+			standIn.setResult("getblockcount", "100");
+			standIn.setResult("getblockhash", "\"" + HASH + "\"");
+			standIns.add(standIn);
+			daemons.add(new BtcDaemon(standIn.getUrl(), "user", "password"));
+		}
+		cluster = new BtcDaemonCluster(daemons, 0);
+		cluster.refreshHeights();
+		for (BtcDaemonStandIn standIn : standIns) {
+			standIn.reset();
+		}
+	}
+
+	@After
+	public void tearDown() {
+		cluster.close();
+		for (BtcDaemonStandIn standIn : standIns) {
+			standIn.stop();
+		}
+	}
+
+	@Test
+	public void heightWaitIsRateLimited() throws Exception {
+		cluster.setHeightWait(1000);
+		assertEquals(1, waitFor(1));
+		long single = heightCalls();
+		assertTrue("getblockcount calls: " + single, single <= 12);
+		for (BtcDaemonStandIn standIn : standIns) {
+			standIn.reset();
+		}
+		assertEquals(8, waitFor(8));
+		long shared = heightCalls();
+		assertTrue("getblockcount calls: " + shared, shared <= 12);
+	}
+
+	@Test
+	public void readAll() throws Exception {
+		List<String> hashes = new ArrayList<String>();
+		for (int i = 0; i < 10; i++) {
+			hashes.add("hash" + i);
+			if (i != 7) {
+				for (BtcDaemonStandIn standIn : standIns) {
+					standIn.setResult("getblock", "hash" + i, "{\"hash\":\"hash"
+							+ i + "\",\"height\":" + i + ",\"confirmations\":"
+							+ (101 - i) + ",\"tx\":[]}");
+				}
+			}
+		}
+		for (int i = 0; i < 3; i++) {
+			BtcBatchResult<BtcBlock> blocks = cluster.getBlocks(hashes);
+			assertEquals(10, blocks.size());
+			assertEquals(1, blocks.getErrors());
+			for (int j = 0; j < 10; j++) {
+				if (j == 7) {
+					assertNull(blocks.get(j));
+					assertEquals(-32601, blocks.getError(j).getCode());
+				} else {
+					assertEquals(j, blocks.get(j).getHeight());
+				}
+			}
+		}
+		assertEquals(6, standIns.get(0).getRequests()
+				+ standIns.get(1).getRequests());
+	}
+
+	@Test
+	public void heightRise() throws Exception {
+		cluster.setHeightWait(5000);
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(300);
+				} catch (InterruptedException e) {
+					return;
+				}
+				standIns.get(1).setResult("getblockcount", "120");
+			}
+		}).start();
+		assertEquals(HASH, cluster.getBlockHash(120));
+		assertEquals(120, cluster.getHeight(1));
+		assertEquals(100, cluster.getHeight(0));
+		assertEquals(0, standIns.get(0).getCalls("getblockhash"));
+		assertEquals(1, standIns.get(1).getCalls("getblockhash"));
+	}
+
+	private int waitFor(int waiters) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(waiters);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		for (int i = 0; i < waiters; i++) {
+			results.add(executor.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					try {
+						cluster.getBlockHash(120);
+						return false;
+					} catch (BtcException e) {
+						return true;
+					}
+				}
+			}));
+		}
+		int behind = 0;
+		for (Future<Boolean> result : results) {
+			if (result.get()) {
+				behind++;
+			}
+		}
+		executor.shutdown();
+		return behind;
+	}
+
+	private long heightCalls() {
+		long calls = 0;
+		for (BtcDaemonStandIn standIn : standIns) {
+			calls += standIn.getCalls("getblockcount");
+		}
+		return calls;
+	}
+}
@@ -0,0 +1,277 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.commons.codec.binary.Base64;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+public class BtcDaemonStandIn implements HttpHandler {
+	private static final String STANDIN_HOST = "127.0.0.1";
+	private static final String STANDIN_REALM = "Basic realm=\"jsonrpc\"";
+	private HttpServer server;
+	private String authorization;
+	private long delay;
+	private Map<String, String> results = new ConcurrentHashMap<String, String>();
+	private AtomicLong requests = new AtomicLong();
+	private AtomicLong challenges = new AtomicLong();
+	private AtomicLong rejections = new AtomicLong();
+	private ConcurrentMap<String, AtomicLong> calls = new ConcurrentHashMap<String, AtomicLong>();
+	private AtomicInteger queued = new AtomicInteger();
+	private AtomicInteger dropped = new AtomicInteger();
+	private AtomicInteger answered = new AtomicInteger();
+	private volatile Semaphore workers;
+	private volatile int workQueue;
+	private volatile double slowFraction;
+	private volatile long slowDelay;
+
+	public BtcDaemonStandIn(String account, String password, long delay)
+			throws IOException {
+		this(account, password, delay, null);
+	}
+
+	public BtcDaemonStandIn(String account, String password, long delay,
+			SSLContext sslContext) throws IOException {
+		this.authorization = "Basic "
+				+ Base64.encodeBase64String((account + ":" + password)
+						.getBytes("UTF-8"));
+		this.delay = delay;
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		if (sslContext == null) {
+			server = HttpServer.create(new InetSocketAddress(STANDIN_HOST, 0),
+					0);
+		} else {
+			HttpsServer httpsServer = HttpsServer.create(new InetSocketAddress(
+					STANDIN_HOST, 0), 0);
+			httpsServer.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+			server = httpsServer;
+		}
+		server.createContext("/", this);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+	}
+
+	public URL getUrl() throws IOException {
+		return new URL(((server instanceof HttpsServer) ? "https" : "http")
+				+ "://" + STANDIN_HOST + ":" + server.getAddress().getPort());
+	}
+
+	public void setResult(String method, String result) {
+		results.put(method, result);
+	}
+
+	public void setResult(String method, String param, String result) {
+		results.put(method + ":" + param, result);
+	}
+
+	public long getRequests() {
+		return requests.get();
+	}
+
+	public long getCalls(String method) {
+		AtomicLong count = calls.get(method);
+		return (count == null) ? 0 : count.get();
+	}
+
+	public long getChallenges() {
+		return challenges.get();
+	}
+
+	public long getRejections() {
+		return rejections.get();
+	}
+
+	public void setWorkQueue(int threads, int depth) {
+		workQueue = threads + depth;
+		workers = new Semaphore(threads, true);
+	}
+
+	public void setSlowReplies(double fraction, long delay) {
+		slowFraction = fraction;
+		slowDelay = delay;
+	}
+
+	public void setDroppedReplies(int count) {
+		setDroppedReplies(count, 0);
+	}
+
+	public void setDroppedReplies(int count, int after) {
+		answered.set(after);
+		dropped.set(count);
+	}
+
+	public void reset() {
+		requests.set(0);
+		challenges.set(0);
+		rejections.set(0);
+		calls.clear();
+	}
+
+	public void stop() {
+		server.stop(0);
+	}
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		if ((answered.get() > 0) && (answered.getAndDecrement() > 0)) {
+			handleRequest(exchange);
+			return;
+		}
+		if ((dropped.get() > 0) && (dropped.getAndDecrement() > 0)) {
+			exchange.close();
+			return;
+		}
+		Semaphore currentWorkers = workers;
+		if (currentWorkers != null) {
+			try {
+				if (queued.incrementAndGet() > workQueue) {
+					rejections.incrementAndGet();
+					byte[] body = "Work queue depth exceeded".getBytes("UTF-8");
+					exchange.sendResponseHeaders(500, body.length);
+					try (OutputStream out = exchange.getResponseBody();) {
+						out.write(body);
+					}
+					exchange.close();
+					return;
+				}
+				currentWorkers.acquireUninterruptibly();
+				try {
+					handleRequest(exchange);
+				} finally {
+					currentWorkers.release();
+				}
+			} finally {
+				queued.decrementAndGet();
+			}
+		} else {
+			handleRequest(exchange);
+		}
+	}
+
+	private void handleRequest(HttpExchange exchange) throws IOException {
+		try {
+			if (delay > 0) {
+				Thread.sleep(delay);
+			}
+			if ((slowFraction > 0) && (Math.random() < slowFraction)) {
+				Thread.sleep(slowDelay);
+			}
+		} catch (InterruptedException e) {
+		}
+		try (InputStream in = exchange.getRequestBody();
+				JsonReader reader = Json.createReader(in);) {
+			if (!authorization.equals(exchange.getRequestHeaders().getFirst(
+					"Authorization"))) {
+				challenges.incrementAndGet();
+				while (in.read() >= 0) {
+				}
+				exchange.getResponseHeaders().add("WWW-Authenticate",
+						STANDIN_REALM);
+				exchange.sendResponseHeaders(401, -1);
+				return;
+			}
+			JsonStructure request = reader.read();
+			StringBuilder reply = new StringBuilder();
+			if (request instanceof JsonArray) {
+				reply.append('[');
+				for (JsonObject element : ((JsonArray) request)
+						.getValuesAs(JsonObject.class)) {
+					if (reply.length() > 1) {
+						reply.append(',');
+					}
+					reply.append(reply(element));
+				}
+				reply.append(']');
+			} else {
+				reply.append(reply((JsonObject) request));
+			}
+			byte[] body = reply.toString().getBytes("UTF-8");
+			exchange.getResponseHeaders().add("Content-Type",
+					"application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody();) {
+				out.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private String reply(JsonObject request) {
+		String method = request.getString("method", "");
+		AtomicLong count = calls.get(method);
+		if (count == null) {
+			calls.putIfAbsent(method, new AtomicLong());
+			count = calls.get(method);
+		}
+		count.incrementAndGet();
+		JsonValue id = request.get("id");
+		JsonValue params = request.get("params");
+		String result = null;
+		if ((params instanceof JsonArray) && !((JsonArray) params).isEmpty()) {
+			JsonValue param = ((JsonArray) params).get(0);
+			result = results.get(method
+					+ ":"
+					+ ((param instanceof JsonString) ? ((JsonString) param)
+							.getString() : param.toString()));
+		}
+		if (result == null) {
+			result = results.get(method);
+		}
+		if (result == null) {
+			return "{\"result\":null,\"error\":{\"code\":-32601,\"message\":\"Method not found\"},\"id\":"
+					+ id + "}";
+		}
+		return "{\"result\":" + result + ",\"error\":null,\"id\":" + id + "}";
+	}
+}
@@ -36,6 +36,7 @@ import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Vector;
+import java.util.concurrent.Future;
 
 import org.btc4j.core.BtcAccount;
 import org.btc4j.core.BtcAddedNode;
@@ -167,6 +168,8 @@ public class BtcDaemonTest {
 			assertNotNull(stop);
 			assertTrue(stop.length() >= 0);
 		}
+		BITCOIND_WITHOUT_LISTENER.close();
+		BITCOIND_WITH_LISTENER.close();
 	}
 
 	@Test
@@ -346,6 +349,30 @@ public class BtcDaemonTest {
 		}
 	}
 
+	@Test
+	public void getBlockAsync() throws Exception {
+		Future<BtcBlock> block1 = BITCOIND_WITH_LISTENER
+				.getBlockAsync(BITCOIND_BLOCK_1);
+		Future<BtcBlock> block2 = BITCOIND_WITH_LISTENER
+				.getBlockAsync(BITCOIND_BLOCK_2);
+		assertEquals(BITCOIND_BLOCK_1, block1.get().getHash());
+		assertEquals(BITCOIND_BLOCK_2, block2.get().getHash());
+	}
+
+	@Test
+	public void getBlocks() throws BtcException {
+		List<String> hashes = new ArrayList<String>();
+		hashes.add(BITCOIND_BLOCK_1);
+		hashes.add("bad block");
+		hashes.add(BITCOIND_BLOCK_2);
+		List<BtcBlock> blocks = BITCOIND_WITH_LISTENER.getBlocks(hashes);
+		assertNotNull(blocks);
+		assertEquals(3, blocks.size());
+		assertEquals(BITCOIND_BLOCK_1, blocks.get(0).getHash());
+		assertNull(blocks.get(1));
+		assertEquals(BITCOIND_BLOCK_2, blocks.get(2).getHash());
+	}
+
 	@Test
 	public void getBlockCount() throws BtcException {
 		long blocks = BITCOIND_WITH_LISTENER.getBlockCount();
@@ -456,6 +483,18 @@ public class BtcDaemonTest {
 		assertNotNull(transaction);
 	}
 
+	@Test
+	public void getRawTransactions() throws BtcException {
+		List<String> transactionIds = new ArrayList<String>();
+		transactionIds.add(BITCOIND_RAW_TRANSACTION_2);
+		transactionIds.add(BITCOIND_TRANSACTION_2);
+		List<BtcRawTransaction> transactions = BITCOIND_WITH_LISTENER
+				.getRawTransactions(transactionIds, true);
+		assertNotNull(transactions);
+		assertEquals(2, transactions.size());
+		assertNotNull(transactions.get(0));
+	}
+
 	@Test
 	public void getReceivedByAccount() throws BtcException {
 		BigDecimal balance = BITCOIND_WITH_LISTENER.getReceivedByAccount("");
@@ -489,6 +528,21 @@ public class BtcDaemonTest {
 		assertNotNull(details);
 	}
 
+	@Test
+	public void getTransactions() throws BtcException {
+		List<String> transactionIds = new ArrayList<String>();
+		transactionIds.add(BITCOIND_TRANSACTION_1);
+		transactionIds.add(BITCOIND_TRANSACTION_2);
+		List<BtcTransaction> transactions = BITCOIND_WITHOUT_LISTENER
+				.getTransactions(transactionIds);
+		assertNotNull(transactions);
+		assertEquals(2, transactions.size());
+		assertEquals(BITCOIND_TRANSACTION_1, transactions.get(0)
+				.getTransaction());
+		assertEquals(BITCOIND_TRANSACTION_2, transactions.get(1)
+				.getTransaction());
+	}
+
 	@Test
 	public void getTransactionOutput() throws BtcException {
 		BtcOutput output = BITCOIND_WITHOUT_LISTENER.getTransactionOutput(BITCOIND_RAW_TRANSACTION_2, 1);
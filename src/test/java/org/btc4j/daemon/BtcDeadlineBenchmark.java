@@ -0,0 +1,119 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.JsonValue;
+
+import org.btc4j.core.BtcException;
+
+public class BtcDeadlineBenchmark {
+	private static final int BENCHMARK_CONNECTIONS = 2;
+	private static final int BENCHMARK_THREADS = 8;
+	private static final int BENCHMARK_CALLS = 50;
+	private static final long BENCHMARK_DELAY = 10;
+	private static final double BENCHMARK_SLOW_FRACTION = 0.05;
+	private static final long BENCHMARK_SLOW_DELAY = 2000;
+	private static final long BENCHMARK_DEADLINE = 250;
+	private static final String BENCHMARK_METHOD = "getdifficulty";
+	private static final String BENCHMARK_UNBOUNDED = "unbounded";
+	private static final String BENCHMARK_DEADLINES = "deadline";
+
+	public static void main(String[] args) {
+		try {
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY);
+			standIn.setResult(BENCHMARK_METHOD, "1.0");
+			standIn.setSlowReplies(BENCHMARK_SLOW_FRACTION,
+					BENCHMARK_SLOW_DELAY);
+			try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+					"password");) {
+				daemon.setMaxConnections(BENCHMARK_CONNECTIONS,
+						BENCHMARK_CONNECTIONS);
+				for (int round = 0; round < 2; round++) {
+					run(daemon, BENCHMARK_UNBOUNDED);
+					run(daemon, BENCHMARK_DEADLINES);
+				}
+			} finally {
+				standIn.stop();
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static void run(final BtcDaemon daemon, final String mode)
+			throws Exception {
+		final List<Long> latencies = Collections
+				.synchronizedList(new ArrayList<Long>());
+		final AtomicInteger expired = new AtomicInteger();
+		List<Thread> threads = new ArrayList<Thread>();
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_THREADS; i++) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < BENCHMARK_CALLS; j++) {
+						long start = System.nanoTime();
+						try {
+							if (BENCHMARK_DEADLINES.equals(mode)) {
+								daemon.invoke(BENCHMARK_METHOD, null,
+										BtcJsonValueBinder.VALUE,
+										BENCHMARK_DEADLINE);
+							} else {
+								JsonValue value = daemon
+										.invoke(BENCHMARK_METHOD);
+								value.getValueType();
+							}
+						} catch (BtcException e) {
+							if (e.getCode() != BtcJsonRpcHttpClient.BTC4J_DAEMON_DEADLINE_CODE) {
+								e.printStackTrace();
+							}
+							expired.incrementAndGet();
+						}
+						latencies.add(System.nanoTime() - start);
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long elapsed = System.nanoTime() - start;
+		Collections.sort(latencies);
+		System.out.println(mode + ": " + latencies.size() + " calls in "
+				+ (elapsed / 1000000) + " ms, p50="
+				+ (latencies.get(latencies.size() / 2) / 1000000) + " ms p99="
+				+ (latencies.get(latencies.size() * 99 / 100) / 1000000)
+				+ " ms max="
+				+ (latencies.get(latencies.size() - 1) / 1000000)
+				+ " ms, expired=" + expired.get());
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BtcHedgingBenchmark {
+	private static final int BENCHMARK_THREADS = 8;
+	private static final int BENCHMARK_CALLS = 400;
+	private static final long BENCHMARK_DELAY = 2;
+	private static final double BENCHMARK_SLOW_FRACTION = 0.03;
+	private static final long BENCHMARK_SLOW_DELAY = 200;
+	private static final String BENCHMARK_METHOD = "getblockhash";
+	private static final String BENCHMARK_PLAIN = "plain";
+	private static final String BENCHMARK_HEDGED = "hedged";
+	private static final String BENCHMARK_HASH = "\"000000000000000000000000000000000000000000000000000000000000abcd\"";
+
+	public static void main(String[] args) {
+		try {
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY);
+			standIn.setResult(BENCHMARK_METHOD, BENCHMARK_HASH);
+			standIn.setSlowReplies(BENCHMARK_SLOW_FRACTION,
+					BENCHMARK_SLOW_DELAY);
+			try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+					"password");) {
+				BtcJsonRpcRetryPolicy policy = daemon
+						.getRetryPolicy(BENCHMARK_METHOD);
+				for (int round = 0; round < 2; round++) {
+					daemon.removeRetryPolicy(BENCHMARK_METHOD);
+					run(daemon, standIn, BENCHMARK_PLAIN);
+					daemon.setRetryPolicy(BENCHMARK_METHOD, policy);
+					run(daemon, standIn, BENCHMARK_HEDGED);
+				}
+			} finally {
+				standIn.stop();
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static void run(final BtcDaemon daemon, BtcDaemonStandIn standIn,
+			String mode) throws Exception {
+		standIn.reset();
+		final List<Long> latencies = Collections
+				.synchronizedList(new ArrayList<Long>());
+		List<Thread> threads = new ArrayList<Thread>();
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_THREADS; i++) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int call = 0; call < BENCHMARK_CALLS; call++) {
+						long start = System.nanoTime();
+						try {
+							daemon.getBlockHash(call);
+							latencies.add(System.nanoTime() - start);
+						} catch (Exception e) {
+							e.printStackTrace();
+						}
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long elapsed = System.nanoTime() - start;
+		Collections.sort(latencies);
+		System.out.println(mode + ": calls=" + latencies.size() + " requests="
+				+ standIn.getRequests() + " p50="
+				+ (percentile(latencies, 0.50) / 1000) + " us p99="
+				+ (percentile(latencies, 0.99) / 1000) + " us p999="
+				+ (percentile(latencies, 0.999) / 1000) + " us elapsed="
+				+ (elapsed / 1000000) + " ms");
+	}
+
+	private static long percentile(List<Long> latencies, double percentile) {
+		if (latencies.isEmpty()) {
+			return 0;
+		}
+		return latencies.get((int) ((latencies.size() - 1) * percentile));
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcInput;
+import org.btc4j.core.BtcOutput;
+import org.btc4j.core.BtcPeer;
+import org.btc4j.core.BtcRawTransaction;
+import org.btc4j.core.BtcScript;
+import org.btc4j.core.BtcTransaction;
+import org.btc4j.core.BtcTransactionDetail;
+
+public class BtcJsonAssert {
+	public static void assertBlock(BtcBlock expected, BtcBlock actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.getHash(), actual.getHash());
+		assertEquals(expected.getConfirmations(), actual.getConfirmations());
+		assertEquals(expected.getSize(), actual.getSize());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		assertEquals(expected.getVersion(), actual.getVersion());
+		assertEquals(expected.getMerkleRoot(), actual.getMerkleRoot());
+		assertEquals(expected.getTime(), actual.getTime());
+		assertEquals(expected.getNonce(), actual.getNonce());
+		assertEquals(expected.getBits(), actual.getBits());
+		assertEquals(expected.getDifficulty(), actual.getDifficulty());
+		assertEquals(expected.getPreviousBlockHash(),
+				actual.getPreviousBlockHash());
+		assertEquals(expected.getNextBlockHash(), actual.getNextBlockHash());
+		List<BtcTransaction> transactions = actual.getTransactions();
+		assertEquals(expected.getTransactions().size(), transactions.size());
+		for (int i = 0; i < transactions.size(); i++) {
+			assertEquals(expected.getTransactions().get(i).getTransaction(),
+					transactions.get(i).getTransaction());
+		}
+	}
+
+	public static void assertRawTransaction(BtcRawTransaction expected,
+			BtcRawTransaction actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.getHex(), actual.getHex());
+		assertEquals(expected.getTransaction(), actual.getTransaction());
+		assertEquals(expected.getVersion(), actual.getVersion());
+		assertEquals(expected.getLockTime(), actual.getLockTime());
+		assertEquals(expected.getBlockHash(), actual.getBlockHash());
+		assertEquals(expected.getConfirmations(), actual.getConfirmations());
+		assertEquals(expected.getTime(), actual.getTime());
+		assertEquals(expected.getBlockTime(), actual.getBlockTime());
+		assertEquals(expected.isComplete(), actual.isComplete());
+		List<BtcInput> inputs = actual.getInputs();
+		assertEquals(expected.getInputs().size(), inputs.size());
+		for (int i = 0; i < inputs.size(); i++) {
+			assertInput(expected.getInputs().get(i), inputs.get(i));
+		}
+		List<BtcOutput> outputs = actual.getOutputs();
+		assertEquals(expected.getOutputs().size(), outputs.size());
+		for (int i = 0; i < outputs.size(); i++) {
+			assertOutput(expected.getOutputs().get(i), outputs.get(i));
+		}
+	}
+
+	public static void assertTransaction(BtcTransaction expected,
+			BtcTransaction actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.getTransaction(), actual.getTransaction());
+		assertEquals(expected.getAmount(), actual.getAmount());
+		assertEquals(expected.getFee(), actual.getFee());
+		assertEquals(expected.getConfirmations(), actual.getConfirmations());
+		assertEquals(expected.getTime(), actual.getTime());
+		assertEquals(expected.getTimeReceived(), actual.getTimeReceived());
+		assertEquals(expected.getBlockHash(), actual.getBlockHash());
+		assertEquals(expected.getBlockIndex(), actual.getBlockIndex());
+		assertEquals(expected.getBlockTime(), actual.getBlockTime());
+		List<BtcTransactionDetail> details = actual.getDetails();
+		assertEquals(expected.getDetails().size(), details.size());
+		for (int i = 0; i < details.size(); i++) {
+			assertDetail(expected.getDetails().get(i), details.get(i));
+		}
+	}
+
+	public static void assertInput(BtcInput expected, BtcInput actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.getTransaction(), actual.getTransaction());
+		assertEquals(expected.getOutput(), actual.getOutput());
+		assertEquals(expected.getSequence(), actual.getSequence());
+		assertScript(expected.getScript(), actual.getScript());
+	}
+
+	public static void assertOutput(BtcOutput expected, BtcOutput actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.getTransaction(), actual.getTransaction());
+		assertEquals(expected.getOutput(), actual.getOutput());
+		assertEquals(expected.getBestBlock(), actual.getBestBlock());
+		assertEquals(expected.getConfirmations(), actual.getConfirmations());
+		assertEquals(expected.getValue(), actual.getValue());
+		assertEquals(expected.getIndex(), actual.getIndex());
+		assertEquals(expected.getVersion(), actual.getVersion());
+		assertEquals(expected.isCoinbase(), actual.isCoinbase());
+		assertScript(expected.getScript(), actual.getScript());
+		assertDetail(expected.getDetail(), actual.getDetail());
+	}
+
+	public static void assertScript(BtcScript expected, BtcScript actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.getAsm(), actual.getAsm());
+		assertEquals(expected.getPublicKey(), actual.getPublicKey());
+		assertEquals(expected.getRequiredSignatures(),
+				actual.getRequiredSignatures());
+		assertEquals(expected.getType(), actual.getType());
+		assertEquals(expected.getAddresses(), actual.getAddresses());
+	}
+
+	public static void assertPeer(BtcPeer expected, BtcPeer actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.getNetworkAddress(), actual.getNetworkAddress());
+		assertEquals(expected.getServices(), actual.getServices());
+		assertEquals(expected.getLastSend(), actual.getLastSend());
+		assertEquals(expected.getLastReceived(), actual.getLastReceived());
+		assertEquals(expected.getBytesSent(), actual.getBytesSent());
+		assertEquals(expected.getBytesReceived(), actual.getBytesReceived());
+		assertEquals(expected.getConnectionTime(), actual.getConnectionTime());
+		assertEquals(expected.getVersion(), actual.getVersion());
+		assertEquals(expected.getSubVersion(), actual.getSubVersion());
+		assertEquals(expected.isInbound(), actual.isInbound());
+		assertEquals(expected.getStartingHeight(), actual.getStartingHeight());
+		assertEquals(expected.getBanScore(), actual.getBanScore());
+		assertEquals(expected.isSyncNode(), actual.isSyncNode());
+	}
+
+	public static void assertDetail(BtcTransactionDetail expected,
+			BtcTransactionDetail actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.getAccount(), actual.getAccount());
+		assertEquals(expected.getAddress(), actual.getAddress());
+		assertEquals(expected.getCategory(), actual.getCategory());
+		assertEquals(expected.getAmount(), actual.getAmount());
+		assertEquals(expected.getFee(), actual.getFee());
+	}
+}
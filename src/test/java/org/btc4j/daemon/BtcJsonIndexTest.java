@@ -0,0 +1,235 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.btc4j.daemon.BtcJsonAssert.*;
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+import org.btc4j.core.BtcRawTransaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BtcJsonIndexTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String HASH = "000000000000000000000000000000000000000000000000000000000000abcd";
+	private static final String TXID = "4a5e1e4baab89f3a32518a88c31bc87f618f76673e2cc77ab2127b7afdeda33b";
+	private static final String BLOCK = "{\"hash\":\"" + HASH
+			+ "\",\"confirmations\":12,\"size\":285,\"height\":300000,"
+			+ "\"version\":2,\"merkleroot\":\"" + TXID + "\",\"tx\":[\""
+			+ TXID + "\", \"" + HASH + "\"],\"time\":1399703554,"
+			+ "\"nonce\":4294967295,\"bits\":\"1900896c\","
+			+ "\"difficulty\":8000872135.96816540,\"chainwork\":"
+			+ "{\"ignored\":[1,[2,{\"x\":\"]}\\\"\"}]]},"
+			+ "\"previousblockhash\":\"" + HASH.replace('0', 'f') + "\"}";
+	private static final String RAW_TRANSACTION = "{\"hex\":\"0100\","
+			+ "\"txid\":\"" + TXID + "\",\"version\":1,\"locktime\":0,"
+			+ "\"vin\":[{\"txid\":\"" + HASH + "\",\"vout\":3,"
+			+ "\"scriptSig\":{\"asm\":\"3045 02\",\"hex\":\"4830\"},"
+			+ "\"sequence\":4294967295},{\"coinbase\":\"04ff\","
+			+ "\"sequence\":1}],\"vout\":[{\"value\":0.01000000,\"n\":0,"
+			+ "\"scriptPubKey\":{\"asm\":\"OP_DUP OP_HASH160\","
+			+ "\"hex\":\"76a9\",\"reqSigs\":1,\"type\":\"pubkeyhash\","
+			+ "\"addresses\":[\"1address\",\"2address\"]}},{\"value\":-0,"
+			+ "\"n\":1,\"scriptPubKey\":null}],\"blockhash\":\"" + HASH
+			+ "\",\"confirmations\":7,\"time\":1399703554,"
+			+ "\"blocktime\":1399703555}";
+	private BtcDaemon daemon;
+
+	@Before
+	public void setUp() throws Exception {
+		daemon = new BtcDaemon(new URL("http://localhost:1"));
+	}
+
+	@After
+	public void tearDown() {
+		daemon.close();
+	}
+
+	@Test
+	public void fields() throws BtcException {
+		BtcJsonIndex index = index(" {\"s\":\"plain\",\"e\":\"a\\\"b\\\\c\\/d\\u00e9\\n\","
+				+ "\"i\":-42,\"d\":1.5E+2,\"z\":0,\"n\":null,\"t\":true,"
+				+ "\"f\":false,\"o\":{\"k\":\"v\",\"a\":[{}]},"
+				+ "\"a\":[\"x\", null, 3, \"y\\\"\"],\"empty\":[]} ");
+		assertEquals(1, index.getStart());
+		assertEquals(index.toString().length() + 1, index.getEnd());
+		assertEquals(11, index.size());
+		assertEquals("plain", index.string("s"));
+		assertEquals("a\"b\\c/d\u00e9\n", index.string("e"));
+		assertEquals(-42, index.number("i"));
+		assertEquals(150, index.number("d"));
+		assertEquals(new BigDecimal("1.5E+2"), index.decimal("d"));
+		assertEquals(0, index.number("z"));
+		assertTrue(index.bool("t", false));
+		assertFalse(index.bool("f", true));
+		assertTrue(index.bool("n", true));
+		assertTrue(index.isNull("n"));
+		assertFalse(index.isNull("s"));
+		assertEquals(Arrays.asList("x", "", "", "y\""), index.strings("a"));
+		assertEquals(Collections.emptyList(), index.strings("empty"));
+		BtcJsonIndex object = index.object("o");
+		assertEquals(2, object.size());
+		assertEquals("v", object.string("k"));
+		assertEquals("{\"k\":\"v\",\"a\":[{}]}", object.toString());
+		assertNull(object.object("a"));
+	}
+
+	@Test
+	public void missingAndMistypedFields() throws BtcException {
+		BtcJsonIndex index = index("{\"s\":1,\"i\":\"1\",\"n\":null}");
+		assertFalse(index.contains("missing"));
+		assertTrue(index.contains("n"));
+		assertTrue(index.isNull("missing"));
+		assertEquals("", index.string("missing"));
+		assertEquals("", index.string("s"));
+		assertEquals("", index.string("n"));
+		assertEquals(0, index.number("missing"));
+		assertEquals(0, index.number("i"));
+		assertEquals(0, index.number("n"));
+		assertEquals(BigDecimal.ZERO, index.decimal("n"));
+		assertTrue(index.bool("missing", true));
+		assertTrue(index.strings("missing").isEmpty());
+		assertTrue(index.strings("s").isEmpty());
+		assertNull(index.object("missing"));
+		assertNull(index.object("n"));
+		assertEquals(0, index("{ }").size());
+	}
+
+	@Test
+	public void malformed() {
+		String[] documents = { "", "  ", "[]", "{", "{\"a\"", "{\"a\":",
+				"{\"a\":1", "{\"a\":1,}", "{\"a\" 1}", "{a:1}",
+				"{\"a\":\"b}", "{\"a\":\"b\\", "{\"a\":\"\\x\"}",
+				"{\"a\":\"\\u12\"}", "{\"a\":\"\\u12g4\"}",
+				"{\"a\":\"\t\"}", "{\"a\":[1,2}", "{\"a\":{\"b\":1]}",
+				"{\"a\":[\"b\":1]}", "{\"a\":[[[]]}", "{\"a\":tru}",
+				"{\"a\":nul}", "{\"a\":-}", "{\"a\":1.}", "{\"a\":.5}",
+				"{\"a\":1e}", "{\"a\":01}", "{\"a\":0x1}", "{\"a\":[1 x]}" };
+		for (String document : documents) {
+			try {
+				index(document);
+				fail("accepted " + document);
+			} catch (BtcException e) {
+				assertEquals(document, BtcException.BTC4J_ERROR_CODE,
+						e.getCode());
+			}
+		}
+	}
+
+	@Test
+	public void malformedNestedObject() throws BtcException {
+		BtcJsonIndex index = index("{\"a\":{\"b\" 1}}");
+		try {
+			index.object("a");
+			fail("accepted nested object");
+		} catch (BtcException e) {
+			assertEquals(BtcException.BTC4J_ERROR_CODE, e.getCode());
+		}
+	}
+
+	@Test
+	public void blockView() throws BtcException {
+		assertBlockView(BLOCK);
+		assertBlockView("{}");
+		assertBlockView("{\"hash\":null,\"height\":null,\"difficulty\":null,"
+				+ "\"tx\":null,\"nonce\":1}");
+		assertBlockView("{\"tx\":[null,\"a\\u0062\"],\"bits\":1}");
+	}
+
+	@Test
+	public void blockViewSetters() throws BtcException {
+		BtcBlockView view = new BtcBlockView(index(BLOCK));
+		view.setHeight(1);
+		view.setHash("changed");
+		assertEquals(1, view.getHeight());
+		assertEquals("changed", view.getHash());
+		assertEquals(12, view.getConfirmations());
+		assertEquals(2, view.getTransactions().size());
+		view.getTransactions().clear();
+		assertTrue(view.getTransactions().isEmpty());
+	}
+
+	@Test
+	public void rawTransactionView() throws BtcException {
+		assertRawTransactionView(RAW_TRANSACTION);
+		assertRawTransactionView("{}");
+		assertRawTransactionView("{\"complete\":false,\"vin\":null,"
+				+ "\"vout\":[],\"locktime\":null,\"hex\":null}");
+	}
+
+	@Test
+	public void viewsFromDaemon() throws Exception {
+		BtcDaemonStandIn standIn = new BtcDaemonStandIn("user", "password",
+				0);
+		standIn.setResult("getblock", BLOCK);
+		standIn.setResult("getrawtransaction", RAW_TRANSACTION);
+		try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+				"password");) {
+			assertBlock(daemon.getBlock(HASH), daemon.getBlockView(HASH));
+			assertRawTransaction(daemon.getRawTransaction(TXID, true),
+					daemon.getRawTransactionView(TXID));
+			standIn.setResult("getblock", "null");
+			assertNull(daemon.getBlockView(HASH));
+		} finally {
+			standIn.stop();
+		}
+	}
+
+	private void assertBlockView(String document) throws BtcException {
+		BtcBlock expected = daemon.jsonBlock(object(document));
+		assertBlock(expected, new BtcBlockView(index(document)));
+		assertEquals(expected.toString(),
+				new BtcBlockView(index(document)).toString());
+	}
+
+	private void assertRawTransactionView(String document)
+			throws BtcException {
+		BtcRawTransaction expected = daemon
+				.jsonRawTransaction(object(document));
+		assertRawTransaction(expected, new BtcRawTransactionView(
+				index(document)));
+	}
+
+	private static BtcJsonIndex index(String document) throws BtcException {
+		return new BtcJsonIndex(document.getBytes(UTF8));
+	}
+
+	private static JsonObject object(String document) {
+		return Json.createReader(new StringReader(document)).readObject();
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.btc4j.daemon.BtcJsonAssert.*;
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.List;
+
+import javax.json.Json;
+import javax.json.JsonValue;
+
+import org.btc4j.core.BtcException;
+import org.btc4j.core.BtcPeer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BtcJsonObjectBinderTest {
+	private static final String HASH = "000000000000000000000000000000000000000000000000000000000000abcd";
+	private static final String TXID = "4a5e1e4baab89f3a32518a88c31bc87f618f76673e2cc77ab2127b7afdeda33b";
+	private static final String SCRIPT = "{\"asm\":\"OP_DUP OP_HASH160\","
+			+ "\"hex\":\"76a9\",\"reqSigs\":1,\"type\":\"pubkeyhash\","
+			+ "\"addresses\":[\"1address\",\"2address\"]}";
+	private static final String[] BLOCKS = {
+			"{\"hash\":\"" + HASH + "\",\"confirmations\":12,\"size\":285,"
+					+ "\"height\":300000,\"version\":2,\"merkleroot\":\""
+					+ TXID + "\",\"tx\":[\"" + TXID + "\",\"" + HASH
+					+ "\"],\"time\":1399703554,\"nonce\":4294967295,"
+					+ "\"bits\":\"1900896c\",\"difficulty\":8000872135.96816540,"
+					+ "\"chainwork\":{\"ignored\":[1,{\"x\":\"y\"}]},"
+					+ "\"previousblockhash\":\"" + HASH.replace('0', 'f')
+					+ "\",\"nextblockhash\":\"" + TXID + "\"}",
+			"{}",
+			"{\"hash\":null,\"confirmations\":null,\"tx\":null,"
+					+ "\"difficulty\":null,\"bits\":null}",
+			"{\"tx\":[null,\"a\"],\"merkleroot\":1}", "null" };
+	private static final String[] RAW_TRANSACTIONS = {
+			"{\"hex\":\"0100\",\"txid\":\"" + TXID + "\",\"version\":1,"
+					+ "\"locktime\":0,\"vin\":[{\"txid\":\"" + HASH
+					+ "\",\"vout\":3,\"scriptSig\":{\"asm\":\"3045 02\","
+					+ "\"hex\":\"4830\"},\"sequence\":4294967295},"
+					+ "{\"coinbase\":\"04ff\",\"sequence\":1}],"
+					+ "\"vout\":[{\"value\":0.01000000,\"n\":0,"
+					+ "\"scriptPubKey\":" + SCRIPT + "},{\"value\":0,"
+					+ "\"n\":1,\"scriptPubKey\":\"76a9\"}],\"blockhash\":\""
+					+ HASH + "\",\"confirmations\":7,\"time\":1399703554,"
+					+ "\"blocktime\":1399703555,\"complete\":false}",
+			"{}",
+			"{\"hex\":null,\"version\":null,\"vin\":null,\"vout\":null,"
+					+ "\"complete\":null}",
+			"{\"vin\":[null,{\"txid\":null,\"vout\":null,\"scriptSig\":null}],"
+					+ "\"vout\":[null,{\"value\":null,\"scriptPubKey\":null}]}",
+			"null" };
+	private static final String[] TRANSACTIONS = {
+			"{\"amount\":-0.5,\"fee\":-0.0001,\"confirmations\":3,"
+					+ "\"blockhash\":\"" + HASH + "\",\"blockindex\":4,"
+					+ "\"blocktime\":1399703555,\"txid\":\"" + TXID
+					+ "\",\"time\":1399703554,\"timereceived\":1399703550,"
+					+ "\"details\":[{\"account\":\"a\",\"address\":\"1address\","
+					+ "\"category\":\"send\",\"amount\":-0.5,\"fee\":-0.0001},"
+					+ "{\"account\":\"\",\"address\":\"2address\","
+					+ "\"category\":\"receive\",\"amount\":0.5}],"
+					+ "\"hex\":\"0100\"}",
+			"{\"account\":\"a\",\"address\":\"1address\","
+					+ "\"category\":\"generate\",\"amount\":50,\"txid\":\""
+					+ TXID + "\",\"confirmations\":101}",
+			"{}",
+			"{\"txid\":null,\"amount\":null,\"fee\":null,\"time\":null,"
+					+ "\"category\":null,\"blockhash\":null}", "null" };
+	private static final String[] OUTPUTS = {
+			"{\"bestblock\":\"" + HASH + "\",\"confirmations\":6,"
+					+ "\"value\":0.01000000,\"scriptPubKey\":" + SCRIPT
+					+ ",\"version\":1,\"coinbase\":true}",
+			"{\"txid\":\"" + TXID + "\",\"vout\":1,\"address\":\"1address\","
+					+ "\"account\":\"a\",\"scriptPubKey\":\"76a9\","
+					+ "\"amount\":0.5,\"confirmations\":6}",
+			"{}",
+			"{\"bestblock\":null,\"value\":null,\"scriptPubKey\":null,"
+					+ "\"coinbase\":null,\"amount\":null,\"account\":null}",
+			"null" };
+	private static final String[] PEERS = {
+			"{\"addr\":\"127.0.0.1:8333\",\"services\":\"00000001\","
+					+ "\"lastsend\":1399703554,\"lastrecv\":1399703555,"
+					+ "\"bytessent\":1024,\"bytesrecv\":2048,"
+					+ "\"conntime\":1399700000,\"version\":70002,"
+					+ "\"subver\":\"/Satoshi:0.9.1/\",\"inbound\":true,"
+					+ "\"startingheight\":300000,\"banscore\":0,"
+					+ "\"syncnode\":true}",
+			"{}",
+			"{\"addr\":null,\"version\":null,\"inbound\":null,"
+					+ "\"syncnode\":null,\"banscore\":null}" };
+	private BtcDaemonStandIn standIn;
+	private BtcDaemon daemon;
+
+	@Before
+	public void setUp() throws Exception {
+		standIn = new BtcDaemonStandIn("user", "password", 0);
+		daemon = new BtcDaemon(standIn.getUrl(), "user", "password");
+	}
+
+	@After
+	public void tearDown() {
+		daemon.close();
+		standIn.stop();
+	}
+
+	@Test
+	public void block() throws BtcException {
+		for (String document : BLOCKS) {
+			assertBlock(daemon.jsonBlock(value(document)),
+					daemon.jsonBind(value(document), BtcJsonObjectBinder.BLOCK));
+			if (!"null".equals(document)) {
+				standIn.setResult("getblock", document);
+				assertBlock(daemon.jsonBlock(value(document)),
+						daemon.getBlock(HASH));
+			}
+		}
+	}
+
+	@Test
+	public void rawTransaction() throws BtcException {
+		for (String document : RAW_TRANSACTIONS) {
+			assertRawTransaction(daemon.jsonRawTransaction(value(document)),
+					daemon.jsonBind(value(document),
+							BtcJsonObjectBinder.RAW_TRANSACTION));
+			standIn.setResult("decoderawtransaction", document);
+			assertRawTransaction(daemon.jsonRawTransaction(value(document)),
+					daemon.decodeRawTransaction("0100"));
+		}
+	}
+
+	@Test
+	public void transaction() throws BtcException {
+		for (String document : TRANSACTIONS) {
+			assertTransaction(daemon.jsonTransaction(value(document)),
+					daemon.jsonBind(value(document),
+							BtcJsonObjectBinder.TRANSACTION));
+			standIn.setResult("gettransaction", document);
+			assertTransaction(daemon.jsonTransaction(value(document)),
+					daemon.getTransaction(TXID));
+		}
+	}
+
+	@Test
+	public void output() throws BtcException {
+		for (String document : OUTPUTS) {
+			assertOutput(daemon.jsonOutput(value(document)),
+					daemon.jsonBind(value(document), BtcJsonObjectBinder.OUTPUT));
+			standIn.setResult("gettxout", document);
+			assertOutput(daemon.jsonOutput(value(document)),
+					daemon.getTransactionOutput(TXID, 0, true));
+		}
+	}
+
+	@Test
+	public void peer() throws BtcException {
+		StringBuilder peers = new StringBuilder();
+		for (String document : PEERS) {
+			assertPeer(daemon.jsonPeer(value(document)),
+					daemon.jsonBind(value(document), BtcJsonObjectBinder.PEER));
+			peers.append((peers.length() == 0) ? '[' : ',').append(document);
+		}
+		standIn.setResult("getpeerinfo", peers.append(']').toString());
+		List<BtcPeer> bound = daemon.getPeerInformation();
+		assertEquals(PEERS.length, bound.size());
+		for (int i = 0; i < PEERS.length; i++) {
+			assertPeer(daemon.jsonPeer(value(PEERS[i])), bound.get(i));
+		}
+	}
+
+	@Test
+	public void mistypedObject() throws BtcException {
+		for (BtcJsonBinder<?> binder : new BtcJsonBinder<?>[] {
+				BtcJsonObjectBinder.BLOCK, BtcJsonObjectBinder.RAW_TRANSACTION,
+				BtcJsonObjectBinder.TRANSACTION, BtcJsonObjectBinder.OUTPUT,
+				BtcJsonObjectBinder.PEER }) {
+			try {
+				daemon.jsonBind(value("[1]"), binder);
+				fail("bound an array");
+			} catch (BtcException e) {
+				assertEquals(BtcException.BTC4J_ERROR_CODE, e.getCode());
+			}
+		}
+	}
+
+	private static JsonValue value(String document) {
+		return Json.createReader(new StringReader("[" + document + "]"))
+				.readArray().get(0);
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BtcJsonRpcBatchTest {
+	private static final String HASH = "000000000000000000000000000000000000000000000000000000000000abcd";
+	private BtcDaemonStandIn standIn;
+	private BtcDaemon daemon;
+
+	@Before
+	public void setUp() throws Exception {
+		standIn = new BtcDaemonStandIn("user", "password", 0);
+		standIn.setResult("getblock", "{\"hash\":\"" + HASH
+				+ "\",\"height\":1000,\"confirmations\":10,\"tx\":[]}");
+		standIn.setResult("getblockcount", "1009");
+		standIn.setResult("getinfo", "{\"version\":90000,\"blocks\":1009}");
+		standIn.setResult("getmininginfo", "{\"blocks\":1009}");
+		standIn.setResult("getdifficulty", "1.0");
+		standIn.setResult("getconnectioncount", "8");
+		daemon = new BtcDaemon(standIn.getUrl(), "user", "password");
+	}
+
+	@After
+	public void tearDown() {
+		daemon.close();
+		standIn.stop();
+	}
+
+	@Test
+	public void getBlocks() throws Exception {
+		List<String> hashes = new ArrayList<String>();
+		for (int i = 0; i < 500; i++) {
+			hashes.add(HASH);
+		}
+		List<BtcBlock> blocks = daemon.getBlocks(hashes);
+		assertEquals(500, blocks.size());
+		assertEquals(1000, blocks.get(499).getHeight());
+		assertEquals(1, standIn.getRequests());
+		assertEquals(0, daemon.getInFlight());
+	}
+
+	@Test
+	public void pipelined() throws Exception {
+		daemon.setPipelining(4, 8);
+		List<String> hashes = new ArrayList<String>();
+		for (int i = 0; i < 100; i++) {
+			hashes.add(HASH);
+		}
+		for (int i = 0; i < 3; i++) {
+			BtcBatchResult<BtcBlock> blocks = daemon.getBlocks(hashes);
+			assertEquals(100, blocks.size());
+			assertEquals(0, blocks.getErrors());
+			assertEquals(1000, blocks.get(99).getHeight());
+		}
+		assertEquals(300, standIn.getCalls("getblock"));
+		assertEquals(0, daemon.getInFlight());
+	}
+
+	@Test
+	public void pipelinedConnectionLost() throws Exception {
+		daemon.setPipelining(1, 4);
+		standIn.setDroppedReplies(1, 1);
+		BtcJsonRpcBatch batch = new BtcJsonRpcBatch();
+		for (int i = 0; i < 6; i++) {
+			batch.add("getblockcount");
+		}
+		daemon.invokePipelined(batch);
+		for (int i = 0; i < 6; i++) {
+			assertFalse(batch.isError(i));
+			assertEquals(1009, daemon.jsonLong(batch.get(i)));
+		}
+		assertEquals(6, standIn.getCalls("getblockcount"));
+	}
+
+	@Test
+	public void pipelinedConnectionRefused() throws Exception {
+		daemon.setPipelining(1, 4);
+		standIn.setDroppedReplies(100);
+		BtcJsonRpcBatch batch = new BtcJsonRpcBatch();
+		for (int i = 0; i < 6; i++) {
+			batch.add("getblockcount");
+		}
+		daemon.invokePipelined(batch);
+		for (int i = 0; i < 6; i++) {
+			assertTrue(batch.isError(i));
+			assertFalse(batch.getError(i).getMessage().endsWith(": null"));
+		}
+		assertEquals(0, standIn.getCalls("getblockcount"));
+	}
+
+	@Test
+	public void elementErrors() throws Exception {
+		BtcJsonRpcBatch batch = new BtcJsonRpcBatch();
+		batch.add("getblockcount");
+		batch.add("getnothing");
+		daemon.invokeBatch(batch);
+		assertEquals(1009, daemon.jsonLong(batch.get(0)));
+		assertFalse(batch.isError(0));
+		assertTrue(batch.isError(1));
+		assertEquals(-32601, batch.getError(1).getCode());
+		try {
+			batch.get(1);
+			fail("error element returned a result");
+		} catch (BtcException e) {
+			assertEquals(-32601, e.getCode());
+		}
+		assertEquals(0, daemon.getInFlight());
+	}
+
+	@Test
+	public void getBlockHashesErrors() throws Exception {
+		standIn.setResult("getblockhash", "1", "\"" + HASH + "\"");
+		standIn.setResult("getblockhash", "3", "\"" + HASH + "\"");
+		List<Long> indexes = new ArrayList<Long>();
+		indexes.add(1L);
+		indexes.add(2L);
+		indexes.add(3L);
+		BtcBatchResult<String> hashes = daemon.getBlockHashes(indexes);
+		assertEquals(3, hashes.size());
+		assertEquals(1, hashes.getErrors());
+		assertEquals(HASH, hashes.getResult(0));
+		assertFalse(hashes.isError(0));
+		assertTrue(hashes.isError(1));
+		assertNull(hashes.get(1));
+		assertEquals(-32601, hashes.getError(1).getCode());
+		try {
+			hashes.getResult(1);
+			fail("error element returned a result");
+		} catch (BtcException e) {
+			assertEquals(-32601, e.getCode());
+		}
+		assertEquals(HASH, hashes.get(2));
+		assertEquals(0, daemon.getInFlight());
+	}
+
+	@Test
+	public void status() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			assertEquals(1009, daemon.getStatus().getBlockCount());
+		}
+		assertEquals(10, standIn.getRequests());
+		assertEquals(0, daemon.getInFlight());
+	}
+}
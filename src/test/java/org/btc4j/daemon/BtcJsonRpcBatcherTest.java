@@ -0,0 +1,98 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BtcJsonRpcBatcherTest {
+	private BtcDaemonStandIn standIn;
+	private BtcDaemon daemon;
+
+	@Before
+	public void setUp() throws Exception {
+		standIn = new BtcDaemonStandIn("user", "password", 0);
+		standIn.setResult("getblockcount", "300000");
+		standIn.setResult("getconnectioncount", "8");
+		daemon = new BtcDaemon(standIn.getUrl(), "user", "password");
+	}
+
+	@After
+	public void tearDown() {
+		daemon.close();
+		standIn.stop();
+	}
+
+	@Test
+	public void singleCall() throws Exception {
+		daemon.setAutoBatching(2, 100);
+		assertEquals(300000, daemon.getBlockCount());
+		assertEquals(1, standIn.getCalls("getblockcount"));
+		assertEquals(0, daemon.getInFlight());
+	}
+
+	@Test
+	public void concurrentCalls() throws Exception {
+		daemon.setAutoBatching(5000, 2);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Long> count = executor.submit(new Callable<Long>() {
+				@Override
+				public Long call() throws Exception {
+					return daemon.getBlockCount();
+				}
+			});
+			Future<Long> connections = executor.submit(new Callable<Long>() {
+				@Override
+				public Long call() throws Exception {
+					return daemon.getConnectionCount();
+				}
+			});
+			assertEquals(300000, (long) count.get());
+			assertEquals(8, (long) connections.get());
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(1, standIn.getRequests());
+		assertEquals(1, standIn.getCalls("getblockcount"));
+		assertEquals(1, standIn.getCalls("getconnectioncount"));
+	}
+
+	@Test
+	public void disabled() throws Exception {
+		daemon.setAutoBatching(2, 100);
+		daemon.disableAutoBatching();
+		assertFalse(daemon.isAutoBatching());
+		assertEquals(300000, daemon.getBlockCount());
+		assertEquals(1, standIn.getRequests());
+	}
+}
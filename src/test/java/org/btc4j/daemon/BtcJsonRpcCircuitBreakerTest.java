@@ -0,0 +1,175 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.btc4j.core.BtcException;
+import org.btc4j.daemon.BtcJsonRpcCircuitBreaker.State;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BtcJsonRpcCircuitBreakerTest {
+	private BtcDaemonStandIn standIn;
+	private BtcDaemon daemon;
+	private BlockingQueue<Object> states;
+	private Observer observer;
+
+	@Before
+	public void setUp() throws Exception {
+		standIn = new BtcDaemonStandIn("user", "password", 0);
+		standIn.setResult("getblockcount", "1009");
+		daemon = new BtcDaemon(standIn.getUrl(), "user", "password");
+		states = new LinkedBlockingQueue<Object>();
+		observer = new Observer() {
+			@Override
+			public void update(Observable breaker, Object state) {
+				states.add(state);
+			}
+		};
+	}
+
+	@After
+	public void tearDown() {
+		daemon.close();
+		standIn.stop();
+	}
+
+	@Test
+	public void openOnErrorRate() throws Exception {
+		BtcJsonRpcCircuitBreaker breaker = new BtcJsonRpcCircuitBreaker(
+				daemon, 10, 4, 0.5, 0.5, 10000, 10000);
+		breaker.addObserver(observer);
+		breaker.record(false, false);
+		breaker.record(true, false);
+		breaker.record(false, false);
+		assertEquals(State.CLOSED, breaker.getState());
+		breaker.record(false, false);
+		assertEquals(State.CLOSED, breaker.getState());
+		assertEquals(0.25, breaker.getErrorRate(), 0.001);
+		breaker.record(true, false);
+		breaker.record(false, true);
+		assertEquals(State.OPEN, breaker.getState());
+		assertTrue(breaker.getOpened() > 0);
+		assertEquals(State.OPEN, states.poll());
+		try {
+			breaker.check("getblock");
+			fail("open circuit let a call through");
+		} catch (BtcException e) {
+			assertEquals(
+					BtcJsonRpcCircuitBreaker.BTC4J_DAEMON_CIRCUIT_OPEN_CODE,
+					e.getCode());
+		}
+		breaker.record(false, false);
+		assertEquals(2.0 / 6, breaker.getErrorRate(), 0.001);
+		assertEquals(1.0 / 6, breaker.getTimeoutRate(), 0.001);
+		breaker.reset();
+		assertEquals(State.CLOSED, breaker.getState());
+		assertEquals(State.CLOSED, states.poll());
+		assertEquals(0, breaker.getErrorRate(), 0.001);
+		breaker.check("getblock");
+		breaker.close();
+	}
+
+	@Test
+	public void slidingWindow() throws Exception {
+		BtcJsonRpcCircuitBreaker breaker = new BtcJsonRpcCircuitBreaker(
+				daemon, 4, 4, 0.75, 0.75, 10000, 10000);
+		breaker.record(true, false);
+		breaker.record(true, false);
+		breaker.record(false, false);
+		breaker.record(false, false);
+		breaker.record(false, false);
+		breaker.record(false, false);
+		assertEquals(0, breaker.getErrorRate(), 0.001);
+		breaker.record(false, true);
+		breaker.record(false, true);
+		assertEquals(State.CLOSED, breaker.getState());
+		assertEquals(0.5, breaker.getTimeoutRate(), 0.001);
+		breaker.record(false, true);
+		assertEquals(State.OPEN, breaker.getState());
+		breaker.close();
+	}
+
+	@Test
+	public void probeCloses() throws Exception {
+		BtcJsonRpcCircuitBreaker breaker = new BtcJsonRpcCircuitBreaker(
+				daemon, 10, 2, 0.5, 0.5, 50, 200);
+		breaker.addObserver(observer);
+		standIn.setDroppedReplies(1);
+		breaker.record(true, false);
+		breaker.record(true, false);
+		assertEquals(State.OPEN, states.poll(5, TimeUnit.SECONDS));
+		assertEquals(State.HALF_OPEN, states.poll(5, TimeUnit.SECONDS));
+		assertEquals(State.OPEN, states.poll(5, TimeUnit.SECONDS));
+		assertEquals(State.HALF_OPEN, states.poll(5, TimeUnit.SECONDS));
+		assertEquals(State.CLOSED, states.poll(5, TimeUnit.SECONDS));
+		assertEquals(State.CLOSED, breaker.getState());
+		assertEquals(2, standIn.getRequests());
+		assertEquals(1, standIn.getCalls("getblockcount"));
+		breaker.close();
+	}
+
+	@Test
+	public void circuitBreaking() throws Exception {
+		assertFalse(daemon.isCircuitBreaking());
+		BtcJsonRpcCircuitBreaker breaker = daemon.setCircuitBreaking(2, 0.5,
+				0.5, 100);
+		assertTrue(daemon.isCircuitBreaking());
+		assertSame(breaker, daemon.getCircuitBreaker());
+		breaker.addObserver(observer);
+		assertEquals(1009, daemon.getBlockCount());
+		standIn.setDroppedReplies(1);
+		try {
+			daemon.getBlockCount();
+			fail("dropped reply was not reported");
+		} catch (BtcException e) {
+			assertEquals(BtcException.BTC4J_ERROR_CODE, e.getCode());
+		}
+		assertEquals(State.OPEN, states.poll(5, TimeUnit.SECONDS));
+		standIn.reset();
+		try {
+			daemon.getBlockCount();
+			fail("open circuit let a call through");
+		} catch (BtcException e) {
+			assertEquals(
+					BtcJsonRpcCircuitBreaker.BTC4J_DAEMON_CIRCUIT_OPEN_CODE,
+					e.getCode());
+		}
+		assertEquals(0, standIn.getRequests());
+		assertEquals(State.HALF_OPEN, states.poll(5, TimeUnit.SECONDS));
+		assertEquals(State.CLOSED, states.poll(5, TimeUnit.SECONDS));
+		assertEquals(1009, daemon.getBlockCount());
+		daemon.disableCircuitBreaking();
+		assertFalse(daemon.isCircuitBreaking());
+	}
+}
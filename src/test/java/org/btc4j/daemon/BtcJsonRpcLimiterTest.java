@@ -0,0 +1,166 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.btc4j.core.BtcException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BtcJsonRpcLimiterTest {
+	private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(1);
+	private BtcDaemonStandIn standIn;
+	private BtcDaemon daemon;
+
+	@Before
+	public void setUp() throws Exception {
+		standIn = new BtcDaemonStandIn("user", "password", 0);
+		standIn.setResult("getblockcount", "1009");
+		daemon = new BtcDaemon(standIn.getUrl(), "user", "password");
+	}
+
+	@After
+	public void tearDown() {
+		daemon.close();
+		standIn.stop();
+	}
+
+	@Test
+	public void shedWhenQueueFull() throws Exception {
+		BtcJsonRpcLimiter limiter = new BtcJsonRpcLimiter(2, 1, 4, 0, 0);
+		limiter.acquire();
+		limiter.acquire();
+		assertEquals(2, limiter.getInFlight());
+		try {
+			limiter.acquire();
+			fail("call over the limit was not shed");
+		} catch (BtcException e) {
+			assertEquals(BtcJsonRpcLimiter.BTC4J_DAEMON_OVERLOADED_CODE,
+					e.getCode());
+		}
+		assertEquals(1, limiter.getShed());
+		assertEquals(2, limiter.getInFlight());
+		limiter.release();
+		limiter.acquire();
+		assertEquals(2, limiter.getInFlight());
+		assertEquals(0, limiter.getQueued());
+	}
+
+	@Test
+	public void queuedUntilReleased() throws Exception {
+		final BtcJsonRpcLimiter limiter = new BtcJsonRpcLimiter(1, 1, 1, 1,
+				5000);
+		limiter.acquire();
+		Thread waiter = new Thread() {
+			@Override
+			public void run() {
+				try {
+					limiter.acquire();
+				} catch (BtcException e) {
+				}
+			}
+		};
+		waiter.start();
+		while (limiter.getQueued() == 0) {
+			Thread.sleep(5);
+		}
+		limiter.release();
+		waiter.join(5000);
+		assertFalse(waiter.isAlive());
+		assertEquals(1, limiter.getInFlight());
+		assertEquals(0, limiter.getQueued());
+		try {
+			limiter.acquire(20);
+			fail("queued call did not time out");
+		} catch (BtcException e) {
+			assertEquals(BtcJsonRpcLimiter.BTC4J_DAEMON_OVERLOADED_CODE,
+					e.getCode());
+		}
+		assertEquals(1, limiter.getShed());
+		assertEquals(0, limiter.getQueued());
+	}
+
+	@Test
+	public void decreaseOnDrop() throws Exception {
+		BtcJsonRpcLimiter limiter = new BtcJsonRpcLimiter(8, 2, 8, 0, 0);
+		limiter.acquire();
+		limiter.release("getblock", 0, true);
+		assertEquals(6, limiter.getLimit());
+		limiter.acquire();
+		limiter.release("getblock", TimeUnit.SECONDS.toNanos(10), true);
+		assertEquals(4, limiter.getLimit());
+		limiter.acquire();
+		limiter.release("getblock", 0, true);
+		assertEquals(4, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+		BtcJsonRpcLimiter floor = new BtcJsonRpcLimiter(2, 2, 8, 0, 0);
+		floor.acquire();
+		floor.release("getblock", 0, true);
+		assertEquals(2, floor.getLimit());
+	}
+
+	@Test
+	public void increaseWhenBusy() throws Exception {
+		BtcJsonRpcLimiter limiter = new BtcJsonRpcLimiter(4, 1, 5, 0, 0);
+		limiter.acquire();
+		for (int i = 0; i < 20; i++) {
+			limiter.acquire();
+			limiter.release("getblock", LATENCY, false);
+		}
+		assertEquals(5, limiter.getLimit());
+		limiter.acquire();
+		limiter.release("getblock", LATENCY * 3, false);
+		assertEquals(3, limiter.getLimit());
+		limiter.release();
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	public void adaptiveConcurrency() throws Exception {
+		assertFalse(daemon.isAdaptiveConcurrency());
+		int limit = daemon.getConcurrencyLimit();
+		daemon.setAdaptiveConcurrency(limit, 0, 0);
+		assertTrue(daemon.isAdaptiveConcurrency());
+		assertEquals(1009, daemon.getBlockCount());
+		assertEquals(limit, daemon.getConcurrencyLimit());
+		standIn.setDroppedReplies(1);
+		try {
+			daemon.getBlockCount();
+			fail("dropped reply was not reported");
+		} catch (BtcException e) {
+			assertEquals(BtcException.BTC4J_ERROR_CODE, e.getCode());
+		}
+		assertEquals(Math.max((int) (limit * 0.75), 1),
+				daemon.getConcurrencyLimit());
+		assertEquals(0, daemon.getConcurrencyLimiter().getInFlight());
+		daemon.disableAdaptiveConcurrency();
+		assertFalse(daemon.isAdaptiveConcurrency());
+		assertEquals(limit, daemon.getConcurrencyLimit());
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.btc4j.core.BtcException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BtcJsonRpcRetryTest {
+	private static final String HASH = "000000000000000000000000000000000000000000000000000000000000abcd";
+	private BtcDaemonStandIn standIn;
+	private BtcDaemon daemon;
+
+	@Before
+	public void setUp() throws Exception {
+		standIn = new BtcDaemonStandIn("user", "password", 0);
+		standIn.setResult("getblockcount", "1009");
+		standIn.setResult("getblockhash", "\"" + HASH + "\"");
+		daemon = new BtcDaemon(standIn.getUrl(), "user", "password");
+	}
+
+	@After
+	public void tearDown() {
+		daemon.close();
+		standIn.stop();
+	}
+
+	@Test
+	public void readOnlyMethods() {
+		BtcJsonRpcRetryPolicy policy = new BtcJsonRpcRetryPolicy(3, 50, 1000);
+		assertNotNull(daemon.getRetryPolicy("getblock"));
+		daemon.setRetryPolicy("getblockcount", policy);
+		assertSame(policy, daemon.getRetryPolicy("getblockcount"));
+		daemon.setRetryPolicy("sendtoaddress", policy);
+		assertNull(daemon.getRetryPolicy("sendtoaddress"));
+		daemon.setRetryPolicy("walletpassphrase", policy);
+		assertNull(daemon.getRetryPolicy("walletpassphrase"));
+		daemon.setRetryPolicy("settxfee", policy);
+		assertNull(daemon.getRetryPolicy("settxfee"));
+		daemon.addSingleFlight("getblock");
+		assertTrue(daemon.isSingleFlight("getblock"));
+		daemon.addSingleFlight("getnewaddress");
+		assertFalse(daemon.isSingleFlight("getnewaddress"));
+		daemon.addSingleFlight("keypoolrefill");
+		assertFalse(daemon.isSingleFlight("keypoolrefill"));
+	}
+
+	@Test
+	public void retryDroppedReplies() throws Exception {
+		standIn.setDroppedReplies(2);
+		assertEquals(HASH, daemon.getBlockHash(5));
+		assertEquals(3, standIn.getRequests());
+		assertEquals(1, standIn.getCalls("getblockhash"));
+	}
+
+	@Test
+	public void noRetryWithoutPolicy() throws Exception {
+		standIn.setDroppedReplies(1);
+		try {
+			daemon.getBlockCount();
+			fail("dropped reply was not reported");
+		} catch (BtcException e) {
+			assertEquals(BtcException.BTC4J_ERROR_CODE, e.getCode());
+		}
+		assertEquals(1, standIn.getRequests());
+		daemon.setRetryPolicy("getblockcount", new BtcJsonRpcRetryPolicy(2,
+				10, 100));
+		standIn.setDroppedReplies(1);
+		assertEquals(1009, daemon.getBlockCount());
+		assertEquals(3, standIn.getRequests());
+	}
+
+	@Test
+	public void attemptsExhausted() throws Exception {
+		standIn.setDroppedReplies(3);
+		try {
+			daemon.getBlockHash(5);
+			fail("dropped replies were not reported");
+		} catch (BtcException e) {
+			assertEquals(BtcException.BTC4J_ERROR_CODE, e.getCode());
+		}
+		assertEquals(3, standIn.getRequests());
+		assertEquals(0, standIn.getCalls("getblockhash"));
+	}
+
+	@Test
+	public void backoff() {
+		BtcJsonRpcRetryPolicy policy = new BtcJsonRpcRetryPolicy(5, 50, 300);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(policy.getBackoff(1) < 50);
+			assertTrue(policy.getBackoff(2) < 100);
+			assertTrue(policy.getBackoff(10) < 300);
+			assertTrue(policy.getBackoff(10) >= 0);
+		}
+		assertEquals(0, new BtcJsonRpcRetryPolicy(5, 0, 0).getBackoff(3));
+	}
+
+	@Test
+	public void hedgeDelay() {
+		BtcJsonRpcRetryPolicy policy = new BtcJsonRpcRetryPolicy(2, 10, 100,
+				true, 5);
+		for (int i = 0; i < 19; i++) {
+			policy.record(TimeUnit.MILLISECONDS.toNanos(20));
+		}
+		assertEquals(-1, policy.getHedgeDelayNanos());
+		for (int i = 19; i < 32; i++) {
+			policy.record(TimeUnit.MILLISECONDS.toNanos((i < 30) ? 20 : 200));
+		}
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(20),
+				policy.getHedgeDelayNanos());
+		BtcJsonRpcRetryPolicy floor = new BtcJsonRpcRetryPolicy(2, 10, 100,
+				true, 50);
+		for (int i = 0; i < 32; i++) {
+			floor.record(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(50),
+				floor.getHedgeDelayNanos());
+	}
+}
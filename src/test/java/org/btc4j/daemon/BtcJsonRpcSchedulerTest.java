@@ -0,0 +1,238 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+import org.junit.Test;
+
+public class BtcJsonRpcSchedulerTest {
+	private static final String HASH = "000000000000000000000000000000000000000000000000000000000000abcd";
+
+	@Test
+	public void capacity() throws Exception {
+		BtcJsonRpcScheduler scheduler = new BtcJsonRpcScheduler();
+		for (int i = 0; i < 4; i++) {
+			scheduler.acquire(BtcJsonRpcScheduler.Priority.NORMAL, 4, 10);
+		}
+		assertEquals(4, scheduler.getInFlight());
+		try {
+			scheduler.acquire(BtcJsonRpcScheduler.Priority.INTERACTIVE, 4, 50);
+			fail("admitted over capacity");
+		} catch (BtcException e) {
+			assertEquals(BtcJsonRpcLimiter.BTC4J_DAEMON_OVERLOADED_CODE,
+					e.getCode());
+		}
+		assertEquals(0,
+				scheduler.getQueued(BtcJsonRpcScheduler.Priority.INTERACTIVE));
+		scheduler.release();
+		scheduler.acquire(BtcJsonRpcScheduler.Priority.INTERACTIVE, 4, 10);
+		assertEquals(4, scheduler.getInFlight());
+		assertEquals(1,
+				scheduler.getAdmitted(BtcJsonRpcScheduler.Priority.INTERACTIVE));
+	}
+
+	@Test
+	public void bulkShare() throws Exception {
+		BtcJsonRpcScheduler scheduler = new BtcJsonRpcScheduler();
+		for (int i = 0; i < 3; i++) {
+			scheduler.acquire(BtcJsonRpcScheduler.Priority.BULK, 4, 10);
+		}
+		try {
+			scheduler.acquire(BtcJsonRpcScheduler.Priority.BULK, 4, 50);
+			fail("bulk took the last slot");
+		} catch (BtcException e) {
+			assertEquals(BtcJsonRpcLimiter.BTC4J_DAEMON_OVERLOADED_CODE,
+					e.getCode());
+		}
+		scheduler.acquire(BtcJsonRpcScheduler.Priority.NORMAL, 4, 10);
+		assertEquals(4, scheduler.getInFlight());
+		assertEquals(3, scheduler.getAdmitted(BtcJsonRpcScheduler.Priority.BULK));
+	}
+
+	@Test
+	public void weightedOrder() throws Exception {
+		final BtcJsonRpcScheduler scheduler = new BtcJsonRpcScheduler();
+		scheduler.acquire(BtcJsonRpcScheduler.Priority.NORMAL, 1, 10);
+		final List<BtcJsonRpcScheduler.Priority> order = Collections
+				.synchronizedList(new ArrayList<BtcJsonRpcScheduler.Priority>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 16; i++) {
+			final BtcJsonRpcScheduler.Priority priority = (i < 8) ? BtcJsonRpcScheduler.Priority.INTERACTIVE
+					: BtcJsonRpcScheduler.Priority.BULK;
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						scheduler.acquire(priority, 1, 10000);
+						order.add(priority);
+					} catch (BtcException e) {
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		long deadline = System.currentTimeMillis() + 5000;
+		while ((scheduler.getQueued(BtcJsonRpcScheduler.Priority.INTERACTIVE)
+				+ scheduler.getQueued(BtcJsonRpcScheduler.Priority.BULK)) < 16) {
+			assertTrue(System.currentTimeMillis() < deadline);
+			Thread.sleep(5);
+		}
+		for (int i = 0; i < 16; i++) {
+			scheduler.release();
+			while (order.size() <= i) {
+				assertTrue(System.currentTimeMillis() < deadline);
+				Thread.sleep(1);
+			}
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		int interactive = 0;
+		for (BtcJsonRpcScheduler.Priority priority : order.subList(0, 9)) {
+			if (priority == BtcJsonRpcScheduler.Priority.INTERACTIVE) {
+				interactive++;
+			}
+		}
+		assertEquals(8, interactive);
+		assertEquals(BtcJsonRpcScheduler.Priority.BULK, order.get(15));
+		assertEquals(8, scheduler.getAdmitted(BtcJsonRpcScheduler.Priority.BULK));
+		assertEquals(1, scheduler.getInFlight());
+	}
+
+	@Test
+	public void pipelinedBulk() throws Exception {
+		BtcDaemonStandIn standIn = new BtcDaemonStandIn("user", "password", 20);
+		standIn.setResult("getblock", block());
+		standIn.setResult("getblockcount", "1009");
+		try (final BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+				"password");) {
+			daemon.enableScheduling();
+			daemon.setConcurrencyLimiter(new BtcJsonRpcLimiter(2, 2, 2, 16,
+					10000));
+			daemon.setPipelining(4, 4);
+			final List<String> hashes = new ArrayList<String>();
+			for (int i = 0; i < 40; i++) {
+				hashes.add(HASH);
+			}
+			final AtomicReference<BtcBatchResult<BtcBlock>> blocks = new AtomicReference<BtcBatchResult<BtcBlock>>();
+			Thread bulk = new Thread() {
+				@Override
+				public void run() {
+					try {
+						blocks.set(daemon.getBlocks(hashes));
+					} catch (BtcException e) {
+					}
+				}
+			};
+			bulk.start();
+			BtcJsonRpcScheduler scheduler = daemon.getScheduler();
+			while (scheduler.getAdmitted(BtcJsonRpcScheduler.Priority.BULK) == 0) {
+				Thread.sleep(1);
+			}
+			daemon.setThreadPriority(BtcJsonRpcScheduler.Priority.INTERACTIVE);
+			for (int i = 0; i < 5; i++) {
+				assertEquals(1009, daemon.getBlockCount());
+			}
+			daemon.setThreadPriority(null);
+			assertTrue(bulk.isAlive());
+			assertTrue(scheduler.getQueued(BtcJsonRpcScheduler.Priority.BULK) > 0);
+			bulk.join();
+			assertEquals(40, blocks.get().size());
+			assertEquals(0, blocks.get().getErrors());
+			assertEquals(4,
+					scheduler.getAdmitted(BtcJsonRpcScheduler.Priority.BULK));
+			assertEquals(5,
+					scheduler.getAdmitted(BtcJsonRpcScheduler.Priority.INTERACTIVE));
+			assertEquals(0, scheduler.getInFlight());
+			assertEquals(0, daemon.getConcurrencyLimiter().getInFlight());
+		} finally {
+			standIn.stop();
+		}
+	}
+
+	@Test
+	public void pipelinedCircuitOpen() throws Exception {
+		BtcDaemonStandIn standIn = new BtcDaemonStandIn("user", "password", 0);
+		standIn.setResult("getblock", block());
+		try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+				"password");) {
+			daemon.setPipelining(2, 4);
+			BtcJsonRpcCircuitBreaker breaker = daemon.setCircuitBreaking(2,
+					0.5, 0.5, 10000);
+			breaker.record(true, false);
+			breaker.record(true, false);
+			assertEquals(BtcJsonRpcCircuitBreaker.State.OPEN,
+					breaker.getState());
+			BtcBatchResult<BtcBlock> blocks = daemon.getBlocks(Collections
+					.nCopies(8, HASH));
+			assertEquals(8, blocks.getErrors());
+			assertEquals(
+					BtcJsonRpcCircuitBreaker.BTC4J_DAEMON_CIRCUIT_OPEN_CODE,
+					blocks.getError(7).getCode());
+			assertEquals(0, standIn.getRequests());
+		} finally {
+			standIn.stop();
+		}
+	}
+
+	@Test
+	public void pipelinedFeedback() throws Exception {
+		BtcDaemonStandIn standIn = new BtcDaemonStandIn("user", "password", 0);
+		standIn.setResult("getblock", block());
+		try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+				"password");) {
+			daemon.setPipelining(1, 4);
+			daemon.setAdaptiveConcurrency(8, 0, 0);
+			BtcJsonRpcCircuitBreaker breaker = daemon.setCircuitBreaking(100,
+					0.5, 0.5, 10000);
+			assertEquals(0, daemon.getBlocks(Collections.nCopies(8, HASH))
+					.getErrors());
+			assertEquals(8, daemon.getConcurrencyLimit());
+			assertEquals(0, breaker.getErrorRate(), 0.001);
+			standIn.setDroppedReplies(100);
+			assertEquals(8, daemon.getBlocks(Collections.nCopies(8, HASH))
+					.getErrors());
+			assertEquals(6, daemon.getConcurrencyLimit());
+			assertEquals(0, daemon.getConcurrencyLimiter().getInFlight());
+			assertTrue(breaker.getErrorRate() > 0);
+		} finally {
+			standIn.stop();
+		}
+	}
+
+	private static String block() {
+		return "{\"hash\":\"" + HASH
+				+ "\",\"height\":1000,\"confirmations\":10,\"tx\":[]}";
+	}
+}
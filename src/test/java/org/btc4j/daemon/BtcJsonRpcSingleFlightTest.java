@@ -0,0 +1,227 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BtcJsonRpcSingleFlightTest {
+	private static final String HASH = "000000000000000000000000000000000000000000000000000000000000abcd";
+	private static final int FOLLOWERS = 4;
+	private BtcJsonRpcSingleFlight singleFlight;
+	private CountDownLatch started;
+	private CountDownLatch release;
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		singleFlight = new BtcJsonRpcSingleFlight();
+		started = new CountDownLatch(1);
+		release = new CountDownLatch(1);
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void coalesced() throws Exception {
+		Future<String> leader = submit(-1, new Blocked<String>("result", null));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		List<Future<String>> followers = new ArrayList<Future<String>>();
+		for (int i = 0; i < FOLLOWERS; i++) {
+			followers.add(submit(-1, new Blocked<String>("follower", null)));
+		}
+		awaitFollowers(FOLLOWERS);
+		assertEquals(1, singleFlight.getInFlight());
+		release.countDown();
+		assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+		for (Future<String> follower : followers) {
+			assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, singleFlight.getCalls());
+		assertEquals(FOLLOWERS, singleFlight.getCoalesced());
+		assertEquals(0, singleFlight.getInFlight());
+		assertEquals("again", singleFlight.invoke("key",
+				new BtcJsonRpcSingleFlight.Call<String>() {
+					@Override
+					public String call() throws BtcException {
+						return "again";
+					}
+				}));
+		assertEquals(2, singleFlight.getCalls());
+	}
+
+	@Test
+	public void errorShared() throws Exception {
+		Future<String> leader = submit(-1, new Blocked<String>(null,
+				new BtcException(-5, "not found")));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<String> follower = submit(-1, new Blocked<String>("follower",
+				null));
+		awaitFollowers(1);
+		release.countDown();
+		assertError(-5, leader);
+		assertError(-5, follower);
+		assertEquals(0, singleFlight.getInFlight());
+	}
+
+	@Test
+	public void runtimeErrorShared() throws Exception {
+		Future<String> leader = submit(-1, new Blocked<String>(null, null));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<String> follower = submit(-1, new Blocked<String>("follower",
+				null));
+		awaitFollowers(1);
+		release.countDown();
+		try {
+			leader.get(5, TimeUnit.SECONDS);
+			fail("leader did not fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertError(BtcException.BTC4J_ERROR_CODE, follower);
+		assertEquals(0, singleFlight.getInFlight());
+	}
+
+	@Test
+	public void followerTimeout() throws Exception {
+		Future<String> leader = submit(-1, new Blocked<String>("result", null));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		assertError(BtcJsonRpcHttpClient.BTC4J_DAEMON_DEADLINE_CODE,
+				submit(50, new Blocked<String>("follower", null)));
+		assertEquals(1, singleFlight.getInFlight());
+		release.countDown();
+		assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+		assertEquals(1, singleFlight.getCalls());
+	}
+
+	@Test
+	public void callersGetOwnResults() throws Exception {
+		BtcDaemonStandIn standIn = new BtcDaemonStandIn("user", "password",
+				200);
+		standIn.setResult("getblock", "{\"hash\":\"" + HASH
+				+ "\",\"height\":1000,\"confirmations\":10,\"tx\":[\"" + HASH
+				+ "\"]}");
+		try (final BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+				"password");) {
+			daemon.addSingleFlight("getblock");
+			List<Future<BtcBlock>> calls = new ArrayList<Future<BtcBlock>>();
+			for (int i = 0; i < 2; i++) {
+				calls.add(executor.submit(new Callable<BtcBlock>() {
+					@Override
+					public BtcBlock call() throws Exception {
+						return daemon.getBlock(HASH);
+					}
+				}));
+			}
+			BtcBlock first = calls.get(0).get(5, TimeUnit.SECONDS);
+			BtcBlock second = calls.get(1).get(5, TimeUnit.SECONDS);
+			assertEquals(1, standIn.getCalls("getblock"));
+			assertEquals(1, daemon.getSingleFlight().getCoalesced());
+			assertNotSame(first, second);
+			first.setHeight(0);
+			first.getTransactions().clear();
+			assertEquals(1000, second.getHeight());
+			assertEquals(1, second.getTransactions().size());
+		} finally {
+			standIn.stop();
+		}
+	}
+
+	private <T> Future<T> submit(final long timeout,
+			final BtcJsonRpcSingleFlight.Call<T> call) {
+		return executor.submit(new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				return singleFlight.invoke("key", timeout, call);
+			}
+		});
+	}
+
+	private void awaitFollowers(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (singleFlight.getCoalesced() < count) {
+			assertTrue(System.currentTimeMillis() < deadline);
+			Thread.sleep(1);
+		}
+	}
+
+	private static void assertError(int code, Future<?> future)
+			throws Exception {
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("shared call did not fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof BtcException);
+			assertEquals(code, ((BtcException) e.getCause()).getCode());
+		}
+	}
+
+	private class Blocked<T> implements BtcJsonRpcSingleFlight.Call<T> {
+		private final T result;
+		private final BtcException error;
+
+		private Blocked(T result, BtcException error) {
+			this.result = result;
+			this.error = error;
+		}
+
+		@Override
+		public T call() throws BtcException {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (error != null) {
+				throw error;
+			}
+			if (result == null) {
+				throw new IllegalStateException("leader failed");
+			}
+			return result;
+		}
+	}
+}
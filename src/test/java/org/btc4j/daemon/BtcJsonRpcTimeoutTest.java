@@ -0,0 +1,240 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.btc4j.core.BtcException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BtcJsonRpcTimeoutTest {
+	private BtcDaemonStandIn standIn;
+
+	@Before
+	public void setUp() throws Exception {
+		standIn = new BtcDaemonStandIn("user", "password", 0);
+		standIn.setResult("getblockcount", "300000");
+	}
+
+	@After
+	public void tearDown() {
+		standIn.stop();
+	}
+
+	@Test
+	public void defaultTimeouts() throws Exception {
+		BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user", "password");
+		try {
+			assertEquals(5000, daemon.getTimeout("getblockcount"));
+			assertEquals(180000, daemon.getTimeout("listunspent"));
+		} finally {
+			daemon.close();
+		}
+	}
+
+	@Test
+	public void constructorTimeoutCapsDefaults() throws Exception {
+		BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user", "password",
+				1000);
+		try {
+			assertEquals(1000, daemon.getTimeout("getblockcount"));
+			assertEquals(1000, daemon.getTimeout("listunspent"));
+			assertEquals(1000, daemon.getTimeout("getbalance"));
+		} finally {
+			daemon.close();
+		}
+	}
+
+	@Test
+	public void followerDeadline() throws Exception {
+		final BtcJsonRpcSingleFlight singleFlight = new BtcJsonRpcSingleFlight();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> leader = executor.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					return singleFlight.invoke("key",
+							new BtcJsonRpcSingleFlight.Call<String>() {
+								@Override
+								public String call() throws BtcException {
+									started.countDown();
+									try {
+										release.await();
+									} catch (InterruptedException e) {
+										Thread.currentThread().interrupt();
+									}
+									return "result";
+								}
+							});
+				}
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			long start = System.nanoTime();
+			try {
+				singleFlight.invoke("key", 200,
+						new BtcJsonRpcSingleFlight.Call<String>() {
+							@Override
+							public String call() throws BtcException {
+								return "follower";
+							}
+						});
+				fail("follower did not time out");
+			} catch (BtcException e) {
+				assertEquals(BtcJsonRpcHttpClient.BTC4J_DAEMON_DEADLINE_CODE,
+						e.getCode());
+			}
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime()
+					- start);
+			assertTrue(elapsed >= 150);
+			assertTrue(elapsed < 5000);
+			release.countDown();
+			assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+			assertEquals(1, singleFlight.getCalls());
+			assertEquals(1, singleFlight.getCoalesced());
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void followerWithinDeadline() throws Exception {
+		final BtcJsonRpcSingleFlight singleFlight = new BtcJsonRpcSingleFlight();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			executor.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					return singleFlight.invoke("key",
+							new BtcJsonRpcSingleFlight.Call<String>() {
+								@Override
+								public String call() throws BtcException {
+									started.countDown();
+									try {
+										release.await();
+									} catch (InterruptedException e) {
+										Thread.currentThread().interrupt();
+									}
+									return "result";
+								}
+							});
+				}
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(100);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					release.countDown();
+				}
+			}).start();
+			assertEquals("result", singleFlight.invoke("key", 5000,
+					new BtcJsonRpcSingleFlight.Call<String>() {
+						@Override
+						public String call() throws BtcException {
+							return "follower";
+						}
+					}));
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void expiryRecorded() throws Exception {
+		BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user", "password");
+		try {
+			standIn.setSlowReplies(1.0, 300);
+			daemon.setTimeout("getblockcount", 50);
+			daemon.setAdaptiveConcurrency(8, 0, 0);
+			BtcJsonRpcCircuitBreaker breaker = daemon.setCircuitBreaking(2,
+					0.5, 0.5, 10000);
+			for (int i = 0; i < 2; i++) {
+				try {
+					daemon.getBlockCount();
+					fail("deadline did not expire");
+				} catch (BtcException e) {
+					assertEquals(BtcJsonRpcHttpClient.BTC4J_DAEMON_DEADLINE_CODE,
+							e.getCode());
+				}
+			}
+			assertEquals(BtcJsonRpcCircuitBreaker.State.OPEN,
+					breaker.getState());
+			assertEquals(1.0, breaker.getTimeoutRate(), 0.001);
+			assertTrue(daemon.getConcurrencyLimit() < 8);
+			assertEquals(0, daemon.getConcurrencyLimiter().getInFlight());
+		} finally {
+			daemon.close();
+		}
+	}
+
+	@Test
+	public void queuedExpiryNotRecorded() throws Exception {
+		BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user", "password");
+		try {
+			daemon.setTimeout("getblockcount", 50);
+			BtcJsonRpcLimiter limiter = new BtcJsonRpcLimiter(1, 1, 1, 1,
+					10000);
+			daemon.setConcurrencyLimiter(limiter);
+			BtcJsonRpcCircuitBreaker breaker = daemon.setCircuitBreaking(100,
+					0.5, 0.5, 10000);
+			limiter.acquire();
+			try {
+				daemon.getBlockCount();
+				fail("queued call was admitted");
+			} catch (BtcException e) {
+				assertEquals(BtcJsonRpcLimiter.BTC4J_DAEMON_OVERLOADED_CODE,
+						e.getCode());
+			}
+			limiter.release();
+			assertEquals(0, breaker.getErrorRate(), 0.001);
+			assertEquals(0, breaker.getTimeoutRate(), 0.001);
+			assertEquals(0, limiter.getInFlight());
+			assertEquals(0, standIn.getRequests());
+			daemon.setTimeout("getblockcount", 5000);
+			assertEquals(300000, daemon.getBlockCount());
+		} finally {
+			daemon.close();
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.btc4j.core.BtcException;
+
+public class BtcPipeliningBenchmark {
+	private static final int BENCHMARK_CALLS = 2000;
+	private static final long BENCHMARK_DELAY = 1;
+	private static final int BENCHMARK_CONNECTIONS = 4;
+	private static final int BENCHMARK_WINDOW = 16;
+	private static final String BENCHMARK_METHOD = "getblockhash";
+	private static final String BENCHMARK_SEQUENTIAL = "sequential";
+	private static final String BENCHMARK_PIPELINED = "pipelined";
+	private static final String BENCHMARK_HASH = "\"000000000000000000000000000000000000000000000000000000000000abcd\"";
+
+	public static void main(String[] args) {
+		try {
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY);
+			standIn.setResult(BENCHMARK_METHOD, BENCHMARK_HASH);
+			try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+					"password");) {
+				for (int round = 0; round < 2; round++) {
+					run(daemon, BENCHMARK_SEQUENTIAL);
+					run(daemon, BENCHMARK_PIPELINED);
+				}
+			} finally {
+				standIn.stop();
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static List<String> invoke(BtcDaemon daemon, List<Long> indexes,
+			String mode) throws BtcException {
+		if (BENCHMARK_PIPELINED.equals(mode)) {
+			return daemon.getBlockHashes(indexes);
+		}
+		List<String> hashes = new ArrayList<String>();
+		for (Long index : indexes) {
+			hashes.add(daemon.getBlockHash(index));
+		}
+		return hashes;
+	}
+
+	private static void run(BtcDaemon daemon, String mode) throws Exception {
+		if (BENCHMARK_PIPELINED.equals(mode)) {
+			daemon.setPipelining(BENCHMARK_CONNECTIONS, BENCHMARK_WINDOW);
+		} else {
+			daemon.disablePipelining();
+		}
+		List<Long> indexes = new ArrayList<Long>();
+		for (long i = 0; i < BENCHMARK_CALLS; i++) {
+			indexes.add(i);
+		}
+		invoke(daemon, indexes.subList(0, BENCHMARK_CALLS / 10), mode);
+		long start = System.nanoTime();
+		List<String> hashes = invoke(daemon, indexes, mode);
+		long elapsed = System.nanoTime() - start;
+		int missing = 0;
+		for (String hash : hashes) {
+			if (hash == null) {
+				missing++;
+			}
+		}
+		System.out.println(mode + ": calls=" + hashes.size() + " missing="
+				+ missing + " elapsed=" + (elapsed / 1000000) + " ms "
+				+ (BENCHMARK_CALLS * 1000000000L / Math.max(elapsed, 1))
+				+ " calls/s");
+	}
+}
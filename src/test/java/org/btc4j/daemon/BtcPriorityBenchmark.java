@@ -0,0 +1,121 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+
+import org.btc4j.core.BtcException;
+
+public class BtcPriorityBenchmark {
+	private static final int BENCHMARK_CONNECTIONS = 8;
+	private static final int BENCHMARK_BACKFILL_THREADS = 32;
+	private static final int BENCHMARK_PAYOUTS = 100;
+	private static final long BENCHMARK_PAYOUT_INTERVAL = 20;
+	private static final long BENCHMARK_DELAY = 10;
+	private static final String BENCHMARK_BACKFILL_METHOD = "getblock";
+	private static final String BENCHMARK_PAYOUT_METHOD = "sendrawtransaction";
+	private static final String BENCHMARK_UNSCHEDULED = "unscheduled";
+	private static final String BENCHMARK_SCHEDULED = "scheduled";
+	private static final String BENCHMARK_IDLE = "idle";
+	private static final String BENCHMARK_HASH = "000000000000000000000000000000000000000000000000000000000000abcd";
+
+	public static void main(String[] args) {
+		try {
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY);
+			standIn.setResult(BENCHMARK_BACKFILL_METHOD, "{\"hash\":\""
+					+ BENCHMARK_HASH + "\",\"height\":277316,\"tx\":[]}");
+			standIn.setResult(BENCHMARK_PAYOUT_METHOD, "\"" + BENCHMARK_HASH
+					+ "\"");
+			try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+					"password");) {
+				daemon.setMaxConnections(BENCHMARK_CONNECTIONS,
+						BENCHMARK_CONNECTIONS);
+				for (int round = 0; round < 2; round++) {
+					run(daemon, BENCHMARK_IDLE);
+					run(daemon, BENCHMARK_UNSCHEDULED);
+					run(daemon, BENCHMARK_SCHEDULED);
+				}
+			} finally {
+				standIn.stop();
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static void run(final BtcDaemon daemon, String mode)
+			throws Exception {
+		if (BENCHMARK_SCHEDULED.equals(mode)) {
+			daemon.enableScheduling();
+		} else {
+			daemon.disableScheduling();
+		}
+		final AtomicBoolean running = new AtomicBoolean(true);
+		List<Thread> threads = new ArrayList<Thread>();
+		if (!BENCHMARK_IDLE.equals(mode)) {
+			for (int i = 0; i < BENCHMARK_BACKFILL_THREADS; i++) {
+				Thread thread = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						daemon.setThreadPriority(BtcJsonRpcScheduler.Priority.BULK);
+						while (running.get()) {
+							try {
+								daemon.getBlock(BENCHMARK_HASH);
+							} catch (BtcException e) {
+								e.printStackTrace();
+							}
+						}
+					}
+				});
+				thread.start();
+				threads.add(thread);
+			}
+		}
+		JsonArray parameters = Json.createArrayBuilder().add("00").build();
+		List<Long> latencies = new ArrayList<Long>();
+		for (int i = 0; i < BENCHMARK_PAYOUTS; i++) {
+			long start = System.nanoTime();
+			daemon.invoke(BENCHMARK_PAYOUT_METHOD, parameters);
+			latencies.add(System.nanoTime() - start);
+			Thread.sleep(BENCHMARK_PAYOUT_INTERVAL);
+		}
+		running.set(false);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Collections.sort(latencies);
+		System.out.println(mode + ": payout p50="
+				+ (latencies.get(latencies.size() / 2) / 1000000) + " ms p99="
+				+ (latencies.get(latencies.size() * 99 / 100) / 1000000)
+				+ " ms");
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+
+public class BtcRequestWriterBenchmark {
+	private static final int BENCHMARK_WARMUP = 200000;
+	private static final int BENCHMARK_CALLS = 1000000;
+	private static final String BENCHMARK_METHOD = "getblock";
+	private static final String BENCHMARK_ID = "0f8fad5b-d9cb-469f-a165-70867728950e";
+	private static final String BENCHMARK_BUILDER = "builder";
+	private static final String BENCHMARK_WRITER = "writer";
+
+	public static void main(String[] args) {
+		try (BtcJsonRpcHttpClient client = new BtcJsonRpcHttpClient(new URL(
+				"http://127.0.0.1:18332"))) {
+			JsonArray parameters = Json
+					.createArrayBuilder()
+					.add("000000000000000000000000000000000000000000000000000000000000abcd")
+					.build();
+			for (int round = 0; round < 2; round++) {
+				run(client, parameters, BENCHMARK_BUILDER);
+				run(client, parameters, BENCHMARK_WRITER);
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static long request(BtcJsonRpcHttpClient client,
+			JsonArray parameters, String mode) {
+		if (BENCHMARK_WRITER.equals(mode)) {
+			BtcJsonRpcRequestWriter writer = BtcJsonRpcRequestWriter.get();
+			try {
+				return writer
+						.writeRequest(BENCHMARK_METHOD, parameters,
+								BENCHMARK_ID).toEntity().getContentLength();
+			} finally {
+				writer.release();
+			}
+		}
+		HttpEntity entity = new StringEntity(String.valueOf(client
+				.jsonRequest(BENCHMARK_METHOD, parameters, BENCHMARK_ID)),
+				ContentType.create("application/json", "UTF-8"));
+		return entity.getContentLength();
+	}
+
+	private static void run(BtcJsonRpcHttpClient client, JsonArray parameters,
+			String mode) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long length = 0;
+		for (int i = 0; i < BENCHMARK_WARMUP; i++) {
+			length += request(client, parameters, mode);
+		}
+		long allocated = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_CALLS; i++) {
+			length += request(client, parameters, mode);
+		}
+		long elapsed = System.nanoTime() - start;
+		allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+		System.out.println("mode=" + mode + " calls=" + BENCHMARK_CALLS
+				+ " mean=" + (elapsed / BENCHMARK_CALLS) + "ns allocated="
+				+ (allocated / BENCHMARK_CALLS) + "B/call (" + length + ")");
+	}
+}
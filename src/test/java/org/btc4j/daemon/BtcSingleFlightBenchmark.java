@@ -0,0 +1,107 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.btc4j.core.BtcException;
+
+public class BtcSingleFlightBenchmark {
+	private static final int BENCHMARK_THREADS = 50;
+	private static final int BENCHMARK_TIPS = 20;
+	private static final long BENCHMARK_DELAY = 20;
+	private static final String BENCHMARK_METHOD = "getblock";
+	private static final String BENCHMARK_PLAIN = "plain";
+	private static final String BENCHMARK_SHARED = "shared";
+	private static final String BENCHMARK_BLOCK = "{\"hash\":\"000000000000000000000000000000000000000000000000000000000000abcd\",\"height\":277316,\"tx\":[]}";
+
+	public static void main(String[] args) {
+		try {
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY);
+			standIn.setResult(BENCHMARK_METHOD, BENCHMARK_BLOCK);
+			standIn.setResult("getblockcount", "277316");
+			try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+					"password");) {
+				daemon.setMaxConnections(BENCHMARK_THREADS, BENCHMARK_THREADS);
+				for (int round = 0; round < 2; round++) {
+					run(daemon, standIn, BENCHMARK_PLAIN);
+					run(daemon, standIn, BENCHMARK_SHARED);
+				}
+			} finally {
+				standIn.stop();
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static void run(final BtcDaemon daemon, BtcDaemonStandIn standIn,
+			String mode) throws Exception {
+		if (BENCHMARK_SHARED.equals(mode)) {
+			daemon.addSingleFlight(BENCHMARK_METHOD);
+			daemon.addSingleFlight("getblockcount");
+		} else {
+			daemon.removeSingleFlight(BENCHMARK_METHOD);
+			daemon.removeSingleFlight("getblockcount");
+		}
+		standIn.reset();
+		final AtomicLong failed = new AtomicLong();
+		long elapsed = 0;
+		for (int tip = 0; tip < BENCHMARK_TIPS; tip++) {
+			final CountDownLatch start = new CountDownLatch(1);
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int i = 0; i < BENCHMARK_THREADS; i++) {
+				Thread thread = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							start.await();
+							daemon.getBlockCount();
+							daemon.getBlock("000000000000000000000000000000000000000000000000000000000000abcd");
+						} catch (InterruptedException | BtcException e) {
+							failed.incrementAndGet();
+						}
+					}
+				});
+				thread.start();
+				threads.add(thread);
+			}
+			long begin = System.nanoTime();
+			start.countDown();
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			elapsed += System.nanoTime() - begin;
+		}
+		System.out.println(mode + ": requests per tip="
+				+ (standIn.getRequests() / BENCHMARK_TIPS) + " herd time="
+				+ (elapsed / BENCHMARK_TIPS / 1000000) + " ms failed=" + failed
+				+ " coalesced=" + daemon.getSingleFlight().getCoalesced());
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.btc4j.core.BtcException;
+
+public class BtcStatusBenchmark {
+	private static final int[] BENCHMARK_READERS = { 1, 8, 32 };
+	private static final long BENCHMARK_DURATION = 3000;
+	private static final long BENCHMARK_TTL = 1000;
+	private static final long BENCHMARK_TIP = 300000;
+	private static final long BENCHMARK_DELAY = 2;
+	private static final String BENCHMARK_DIRECT = "direct";
+	private static final String BENCHMARK_SNAPSHOT = "snapshot";
+
+	public static void main(String[] args) {
+		try {
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY);
+			standIn.setResult("getinfo",
+					"{\"version\":90000,\"protocolversion\":70002,\"walletversion\":60000,\"balance\":0.0,\"blocks\":"
+							+ BENCHMARK_TIP
+							+ ",\"timeoffset\":0,\"connections\":8,\"proxy\":\"\",\"difficulty\":1.0,\"testnet\":true,\"keypoololdest\":1398000000,\"keypoolsize\":101,\"paytxfee\":0.0,\"errors\":\"\"}");
+			standIn.setResult("getmininginfo", "{\"blocks\":" + BENCHMARK_TIP
+					+ ",\"currentblocksize\":0,\"currentblocktx\":0,\"difficulty\":1.0,\"errors\":\"\",\"generate\":false,\"genproclimit\":-1,\"hashespersec\":0,\"networkhashps\":4000000,\"pooledtx\":0,\"testnet\":true}");
+			standIn.setResult("getdifficulty", "1.0");
+			standIn.setResult("getconnectioncount", "8");
+			standIn.setResult("getblockcount", String.valueOf(BENCHMARK_TIP));
+			standIn.setResult("getblock", "{\"hash\":\"" + hash(1)
+					+ "\",\"height\":" + (BENCHMARK_TIP + 1)
+					+ ",\"confirmations\":1,\"tx\":[]}");
+			int[] ports = { freePort(), freePort(), freePort() };
+			try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+					"password", ports[0], ports[1], ports[2]);) {
+				for (int readers : BENCHMARK_READERS) {
+					run(daemon, standIn, readers, BENCHMARK_DIRECT);
+					run(daemon, standIn, readers, BENCHMARK_SNAPSHOT);
+				}
+				daemon.setStatusRefreshing(BENCHMARK_TTL);
+				daemon.getStatus();
+				Thread.sleep(BENCHMARK_TTL / 4);
+				standIn.setResult("getblockcount",
+						String.valueOf(BENCHMARK_TIP + 1));
+				long start = System.nanoTime();
+				BtcDaemonNotifier.notify("127.0.0.1", ports[1], hash(1));
+				while (daemon.getBlockCount() != (BENCHMARK_TIP + 1)) {
+					Thread.sleep(1);
+				}
+				System.out.println("block notification: snapshot at "
+						+ daemon.getBlockCount() + " after "
+						+ (System.nanoTime() - start) / 1000000 + " ms, ttl "
+						+ BENCHMARK_TTL + " ms, notifications="
+						+ daemon.getStatusService().getNotifications());
+			} finally {
+				standIn.stop();
+				for (int port : ports) {
+					BtcDaemonNotifier.notify("127.0.0.1", port, "");
+				}
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static void run(final BtcDaemon daemon, BtcDaemonStandIn standIn,
+			int readers, String mode) throws Exception {
+		if (BENCHMARK_SNAPSHOT.equals(mode)) {
+			daemon.setStatusRefreshing(BENCHMARK_TTL);
+			daemon.getStatus();
+		} else {
+			daemon.disableStatusRefreshing();
+		}
+		standIn.reset();
+		final AtomicLong reads = new AtomicLong();
+		final AtomicLong errors = new AtomicLong();
+		final AtomicBoolean running = new AtomicBoolean(true);
+		List<Thread> threads = new ArrayList<Thread>();
+		long start = System.nanoTime();
+		for (int i = 0; i < readers; i++) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					while (running.get()) {
+						try {
+							daemon.getInformation();
+							daemon.getMiningInformation();
+							daemon.getDifficulty();
+							daemon.getConnectionCount();
+							daemon.getBlockCount();
+							reads.addAndGet(5);
+						} catch (BtcException e) {
+							errors.incrementAndGet();
+						}
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		Thread.sleep(BENCHMARK_DURATION);
+		running.set(false);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long elapsed = System.nanoTime() - start;
+		System.out.println(mode + " " + readers + " readers: "
+				+ (reads.get() * 1000000000L / elapsed) + " reads/s, "
+				+ standIn.getRequests() + " requests to bitcoind in "
+				+ elapsed / 1000000 + " ms, errors=" + errors.get());
+	}
+
+	private static int freePort() throws Exception {
+		try (ServerSocket socket = new ServerSocket(0);) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static String hash(int index) {
+		String hex = Integer.toHexString(index);
+		StringBuilder hash = new StringBuilder();
+		for (int i = hex.length(); i < 64; i++) {
+			hash.append('0');
+		}
+		return hash.append(hex).toString();
+	}
+}
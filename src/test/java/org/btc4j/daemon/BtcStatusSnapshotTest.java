@@ -0,0 +1,97 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+
+import org.btc4j.core.BtcInfo;
+import org.btc4j.core.BtcMiningInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BtcStatusSnapshotTest {
+	private BtcDaemonStandIn standIn;
+	private BtcDaemon daemon;
+
+	@Before
+	public void setUp() throws Exception {
+		standIn = new BtcDaemonStandIn("user", "password", 0);
+		standIn.setResult("getblockcount", "1009");
+		standIn.setResult("getinfo", "{\"version\":90000,\"blocks\":1009}");
+		standIn.setResult("getmininginfo", "{\"blocks\":1009}");
+		standIn.setResult("getdifficulty", "1.0");
+		standIn.setResult("getconnectioncount", "8");
+		daemon = new BtcDaemon(standIn.getUrl(), "user", "password");
+	}
+
+	@After
+	public void tearDown() {
+		daemon.close();
+		standIn.stop();
+	}
+
+	@Test
+	public void copies() {
+		BtcInfo information = new BtcInfo();
+		information.setBlocks(1009);
+		information.setBalance(BigDecimal.ONE);
+		BtcMiningInfo miningInformation = new BtcMiningInfo();
+		miningInformation.setBlocks(1009);
+		miningInformation.setPooledTransactions(12);
+		BtcStatusSnapshot snapshot = new BtcStatusSnapshot(information,
+				miningInformation, BigDecimal.ONE, 8, 1009,
+				System.currentTimeMillis());
+		information.setBlocks(0);
+		miningInformation.setPooledTransactions(0);
+		assertEquals(1009, snapshot.getInformation().getBlocks());
+		assertEquals(12, snapshot.getMiningInformation()
+				.getPooledTransactions());
+		snapshot.getInformation().setBalance(BigDecimal.TEN);
+		snapshot.getMiningInformation().setBlocks(0);
+		assertNotSame(snapshot.getInformation(), snapshot.getInformation());
+		assertEquals(BigDecimal.ONE, snapshot.getInformation().getBalance());
+		assertEquals(1009, snapshot.getMiningInformation().getBlocks());
+		assertNull(new BtcStatusSnapshot(null, null, null, 0, 0, 0)
+				.getInformation());
+	}
+
+	@Test
+	public void sharedSnapshot() throws Exception {
+		daemon.setStatusRefreshing(60000);
+		BtcInfo information = daemon.getInformation();
+		assertEquals(90000, information.getVersion());
+		information.setVersion(0);
+		daemon.getMiningInformation().setBlocks(0);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(90000, daemon.getInformation().getVersion());
+			assertEquals(1009, daemon.getMiningInformation().getBlocks());
+			assertEquals(1009, daemon.getBlockCount());
+		}
+		assertEquals(1, standIn.getCalls("getinfo"));
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import java.lang.management.ManagementFactory;
+
+import javax.json.JsonArray;
+
+import org.btc4j.core.BtcBlock;
+import org.btc4j.core.BtcException;
+
+public class BtcStreamingBenchmark {
+	private static final int BENCHMARK_WARMUP = 50;
+	private static final int BENCHMARK_CALLS = 200;
+	private static final int BENCHMARK_TRANSACTIONS = 15000;
+	private static final String BENCHMARK_METHOD = "getblock";
+	private static final String BENCHMARK_BUFFERED = "buffered";
+	private static final String BENCHMARK_STREAMING = "streaming";
+	private static final String BENCHMARK_BINDER = "binder";
+	private static final String BENCHMARK_VIEW = "view";
+	private static final String BENCHMARK_HASH = "000000000000000000000000000000000000000000000000000000000000abcd";
+
+	public static void main(String[] args) {
+		try {
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", 0);
+			String block = block(BENCHMARK_TRANSACTIONS);
+			standIn.setResult(BENCHMARK_METHOD, block);
+			System.out.println("block reply=" + block.length() + " bytes");
+			try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+					"password");) {
+				for (int round = 0; round < 2; round++) {
+					run(daemon, BENCHMARK_BUFFERED);
+					run(daemon, BENCHMARK_STREAMING);
+					run(daemon, BENCHMARK_BINDER);
+					run(daemon, BENCHMARK_VIEW);
+				}
+			} finally {
+				standIn.stop();
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static String block(int transactions) {
+		StringBuilder block = new StringBuilder();
+		block.append("{\"hash\":\"000000000000000000000000000000000000000000000000000000000000abcd\",");
+		block.append("\"confirmations\":10,\"size\":1000000,\"height\":277316,\"version\":2,");
+		block.append("\"merkleroot\":\"0000000000000000000000000000000000000000000000000000000000001234\",");
+		block.append("\"tx\":[");
+		for (int i = 0; i < transactions; i++) {
+			if (i > 0) {
+				block.append(',');
+			}
+			block.append('"').append(String.format("%064x", i)).append('"');
+		}
+		block.append("],\"time\":1389000000,\"nonce\":2,\"bits\":\"1903a30c\",");
+		block.append("\"difficulty\":1418481395.26099,");
+		block.append("\"previousblockhash\":\"0000000000000000000000000000000000000000000000000000000000000001\"}");
+		return block.toString();
+	}
+
+	private static BtcBlock invoke(BtcDaemon daemon, JsonArray parameters,
+			String mode) throws BtcException {
+		if (BENCHMARK_VIEW.equals(mode)) {
+			BtcBlock block = daemon.getBlockView(BENCHMARK_HASH);
+			block.getHash();
+			block.getHeight();
+			block.getPreviousBlockHash();
+			return block;
+		}
+		if (BENCHMARK_BINDER.equals(mode)) {
+			return daemon.invoke(BENCHMARK_METHOD, parameters,
+					BtcJsonObjectBinder.BLOCK);
+		}
+		if (BENCHMARK_STREAMING.equals(mode)) {
+			return daemon.jsonBlock(daemon.invoke(BENCHMARK_METHOD,
+					parameters));
+		}
+		String id = "benchmark";
+		String response = daemon.jsonInvoke(String.valueOf(daemon
+				.jsonRequest(BENCHMARK_METHOD, parameters, id)));
+		return daemon.jsonBlock(daemon.jsonResponse(
+				daemon.jsonValue(response), id));
+	}
+
+	private static void run(BtcDaemon daemon, String mode)
+			throws Exception {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		JsonArray parameters = javax.json.Json.createArrayBuilder()
+				.add(BENCHMARK_HASH).build();
+		for (int i = 0; i < BENCHMARK_WARMUP; i++) {
+			invoke(daemon, parameters, mode);
+		}
+		long allocated = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_CALLS; i++) {
+			invoke(daemon, parameters, mode);
+		}
+		long elapsed = System.nanoTime() - start;
+		allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+		System.out.println("mode=" + mode + " calls="
+				+ BENCHMARK_CALLS + " mean="
+				+ (elapsed / BENCHMARK_CALLS / 1000) + "us allocated="
+				+ (allocated / BENCHMARK_CALLS / 1024) + "KB/call");
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.btc4j.core.BtcException;
+
+public class BtcTransactionCacheBenchmark {
+	private static final int BENCHMARK_THREADS = 8;
+	private static final int BENCHMARK_READS = 2000;
+	private static final int BENCHMARK_TRANSACTIONS = 5000;
+	private static final int BENCHMARK_HOT_TRANSACTIONS = 500;
+	private static final double BENCHMARK_HOT_FRACTION = 0.8;
+	private static final long BENCHMARK_CACHE_BYTES = 2 * 1024 * 1024;
+	private static final int BENCHMARK_CONFIRMATIONS = 1;
+	private static final long BENCHMARK_BLOCK_INTERVAL = 2000;
+	private static final long BENCHMARK_DELAY = 2;
+	private static final String BENCHMARK_UNCACHED = "uncached";
+	private static final String BENCHMARK_CACHED = "cached";
+	private static final String BENCHMARK_SCRIPT = "{\"asm\":\"OP_DUP OP_HASH160 0f6ee6d4c2f7a4a8c1e4e1b8f4a6d2a1c3b5e7f9 OP_EQUALVERIFY OP_CHECKSIG\",\"hex\":\"76a9140f6ee6d4c2f7a4a8c1e4e1b8f4a6d2a1c3b5e7f988ac\",\"reqSigs\":1,\"type\":\"pubkeyhash\",\"addresses\":[\"mgnucj8nYqdrPFh2JfZSB1NmUThUGnmsqe\"]}";
+
+	public static void main(String[] args) {
+		try {
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY);
+			standIn.setResult("getrawtransaction", "{\"hex\":\""
+					+ hex(226) + "\",\"txid\":\"" + hash(1)
+					+ "\",\"version\":1,\"locktime\":0,\"vin\":[{\"txid\":\""
+					+ hash(2) + "\",\"vout\":0,\"scriptSig\":{\"asm\":\"\",\"hex\":\"\"},\"sequence\":4294967295}],"
+					+ "\"vout\":[{\"value\":0.5,\"n\":0,\"scriptPubKey\":"
+					+ BENCHMARK_SCRIPT + "},{\"value\":0.25,\"n\":1,\"scriptPubKey\":"
+					+ BENCHMARK_SCRIPT + "}],\"blockhash\":\"" + hash(3)
+					+ "\",\"confirmations\":10,\"time\":1398000000,\"blocktime\":1398000000}");
+			standIn.setResult("gettxout", "{\"bestblock\":\"" + hash(3)
+					+ "\",\"confirmations\":10,\"value\":0.5,\"scriptPubKey\":"
+					+ BENCHMARK_SCRIPT + ",\"version\":1,\"coinbase\":false}");
+			standIn.setResult("getblock", "{\"hash\":\"" + hash(3)
+					+ "\",\"height\":277316,\"confirmations\":1,\"tx\":[]}");
+			int[] ports = { freePort(), freePort(), freePort() };
+			try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+					"password", ports[0], ports[1], ports[2]);) {
+				for (int round = 0; round < 2; round++) {
+					run(daemon, ports[1], BENCHMARK_UNCACHED);
+					run(daemon, ports[1], BENCHMARK_CACHED);
+				}
+			} finally {
+				standIn.stop();
+				for (int port : ports) {
+					BtcDaemonNotifier.notify("127.0.0.1", port, "");
+				}
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static void run(final BtcDaemon daemon, final int blockPort,
+			String mode) throws Exception {
+		if (BENCHMARK_CACHED.equals(mode)) {
+			daemon.setTransactionCaching(BENCHMARK_CACHE_BYTES,
+					BENCHMARK_CONFIRMATIONS);
+		} else {
+			daemon.disableTransactionCaching();
+		}
+		final AtomicLong errors = new AtomicLong();
+		final AtomicBoolean running = new AtomicBoolean(true);
+		Thread blocks = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (running.get()) {
+					try {
+						Thread.sleep(BENCHMARK_BLOCK_INTERVAL);
+					} catch (InterruptedException e) {
+						return;
+					}
+					BtcDaemonNotifier.notify("127.0.0.1", blockPort, hash(3));
+				}
+			}
+		});
+		blocks.start();
+		List<Thread> threads = new ArrayList<Thread>();
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_THREADS; i++) {
+			final Random random = new Random(i);
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < BENCHMARK_READS; j++) {
+						int index = (random.nextDouble() < BENCHMARK_HOT_FRACTION) ? random
+								.nextInt(BENCHMARK_HOT_TRANSACTIONS) : random
+								.nextInt(BENCHMARK_TRANSACTIONS);
+						try {
+							daemon.getRawTransaction(hash(index), true);
+							daemon.getTransactionOutput(hash(index), 0);
+						} catch (BtcException e) {
+							errors.incrementAndGet();
+						}
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long elapsed = System.nanoTime() - start;
+		running.set(false);
+		blocks.join();
+		long reads = 2L * BENCHMARK_THREADS * BENCHMARK_READS;
+		StringBuilder line = new StringBuilder();
+		line.append(mode).append(": ").append(reads).append(" reads in ")
+				.append(elapsed / 1000000).append(" ms, ")
+				.append(reads * 1000000000L / elapsed).append(" reads/s");
+		BtcTransactionCache cache = daemon.getTransactionCache();
+		if (cache != null) {
+			line.append(", hits=").append(cache.getHits()).append(" misses=")
+					.append(cache.getMisses()).append(" evictions=")
+					.append(cache.getEvictions()).append(" invalidations=")
+					.append(cache.getInvalidations()).append(" bytes=")
+					.append(cache.getWeight());
+		}
+		line.append(", errors=").append(errors.get());
+		System.out.println(line);
+	}
+
+	private static int freePort() throws Exception {
+		try (ServerSocket socket = new ServerSocket(0);) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static String hex(int bytes) {
+		StringBuilder hex = new StringBuilder();
+		for (int i = 0; i < bytes; i++) {
+			hex.append("ab");
+		}
+		return hex.toString();
+	}
+
+	private static String hash(int index) {
+		String hex = Integer.toHexString(index);
+		StringBuilder hash = new StringBuilder();
+		for (int i = hex.length(); i < 64; i++) {
+			hash.append('0');
+		}
+		return hash.append(hex).toString();
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package org.btc4j.daemon;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.btc4j.core.BtcInput;
+import org.btc4j.core.BtcOutput;
+import org.btc4j.core.BtcRawTransaction;
+import org.btc4j.core.BtcScript;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BtcTransactionCacheTest {
+	private static final String HEX = "0100000001abcdef";
+	private BtcTransactionCache cache;
+
+	@Before
+	public void setUp() {
+		cache = new BtcTransactionCache(1024 * 1024, 6);
+	}
+
+	@Test
+	public void copies() {
+		BtcRawTransaction transaction = transaction("a", 10);
+		cache.putRawTransaction("a", transaction, true);
+		transaction.setConfirmations(0);
+		transaction.getOutputs().get(0).setValue(BigDecimal.ZERO);
+		BtcRawTransaction cached = cache.getRawTransaction("a", true);
+		assertNotSame(transaction, cached);
+		assertEquals(10, cached.getConfirmations());
+		assertEquals(new BigDecimal("0.5"), cached.getOutputs().get(0)
+				.getValue());
+		cached.setHex("changed");
+		cached.getInputs().clear();
+		cached.getOutputs().get(0).getScript().getAddresses().clear();
+		cached = cache.getRawTransaction("a", true);
+		assertEquals(HEX, cached.getHex());
+		assertEquals(1, cached.getInputs().size());
+		assertEquals("a-in", cached.getInputs().get(0).getTransaction());
+		assertEquals(Arrays.asList("1address"), cached.getOutputs().get(0)
+				.getScript().getAddresses());
+		assertEquals(HEX, cache.getRawTransaction("a", false).getHex());
+	}
+
+	@Test
+	public void confirmationsFollowTip() {
+		cache.setOutputs(true);
+		cache.setTip(100);
+		cache.putRawTransaction("a", transaction("a", 10), true);
+		cache.setTip(105);
+		assertEquals(15, cache.getRawTransaction("a", true)
+				.getConfirmations());
+		assertEquals(15, cache.getRawTransaction("a", true)
+				.getConfirmations());
+	}
+
+	@Test
+	public void confirmationsWithoutListener() {
+		cache.putRawTransaction("a", transaction("a", 10), true);
+		cache.setTip(100);
+		assertEquals(10, cache.getRawTransaction("a", true)
+				.getConfirmations());
+		cache.putRawTransaction("b", transaction("b", 10), true);
+		cache.setTip(103);
+		assertEquals(10, cache.getRawTransaction("a", true)
+				.getConfirmations());
+		assertEquals(13, cache.getRawTransaction("b", true)
+				.getConfirmations());
+	}
+
+	@Test
+	public void daemonConfirmations() throws Exception {
+		BtcDaemonStandIn standIn = new BtcDaemonStandIn("user", "password", 0);
+		try (BtcDaemon daemon = new BtcDaemon(standIn.getUrl(), "user",
+				"password");) {
+			daemon.setTransactionCache(cache);
+			standIn.setResult("getblockcount", "100");
+			standIn.setResult("getrawtransaction", "a", "{\"txid\":\"a\",\"hex\":\""
+					+ HEX + "\",\"version\":1,\"confirmations\":6,"
+					+ "\"vin\":[],\"vout\":[]}");
+			assertEquals(6, daemon.getRawTransaction("a", true)
+					.getConfirmations());
+			assertEquals(100, cache.getTipHeight());
+			standIn.setResult("getblockcount", "103");
+			assertEquals(103, daemon.getBlockCount());
+			assertEquals(9, daemon.getRawTransaction("a", true)
+					.getConfirmations());
+			assertEquals(1, standIn.getCalls("getrawtransaction"));
+			assertEquals(2, standIn.getCalls("getblockcount"));
+		} finally {
+			standIn.stop();
+		}
+	}
+
+	@Test
+	public void shallowTransactions() {
+		cache.putRawTransaction("a", transaction("a", 5), true);
+		assertNull(cache.getRawTransaction("a", true));
+		cache.putRawTransaction("a", transaction("a", 5), false);
+		assertNull(cache.getRawTransaction("a", true));
+		assertEquals(HEX, cache.getRawTransaction("a", false).getHex());
+	}
+
+	@Test
+	public void outputsInvalidated() {
+		cache.setOutputs(true);
+		BtcOutput output = new BtcOutput();
+		cache.putTransactionOutput("a", 0, output, cache.getEpoch());
+		cache.putTransactionOutput("a", 1, null, cache.getEpoch());
+		assertSame(output, cache.getTransactionOutput("a", 0));
+		assertSame(BtcTransactionCache.BTC4J_DAEMON_NO_OUTPUT,
+				cache.getTransactionOutput("a", 1));
+		long epoch = cache.getEpoch();
+		cache.setTip(101);
+		assertNull(cache.getTransactionOutput("a", 0));
+		assertNull(cache.getTransactionOutput("a", 1));
+		cache.putTransactionOutput("a", 0, output, epoch);
+		assertNull(cache.getTransactionOutput("a", 0));
+	}
+
+	private static BtcRawTransaction transaction(String id, long confirmations) {
+		BtcRawTransaction transaction = new BtcRawTransaction();
+		transaction.setTransaction(id);
+		transaction.setHex(HEX);
+		transaction.setVersion(1);
+		transaction.setConfirmations(confirmations);
+		List<BtcInput> inputs = new ArrayList<BtcInput>();
+		BtcInput input = new BtcInput();
+		input.setTransaction(id + "-in");
+		input.setOutput(3);
+		input.setSequence(4294967295L);
+		inputs.add(input);
+		transaction.setInputs(inputs);
+		List<BtcOutput> outputs = new ArrayList<BtcOutput>();
+		BtcOutput output = new BtcOutput();
+		output.setValue(new BigDecimal("0.5"));
+		output.setIndex(0);
+		BtcScript script = new BtcScript();
+		script.setAsm("OP_DUP OP_HASH160");
+		script.setRequiredSignatures(1);
+		script.setAddresses(new ArrayList<String>(Arrays.asList("1address")));
+		output.setScript(script);
+		outputs.add(output);
+		transaction.setOutputs(outputs);
+		return transaction;
+	}
+}
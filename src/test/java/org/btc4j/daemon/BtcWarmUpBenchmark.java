@@ -0,0 +1,158 @@
+/*
+ The MIT License (MIT)
+ 
+ Copyright (c) 2013, 2014 by ggbusto@gmx.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package org.btc4j.daemon;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import org.btc4j.core.BtcException;
+
+public class BtcWarmUpBenchmark {
+	private static final int BENCHMARK_CONNECTIONS = 8;
+	private static final int BENCHMARK_ROUNDS = 25;
+	private static final long BENCHMARK_DELAY = 1;
+	private static final String BENCHMARK_METHOD = "getblockcount";
+	private static final String BENCHMARK_PASSWORD = "standin";
+	private static final String BENCHMARK_COLD = "cold";
+	private static final String BENCHMARK_WARM = "warm";
+
+	public static void main(String[] args) {
+		try {
+			File keyStore = createKeyStore();
+			System.setProperty("javax.net.ssl.trustStore",
+					keyStore.getAbsolutePath());
+			System.setProperty("javax.net.ssl.trustStoreType", "PKCS12");
+			System.setProperty("javax.net.ssl.trustStorePassword",
+					BENCHMARK_PASSWORD);
+			BtcDaemonStandIn standIn = new BtcDaemonStandIn("user",
+					"password", BENCHMARK_DELAY, createSSLContext(keyStore));
+			standIn.setResult(BENCHMARK_METHOD, "277316");
+			try {
+				for (int round = 0; round < 2; round++) {
+					run(standIn.getUrl(), BENCHMARK_COLD);
+					run(standIn.getUrl(), BENCHMARK_WARM);
+				}
+			} finally {
+				standIn.stop();
+				keyStore.delete();
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static void run(URL url, String mode) throws Exception {
+		List<Long> latencies = Collections
+				.synchronizedList(new ArrayList<Long>());
+		long warmUp = 0;
+		for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+			try (BtcJsonRpcHttpClient client = new BtcJsonRpcHttpClient(url,
+					"user", "password");) {
+				client.setMaxConnections(BENCHMARK_CONNECTIONS,
+						BENCHMARK_CONNECTIONS);
+				if (BENCHMARK_WARM.equals(mode)) {
+					client.setMinConnections(BENCHMARK_CONNECTIONS);
+					long start = System.nanoTime();
+					client.warmUp();
+					warmUp += System.nanoTime() - start;
+				}
+				burst(client, latencies);
+			}
+		}
+		Collections.sort(latencies);
+		System.out.println(mode + ": first burst p50="
+				+ (latencies.get(latencies.size() / 2) / 1000) + " us p99="
+				+ (latencies.get(latencies.size() * 99 / 100) / 1000)
+				+ " us, warm-up " + (warmUp / BENCHMARK_ROUNDS / 1000)
+				+ " us");
+	}
+
+	private static void burst(final BtcJsonRpcHttpClient client,
+			final List<Long> latencies) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < BENCHMARK_CONNECTIONS; i++) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						long begin = System.nanoTime();
+						client.invoke(BENCHMARK_METHOD);
+						latencies.add(System.nanoTime() - begin);
+					} catch (BtcException | InterruptedException e) {
+						e.printStackTrace();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	private static File createKeyStore() throws Exception {
+		File keyStore = File.createTempFile("standin", ".p12");
+		keyStore.delete();
+		Process keytool = new ProcessBuilder(System.getProperty("java.home")
+				+ File.separator + "bin" + File.separator + "keytool",
+				"-genkeypair", "-alias", "standin", "-keyalg", "RSA",
+				"-keysize", "2048", "-validity", "1", "-dname",
+				"CN=127.0.0.1", "-ext", "san=ip:127.0.0.1", "-storetype",
+				"PKCS12", "-keystore", keyStore.getAbsolutePath(),
+				"-storepass", BENCHMARK_PASSWORD, "-keypass",
+				BENCHMARK_PASSWORD).inheritIO().start();
+		if (keytool.waitFor() != 0) {
+			throw new IllegalStateException("keytool failed");
+		}
+		return keyStore;
+	}
+
+	private static SSLContext createSSLContext(File keyStore)
+			throws Exception {
+		KeyStore store = KeyStore.getInstance("PKCS12");
+		try (InputStream in = new FileInputStream(keyStore);) {
+			store.load(in, BENCHMARK_PASSWORD.toCharArray());
+		}
+		KeyManagerFactory keyManagers = KeyManagerFactory
+				.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagers.init(store, BENCHMARK_PASSWORD.toCharArray());
+		SSLContext context = SSLContext.getInstance("TLS");
+		context.init(keyManagers.getKeyManagers(), null, null);
+		return context;
+	}
+}